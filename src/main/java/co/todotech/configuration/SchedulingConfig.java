@@ -6,5 +6,6 @@ import org.springframework.scheduling.annotation.EnableScheduling;
 @Configuration
 @EnableScheduling
 public class SchedulingConfig {
-    // Habilita la ejecución programada para limpiar tokens expirados
+    // Habilita la ejecución programada (purgas, outbox, auditoría, revocaciones...).
+    // El tamaño del pool del scheduler se fija con spring.task.scheduling.pool.size
 }
\ No newline at end of file
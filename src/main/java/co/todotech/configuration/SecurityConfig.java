@@ -1,16 +1,19 @@
 package co.todotech.configuration;
 
+import co.todotech.security.BoundedPasswordEncoder;
 import co.todotech.security.JwtAuthenticationFilter;
-import co.todotech.security.JwtUtil;
 import co.todotech.security.TokenBlacklistService;
+import co.todotech.security.UserTokenEpochCache;
+import co.todotech.security.VerifiedTokenCache;
+import co.todotech.service.impl.RegistroSesiones;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
@@ -24,12 +27,19 @@ import java.util.Arrays;
 @RequiredArgsConstructor
 public class SecurityConfig {
 
-    private final JwtUtil jwtUtil;
+    private final VerifiedTokenCache verifiedTokenCache;
     private final TokenBlacklistService tokenBlacklistService;
-
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    private final UserTokenEpochCache userTokenEpochCache;
+    private final RegistroSesiones registroSesiones;
+
+    // BCrypt en un pool acotado: los logins simultáneos no ocupan todos los núcleos
+    @Bean(destroyMethod = "shutdown")
+    public BoundedPasswordEncoder passwordEncoder(
+            @Value("${security.bcrypt.strength:10}") int strength,
+            @Value("${security.hashing.threads:2}") int threads,
+            @Value("${security.hashing.queue-capacity:64}") int queueCapacity,
+            @Value("${security.hashing.timeout-ms:10000}") long timeoutMs) {
+        return new BoundedPasswordEncoder(strength, threads, queueCapacity, timeoutMs);
     }
 
     @Bean
@@ -40,6 +50,9 @@ public class SecurityConfig {
                 .sessionManagement(session ->
                         session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
+                        // ⏩ Redespacho de una respuesta asíncrona: la petición original ya pasó la autorización
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
                         // 🔓 ENDPOINTS PÚBLICOS (sin autenticación) - ✅ AGREGADOS MONITORING
                         .requestMatchers(
                                 "/usuarios/login",
@@ -63,7 +76,8 @@ public class SecurityConfig {
                         // 🔒 TODAS LAS DEMÁS REQUESTS REQUIEREN AUTENTICACIÓN
                         .anyRequest().authenticated()
                 )
-                .addFilterBefore(new JwtAuthenticationFilter(jwtUtil, tokenBlacklistService),
+                .addFilterBefore(new JwtAuthenticationFilter(verifiedTokenCache, tokenBlacklistService, userTokenEpochCache,
+                                registroSesiones),
                         UsernamePasswordAuthenticationFilter.class);
 
         return http.build();
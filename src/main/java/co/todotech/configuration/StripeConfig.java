@@ -0,0 +1,39 @@
+package co.todotech.configuration;
+
+import com.stripe.StripeClient;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Cliente de Stripe compartido, con timeouts propios en lugar de la configuración global
+ * {@code Stripe.apiKey}. El SDK usa HttpURLConnection, cuyas conexiones keep-alive las
+ * reutiliza el pool del JDK; {@code http.maxConnections} fija cuántas se conservan por host.
+ */
+@Slf4j
+@Configuration
+public class StripeConfig {
+
+    @Bean
+    public StripeClient stripeClient(
+            @Value("${stripe.secret-key}") String secretKey,
+            @Value("${stripe.connect-timeout-ms:3000}") int connectTimeoutMs,
+            @Value("${stripe.read-timeout-ms:5000}") int readTimeoutMs,
+            @Value("${stripe.max-network-retries:1}") int maxNetworkRetries,
+            @Value("${stripe.max-idle-connections:20}") int maxIdleConnections) {
+        // Se lee una sola vez, al abrir la primera conexión HTTP de la JVM; no pisa un valor explícito
+        if (System.getProperty("http.maxConnections") == null) {
+            System.setProperty("http.maxConnections", String.valueOf(maxIdleConnections));
+        }
+
+        log.info("Stripe client configured - connectTimeout: {}ms, readTimeout: {}ms, retries: {}",
+                connectTimeoutMs, readTimeoutMs, maxNetworkRetries);
+        return StripeClient.builder()
+                .setApiKey(secretKey)
+                .setConnectTimeout(connectTimeoutMs)
+                .setReadTimeout(readTimeoutMs)
+                .setMaxNetworkRetries(maxNetworkRetries)
+                .build();
+    }
+}
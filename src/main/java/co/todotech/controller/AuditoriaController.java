@@ -0,0 +1,52 @@
+package co.todotech.controller;
+
+import co.todotech.model.dto.MensajeDto;
+import co.todotech.model.dto.auditoria.EstadoAuditoriaDto;
+import co.todotech.model.dto.auditoria.PaginaAuditoriaDto;
+import co.todotech.model.enums.EntidadAuditada;
+import co.todotech.service.AuditoriaService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/admin/auditoria")
+public class AuditoriaController {
+
+    private final AuditoriaService auditoriaService;
+
+    // Rango [desde, hasta) paginado por (fecha, id): para la página siguiente enviar
+    // hasta=siguienteHasta y antesDeId=siguienteAntesDeId de la respuesta
+    @GetMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<MensajeDto<PaginaAuditoriaDto>> consultarAuditoria(
+            @RequestParam("desde") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @RequestParam("hasta") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime hasta,
+            @RequestParam(value = "antesDeId", required = false) Long antesDeId,
+            @RequestParam(value = "entidad", required = false) EntidadAuditada entidad,
+            @RequestParam(value = "entidadId", required = false) Long entidadId,
+            @RequestParam(value = "limite", required = false) Integer limite) {
+        try {
+            PaginaAuditoriaDto pagina = auditoriaService.consultar(desde, hasta, antesDeId, entidad, entidadId, limite);
+            return ResponseEntity.ok(new MensajeDto<>(false, "Registros de auditoría obtenidos", pagina));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new MensajeDto<>(true, e.getMessage(), null));
+        }
+    }
+
+    @GetMapping("/estado")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<MensajeDto<EstadoAuditoriaDto>> obtenerEstadoAuditoria() {
+        try {
+            EstadoAuditoriaDto estado = auditoriaService.obtenerEstado();
+            return ResponseEntity.ok(new MensajeDto<>(false, "Estado del buffer de auditoría", estado));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new MensajeDto<>(true, e.getMessage(), null));
+        }
+    }
+}
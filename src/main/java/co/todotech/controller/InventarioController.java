@@ -0,0 +1,63 @@
+package co.todotech.controller;
+
+import co.todotech.model.dto.MensajeDto;
+import co.todotech.model.dto.inventario.MovimientoInventarioDto;
+import co.todotech.model.dto.inventario.StockEnFechaDto;
+import co.todotech.service.InventarioService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/admin/inventario")
+public class InventarioController {
+
+    private final InventarioService inventarioService;
+
+    // Sin 'fecha' devuelve el stock actual según el libro
+    @GetMapping("/productos/{id}/stock")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<MensajeDto<StockEnFechaDto>> consultarStockEnFecha(
+            @PathVariable("id") Long id,
+            @RequestParam(value = "fecha", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fecha) {
+        try {
+            StockEnFechaDto stock = inventarioService.consultarStockEn(id, fecha);
+            return ResponseEntity.ok(new MensajeDto<>(false, "Stock reconstruido desde el libro de inventario", stock));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new MensajeDto<>(true, e.getMessage(), null));
+        }
+    }
+
+    @GetMapping("/stock")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<MensajeDto<List<StockEnFechaDto>>> reporteStockEnFecha(
+            @RequestParam(value = "fecha", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fecha) {
+        try {
+            List<StockEnFechaDto> reporte = inventarioService.reporteStockEn(fecha);
+            return ResponseEntity.ok(new MensajeDto<>(false, "Reporte de stock generado", reporte));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new MensajeDto<>(true, e.getMessage(), null));
+        }
+    }
+
+    @GetMapping("/productos/{id}/movimientos")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<MensajeDto<List<MovimientoInventarioDto>>> listarMovimientos(
+            @PathVariable("id") Long id,
+            @RequestParam("desde") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @RequestParam("hasta") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime hasta,
+            @RequestParam(value = "limite", required = false) Integer limite) {
+        try {
+            List<MovimientoInventarioDto> movimientos = inventarioService.listarMovimientos(id, desde, hasta, limite);
+            return ResponseEntity.ok(new MensajeDto<>(false, "Movimientos de inventario obtenidos", movimientos));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new MensajeDto<>(true, e.getMessage(), null));
+        }
+    }
+}
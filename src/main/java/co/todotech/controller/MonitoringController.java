@@ -1,8 +1,13 @@
 package co.todotech.controller;
 
 import co.todotech.model.dto.MensajeDto;
+import co.todotech.model.dto.monitoreo.EstadoHashingDto;
+import co.todotech.model.dto.monitoreo.EstadoPasarelaDto;
 import co.todotech.model.enums.EstadoOrden;
+import co.todotech.security.BoundedPasswordEncoder;
+import co.todotech.service.impl.EstadisticasOrdenesAggregator;
 import co.todotech.service.impl.OrdenServiceImpl;
+import co.todotech.service.impl.PaymentGatewayFactory;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
@@ -19,6 +24,9 @@ import java.util.Map;
 public class MonitoringController {
 
     private final OrdenServiceImpl ordenService;
+    private final EstadisticasOrdenesAggregator estadisticasOrdenes;
+    private final BoundedPasswordEncoder passwordEncoder;
+    private final PaymentGatewayFactory paymentGatewayFactory;
 
     /**
      * ✅ ENDPOINT PÚBLICO PARA HEALTH CHECK
@@ -39,6 +47,7 @@ public class MonitoringController {
                             "/api/monitoring/health",
                             "/api/monitoring/ordenes/{id}/estado",
                             "/api/monitoring/ordenes/summary",
+                            "/api/monitoring/ordenes/summary/db",
                             "/api/monitoring/test"
                     )
             );
@@ -106,6 +115,7 @@ public class MonitoringController {
     /**
      * ✅ ENDPOINT PARA REPORTE GENERAL
      * URL: GET /api/monitoring/ordenes/summary
+     * Contadores en memoria de este nodo; el total global está en /ordenes/summary/db
      */
     @GetMapping("/ordenes/summary")
     @PreAuthorize("hasRole('ADMIN') or hasRole('VENDEDOR')")
@@ -113,7 +123,7 @@ public class MonitoringController {
         try {
             log.info("📈 MONITORING_SUMMARY - Generando resumen de órdenes");
 
-            Map<String, Object> summary = ordenService.getOrdenesSummaryForMonitoring();
+            Map<String, Object> summary = estadisticasOrdenes.obtenerResumen();
 
             log.info("✅ MONITORING_SUMMARY_SUCCESS - Total órdenes: {}, Pagadas: {}, Ventas: {}",
                     summary.get("totalOrdenes"), summary.get("totalPagadas"), summary.get("totalVentas"));
@@ -128,6 +138,28 @@ public class MonitoringController {
         }
     }
 
+    /**
+     * ✅ ENDPOINT PARA CONTRASTAR EL RESUMEN EN MEMORIA CON LA BD (GROUP BY)
+     * URL: GET /api/monitoring/ordenes/summary/db
+     */
+    @GetMapping("/ordenes/summary/db")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<MensajeDto<Map<String, Object>>> getOrdenesSummaryDesdeBd() {
+        try {
+            log.info("🗄️ MONITORING_SUMMARY_DB - Generando resumen de órdenes desde la base de datos");
+
+            Map<String, Object> summary = ordenService.getOrdenesSummaryForMonitoring();
+
+            return ResponseEntity.ok()
+                    .body(new MensajeDto<>(false, "Resumen de órdenes generado exitosamente", summary));
+
+        } catch (Exception e) {
+            log.error("❌ MONITORING_API_ERROR - Error generando resumen desde BD: {}", e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(new MensajeDto<>(true, "Error al generar resumen: " + e.getMessage(), null));
+        }
+    }
+
     /**
      * ✅ ENDPOINT PARA ORDENES POR ESTADO
      * URL: GET /api/monitoring/ordenes/estado/{estado}
@@ -211,6 +243,7 @@ public class MonitoringController {
     /**
      * ✅ ENDPOINT PARA ESTADÍSTICAS RÁPIDAS
      * URL: GET /api/monitoring/estadisticas
+     * Mismos contadores por nodo que /ordenes/summary
      */
     @GetMapping("/estadisticas")
     @PreAuthorize("hasRole('ADMIN')")
@@ -218,13 +251,14 @@ public class MonitoringController {
         try {
             log.info("📊 MONITORING_STATS - Generando estadísticas rápidas");
 
-            Map<String, Object> summary = ordenService.getOrdenesSummaryForMonitoring();
+            Map<String, Object> summary = estadisticasOrdenes.obtenerResumen();
 
             Map<String, Object> estadisticas = Map.of(
                     "totalOrdenes", summary.get("totalOrdenes"),
                     "totalPagadas", summary.get("totalPagadas"),
                     "totalVentas", summary.get("totalVentas"),
-                    "timestamp", summary.get("timestamp")
+                    "timestamp", summary.get("timestamp"),
+                    "alcance", summary.get("alcance")
             );
 
             log.info("✅ MONITORING_STATS_SUCCESS - Estadísticas generadas");
@@ -238,4 +272,42 @@ public class MonitoringController {
                     .body(new MensajeDto<>(true, "Error al generar estadísticas: " + e.getMessage(), null));
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * ✅ ENDPOINT PARA EL POOL DE HASHING DE CONTRASEÑAS
+     * URL: GET /api/monitoring/hashing
+     */
+    @GetMapping("/hashing")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<MensajeDto<EstadoHashingDto>> getEstadoHashing() {
+        try {
+            EstadoHashingDto estado = passwordEncoder.estado();
+            log.info("🔐 MONITORING_HASHING - enCola: {}, esperaMediaMs: {}, rechazadas: {}",
+                    estado.enCola(), estado.esperaMediaMs(), estado.rechazadas());
+            return ResponseEntity.ok(new MensajeDto<>(false, "Estado del pool de hashing", estado));
+        } catch (Exception e) {
+            log.error("❌ MONITORING_API_ERROR - Error consultando el pool de hashing: {}", e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(new MensajeDto<>(true, "Error al consultar el pool de hashing: " + e.getMessage(), null));
+        }
+    }
+
+    /**
+     * ✅ ENDPOINT PARA LA SALUD DE LAS PASARELAS DE PAGO
+     * URL: GET /api/monitoring/pasarelas
+     */
+    @GetMapping("/pasarelas")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<MensajeDto<List<EstadoPasarelaDto>>> getEstadoPasarelas() {
+        try {
+            List<EstadoPasarelaDto> pasarelas = paymentGatewayFactory.gatewayStatus();
+            pasarelas.forEach(p -> log.info("💳 MONITORING_GATEWAY - pasarela: {}, circuito: {}, llamadas: {}, tasaError: {}, latenciaMediaMs: {}",
+                    p.pasarela(), p.circuito(), p.llamadas(), p.tasaError(), p.latenciaMediaMs()));
+            return ResponseEntity.ok(new MensajeDto<>(false, "Estado de las pasarelas de pago", pasarelas));
+        } catch (Exception e) {
+            log.error("❌ MONITORING_API_ERROR - Error consultando las pasarelas de pago: {}", e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(new MensajeDto<>(true, "Error al consultar las pasarelas de pago: " + e.getMessage(), null));
+        }
+    }
+}
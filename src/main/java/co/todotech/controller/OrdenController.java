@@ -4,6 +4,9 @@ import co.todotech.model.dto.MensajeDto;
 import co.todotech.model.dto.ordenventa.CreateOrdenDto;
 import co.todotech.model.dto.ordenventa.OrdenConDetallesDto;
 import co.todotech.model.dto.ordenventa.OrdenDto;
+import co.todotech.model.dto.ordenventa.PaginaOrdenesDto;
+import co.todotech.model.dto.ordenventa.TransicionMasivaRequest;
+import co.todotech.model.dto.ordenventa.TransicionMasivaResultadoDto;
 import co.todotech.model.enums.EstadoOrden;
 import co.todotech.service.OrdenService;
 import jakarta.validation.Valid;
@@ -118,6 +121,19 @@ public class OrdenController {
         }
     }
 
+    @PatchMapping("/estado/lote")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('VENDEDOR')")
+    public ResponseEntity<MensajeDto<TransicionMasivaResultadoDto>> transicionarEstadoMasivo(
+            @Valid @RequestBody TransicionMasivaRequest request) {
+        try {
+            TransicionMasivaResultadoDto resultado =
+                    ordenService.transicionarEstadoMasivo(request.ordenIds(), request.nuevoEstado());
+            return ResponseEntity.ok(new MensajeDto<>(false, "Transición masiva de estado completada", resultado));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new MensajeDto<>(true, e.getMessage(), null));
+        }
+    }
+
     // ✅ CORREGIDO: Agregar nombre explícito al @PathVariable
     @PatchMapping("/{id}/pagada")
     @PreAuthorize("hasRole('ADMIN') or hasRole('VENDEDOR') or hasRole('CAJERO')")
@@ -229,6 +245,17 @@ public class OrdenController {
         }
     }
 
+    @PatchMapping("/{id}/recalcular-totales")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<MensajeDto<OrdenDto>> recalcularTotalesOrden(@PathVariable("id") Long id) {
+        try {
+            OrdenDto ordenActualizada = ordenService.recalcularTotalesOrden(id);
+            return ResponseEntity.ok(new MensajeDto<>(false, "Totales de orden recalculados", ordenActualizada));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new MensajeDto<>(true, e.getMessage(), null));
+        }
+    }
+
     @GetMapping("/disponibles-pago")
     @PreAuthorize("hasRole('ADMIN') or hasRole('VENDEDOR') or hasRole('CAJERO')")
     public ResponseEntity<MensajeDto<List<OrdenDto>>> obtenerOrdenesDisponiblesParaPago() {
@@ -239,4 +266,61 @@ public class OrdenController {
             return ResponseEntity.badRequest().body(new MensajeDto<>(true, e.getMessage(), null));
         }
     }
+
+    // ========== LISTADOS PAGINADOS (keyset por fecha, id) ==========
+
+    @GetMapping("/pagina")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<MensajeDto<PaginaOrdenesDto>> listarOrdenes(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limite", required = false) Integer limite) {
+        try {
+            PaginaOrdenesDto pagina = ordenService.listarOrdenes(cursor, limite);
+            return ResponseEntity.ok(new MensajeDto<>(false, "Órdenes obtenidas", pagina));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new MensajeDto<>(true, e.getMessage(), null));
+        }
+    }
+
+    @GetMapping("/cliente/{clienteId}/pagina")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<MensajeDto<PaginaOrdenesDto>> listarOrdenesPorCliente(
+            @PathVariable("clienteId") Long clienteId,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limite", required = false) Integer limite) {
+        try {
+            PaginaOrdenesDto pagina = ordenService.listarOrdenesPorCliente(clienteId, cursor, limite);
+            return ResponseEntity.ok(new MensajeDto<>(false, "Órdenes del cliente obtenidas", pagina));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new MensajeDto<>(true, e.getMessage(), null));
+        }
+    }
+
+    @GetMapping("/vendedor/{vendedorId}/pagina")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<MensajeDto<PaginaOrdenesDto>> listarOrdenesPorVendedor(
+            @PathVariable("vendedorId") Long vendedorId,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limite", required = false) Integer limite) {
+        try {
+            PaginaOrdenesDto pagina = ordenService.listarOrdenesPorVendedor(vendedorId, cursor, limite);
+            return ResponseEntity.ok(new MensajeDto<>(false, "Órdenes del vendedor obtenidas", pagina));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new MensajeDto<>(true, e.getMessage(), null));
+        }
+    }
+
+    @GetMapping("/estado/{estado}/pagina")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<MensajeDto<PaginaOrdenesDto>> listarOrdenesPorEstado(
+            @PathVariable("estado") EstadoOrden estado,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limite", required = false) Integer limite) {
+        try {
+            PaginaOrdenesDto pagina = ordenService.listarOrdenesPorEstado(estado, cursor, limite);
+            return ResponseEntity.ok(new MensajeDto<>(false, "Órdenes por estado obtenidas", pagina));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new MensajeDto<>(true, e.getMessage(), null));
+        }
+    }
 }
\ No newline at end of file
@@ -1,19 +1,26 @@
 package co.todotech.controller;
 
+import co.todotech.exception.pasarela.PasarelaNoDisponibleException;
 import co.todotech.model.dto.MensajeDto;
 import co.todotech.model.dto.pasarela.PaymentIntentRequestDto;
 import co.todotech.model.dto.pasarela.PaymentIntentResponseDto;
 import co.todotech.model.dto.pasarela.PaymentConfirmationDto;
 import co.todotech.model.enums.TipoMetodo;
 import co.todotech.service.PaymentGatewayService;
+import co.todotech.service.impl.PaymentGatewayExecutor;
 import co.todotech.service.impl.PaymentGatewayFactory;
+import co.todotech.service.impl.PaymentStatusCache;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
 @Slf4j
 @RestController
 @RequiredArgsConstructor
@@ -21,10 +28,13 @@ import org.springframework.web.bind.annotation.*;
 public class PaymentGatewayController {
 
     private final PaymentGatewayFactory paymentGatewayFactory;
+    private final PaymentGatewayExecutor paymentGatewayExecutor;
+    private final PaymentStatusCache paymentStatusCache;
 
+    // Las llamadas a la pasarela corren en PaymentGatewayExecutor: el hilo de Tomcat se libera al devolver el future
     @PostMapping("/create-payment-intent")
     @PreAuthorize("hasAnyRole('ADMIN', 'CAJERO')")
-    public ResponseEntity<MensajeDto<PaymentIntentResponseDto>> createPaymentIntent(
+    public CompletableFuture<ResponseEntity<MensajeDto<PaymentIntentResponseDto>>> createPaymentIntent(
             @Valid @RequestBody PaymentIntentRequestDto request) {
         try {
             log.info("Creating payment intent for order: {}, amount: {}",
@@ -33,26 +43,19 @@ public class PaymentGatewayController {
             PaymentGatewayService paymentService =
                     paymentGatewayFactory.getPaymentService(request.paymentMethodType());
 
-            PaymentIntentResponseDto response = paymentService.createPaymentIntent(request);
-
-            if (response.errorMessage() != null) {
-                return ResponseEntity.badRequest()
-                        .body(new MensajeDto<>(true, response.errorMessage(), null));
-            }
-
-            return ResponseEntity.ok()
-                    .body(new MensajeDto<>(false, "Payment intent created successfully", response));
+            return paymentGatewayExecutor.execute(paymentService.getGatewayName(),
+                            () -> paymentService.createPaymentIntent(request))
+                    .thenApply(response -> toResponse(response, "Payment intent created successfully"))
+                    .exceptionally(e -> toErrorResponse("creating payment intent", e));
 
         } catch (Exception e) {
-            log.error("Error creating payment intent: {}", e.getMessage(), e);
-            return ResponseEntity.badRequest()
-                    .body(new MensajeDto<>(true, e.getMessage(), null));
+            return CompletableFuture.completedFuture(toErrorResponse("creating payment intent", e));
         }
     }
 
     @PostMapping("/confirm-payment")
     @PreAuthorize("hasAnyRole('ADMIN', 'CAJERO')")
-    public ResponseEntity<MensajeDto<PaymentIntentResponseDto>> confirmPayment(
+    public CompletableFuture<ResponseEntity<MensajeDto<PaymentIntentResponseDto>>> confirmPayment(
             @Valid @RequestBody PaymentConfirmationDto confirmation) {
         try {
             log.info("Confirming payment: {}", confirmation.paymentIntentId());
@@ -60,26 +63,24 @@ public class PaymentGatewayController {
             // ✅ CORREGIDO: Determinar servicio dinámicamente
             PaymentGatewayService paymentService = determinePaymentService(confirmation.paymentIntentId());
 
-            PaymentIntentResponseDto response = paymentService.confirmPayment(confirmation);
-
-            if (response.errorMessage() != null) {
-                return ResponseEntity.badRequest()
-                        .body(new MensajeDto<>(true, response.errorMessage(), null));
-            }
-
-            return ResponseEntity.ok()
-                    .body(new MensajeDto<>(false, "Payment confirmed successfully", response));
+            return paymentGatewayExecutor.execute(paymentService.getGatewayName(),
+                            () -> paymentService.confirmPayment(confirmation))
+                    .whenComplete((response, e) -> {
+                        if (response != null) {
+                            paymentStatusCache.store(confirmation.paymentIntentId(), response);
+                        }
+                    })
+                    .thenApply(response -> toResponse(response, "Payment confirmed successfully"))
+                    .exceptionally(e -> toErrorResponse("confirming payment", e));
 
         } catch (Exception e) {
-            log.error("Error confirming payment: {}", e.getMessage(), e);
-            return ResponseEntity.badRequest()
-                    .body(new MensajeDto<>(true, e.getMessage(), null));
+            return CompletableFuture.completedFuture(toErrorResponse("confirming payment", e));
         }
     }
 
     @GetMapping("/payment-status/{paymentIntentId}")
     @PreAuthorize("hasAnyRole('ADMIN', 'CAJERO')")
-    public ResponseEntity<MensajeDto<PaymentIntentResponseDto>> getPaymentStatus(
+    public CompletableFuture<ResponseEntity<MensajeDto<PaymentIntentResponseDto>>> getPaymentStatus(
             @PathVariable("paymentIntentId") String paymentIntentId) { // ✅ CORREGIDO: Nombre explícito del parámetro
         try {
             log.info("Getting payment status for: {}", paymentIntentId);
@@ -87,16 +88,39 @@ public class PaymentGatewayController {
             // ✅ CORREGIDO: Determinar servicio dinámicamente
             PaymentGatewayService paymentService = determinePaymentService(paymentIntentId);
 
-            PaymentIntentResponseDto response = paymentService.getPaymentStatus(paymentIntentId);
-
-            return ResponseEntity.ok()
-                    .body(new MensajeDto<>(false, "Payment status retrieved", response));
+            // Las consultas repetidas del mismo intent se sirven de la caché o comparten la llamada en curso
+            return paymentStatusCache.get(paymentIntentId, () -> paymentGatewayExecutor.execute(
+                            paymentService.getGatewayName(), () -> paymentService.getPaymentStatus(paymentIntentId)))
+                    .thenApply(response -> ResponseEntity.ok()
+                            .body(new MensajeDto<>(false, "Payment status retrieved", response)))
+                    .exceptionally(e -> toErrorResponse("getting payment status", e));
 
         } catch (Exception e) {
-            log.error("Error getting payment status: {}", e.getMessage(), e);
+            return CompletableFuture.completedFuture(toErrorResponse("getting payment status", e));
+        }
+    }
+
+    private ResponseEntity<MensajeDto<PaymentIntentResponseDto>> toResponse(PaymentIntentResponseDto response,
+                                                                            String successMessage) {
+        if (response.errorMessage() != null) {
             return ResponseEntity.badRequest()
-                    .body(new MensajeDto<>(true, e.getMessage(), null));
+                    .body(new MensajeDto<>(true, response.errorMessage(), null));
+        }
+        return ResponseEntity.ok()
+                .body(new MensajeDto<>(false, successMessage, response));
+    }
+
+    // Pasarela caída, saturada o lenta → 503 para que el cliente reintente; el resto → 400 como antes
+    private ResponseEntity<MensajeDto<PaymentIntentResponseDto>> toErrorResponse(String operation, Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof PasarelaNoDisponibleException) {
+            log.warn("Payment gateway unavailable while {}: {}", operation, cause.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(new MensajeDto<>(true, cause.getMessage(), null));
         }
+        log.error("Error {}: {}", operation, cause.getMessage(), cause);
+        return ResponseEntity.badRequest()
+                .body(new MensajeDto<>(true, cause.getMessage(), null));
     }
 
     /**
@@ -0,0 +1,45 @@
+package co.todotech.controller;
+
+import co.todotech.model.dto.MensajeDto;
+import co.todotech.model.dto.sesion.SesionDto;
+import co.todotech.service.SesionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/admin/sesiones")
+public class SesionController {
+
+    private final SesionService sesionService;
+
+    @GetMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<MensajeDto<List<SesionDto>>> listarSesiones(
+            @RequestParam(value = "usuarioId", required = false) Long usuarioId) {
+        try {
+            List<SesionDto> sesiones = sesionService.listarSesiones(usuarioId);
+            return ResponseEntity.ok(new MensajeDto<>(false, "Sesiones activas obtenidas", sesiones));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new MensajeDto<>(true, e.getMessage(), null));
+        }
+    }
+
+    @DeleteMapping("/{jti}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<MensajeDto<String>> expulsarSesion(@PathVariable("jti") String jti) {
+        try {
+            sesionService.expulsarSesion(jti);
+            log.info("🚫 SESSION_KILL - Sesión {} cerrada por un administrador", jti);
+            return ResponseEntity.ok(new MensajeDto<>(false, "Sesión cerrada exitosamente", null));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(new MensajeDto<>(true, e.getMessage(), null));
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package co.todotech.controller;
+
+import co.todotech.exception.pasarela.FirmaWebhookInvalidaException;
+import co.todotech.model.dto.MensajeDto;
+import co.todotech.service.StripeWebhookService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/stripe")
+public class StripeWebhookController {
+
+    private final StripeWebhookService stripeWebhookService;
+
+    // Público (/stripe/**): la autenticación es la firma. El cuerpo se recibe sin convertir porque la firma es sobre los bytes exactos
+    @PostMapping(value = "/webhook", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<MensajeDto<String>> recibirEvento(
+            @RequestBody String payload,
+            @RequestHeader(value = "Stripe-Signature", required = false) String firma) {
+        try {
+            boolean nuevo = stripeWebhookService.registrarEvento(payload, firma);
+            return ResponseEntity.ok(new MensajeDto<>(false, nuevo ? "Evento recibido" : "Evento ya recibido"));
+        } catch (FirmaWebhookInvalidaException | IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new MensajeDto<>(true, e.getMessage()));
+        } catch (Exception e) {
+            // Sin 2xx Stripe reenvía el evento más tarde
+            log.error("❌ Error guardando evento de Stripe: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new MensajeDto<>(true, "No se pudo registrar el evento"));
+        }
+    }
+}
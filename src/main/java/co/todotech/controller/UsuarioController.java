@@ -3,9 +3,11 @@ package co.todotech.controller;
 import co.todotech.model.dto.MensajeDto;
 import co.todotech.model.dto.usuario.LoginResponse;
 import co.todotech.model.dto.usuario.UsuarioDto;
+import co.todotech.model.enums.MotivoCierreSesion;
 import co.todotech.model.enums.TipoUsuario;
 import co.todotech.security.JwtUtil;
 import co.todotech.security.TokenBlacklistService;
+import co.todotech.service.SesionService;
 import co.todotech.service.UsuarioService;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
@@ -28,6 +30,7 @@ public class UsuarioController {
     private final UsuarioService usuarioService;
     private final TokenBlacklistService tokenBlacklistService;
     private final JwtUtil jwtUtil;
+    private final SesionService sesionService;
 
     // Login - PÚBLICO
     @PostMapping("/login")
@@ -383,6 +386,7 @@ public class UsuarioController {
                 }
 
                 tokenBlacklistService.blacklistToken(token);
+                sesionService.cerrarSesion(token, MotivoCierreSesion.LOGOUT);
 
                 // Limpiar el contexto de seguridad
                 SecurityContextHolder.clearContext();
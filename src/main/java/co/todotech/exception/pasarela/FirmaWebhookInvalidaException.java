@@ -0,0 +1,14 @@
+package co.todotech.exception.pasarela;
+
+/**
+ * La petición al webhook no trae una firma válida de la pasarela (o el secreto no está configurado).
+ */
+public class FirmaWebhookInvalidaException extends RuntimeException {
+    public FirmaWebhookInvalidaException(String message) {
+        super(message);
+    }
+
+    public FirmaWebhookInvalidaException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,15 @@
+package co.todotech.exception.pasarela;
+
+/**
+ * La pasarela de pago no respondió a tiempo, está saturada o tiene el circuito abierto.
+ * A diferencia de un pago rechazado, la operación se puede reintentar más tarde.
+ */
+public class PasarelaNoDisponibleException extends RuntimeException {
+    public PasarelaNoDisponibleException(String message) {
+        super(message);
+    }
+
+    public PasarelaNoDisponibleException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
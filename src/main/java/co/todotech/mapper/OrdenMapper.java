@@ -48,6 +48,8 @@ public interface OrdenMapper {
     @Mapping(target = "subtotal", ignore = true)
     @Mapping(target = "impuestos", ignore = true)
     @Mapping(target = "total", ignore = true)
+    // El estado solo cambia por la transición validada de OrdenServiceImpl (reservas, eventos, estadísticas)
+    @Mapping(target = "estado", ignore = true)
     // ✅ IMPORTANTE: NO ignorar descuento en update
     void updateOrdenFromDto(OrdenDto ordenDto, @MappingTarget Orden orden);
 
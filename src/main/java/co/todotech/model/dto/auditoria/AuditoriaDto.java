@@ -0,0 +1,17 @@
+package co.todotech.model.dto.auditoria;
+
+import co.todotech.model.enums.AccionAuditoria;
+import co.todotech.model.enums.EntidadAuditada;
+
+import java.time.LocalDateTime;
+
+public record AuditoriaDto(
+        Long id,
+        LocalDateTime fecha,
+        EntidadAuditada entidad,
+        Long entidadId,
+        AccionAuditoria accion,
+        String usuario,
+        String detalle
+) {
+}
@@ -0,0 +1,16 @@
+package co.todotech.model.dto.auditoria;
+
+import co.todotech.model.enums.PoliticaDesbordeAuditoria;
+
+/**
+ * Estado del buffer de auditoría: cuántos registros esperan escritura y qué pasó con los desbordes.
+ */
+public record EstadoAuditoriaDto(
+        int capacidad,
+        long pendientes,
+        long escritos,
+        long escritosDirecto,
+        long descartados,
+        PoliticaDesbordeAuditoria politicaDesborde
+) {
+}
@@ -0,0 +1,15 @@
+package co.todotech.model.dto.auditoria;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Página de auditoría por keyset (fecha, id): la siguiente se pide con hasta=siguienteHasta y
+// antesDeId=siguienteAntesDeId; ambos son null en la última página
+public record PaginaAuditoriaDto(
+        List<AuditoriaDto> registros,
+        LocalDateTime siguienteHasta,
+        Long siguienteAntesDeId,
+        boolean hayMas,
+        int limite
+) {
+}
@@ -0,0 +1,12 @@
+package co.todotech.model.dto.detalleorden;
+
+/**
+ * Cantidad actual de una línea y la orden a la que pertenece.
+ */
+public record CantidadLineaDto(
+        Long detalleId,
+        Long ordenId,
+        Long productoId,
+        Integer cantidad
+) {
+}
@@ -0,0 +1,19 @@
+package co.todotech.model.dto.eventos;
+
+import co.todotech.model.enums.TipoEventoDominio;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Evento tal como lo reciben los listeners. {@code id} es el del outbox: como la entrega
+ * es al menos una vez, sirve para descartar duplicados.
+ */
+public record EventoDominioDto(
+        Long id,
+        TipoEventoDominio tipo,
+        Long agregadoId,
+        Map<String, Object> datos,
+        LocalDateTime fechaCreacion
+) {
+}
@@ -0,0 +1,16 @@
+package co.todotech.model.dto.inventario;
+
+import co.todotech.model.enums.EstadoProducto;
+
+/**
+ * Stock de un producto visto por las órdenes en curso: disponible = stock - reservado.
+ */
+public record DisponibilidadStockDto(
+        Long productoId,
+        String nombre,
+        EstadoProducto estado,
+        Integer stock,
+        Integer reservado,
+        Integer disponible
+) {
+}
@@ -0,0 +1,11 @@
+package co.todotech.model.dto.inventario;
+
+/**
+ * Línea de una orden abierta creada antes de las reservas (su stock ya fue descontado).
+ */
+public record LineaSinReservaDto(
+        Long ordenId,
+        Long productoId,
+        Integer cantidad
+) {
+}
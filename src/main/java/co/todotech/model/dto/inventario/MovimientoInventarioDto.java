@@ -0,0 +1,15 @@
+package co.todotech.model.dto.inventario;
+
+import co.todotech.model.enums.TipoMovimiento;
+
+import java.time.LocalDateTime;
+
+public record MovimientoInventarioDto(
+        Long id,
+        Long productoId,
+        TipoMovimiento tipo,
+        Integer cantidad,
+        LocalDateTime fecha,
+        String referencia
+) {
+}
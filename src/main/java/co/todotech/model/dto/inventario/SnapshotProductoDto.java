@@ -0,0 +1,14 @@
+package co.todotech.model.dto.inventario;
+
+import co.todotech.model.enums.EstadoProducto;
+
+/**
+ * Lo que el libro de reservas necesita de un producto, sin cargar la entidad.
+ */
+public record SnapshotProductoDto(
+        Long id,
+        String nombre,
+        EstadoProducto estado,
+        Integer stock
+) {
+}
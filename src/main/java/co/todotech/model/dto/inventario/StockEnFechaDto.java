@@ -0,0 +1,16 @@
+package co.todotech.model.dto.inventario;
+
+import java.time.LocalDateTime;
+
+/**
+ * Stock de un producto reconstruido desde el libro de inventario.
+ * {@code fechaSnapshot} es null si no había instantánea y se sumaron todos los movimientos.
+ */
+public record StockEnFechaDto(
+        Long productoId,
+        LocalDateTime fecha,
+        Integer stock,
+        LocalDateTime fechaSnapshot,
+        Long movimientosAplicados
+) {
+}
@@ -0,0 +1,12 @@
+package co.todotech.model.dto.inventario;
+
+/**
+ * Suma de los movimientos de un producto posteriores a su instantánea.
+ */
+public record SumaMovimientosDto(
+        Long productoId,
+        Long cantidad,
+        Long movimientos,
+        Long ultimoMovimientoId
+) {
+}
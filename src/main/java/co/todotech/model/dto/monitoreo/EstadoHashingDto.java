@@ -0,0 +1,19 @@
+package co.todotech.model.dto.monitoreo;
+
+/**
+ * Estado del pool de hashing de contraseñas: ocupación y cuánto esperan las tareas en cola.
+ */
+public record EstadoHashingDto(
+        int hilos,
+        int capacidadCola,
+        int enCola,
+        int activas,
+        long completadas,
+        long rechazadas,
+        long agotadas,
+        double esperaMediaMs,
+        long esperaMaximaMs,
+        double hashMedioMs,
+        int costeBcrypt
+) {
+}
@@ -0,0 +1,24 @@
+package co.todotech.model.dto.monitoreo;
+
+import co.todotech.model.enums.TipoMetodo;
+
+import java.util.List;
+
+/**
+ * Salud de una pasarela de pago en la ventana reciente y los métodos que puede atender.
+ */
+public record EstadoPasarelaDto(
+        String pasarela,
+        List<TipoMetodo> metodos,
+        String circuito,
+        boolean disponible,
+        int enCurso,
+        long llamadas,
+        long errores,
+        long rechazadas,
+        double tasaError,
+        double latenciaMediaMs,
+        long latenciaMaximaMs,
+        long ventanaSegundos
+) {
+}
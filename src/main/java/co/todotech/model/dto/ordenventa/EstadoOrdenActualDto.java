@@ -0,0 +1,13 @@
+package co.todotech.model.dto.ordenventa;
+
+import co.todotech.model.enums.EstadoOrden;
+
+/**
+ * Estado y total de una orden, leídos sin cargar la entidad (transiciones masivas).
+ */
+public record EstadoOrdenActualDto(
+        Long id,
+        EstadoOrden estado,
+        Double total
+) {
+}
@@ -0,0 +1,22 @@
+package co.todotech.model.dto.ordenventa;
+
+import co.todotech.model.enums.EstadoOrden;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+// Proyección ligera de la cabecera de una orden: no toca detalle_orden
+public record OrdenResumenDto(
+        Long id,
+        String numeroOrden,
+        LocalDateTime fecha,
+        EstadoOrden estado,
+        Long clienteId,
+        String clienteNombre,
+        Long vendedorId,
+        String vendedorNombre,
+        Double subtotal,
+        Double descuento,
+        Double impuestos,
+        Double total
+) implements Serializable {}
@@ -0,0 +1,12 @@
+package co.todotech.model.dto.ordenventa;
+
+import java.io.Serializable;
+import java.util.List;
+
+// Página de órdenes por keyset (fecha, id); siguienteCursor es null en la última página
+public record PaginaOrdenesDto(
+        List<OrdenResumenDto> ordenes,
+        String siguienteCursor,
+        boolean hayMas,
+        int limite
+) implements Serializable {}
@@ -0,0 +1,12 @@
+package co.todotech.model.dto.ordenventa;
+
+import co.todotech.model.enums.EstadoOrden;
+
+import java.io.Serializable;
+
+// Fila agregada por estado: cantidad de órdenes y suma de sus totales
+public record ResumenEstadoOrdenDto(
+        EstadoOrden estado,
+        Long cantidad,
+        Double total
+) implements Serializable {}
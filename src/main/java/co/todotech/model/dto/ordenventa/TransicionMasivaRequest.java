@@ -0,0 +1,18 @@
+package co.todotech.model.dto.ordenventa;
+
+import co.todotech.model.enums.EstadoOrden;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.io.Serializable;
+import java.util.List;
+
+public record TransicionMasivaRequest(
+        @NotEmpty(message = "Debe incluir al menos una orden")
+        @Size(max = 5000, message = "No se pueden transicionar más de 5000 órdenes por solicitud")
+        List<Long> ordenIds,
+
+        @NotNull(message = "El nuevo estado es obligatorio")
+        EstadoOrden nuevoEstado
+) implements Serializable {}
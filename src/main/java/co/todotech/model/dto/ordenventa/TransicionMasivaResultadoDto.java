@@ -0,0 +1,19 @@
+package co.todotech.model.dto.ordenventa;
+
+import co.todotech.model.enums.EstadoOrden;
+
+import java.io.Serializable;
+import java.util.Map;
+
+/**
+ * Resultado de una transición masiva de estado.
+ * conflictos = órdenes que cambiaron de estado entre la lectura y el UPDATE condicional.
+ */
+public record TransicionMasivaResultadoDto(
+        EstadoOrden nuevoEstado,
+        int solicitadas,
+        int actualizadas,
+        int sinCambios,
+        int conflictos,
+        Map<Long, String> rechazadas
+) implements Serializable {}
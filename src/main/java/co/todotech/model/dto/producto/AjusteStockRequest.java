@@ -17,7 +17,7 @@ public class AjusteStockRequest implements Serializable {
     private Integer cantidad;
 
     @NotNull(message = "La operación no puede ser nula")
-    @Pattern(regexp = "INCREMENTAR|DECREMENTAR|AJUSTAR",
-            message = "La operación debe ser: INCREMENTAR, DECREMENTAR o AJUSTAR")
+    @Pattern(regexp = "INCREMENTAR|DECREMENTAR|DEVOLUCION|AJUSTAR",
+            message = "La operación debe ser: INCREMENTAR, DECREMENTAR, DEVOLUCION o AJUSTAR")
     private String operacion;
 }
\ No newline at end of file
@@ -0,0 +1,18 @@
+package co.todotech.model.dto.sesion;
+
+import co.todotech.model.enums.TipoUsuario;
+
+import java.time.LocalDateTime;
+
+public record SesionDto(
+        String jti,
+        Long usuarioId,
+        String nombreUsuario,
+        TipoUsuario rol,
+        String terminal,
+        String ip,
+        LocalDateTime fechaInicio,
+        LocalDateTime ultimaActividad,
+        LocalDateTime expiraEn
+) {
+}
@@ -1,4 +1,51 @@
 package co.todotech.model.entities;
 
+import co.todotech.model.enums.AccionAuditoria;
+import co.todotech.model.enums.EntidadAuditada;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Registro de auditoría de cambios sobre usuarios, clientes, productos y pagos.
+ * Solo se inserta (AuditoriaWriter, por lotes JDBC); nunca se actualiza.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "auditoria", indexes = {
+        @Index(name = "idx_auditoria_fecha", columnList = "fecha, id"),
+        @Index(name = "idx_auditoria_entidad_fecha", columnList = "entidad, entidad_id, fecha")
+})
 public class Auditoria {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(nullable = false)
+    private Long id;
+
+    @Column(name = "fecha", nullable = false)
+    private LocalDateTime fecha;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entidad", nullable = false, length = 20)
+    private EntidadAuditada entidad;
+
+    @Column(name = "entidad_id")
+    private Long entidadId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "accion", nullable = false, length = 20)
+    private AccionAuditoria accion;
+
+    // Nombre de usuario autenticado, o "sistema" para procesos internos
+    @Column(name = "usuario", nullable = false, length = 100)
+    private String usuario;
+
+    @Column(name = "detalle", length = 1000)
+    private String detalle;
 }
@@ -0,0 +1,57 @@
+package co.todotech.model.entities;
+
+import co.todotech.model.enums.TipoCorreo;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Correo que agotó sus intentos o cuyo destinatario el servidor rechazó (dead letter).
+ * Se conserva completo para revisarlo o reenviarlo a mano.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "correo_fallido", indexes = {
+        @Index(name = "idx_correo_fallido_fecha", columnList = "fecha_fallo")
+})
+public class CorreoFallido {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(nullable = false)
+    private Long id;
+
+    // Id que tenía en correo_saliente
+    @Column(name = "correo_id", nullable = false)
+    private Long correoId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "tipo", nullable = false, length = 40)
+    private TipoCorreo tipo;
+
+    @Column(name = "destinatario", nullable = false, length = 150)
+    private String destinatario;
+
+    @Column(name = "asunto", nullable = false, length = 255)
+    private String asunto;
+
+    @Column(name = "cuerpo_html", nullable = false, columnDefinition = "TEXT")
+    private String cuerpoHtml;
+
+    @Column(name = "intentos", nullable = false)
+    private Integer intentos;
+
+    @Column(name = "ultimo_error", length = 500)
+    private String ultimoError;
+
+    @Column(name = "fecha_creacion", nullable = false)
+    private LocalDateTime fechaCreacion;
+
+    @Column(name = "fecha_fallo", nullable = false)
+    private LocalDateTime fechaFallo;
+}
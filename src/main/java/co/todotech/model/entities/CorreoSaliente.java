@@ -0,0 +1,64 @@
+package co.todotech.model.entities;
+
+import co.todotech.model.enums.EstadoCorreo;
+import co.todotech.model.enums.TipoCorreo;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Correo pendiente de enviar. EmailServiceImpl lo inserta ya renderizado y
+ * CorreoWorkerPool lo envía por SMTP fuera del hilo de la petición.
+ * Al reclamarlo, un worker adelanta {@code siguienteIntento} (lease): si el nodo cae
+ * a mitad del envío, el correo vuelve a estar disponible cuando vence.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "correo_saliente", indexes = {
+        @Index(name = "idx_correo_estado_intento_id", columnList = "estado, siguiente_intento, id"),
+        @Index(name = "idx_correo_enviado_en", columnList = "enviado_en")
+})
+public class CorreoSaliente {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(nullable = false)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "tipo", nullable = false, length = 40)
+    private TipoCorreo tipo;
+
+    @Column(name = "destinatario", nullable = false, length = 150)
+    private String destinatario;
+
+    @Column(name = "asunto", nullable = false, length = 255)
+    private String asunto;
+
+    @Column(name = "cuerpo_html", nullable = false, columnDefinition = "TEXT")
+    private String cuerpoHtml;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "estado", nullable = false, length = 20)
+    private EstadoCorreo estado;
+
+    @Column(name = "intentos", nullable = false)
+    private Integer intentos;
+
+    @Column(name = "siguiente_intento", nullable = false)
+    private LocalDateTime siguienteIntento;
+
+    @Column(name = "ultimo_error", length = 500)
+    private String ultimoError;
+
+    @Column(name = "fecha_creacion", nullable = false)
+    private LocalDateTime fechaCreacion;
+
+    @Column(name = "enviado_en")
+    private LocalDateTime enviadoEn;
+}
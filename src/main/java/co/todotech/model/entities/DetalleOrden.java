@@ -9,19 +9,27 @@ import lombok.*;
 @AllArgsConstructor
 @Builder
 @Entity
+@NamedEntityGraph(name = DetalleOrden.GRAFO_CON_PRODUCTO, attributeNodes = @NamedAttributeNode("producto"))
+@NamedEntityGraph(name = DetalleOrden.GRAFO_CON_ORDEN_Y_PRODUCTO, attributeNodes = {
+        @NamedAttributeNode("orden"),
+        @NamedAttributeNode("producto")
+})
 @Table(name = "detalle_orden")
 public class DetalleOrden {
 
+    public static final String GRAFO_CON_PRODUCTO = "DetalleOrden.conProducto";
+    public static final String GRAFO_CON_ORDEN_Y_PRODUCTO = "DetalleOrden.conOrdenYProducto";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(nullable = false)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "orden_id", nullable = false)
     private Orden orden;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "producto_id", nullable = false)
     private Producto producto;
 
@@ -0,0 +1,61 @@
+package co.todotech.model.entities;
+
+import co.todotech.model.enums.EstadoEventoOutbox;
+import co.todotech.model.enums.TipoEventoDominio;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Evento de dominio pendiente de despachar (patrón outbox).
+ * Se inserta en la misma transacción que el cambio que lo origina y OutboxWorker
+ * lo entrega después a los EventoDominioListener, al menos una vez.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "evento_outbox", indexes = {
+        @Index(name = "idx_outbox_estado_intento_id", columnList = "estado, siguiente_intento, id"),
+        @Index(name = "idx_outbox_procesado_en", columnList = "procesado_en")
+})
+public class EventoOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(nullable = false)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "tipo", nullable = false, length = 50)
+    private TipoEventoDominio tipo;
+
+    @Column(name = "agregado_id")
+    private Long agregadoId;
+
+    // JSON con los datos del evento
+    @Column(name = "payload", nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "estado", nullable = false, length = 20)
+    private EstadoEventoOutbox estado;
+
+    @Column(name = "intentos", nullable = false)
+    private Integer intentos;
+
+    @Column(name = "siguiente_intento", nullable = false)
+    private LocalDateTime siguienteIntento;
+
+    @Column(name = "ultimo_error", length = 500)
+    private String ultimoError;
+
+    @Column(name = "fecha_creacion", nullable = false)
+    private LocalDateTime fechaCreacion;
+
+    @Column(name = "procesado_en")
+    private LocalDateTime procesadoEn;
+}
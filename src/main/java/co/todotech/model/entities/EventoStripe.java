@@ -0,0 +1,67 @@
+package co.todotech.model.entities;
+
+import co.todotech.model.enums.EstadoEventoStripe;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Evento recibido por el webhook de Stripe. La clave es el id del evento en Stripe
+ * (evt_...): Stripe reenvía un mismo evento hasta recibir un 2xx, y el reenvío no
+ * inserta una fila nueva. StripeWebhookProcessor aplica los pendientes por lotes.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "evento_stripe", indexes = {
+        @Index(name = "idx_evento_stripe_estado_creado", columnList = "estado, creado_en_stripe")
+})
+public class EventoStripe {
+
+    @Id
+    @Column(name = "id", nullable = false, length = 255)
+    private String id;
+
+    @Column(name = "tipo", nullable = false, length = 100)
+    private String tipo;
+
+    @Column(name = "payment_intent_id", length = 100)
+    private String paymentIntentId;
+
+    // metadata.order_id del payment intent
+    @Column(name = "orden_id")
+    private Long ordenId;
+
+    // amount_received del payment intent, en la unidad mínima de la moneda (centavos)
+    @Column(name = "monto_recibido")
+    private Long montoRecibido;
+
+    @Column(name = "moneda", length = 10)
+    private String moneda;
+
+    @Column(name = "payload", nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "estado", nullable = false, length = 20)
+    private EstadoEventoStripe estado;
+
+    @Column(name = "intentos", nullable = false)
+    private Integer intentos;
+
+    @Column(name = "ultimo_error", length = 500)
+    private String ultimoError;
+
+    @Column(name = "creado_en_stripe", nullable = false)
+    private LocalDateTime creadoEnStripe;
+
+    @Column(name = "fecha_recepcion", nullable = false)
+    private LocalDateTime fechaRecepcion;
+
+    @Column(name = "procesado_en")
+    private LocalDateTime procesadoEn;
+}
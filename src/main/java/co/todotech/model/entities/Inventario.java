@@ -1,4 +1,48 @@
 package co.todotech.model.entities;
 
+import co.todotech.model.enums.TipoMovimiento;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Movimiento del libro de inventario: solo se inserta, nunca se modifica ni se borra.
+ * El stock de un producto en una fecha es la última SnapshotInventario anterior a esa
+ * fecha más la suma de {@code cantidad} de los movimientos posteriores a la instantánea.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "inventario_movimiento", indexes = {
+        @Index(name = "idx_movimiento_producto_fecha", columnList = "producto_id, fecha, id"),
+        @Index(name = "idx_movimiento_fecha", columnList = "fecha")
+})
 public class Inventario {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(nullable = false)
+    private Long id;
+
+    @Column(name = "producto_id", nullable = false)
+    private Long productoId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "tipo", nullable = false, length = 20)
+    private TipoMovimiento tipo;
+
+    // Positiva si entra stock, negativa si sale
+    @Column(name = "cantidad", nullable = false)
+    private Integer cantidad;
+
+    @Column(name = "fecha", nullable = false)
+    private LocalDateTime fecha;
+
+    // Origen del movimiento, p. ej. "orden:15"
+    @Column(name = "referencia", length = 100)
+    private String referencia;
 }
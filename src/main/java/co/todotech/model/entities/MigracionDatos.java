@@ -0,0 +1,27 @@
+package co.todotech.model.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Marca de una migración de datos ya aplicada. La clave es el nombre de la migración:
+ * el nodo que inserta la fila es el único que la ejecuta.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "migracion_datos")
+public class MigracionDatos {
+
+    @Id
+    @Column(name = "nombre", nullable = false, length = 100)
+    private String nombre;
+
+    @Column(name = "aplicada_en", nullable = false)
+    private LocalDateTime aplicadaEn;
+}
@@ -3,6 +3,8 @@ package co.todotech.model.entities;
 import co.todotech.model.enums.EstadoOrden;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -14,9 +16,38 @@ import java.util.List;
 @AllArgsConstructor
 @Builder
 @Entity
-@Table(name = "orden_venta")
+// Solo las columnas modificadas: alinear el estado tras el UPDATE condicional no reescribe el resto
+@DynamicUpdate
+// Planes de carga explícitos: todas las asociaciones son LAZY y cada caso de uso elige su grafo
+@NamedEntityGraph(name = Orden.GRAFO_CABECERA, attributeNodes = {
+        @NamedAttributeNode("cliente"),
+        @NamedAttributeNode("vendedor")
+})
+@NamedEntityGraph(name = Orden.GRAFO_CON_DETALLES, attributeNodes = {
+        @NamedAttributeNode("cliente"),
+        @NamedAttributeNode("vendedor"),
+        @NamedAttributeNode("productos")
+})
+@NamedEntityGraph(name = Orden.GRAFO_CON_DETALLES_Y_PRODUCTO, attributeNodes = {
+        @NamedAttributeNode("cliente"),
+        @NamedAttributeNode("vendedor"),
+        @NamedAttributeNode(value = "productos", subgraph = "detalle-producto")
+}, subgraphs = @NamedSubgraph(name = "detalle-producto", attributeNodes = @NamedAttributeNode("producto")))
+@Table(name = "orden_venta", indexes = {
+        // Índices que soportan la paginación por keyset (fecha DESC, id DESC)
+        @Index(name = "idx_orden_fecha_id", columnList = "fecha, id"),
+        @Index(name = "idx_orden_cliente_fecha_id", columnList = "cliente_id, fecha, id"),
+        @Index(name = "idx_orden_vendedor_fecha_id", columnList = "vendedor_id, fecha, id"),
+        @Index(name = "idx_orden_estado_fecha_id", columnList = "estado, fecha, id")
+})
 public class Orden {
 
+    public static final String GRAFO_CABECERA = "Orden.cabecera";
+    public static final String GRAFO_CON_DETALLES = "Orden.conDetalles";
+    public static final String GRAFO_CON_DETALLES_Y_PRODUCTO = "Orden.conDetallesYProducto";
+
+    private static final double TOLERANCIA_TOTALES = 0.005;
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(nullable = false)
@@ -28,15 +59,15 @@ public class Orden {
     @Column(name = "fecha", nullable = false)
     private LocalDateTime fecha;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "cliente_id", nullable = false)
     private Cliente cliente;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "vendedor_id", nullable = false)
     private Usuario vendedor;
 
-    @OneToMany(mappedBy = "orden", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "orden", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     @Builder.Default
     private List<DetalleOrden> productos = new ArrayList<>();
 
@@ -59,24 +90,20 @@ public class Orden {
     @Column(name = "observaciones", length = 1000)
     private String observaciones;
 
-    // ✅ CORREGIDO: Método para calcular los totales automáticamente
+    // Totales incrementales: agregarDetalle/removerDetalle/aplicarCambioLinea ajustan el subtotal
+    // con el delta de la línea y solo se derivan descuento, impuestos y total (O(1)).
+    // Antes de persistir solo se derivan los importes; no se recorren las líneas.
     @PrePersist
     @PreUpdate
-    public void calcularTotales() {
+    public void recalcularDerivados() {
         // ✅ CORREGIDO: Asegurar que el descuento tenga valor por defecto
         if (this.descuento == null) {
             this.descuento = 0.0;
         }
 
-        // Calcular subtotal
-        this.subtotal = this.productos.stream()
-                .mapToDouble(detalle -> {
-                    if (detalle.getSubtotal() == null || detalle.getSubtotal() == 0.0) {
-                        detalle.calcularSubtotal();
-                    }
-                    return detalle.getSubtotal() != null ? detalle.getSubtotal() : 0.0;
-                })
-                .sum();
+        if (this.subtotal == null || this.subtotal < 0) {
+            this.subtotal = 0.0;
+        }
 
         // ✅ CORREGIDO: Solo ajustar descuento si hay productos
         // Si no hay productos (subtotal = 0), mantener el descuento original
@@ -96,26 +123,60 @@ public class Orden {
             this.total = 0.0;
         }
     }
+
+    // Recalculo completo recorriendo todas las líneas: solo bajo demanda o en chequeos de consistencia
+    public void calcularTotales() {
+        this.subtotal = calcularSubtotalDesdeLineas();
+        recalcularDerivados();
+    }
+
+    // true si el subtotal mantenido incrementalmente coincide con la suma de las líneas
+    public boolean totalesConsistentes() {
+        double esperado = calcularSubtotalDesdeLineas();
+        double actual = this.subtotal != null ? this.subtotal : 0.0;
+        return Math.abs(esperado - actual) < TOLERANCIA_TOTALES;
+    }
+
+    // Aplica el cambio de subtotal de una línea existente (p. ej. cambio de cantidad)
+    public void aplicarCambioLinea(Double subtotalAnterior, Double subtotalNuevo) {
+        double anterior = subtotalAnterior != null ? subtotalAnterior : 0.0;
+        double nuevo = subtotalNuevo != null ? subtotalNuevo : 0.0;
+        this.subtotal = (this.subtotal != null ? this.subtotal : 0.0) + (nuevo - anterior);
+        recalcularDerivados();
+    }
+
+    private double calcularSubtotalDesdeLineas() {
+        return this.productos.stream()
+                .mapToDouble(detalle -> {
+                    if (detalle.getSubtotal() == null || detalle.getSubtotal() == 0.0) {
+                        detalle.calcularSubtotal();
+                    }
+                    return detalle.getSubtotal() != null ? detalle.getSubtotal() : 0.0;
+                })
+                .sum();
+    }
+
     // ✅ CORREGIDO: Método para aplicar descuento por porcentaje
     public void aplicarDescuentoPorcentaje(Double porcentajeDescuento) {
         if (porcentajeDescuento < 0 || porcentajeDescuento > 100) {
             throw new IllegalArgumentException("El porcentaje de descuento debe estar entre 0 y 100");
         }
 
-        // Recalcular subtotal primero para asegurar que esté actualizado
-        this.calcularTotales();
+        if (this.subtotal == null) {
+            this.subtotal = 0.0;
+        }
 
-        // Calcular monto del descuento
+        // Calcular monto del descuento sobre el subtotal mantenido incrementalmente
         this.descuento = this.subtotal * (porcentajeDescuento / 100);
 
-        // Recalcular totales con el nuevo descuento
-        this.calcularTotales();
+        // Derivar impuestos y total con el nuevo descuento
+        this.recalcularDerivados();
     }
 
     // ✅ NUEVO: Método para quitar descuento
     public void quitarDescuento() {
         this.descuento = 0.0;
-        this.calcularTotales();
+        this.recalcularDerivados();
     }
 
     // ✅ NUEVO: Método para obtener el monto después del descuento
@@ -131,20 +192,23 @@ public class Orden {
         return (this.descuento / this.subtotal) * 100;
     }
 
-    // Método helper para agregar detalle
+    // Método helper para agregar detalle: suma solo el subtotal de la nueva línea.
+    // Si la colección no está inicializada, Hibernate encola el add sin cargar las demás líneas.
     public void agregarDetalle(DetalleOrden detalle) {
         detalle.setOrden(this);
+        detalle.calcularSubtotal();
         this.productos.add(detalle);
-        // ✅ CORREGIDO: Recalcular totales después de agregar detalle
-        this.calcularTotales();
+        aplicarCambioLinea(0.0, detalle.getSubtotal());
     }
 
-    // Método helper para remover detalle
+    // Método helper para remover detalle: resta solo el subtotal de la línea removida
     public void removerDetalle(DetalleOrden detalle) {
+        Double subtotalLinea = detalle.getSubtotal();
+        if (Hibernate.isInitialized(this.productos)) {
+            this.productos.remove(detalle);
+        }
         detalle.setOrden(null);
-        this.productos.remove(detalle);
-        // ✅ CORREGIDO: Recalcular totales después de remover detalle
-        this.calcularTotales();
+        aplicarCambioLinea(subtotalLinea, 0.0);
     }
 
     // ✅ NUEVO: Método para validar si la orden puede ser modificada
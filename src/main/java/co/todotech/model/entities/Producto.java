@@ -3,6 +3,7 @@ package co.todotech.model.entities;
 import co.todotech.model.enums.EstadoProducto;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.DynamicUpdate;
 
 @Getter
 @Setter
@@ -10,6 +11,8 @@ import lombok.*;
 @AllArgsConstructor
 @Builder
 @Entity
+// Solo las columnas modificadas: editar nombre o precio no reescribe el stock
+@DynamicUpdate
 @Table(name = "producto")
 
 public class Producto {
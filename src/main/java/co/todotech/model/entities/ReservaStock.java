@@ -0,0 +1,50 @@
+package co.todotech.model.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Unidades de un producto apartadas por una orden que aún no se ha pagado.
+ * El stock de producto solo se descuenta al pagar; mientras tanto la reserva
+ * resta del disponible hasta que expira o se libera.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "reserva_stock",
+        uniqueConstraints = @UniqueConstraint(name = "uk_reserva_orden_producto", columnNames = {"orden_id", "producto_id"}),
+        indexes = {
+                @Index(name = "idx_reserva_activa_expira", columnList = "activa, expira_en"),
+                @Index(name = "idx_reserva_producto", columnList = "producto_id")
+        })
+public class ReservaStock {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(nullable = false)
+    private Long id;
+
+    @Column(name = "orden_id", nullable = false)
+    private Long ordenId;
+
+    @Column(name = "producto_id", nullable = false)
+    private Long productoId;
+
+    @Column(name = "cantidad", nullable = false)
+    private Integer cantidad;
+
+    @Column(name = "expira_en", nullable = false)
+    private LocalDateTime expiraEn;
+
+    // false cuando el barrido la liberó: la línea sigue en la orden pero ya no aparta stock
+    @Column(name = "activa", nullable = false)
+    private Boolean activa;
+
+    @Column(name = "fecha_actualizacion", nullable = false)
+    private LocalDateTime fechaActualizacion;
+}
@@ -1,4 +1,71 @@
 package co.todotech.model.entities;
 
+import co.todotech.model.enums.MotivoCierreSesion;
+import co.todotech.model.enums.TipoUsuario;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Sesión abierta con un login: un JWT (jti) en un terminal.
+ * Las filas las escribe SesionWriter en segundo plano; el estado vigente de cada nodo
+ * vive en RegistroSesiones.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "sesion", indexes = {
+        @Index(name = "idx_sesion_jti", columnList = "jti", unique = true),
+        @Index(name = "idx_sesion_usuario_activa", columnList = "usuario_id, activa"),
+        @Index(name = "idx_sesion_activa_expira", columnList = "activa, expira_en")
+})
 public class Sesion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(nullable = false)
+    private Long id;
+
+    @Column(name = "jti", nullable = false, length = 64)
+    private String jti;
+
+    @Column(name = "usuario_id", nullable = false)
+    private Long usuarioId;
+
+    @Column(name = "nombre_usuario", nullable = false, length = 60)
+    private String nombreUsuario;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "rol", nullable = false, length = 30)
+    private TipoUsuario rol;
+
+    // User-Agent del terminal que hizo login
+    @Column(name = "terminal", length = 255)
+    private String terminal;
+
+    @Column(name = "ip", length = 45)
+    private String ip;
+
+    @Column(name = "fecha_inicio", nullable = false)
+    private LocalDateTime fechaInicio;
+
+    @Column(name = "ultima_actividad", nullable = false)
+    private LocalDateTime ultimaActividad;
+
+    @Column(name = "expira_en", nullable = false)
+    private LocalDateTime expiraEn;
+
+    @Column(name = "activa", nullable = false)
+    private boolean activa;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "motivo_cierre", length = 20)
+    private MotivoCierreSesion motivoCierre;
+
+    @Column(name = "fecha_cierre")
+    private LocalDateTime fechaCierre;
 }
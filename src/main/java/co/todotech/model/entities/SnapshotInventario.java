@@ -0,0 +1,39 @@
+package co.todotech.model.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Stock acumulado de un producto hasta el movimiento {@code ultimoMovimientoId} (incluido).
+ * {@code fecha} es la del propio movimiento, no la del momento en que se compactó.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "inventario_snapshot", indexes = {
+        @Index(name = "idx_snapshot_producto_fecha", columnList = "producto_id, fecha")
+})
+public class SnapshotInventario {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(nullable = false)
+    private Long id;
+
+    @Column(name = "producto_id", nullable = false)
+    private Long productoId;
+
+    @Column(name = "stock", nullable = false)
+    private Integer stock;
+
+    @Column(name = "ultimo_movimiento_id", nullable = false)
+    private Long ultimoMovimientoId;
+
+    @Column(name = "fecha", nullable = false)
+    private LocalDateTime fecha;
+}
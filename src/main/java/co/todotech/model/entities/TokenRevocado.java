@@ -0,0 +1,42 @@
+package co.todotech.model.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Token revocado por logout, compartido entre instancias.
+ * Cada nodo mantiene una réplica en memoria (TokenBlacklistService) y lee las filas
+ * nuevas por id creciente; las filas se borran cuando el token ya habría expirado.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "token_revocado", indexes = {
+        @Index(name = "idx_token_revocado_jti", columnList = "jti", unique = true),
+        @Index(name = "idx_token_revocado_fecha", columnList = "fecha_revocacion"),
+        @Index(name = "idx_token_revocado_expira", columnList = "expira_en")
+})
+public class TokenRevocado {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(nullable = false)
+    private Long id;
+
+    @Column(name = "jti", nullable = false, length = 64)
+    private String jti;
+
+    @Column(name = "usuario_id")
+    private Long usuarioId;
+
+    @Column(name = "expira_en", nullable = false)
+    private LocalDateTime expiraEn;
+
+    @Column(name = "fecha_revocacion", nullable = false)
+    private LocalDateTime fechaRevocacion;
+}
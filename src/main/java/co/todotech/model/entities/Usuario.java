@@ -49,4 +49,9 @@ public class Usuario {
     @Column(name = "estado", nullable = false)
     @Builder.Default  // ← ESTA ES LA SOLUCIÓN
     private boolean estado = false;
+
+    // Se incrementa al desactivar, cambiar contraseña o rol: invalida los JWT emitidos antes
+    @Column(name = "token_epoch", nullable = false, columnDefinition = "bigint default 0")
+    @Builder.Default
+    private long tokenEpoch = 0L;
 }
\ No newline at end of file
@@ -0,0 +1,10 @@
+package co.todotech.model.enums;
+
+public enum AccionAuditoria {
+    CREACION,
+    ACTUALIZACION,
+    ELIMINACION,
+    CAMBIO_ESTADO,
+    CAMBIO_PRECIO,
+    CAMBIO_STOCK
+}
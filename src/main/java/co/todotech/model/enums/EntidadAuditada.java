@@ -0,0 +1,8 @@
+package co.todotech.model.enums;
+
+public enum EntidadAuditada {
+    USUARIO,
+    CLIENTE,
+    PRODUCTO,
+    PAGO
+}
@@ -0,0 +1,6 @@
+package co.todotech.model.enums;
+
+public enum EstadoCorreo {
+    PENDIENTE,
+    ENVIADO
+}
@@ -0,0 +1,7 @@
+package co.todotech.model.enums;
+
+public enum EstadoEventoOutbox {
+    PENDIENTE,
+    PROCESADO,
+    FALLIDO
+}
@@ -0,0 +1,9 @@
+package co.todotech.model.enums;
+
+public enum MotivoCierreSesion {
+    LOGOUT,
+    EXPULSADA,
+    LIMITE_EXCEDIDO,
+    CREDENCIALES,
+    EXPIRADA
+}
@@ -0,0 +1,11 @@
+package co.todotech.model.enums;
+
+/**
+ * Qué hacer con un registro de auditoría cuando el buffer en memoria está lleno.
+ */
+public enum PoliticaDesbordeAuditoria {
+    // Se escribe en el momento desde el hilo que audita (sin pérdida, más latencia bajo carga)
+    ESCRIBIR_DIRECTO,
+    // Se descarta y se cuenta (latencia constante, puede perder registros)
+    DESCARTAR
+}
@@ -0,0 +1,6 @@
+package co.todotech.model.enums;
+
+public enum TipoCorreo {
+    NOTIFICACION_INGRESO_ADMIN,
+    RECORDATORIO_CONTRASENA
+}
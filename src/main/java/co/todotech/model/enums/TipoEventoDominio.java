@@ -0,0 +1,15 @@
+package co.todotech.model.enums;
+
+public enum TipoEventoDominio {
+    ORDEN_CREADA,
+    ORDEN_ESTADO_CAMBIADO,
+    ORDEN_ESTADO_CAMBIADO_MASIVO,
+    ORDEN_PAGADA,
+    ORDEN_ELIMINADA,
+    DETALLE_ORDEN_AGREGADO,
+    DETALLE_ORDEN_ACTUALIZADO,
+    DETALLE_ORDEN_ELIMINADO,
+    PAGO_REGISTRADO,
+    PAGO_ACTUALIZADO,
+    PAGO_ESTADO_CAMBIADO_MASIVO
+}
@@ -1,4 +1,14 @@
 package co.todotech.model.enums;
 
+/**
+ * Tipo de un movimiento del libro de inventario. La cantidad del movimiento lleva signo:
+ * VENTA siempre resta, DEVOLUCION y REABASTECIMIENTO suman, AJUSTE e INICIAL pueden ir en ambos sentidos.
+ */
 public enum TipoMovimiento {
+    // Stock con el que un producto entra al libro (alta o productos anteriores al libro)
+    INICIAL,
+    VENTA,
+    DEVOLUCION,
+    AJUSTE,
+    REABASTECIMIENTO
 }
@@ -0,0 +1,51 @@
+package co.todotech.repository;
+
+import co.todotech.model.dto.auditoria.AuditoriaDto;
+import co.todotech.model.entities.Auditoria;
+import co.todotech.model.enums.EntidadAuditada;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface AuditoriaRepository extends JpaRepository<Auditoria, Long> {
+
+    // ========== RANGO [desde, hasta) POR KEYSET (fecha DESC, id DESC) ==========
+    // Sobre idx_auditoria_fecha, del más reciente al más antiguo. Varios registros pueden
+    // compartir fecha (p. ej. CAMBIO_STOCK y ACTUALIZACION de una misma edición), así que
+    // el límite superior es el par (hasta, antesDeId): antesDeId = 0 deja el rango semiabierto.
+
+    String AUDITORIA_SELECT = "SELECT new co.todotech.model.dto.auditoria.AuditoriaDto(" +
+            "a.id, a.fecha, a.entidad, a.entidadId, a.accion, a.usuario, a.detalle) FROM Auditoria a ";
+
+    String KEYSET_CONDICION = "a.fecha >= :desde AND (a.fecha < :hasta OR (a.fecha = :hasta AND a.id < :antesDeId)) ";
+
+    String KEYSET_ORDEN = "ORDER BY a.fecha DESC, a.id DESC";
+
+    @Query(AUDITORIA_SELECT + "WHERE " + KEYSET_CONDICION + KEYSET_ORDEN)
+    List<AuditoriaDto> buscarPorRango(@Param("desde") LocalDateTime desde,
+                                      @Param("hasta") LocalDateTime hasta,
+                                      @Param("antesDeId") Long antesDeId,
+                                      Pageable pageable);
+
+    @Query(AUDITORIA_SELECT + "WHERE a.entidad = :entidad AND " + KEYSET_CONDICION + KEYSET_ORDEN)
+    List<AuditoriaDto> buscarPorEntidadYRango(@Param("entidad") EntidadAuditada entidad,
+                                              @Param("desde") LocalDateTime desde,
+                                              @Param("hasta") LocalDateTime hasta,
+                                              @Param("antesDeId") Long antesDeId,
+                                              Pageable pageable);
+
+    @Query(AUDITORIA_SELECT + "WHERE a.entidad = :entidad AND a.entidadId = :entidadId AND "
+            + KEYSET_CONDICION + KEYSET_ORDEN)
+    List<AuditoriaDto> buscarPorRegistroYRango(@Param("entidad") EntidadAuditada entidad,
+                                               @Param("entidadId") Long entidadId,
+                                               @Param("desde") LocalDateTime desde,
+                                               @Param("hasta") LocalDateTime hasta,
+                                               @Param("antesDeId") Long antesDeId,
+                                               Pageable pageable);
+}
@@ -0,0 +1,9 @@
+package co.todotech.repository;
+
+import co.todotech.model.entities.CorreoFallido;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CorreoFallidoRepository extends JpaRepository<CorreoFallido, Long> {
+}
@@ -0,0 +1,48 @@
+package co.todotech.repository;
+
+import co.todotech.model.entities.CorreoSaliente;
+import co.todotech.model.enums.EstadoCorreo;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface CorreoSalienteRepository extends JpaRepository<CorreoSaliente, Long> {
+
+    // FOR UPDATE SKIP LOCKED (lock timeout -2): los workers de todos los nodos reclaman sin pisarse
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT c FROM CorreoSaliente c WHERE c.estado = :estado AND c.siguienteIntento <= :ahora ORDER BY c.id")
+    List<CorreoSaliente> bloquearPendientes(@Param("estado") EstadoCorreo estado,
+                                           @Param("ahora") LocalDateTime ahora,
+                                           Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE CorreoSaliente c SET c.estado = :estado, c.enviadoEn = :fecha, c.ultimoError = null WHERE c.id = :id")
+    int marcarEnviado(@Param("id") Long id,
+                      @Param("estado") EstadoCorreo estado,
+                      @Param("fecha") LocalDateTime fecha);
+
+    @Modifying
+    @Query("UPDATE CorreoSaliente c SET c.siguienteIntento = :siguiente, c.ultimoError = :error WHERE c.id = :id")
+    int reprogramar(@Param("id") Long id,
+                    @Param("siguiente") LocalDateTime siguiente,
+                    @Param("error") String error);
+
+    long countByEstado(EstadoCorreo estado);
+
+    @Modifying
+    @Query("DELETE FROM CorreoSaliente c WHERE c.estado = :estado AND c.enviadoEn < :limite")
+    int eliminarEnviadosAntesDe(@Param("estado") EstadoCorreo estado,
+                                @Param("limite") LocalDateTime limite);
+}
@@ -1,21 +1,34 @@
 package co.todotech.repository;
 
+import co.todotech.model.dto.detalleorden.CantidadLineaDto;
 import co.todotech.model.entities.DetalleOrden;
 import co.todotech.model.entities.Producto;
 import co.todotech.model.enums.EstadoProducto;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface DetalleOrdenRepository extends JpaRepository<DetalleOrden, Long> {
 
+    // Las operaciones sobre una línea necesitan su orden (estado, totales) y su producto (stock)
+    @Override
+    @EntityGraph(DetalleOrden.GRAFO_CON_ORDEN_Y_PRODUCTO)
+    Optional<DetalleOrden> findById(Long id);
+
+    @EntityGraph(DetalleOrden.GRAFO_CON_PRODUCTO)
     List<DetalleOrden> findByOrdenId(Long ordenId);
 
+    // Solo el id de la orden, para bloquearla antes de cargar la línea
+    @Query("SELECT d.orden.id FROM DetalleOrden d WHERE d.id = :id")
+    Optional<Long> findOrdenIdById(@Param("id") Long id);
+
     Optional<DetalleOrden> findByOrdenIdAndProductoId(Long ordenId, Long productoId);
 
     boolean existsByOrdenIdAndProductoId(Long ordenId, Long productoId);
@@ -24,5 +37,10 @@ public interface DetalleOrdenRepository extends JpaRepository<DetalleOrden, Long
 
     long countByOrdenId(Long ordenId);
 
+    // Validación de stock: solo la cantidad y la orden de cada línea, sin cargar entidades
+    @Query("SELECT new co.todotech.model.dto.detalleorden.CantidadLineaDto(d.id, d.orden.id, d.producto.id, d.cantidad) " +
+            "FROM DetalleOrden d WHERE d.id IN :ids")
+    List<CantidadLineaDto> findCantidadesByIdIn(@Param("ids") Collection<Long> ids);
+
 
 }
\ No newline at end of file
@@ -0,0 +1,36 @@
+package co.todotech.repository;
+
+import co.todotech.model.entities.EventoOutbox;
+import co.todotech.model.enums.EstadoEventoOutbox;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface EventoOutboxRepository extends JpaRepository<EventoOutbox, Long> {
+
+    // FOR UPDATE SKIP LOCKED (lock timeout -2): varios workers drenan en paralelo sin pisarse
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM EventoOutbox e WHERE e.estado = :estado AND e.siguienteIntento <= :ahora ORDER BY e.id")
+    List<EventoOutbox> bloquearPendientes(@Param("estado") EstadoEventoOutbox estado,
+                                         @Param("ahora") LocalDateTime ahora,
+                                         Pageable pageable);
+
+    long countByEstado(EstadoEventoOutbox estado);
+
+    @Modifying
+    @Query("DELETE FROM EventoOutbox e WHERE e.estado = :estado AND e.procesadoEn < :limite")
+    int eliminarProcesadosAntesDe(@Param("estado") EstadoEventoOutbox estado,
+                                  @Param("limite") LocalDateTime limite);
+}
@@ -0,0 +1,41 @@
+package co.todotech.repository;
+
+import co.todotech.model.entities.EventoStripe;
+import co.todotech.model.enums.EstadoEventoStripe;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface EventoStripeRepository extends JpaRepository<EventoStripe, String> {
+
+    // FOR UPDATE SKIP LOCKED (lock timeout -2): varios nodos procesan sin tomar el mismo evento
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM EventoStripe e WHERE e.estado = :estado ORDER BY e.creadoEnStripe, e.fechaRecepcion")
+    List<EventoStripe> bloquearPendientes(@Param("estado") EstadoEventoStripe estado, Pageable pageable);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM EventoStripe e WHERE e.id = :id AND e.estado = :estado")
+    List<EventoStripe> bloquearPorId(@Param("id") String id, @Param("estado") EstadoEventoStripe estado);
+
+    @Modifying
+    @Query("UPDATE EventoStripe e SET e.estado = :estado, e.procesadoEn = :fecha, e.ultimoError = null WHERE e.id IN :ids")
+    int marcar(@Param("ids") Collection<String> ids,
+               @Param("estado") EstadoEventoStripe estado,
+               @Param("fecha") LocalDateTime fecha);
+
+    long countByEstado(EstadoEventoStripe estado);
+}
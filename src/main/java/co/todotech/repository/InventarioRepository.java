@@ -0,0 +1,49 @@
+package co.todotech.repository;
+
+import co.todotech.model.dto.inventario.MovimientoInventarioDto;
+import co.todotech.model.dto.inventario.SumaMovimientosDto;
+import co.todotech.model.entities.Inventario;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface InventarioRepository extends JpaRepository<Inventario, Long> {
+
+    // Cola de un producto tras su instantánea: (desdeId, fecha] sobre idx_movimiento_producto_fecha
+    @Query("SELECT new co.todotech.model.dto.inventario.SumaMovimientosDto(m.productoId, SUM(m.cantidad), COUNT(m), MAX(m.id)) " +
+            "FROM Inventario m WHERE m.productoId = :productoId AND m.id > :desdeId AND m.fecha <= :fecha " +
+            "GROUP BY m.productoId")
+    Optional<SumaMovimientosDto> sumarCola(@Param("productoId") Long productoId,
+                                           @Param("desdeId") Long desdeId,
+                                           @Param("fecha") LocalDateTime fecha);
+
+    // Colas de todos los productos, cada una desde la última instantánea del producto anterior a :fecha
+    @Query("SELECT new co.todotech.model.dto.inventario.SumaMovimientosDto(m.productoId, SUM(m.cantidad), COUNT(m), MAX(m.id)) " +
+            "FROM Inventario m WHERE m.fecha <= :fecha AND m.id > COALESCE(" +
+            "(SELECT MAX(s.ultimoMovimientoId) FROM SnapshotInventario s WHERE s.productoId = m.productoId AND s.fecha <= :fecha), 0) " +
+            "GROUP BY m.productoId")
+    List<SumaMovimientosDto> sumarColasHasta(@Param("fecha") LocalDateTime fecha);
+
+    // Movimientos pendientes de compactar; :hastaId acota a los ya confirmados con seguridad
+    @Query("SELECT new co.todotech.model.dto.inventario.SumaMovimientosDto(m.productoId, SUM(m.cantidad), COUNT(m), MAX(m.id)) " +
+            "FROM Inventario m WHERE m.id > :desdeId AND m.id <= :hastaId GROUP BY m.productoId")
+    List<SumaMovimientosDto> sumarEntre(@Param("desdeId") Long desdeId, @Param("hastaId") Long hastaId);
+
+    @Query("SELECT MAX(m.id) FROM Inventario m WHERE m.fecha < :antesDe")
+    Optional<Long> findUltimoIdAntesDe(@Param("antesDe") LocalDateTime antesDe);
+
+    @Query("SELECT new co.todotech.model.dto.inventario.MovimientoInventarioDto(m.id, m.productoId, m.tipo, m.cantidad, m.fecha, m.referencia) " +
+            "FROM Inventario m WHERE m.productoId = :productoId AND m.fecha >= :desde AND m.fecha < :hasta " +
+            "ORDER BY m.fecha DESC, m.id DESC")
+    List<MovimientoInventarioDto> buscarPorProductoYRango(@Param("productoId") Long productoId,
+                                                          @Param("desde") LocalDateTime desde,
+                                                          @Param("hasta") LocalDateTime hasta,
+                                                          Pageable pageable);
+}
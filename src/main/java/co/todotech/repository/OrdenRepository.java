@@ -1,39 +1,71 @@
 package co.todotech.repository;
 
+import co.todotech.model.dto.ordenventa.EstadoOrdenActualDto;
+import co.todotech.model.dto.ordenventa.OrdenResumenDto;
+import co.todotech.model.dto.ordenventa.ResumenEstadoOrdenDto;
 import co.todotech.model.entities.Orden;
 import co.todotech.model.enums.EstadoOrden;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface OrdenRepository extends JpaRepository<Orden, Long> {
 
+    // ========== PLANES DE CARGA (ver @NamedEntityGraph en Orden) ==========
+
+    // Solo cabecera: orden + cliente + vendedor, sin detalle_orden
+    @Override
+    @EntityGraph(Orden.GRAFO_CABECERA)
+    Optional<Orden> findById(Long id);
+
+    @Override
+    @EntityGraph(Orden.GRAFO_CABECERA)
+    List<Orden> findAll();
+
+    @EntityGraph(Orden.GRAFO_CABECERA)
     Optional<Orden> findByNumeroOrden(String numeroOrden);
 
     boolean existsByNumeroOrden(String numeroOrden);
 
+    @EntityGraph(Orden.GRAFO_CABECERA)
     List<Orden> findByClienteId(Long clienteId);
 
+    @EntityGraph(Orden.GRAFO_CABECERA)
     List<Orden> findByVendedorId(Long vendedorId);
 
+    @EntityGraph(Orden.GRAFO_CABECERA)
     List<Orden> findByEstado(EstadoOrden estado);
 
-    // Método para cargar la orden con sus detalles (productos) usando JOIN FETCH
-    @Query("SELECT o FROM Orden o LEFT JOIN FETCH o.productos WHERE o.id = :id")
+    // SELECT ... FOR UPDATE de la cabecera: los cambios de línea aplican deltas al subtotal
+    // y dos ediciones concurrentes sobre la misma orden deben serializarse
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Orden o WHERE o.id = :id")
+    Optional<Orden> findByIdForUpdate(@Param("id") Long id);
+
+    // Cabecera + líneas, para recalcular totales o contar productos
+    @EntityGraph(Orden.GRAFO_CON_DETALLES)
+    @Query("SELECT o FROM Orden o WHERE o.estado = :estado")
+    List<Orden> findByEstadoWithDetalles(@Param("estado") EstadoOrden estado);
+
+    @EntityGraph(Orden.GRAFO_CON_DETALLES)
+    @Query("SELECT o FROM Orden o WHERE o.id = :id")
     Optional<Orden> findByIdWithDetalles(@Param("id") Long id);
 
-    // Método para cargar orden con detalles y relaciones completas
-    @Query("SELECT o FROM Orden o " +
-            "LEFT JOIN FETCH o.productos " +
-            "LEFT JOIN FETCH o.cliente " +
-            "LEFT JOIN FETCH o.vendedor " +
-            "WHERE o.id = :id")
+    // Cabecera + líneas + producto de cada línea, para OrdenConDetallesDto
+    @EntityGraph(Orden.GRAFO_CON_DETALLES_Y_PRODUCTO)
+    @Query("SELECT o FROM Orden o WHERE o.id = :id")
     Optional<Orden> findByIdWithDetallesCompletos(@Param("id") Long id);
 
     // Método para verificar si existe una orden con estado específico para un cliente
@@ -42,10 +74,72 @@ public interface OrdenRepository extends JpaRepository<Orden, Long> {
     // Método para contar órdenes por estado
     long countByEstado(EstadoOrden estado);
 
+    // Conteo y suma de totales por estado en una sola consulta agregada
+    @Query("SELECT new co.todotech.model.dto.ordenventa.ResumenEstadoOrdenDto(" +
+            "o.estado, COUNT(o), COALESCE(SUM(o.total), 0.0)) " +
+            "FROM Orden o GROUP BY o.estado")
+    List<ResumenEstadoOrdenDto> resumirPorEstado();
+
     // Método para buscar órdenes por rango de fechas
     @Query("SELECT o FROM Orden o WHERE o.fecha BETWEEN :fechaInicio AND :fechaFin")
     List<Orden> findByFechaBetween(@Param("fechaInicio") LocalDateTime fechaInicio,
                                    @Param("fechaFin") LocalDateTime fechaFin);
 
+    // ========== PAGINACIÓN POR KEYSET (fecha DESC, id DESC) ==========
+    // Proyecciones de cabecera: solo orden_venta + cliente + usuario, nunca detalle_orden.
+    // El Pageable solo aporta el LIMIT; el desplazamiento lo da el cursor (fecha, id).
+
+    String RESUMEN_SELECT = "SELECT new co.todotech.model.dto.ordenventa.OrdenResumenDto(" +
+            "o.id, o.numeroOrden, o.fecha, o.estado, c.id, c.nombre, v.id, v.nombre, " +
+            "o.subtotal, o.descuento, o.impuestos, o.total) " +
+            "FROM Orden o JOIN o.cliente c JOIN o.vendedor v ";
+
+    String KEYSET_CONDICION = "(o.fecha < :fecha OR (o.fecha = :fecha AND o.id < :id)) ";
+
+    String KEYSET_ORDEN = "ORDER BY o.fecha DESC, o.id DESC";
+
+    @Query(RESUMEN_SELECT + "WHERE " + KEYSET_CONDICION + KEYSET_ORDEN)
+    List<OrdenResumenDto> findResumenAntesDe(@Param("fecha") LocalDateTime fecha,
+                                             @Param("id") Long id,
+                                             Pageable pageable);
+
+    @Query(RESUMEN_SELECT + "WHERE c.id = :clienteId AND " + KEYSET_CONDICION + KEYSET_ORDEN)
+    List<OrdenResumenDto> findResumenPorClienteAntesDe(@Param("clienteId") Long clienteId,
+                                                       @Param("fecha") LocalDateTime fecha,
+                                                       @Param("id") Long id,
+                                                       Pageable pageable);
+
+    @Query(RESUMEN_SELECT + "WHERE v.id = :vendedorId AND " + KEYSET_CONDICION + KEYSET_ORDEN)
+    List<OrdenResumenDto> findResumenPorVendedorAntesDe(@Param("vendedorId") Long vendedorId,
+                                                        @Param("fecha") LocalDateTime fecha,
+                                                        @Param("id") Long id,
+                                                        Pageable pageable);
+
+    @Query(RESUMEN_SELECT + "WHERE o.estado = :estado AND " + KEYSET_CONDICION + KEYSET_ORDEN)
+    List<OrdenResumenDto> findResumenPorEstadoAntesDe(@Param("estado") EstadoOrden estado,
+                                                      @Param("fecha") LocalDateTime fecha,
+                                                      @Param("id") Long id,
+                                                      Pageable pageable);
+
+    // ========== TRANSICIONES DE ESTADO (compare-and-set) ==========
+    // Cambian solo el estado y solo si sigue siendo el leído: no cargan el agregado
+    // y una transición concurrente hace que la sentencia no afecte filas.
+    // La individual deja al servicio alinear la entidad ya cargada; la masiva trabaja con
+    // proyecciones y limpia el contexto para no dejar órdenes gestionadas con el estado viejo.
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Orden o SET o.estado = :nuevo WHERE o.id = :id AND o.estado = :actual")
+    int actualizarEstadoSiCoincide(@Param("id") Long id,
+                                   @Param("actual") EstadoOrden actual,
+                                   @Param("nuevo") EstadoOrden nuevo);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Orden o SET o.estado = :nuevo WHERE o.id IN :ids AND o.estado = :actual")
+    int actualizarEstadoMasivo(@Param("ids") Collection<Long> ids,
+                               @Param("actual") EstadoOrden actual,
+                               @Param("nuevo") EstadoOrden nuevo);
 
-}
\ No newline at end of file
+    @Query("SELECT new co.todotech.model.dto.ordenventa.EstadoOrdenActualDto(o.id, o.estado, o.total) " +
+            "FROM Orden o WHERE o.id IN :ids")
+    List<EstadoOrdenActualDto> findEstadosByIdIn(@Param("ids") Collection<Long> ids);
+}
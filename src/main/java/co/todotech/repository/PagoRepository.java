@@ -3,10 +3,12 @@ package co.todotech.repository;
 import co.todotech.model.entities.Pago;
 import co.todotech.model.enums.EstadoPago;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -121,4 +123,20 @@ public interface PagoRepository extends JpaRepository<Pago, Long> {
      */
     @Query("SELECT p FROM Pago p ORDER BY p.fechaPago DESC")
     List<Pago> findAllOrderByFechaPagoDesc();
-}
\ No newline at end of file
+
+    /**
+     * Cambia en una sola sentencia el estado de los pagos con esos números de transacción,
+     * solo si su estado actual está en {@code origenes} (los ya resueltos no se tocan).
+     *
+     * @param transacciones Números de transacción (ids de payment intent).
+     * @param origenes Estados desde los que se permite el cambio.
+     * @param nuevoEstado Estado final.
+     * @return Número de pagos actualizados.
+     */
+    @Modifying
+    @Query("UPDATE Pago p SET p.estadoPago = :nuevoEstado " +
+            "WHERE p.numeroTransaccion IN :transacciones AND p.estadoPago IN :origenes")
+    int actualizarEstadoPorTransacciones(@Param("transacciones") Collection<String> transacciones,
+                                         @Param("origenes") Collection<EstadoPago> origenes,
+                                         @Param("nuevoEstado") EstadoPago nuevoEstado);
+}
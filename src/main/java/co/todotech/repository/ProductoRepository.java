@@ -1,11 +1,16 @@
 package co.todotech.repository;
 
+import co.todotech.model.dto.inventario.SnapshotProductoDto;
 import co.todotech.model.entities.Producto;
 import co.todotech.model.enums.EstadoProducto;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -38,4 +43,51 @@ public interface ProductoRepository extends JpaRepository<Producto, Long> {
             @Param("stockCritico") int stockCritico,
             @Param("estado") EstadoProducto estado);
 
+    // ========== OPERACIONES ATÓMICAS DE STOCK ==========
+    // Un único UPDATE condicional en lugar de leer-modificar-guardar: no hay sobreventa
+    // y el bloqueo de fila dura solo lo que dura la sentencia dentro de la transacción.
+    // El cambio ACTIVO <-> AGOTADO se deriva en la misma sentencia a partir del stock resultante
+    // (en el SET, p.stock se refiere al valor anterior a la actualización).
+    // Devuelven el número de filas afectadas: 0 significa que la condición no se cumplió.
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Producto p SET " +
+            "p.estado = CASE WHEN p.estado = :activo AND p.stock - :cantidad <= 0 THEN :agotado ELSE p.estado END, " +
+            "p.stock = p.stock - :cantidad " +
+            "WHERE p.id = :id AND p.stock >= :cantidad AND p.estado <> :inactivo")
+    int decrementarStockSiDisponible(@Param("id") Long id,
+                                     @Param("cantidad") int cantidad,
+                                     @Param("activo") EstadoProducto activo,
+                                     @Param("agotado") EstadoProducto agotado,
+                                     @Param("inactivo") EstadoProducto inactivo);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Producto p SET " +
+            "p.estado = CASE WHEN p.estado = :agotado AND p.stock + :cantidad > 0 THEN :activo ELSE p.estado END, " +
+            "p.stock = p.stock + :cantidad " +
+            "WHERE p.id = :id AND p.estado <> :inactivo")
+    int incrementarStockAtomico(@Param("id") Long id,
+                                @Param("cantidad") int cantidad,
+                                @Param("activo") EstadoProducto activo,
+                                @Param("agotado") EstadoProducto agotado,
+                                @Param("inactivo") EstadoProducto inactivo);
+
+    // SELECT ... FOR UPDATE: para las rutas que leen, modifican y guardan la entidad completa.
+    // Una venta concurrente espera al commit en lugar de ver su descuento pisado por el stock leído.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Producto p WHERE p.id = :id")
+    Optional<Producto> findByIdForUpdate(@Param("id") Long id);
+
+    @Query("SELECT p.stock FROM Producto p WHERE p.id = :id")
+    Optional<Integer> findStockById(@Param("id") Long id);
+
+    // Instantáneas para el libro de reservas: una sola consulta, sin cargar categorías
+    @Query("SELECT new co.todotech.model.dto.inventario.SnapshotProductoDto(p.id, p.nombre, p.estado, p.stock) " +
+            "FROM Producto p WHERE p.id IN :ids")
+    List<SnapshotProductoDto> findSnapshotsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Productos que aún no tienen movimientos en el libro de inventario
+    @Query("SELECT new co.todotech.model.dto.inventario.SnapshotProductoDto(p.id, p.nombre, p.estado, p.stock) " +
+            "FROM Producto p WHERE NOT EXISTS (SELECT 1 FROM Inventario m WHERE m.productoId = p.id)")
+    List<SnapshotProductoDto> findSinMovimientosInventario();
 }
\ No newline at end of file
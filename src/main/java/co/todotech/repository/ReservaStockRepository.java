@@ -0,0 +1,44 @@
+package co.todotech.repository;
+
+import co.todotech.model.dto.inventario.LineaSinReservaDto;
+import co.todotech.model.entities.ReservaStock;
+import co.todotech.model.enums.EstadoOrden;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ReservaStockRepository extends JpaRepository<ReservaStock, Long> {
+
+    Optional<ReservaStock> findByOrdenIdAndProductoId(Long ordenId, Long productoId);
+
+    List<ReservaStock> findByOrdenId(Long ordenId);
+
+    List<ReservaStock> findByActivaTrue();
+
+    @Modifying
+    @Query("DELETE FROM ReservaStock r WHERE r.ordenId = :ordenId AND r.productoId = :productoId")
+    int eliminarReserva(@Param("ordenId") Long ordenId, @Param("productoId") Long productoId);
+
+    @Modifying
+    @Query("DELETE FROM ReservaStock r WHERE r.ordenId = :ordenId")
+    int eliminarReservasDeOrden(@Param("ordenId") Long ordenId);
+
+    // Condicional sobre expiraEn: una reserva renovada mientras corría el barrido no se desactiva
+    @Modifying
+    @Query("UPDATE ReservaStock r SET r.activa = false, r.fechaActualizacion = :ahora " +
+            "WHERE r.activa = true AND r.expiraEn <= :ahora")
+    int desactivarExpiradas(@Param("ahora") LocalDateTime ahora);
+
+    @Query("SELECT new co.todotech.model.dto.inventario.LineaSinReservaDto(d.orden.id, d.producto.id, d.cantidad) " +
+            "FROM DetalleOrden d WHERE d.orden.estado IN :estados AND NOT EXISTS (" +
+            "SELECT 1 FROM ReservaStock r WHERE r.ordenId = d.orden.id AND r.productoId = d.producto.id)")
+    List<LineaSinReservaDto> findLineasAbiertasSinReserva(@Param("estados") Collection<EstadoOrden> estados);
+}
@@ -0,0 +1,24 @@
+package co.todotech.repository;
+
+import co.todotech.model.entities.Sesion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface SesionRepository extends JpaRepository<Sesion, Long> {
+
+    Optional<Sesion> findByJti(String jti);
+
+    @Query("SELECT s FROM Sesion s WHERE s.activa = true AND s.expiraEn > :ahora ORDER BY s.fechaInicio DESC")
+    List<Sesion> buscarActivas(@Param("ahora") LocalDateTime ahora);
+
+    @Query("SELECT s FROM Sesion s WHERE s.usuarioId = :usuarioId AND s.activa = true AND s.expiraEn > :ahora " +
+            "ORDER BY s.fechaInicio DESC")
+    List<Sesion> buscarActivasDeUsuario(@Param("usuarioId") Long usuarioId, @Param("ahora") LocalDateTime ahora);
+}
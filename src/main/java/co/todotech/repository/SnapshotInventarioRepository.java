@@ -0,0 +1,32 @@
+package co.todotech.repository;
+
+import co.todotech.model.entities.SnapshotInventario;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface SnapshotInventarioRepository extends JpaRepository<SnapshotInventario, Long> {
+
+    Optional<SnapshotInventario> findFirstByProductoIdAndFechaLessThanEqualOrderByFechaDescIdDesc(Long productoId,
+                                                                                                  LocalDateTime fecha);
+
+    // Última instantánea de cada producto anterior a :fecha
+    @Query("SELECT s FROM SnapshotInventario s WHERE s.fecha <= :fecha AND s.ultimoMovimientoId = " +
+            "(SELECT MAX(s2.ultimoMovimientoId) FROM SnapshotInventario s2 WHERE s2.productoId = s.productoId AND s2.fecha <= :fecha)")
+    List<SnapshotInventario> findUltimasHasta(@Param("fecha") LocalDateTime fecha);
+
+    @Query("SELECT s FROM SnapshotInventario s WHERE s.productoId IN :productoIds AND s.ultimoMovimientoId = " +
+            "(SELECT MAX(s2.ultimoMovimientoId) FROM SnapshotInventario s2 WHERE s2.productoId = s.productoId)")
+    List<SnapshotInventario> findUltimasDe(@Param("productoIds") Collection<Long> productoIds);
+
+    // Marca de agua de la compactación: todo movimiento con id <= este valor ya está en alguna instantánea
+    @Query("SELECT MAX(s.ultimoMovimientoId) FROM SnapshotInventario s")
+    Optional<Long> findMarcaCompactacion();
+}
@@ -0,0 +1,30 @@
+package co.todotech.repository;
+
+import co.todotech.model.entities.TokenRevocado;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface TokenRevocadoRepository extends JpaRepository<TokenRevocado, Long> {
+
+    @Query("SELECT t FROM TokenRevocado t WHERE t.id > :ultimoId AND t.expiraEn > :ahora ORDER BY t.id")
+    List<TokenRevocado> buscarPosterioresA(@Param("ultimoId") Long ultimoId,
+                                           @Param("ahora") LocalDateTime ahora,
+                                           Pageable pageable);
+
+    // Ventana hacia atrás: recoge ids bajos cuya transacción confirmó después de pasar la marca de agua
+    @Query("SELECT t FROM TokenRevocado t WHERE t.fechaRevocacion >= :desde AND t.expiraEn > :ahora")
+    List<TokenRevocado> buscarRevocadosDesde(@Param("desde") LocalDateTime desde,
+                                             @Param("ahora") LocalDateTime ahora);
+
+    @Modifying
+    @Query("DELETE FROM TokenRevocado t WHERE t.expiraEn <= :ahora")
+    int eliminarExpirados(@Param("ahora") LocalDateTime ahora);
+}
@@ -3,9 +3,11 @@ package co.todotech.repository;
 import co.todotech.model.entities.Usuario;
 import co.todotech.model.enums.TipoUsuario;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -49,6 +51,17 @@ public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
 
     List<Usuario> findByFechaCreacionBefore(LocalDateTime fecha);
 
+    // Solo si nadie cambió la contraseña entre el login y el rehash
+    @Modifying
+    @Transactional
+    @Query("UPDATE Usuario u SET u.contrasena = :nueva WHERE u.id = :id AND u.contrasena = :anterior")
+    int actualizarHashContrasena(@Param("id") Long id,
+                                 @Param("anterior") String anterior,
+                                 @Param("nueva") String nueva);
+
+    @Query("SELECT u.tokenEpoch FROM Usuario u WHERE u.id = :id")
+    Optional<Long> findTokenEpochById(@Param("id") Long id);
+
     // Agrega este método para buscar por correo y tipo de usuario
     @Query("SELECT u FROM Usuario u WHERE u.correo = :correo AND u.tipoUsuario IN :tiposUsuario")
     Optional<Usuario> findByCorreoAndTipoUsuarioIn(@Param("correo") String correo,
@@ -0,0 +1,151 @@
+package co.todotech.security;
+
+import co.todotech.model.dto.monitoreo.EstadoHashingDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * PasswordEncoder BCrypt que ejecuta encode/matches en un pool propio de tamaño fijo.
+ * En un cambio de turno decenas de logins simultáneos ocupaban todos los núcleos desde
+ * los hilos de Tomcat; ahora como mucho {@code hilos} hashes corren a la vez y el resto
+ * espera en una cola acotada. Con la cola llena se rechaza en lugar de acumular.
+ *
+ * {@link #upgradeEncoding(String)} es true cuando el coste del hash guardado no coincide
+ * con el configurado, para rehacerlo en el siguiente login correcto.
+ */
+@Slf4j
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private static final Pattern COSTE_BCRYPT = Pattern.compile("^\\$2[abyx]?\\$(\\d{2})\\$");
+
+    private final BCryptPasswordEncoder delegate;
+    private final int coste;
+    private final ThreadPoolExecutor executor;
+    private final int capacidadCola;
+    private final long timeoutMs;
+
+    private final LongAdder completadas = new LongAdder();
+    private final LongAdder rechazadas = new LongAdder();
+    private final LongAdder agotadas = new LongAdder();
+    private final LongAdder esperaTotalNanos = new LongAdder();
+    private final LongAdder hashTotalNanos = new LongAdder();
+    private final AtomicLong esperaMaximaNanos = new AtomicLong();
+
+    public BoundedPasswordEncoder(int coste, int hilos, int capacidadCola, long timeoutMs) {
+        this.delegate = new BCryptPasswordEncoder(coste);
+        this.coste = coste;
+        this.capacidadCola = capacidadCola;
+        this.timeoutMs = timeoutMs;
+
+        AtomicInteger secuencia = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(hilos, hilos, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacidadCola),
+                r -> {
+                    Thread hilo = new Thread(r, "password-hash-" + secuencia.incrementAndGet());
+                    hilo.setDaemon(true);
+                    return hilo;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        log.info("🔐 Password hashing pool - threads: {}, queue: {}, bcrypt cost: {}", hilos, capacidadCola, coste);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return ejecutar(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return ejecutar(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = COSTE_BCRYPT.matcher(encodedPassword);
+        return matcher.find() && Integer.parseInt(matcher.group(1)) != coste;
+    }
+
+    public EstadoHashingDto estado() {
+        long total = completadas.sum();
+        return new EstadoHashingDto(
+                executor.getMaximumPoolSize(),
+                capacidadCola,
+                executor.getQueue().size(),
+                executor.getActiveCount(),
+                total,
+                rechazadas.sum(),
+                agotadas.sum(),
+                total > 0 ? esperaTotalNanos.sum() / 1_000_000.0 / total : 0.0,
+                TimeUnit.NANOSECONDS.toMillis(esperaMaximaNanos.get()),
+                total > 0 ? hashTotalNanos.sum() / 1_000_000.0 / total : 0.0,
+                coste);
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private <T> T ejecutar(Callable<T> hash) {
+        long encolada = System.nanoTime();
+        Future<T> futuro;
+        try {
+            futuro = executor.submit(() -> {
+                long inicio = System.nanoTime();
+                registrarEspera(inicio - encolada);
+                try {
+                    return hash.call();
+                } finally {
+                    hashTotalNanos.add(System.nanoTime() - inicio);
+                    completadas.increment();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rechazadas.increment();
+            log.warn("⚠️ Password hashing pool saturated - queue: {}", executor.getQueue().size());
+            throw new IllegalStateException("Servidor ocupado procesando inicios de sesión, intente de nuevo", e);
+        }
+
+        try {
+            return futuro.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            futuro.cancel(true);
+            agotadas.increment();
+            throw new IllegalStateException("Tiempo de espera agotado verificando la contraseña, intente de nuevo", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futuro.cancel(true);
+            throw new IllegalStateException("Verificación de contraseña interrumpida", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Error procesando la contraseña", e.getCause());
+        }
+    }
+
+    private void registrarEspera(long esperaNanos) {
+        esperaTotalNanos.add(esperaNanos);
+        long maxima;
+        do {
+            maxima = esperaMaximaNanos.get();
+        } while (esperaNanos > maxima && !esperaMaximaNanos.compareAndSet(maxima, esperaNanos));
+    }
+}
@@ -0,0 +1,71 @@
+package co.todotech.security;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro de Bloom de jti revocados. Un "no" es definitivo; un "quizá" hay que
+ * confirmarlo en el mapa de TokenBlacklistService.
+ * No admite borrados: cuando caducan revocaciones se reconstruye uno nuevo.
+ */
+final class JtiBloomFilter {
+
+    private final AtomicLongArray bits;
+    private final int numBits;
+    private final int numHashes;
+
+    /**
+     * @param expectedEntries revocaciones vigentes esperadas
+     * @param falsePositiveRate probabilidad de "quizá" para un jti no revocado
+     */
+    JtiBloomFilter(int expectedEntries, double falsePositiveRate) {
+        int n = Math.max(expectedEntries, 1);
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.numBits = (int) Math.max(64, Math.min(m, Integer.MAX_VALUE - 63));
+        this.numHashes = Math.max(1, (int) Math.round((double) numBits / n * Math.log(2)));
+        this.bits = new AtomicLongArray((numBits + 63) / 64);
+    }
+
+    void put(String jti) {
+        long h1 = hash(jti, 0xcbf29ce484222325L);
+        long h2 = hash(jti, 0x84222325cbf29ce4L) | 1L;
+        for (int i = 0; i < numHashes; i++) {
+            int bit = (int) Math.floorMod(h1 + i * h2, (long) numBits);
+            int word = bit >>> 6;
+            long mask = 1L << (bit & 63);
+            long current;
+            do {
+                current = bits.get(word);
+                if ((current & mask) != 0) {
+                    break;
+                }
+            } while (!bits.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    boolean mightContain(String jti) {
+        long h1 = hash(jti, 0xcbf29ce484222325L);
+        long h2 = hash(jti, 0x84222325cbf29ce4L) | 1L;
+        for (int i = 0; i < numHashes; i++) {
+            int bit = (int) Math.floorMod(h1 + i * h2, (long) numBits);
+            if ((bits.get(bit >>> 6) & (1L << (bit & 63))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // FNV-1a de 64 bits con la semilla como offset; dos semillas dan los dos hashes del doble hashing
+    private static long hash(String value, long seed) {
+        long h = seed;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= (b & 0xff);
+            h *= 0x100000001b3L;
+        }
+        // Mezcla final para repartir mejor los bits bajos
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -1,5 +1,6 @@
 package co.todotech.security;
 
+import co.todotech.service.impl.RegistroSesiones;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -11,15 +12,23 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.Optional;
 
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
-    private final JwtUtil jwtUtil;
+    private final VerifiedTokenCache verifiedTokenCache;
     private final TokenBlacklistService tokenBlacklistService;
-
-    public JwtAuthenticationFilter(JwtUtil jwtUtil, TokenBlacklistService tokenBlacklistService) {
-        this.jwtUtil = jwtUtil;
+    private final UserTokenEpochCache userTokenEpochCache;
+    private final RegistroSesiones registroSesiones;
+
+    public JwtAuthenticationFilter(VerifiedTokenCache verifiedTokenCache,
+                                   TokenBlacklistService tokenBlacklistService,
+                                   UserTokenEpochCache userTokenEpochCache,
+                                   RegistroSesiones registroSesiones) {
+        this.verifiedTokenCache = verifiedTokenCache;
         this.tokenBlacklistService = tokenBlacklistService;
+        this.userTokenEpochCache = userTokenEpochCache;
+        this.registroSesiones = registroSesiones;
     }
 
     @Override
@@ -42,27 +51,33 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             String token = header.substring(7);
 
             try {
-                // Verificar si el token está en la blacklist PRIMERO
-                if (tokenBlacklistService.isTokenBlacklisted(token)) {
+                // Validar el token JWT (desde la caché si ya se verificó antes)
+                Optional<JwtPrincipal> principal = verifiedTokenCache.verify(token);
+
+                // Luego comprobar si su jti fue revocado por un logout
+                if (principal.isPresent() && tokenBlacklistService.isRevoked(principal.get().tokenId())) {
                     response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
                     response.getWriter().write("{\"error\": true, \"mensaje\": \"Token invalidado - Sesión cerrada\"}");
                     return;
                 }
 
-                // Luego validar el token JWT
-                if (jwtUtil.validateToken(token)) {
-                    String username = jwtUtil.getUsernameFromToken(token);
-                    Long userId = jwtUtil.getUserIdFromToken(token);
-                    String role = jwtUtil.getRoleFromToken(token);
+                // Y que no se haya emitido antes de desactivar al usuario o cambiar su contraseña/rol
+                if (principal.isPresent() && !userTokenEpochCache.isCurrent(principal.get())) {
+                    response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+                    response.getWriter().write("{\"error\": true, \"mensaje\": \"Token invalidado - Credenciales o estado del usuario modificados\"}");
+                    return;
+                }
 
+                if (principal.isPresent()) {
                     UsernamePasswordAuthenticationToken authentication =
                             new UsernamePasswordAuthenticationToken(
-                                    username,
+                                    principal.get(),
                                     null,
-                                    Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role))
+                                    Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + principal.get().role()))
                             );
 
                     SecurityContextHolder.getContext().setAuthentication(authentication);
+                    registroSesiones.registrarActividad(principal.get().tokenId());
                 } else {
                     response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
                     response.getWriter().write("{\"error\": true, \"mensaje\": \"Token inválido o expirado\"}");
@@ -89,7 +104,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private boolean isPublicUrl(String requestURI) {
         return requestURI.equals("/usuarios/login") ||
                 requestURI.equals("/usuarios/recordar-contrasena") ||
-                requestURI.startsWith("/productos/publicos/"); // ✅ AGREGAR ENDPOINTS PÚBLICOS DE PRODUCTOS
+                requestURI.startsWith("/productos/publicos/") || // ✅ AGREGAR ENDPOINTS PÚBLICOS DE PRODUCTOS
+                requestURI.startsWith("/stripe/"); // Webhook de Stripe: se autentica con la firma Stripe-Signature
     }
 
     // ✅ ACTUALIZAR MÉTODO EXISTENTE
@@ -0,0 +1,29 @@
+package co.todotech.security;
+
+import java.security.Principal;
+import java.time.Instant;
+
+/**
+ * Usuario autenticado a partir de un JWT ya verificado.
+ * Es el principal del Authentication en el SecurityContext: inmutable y con los claims
+ * que hacen falta después del filtro, para no volver a decodificar el token.
+ */
+public record JwtPrincipal(
+        String username,
+        Long userId,
+        String role,
+        String tokenId,
+        Instant expiresAt,
+        long tokenEpoch
+) implements Principal {
+
+    @Override
+    public String getName() {
+        return username;
+    }
+
+    @Override
+    public String toString() {
+        return username;
+    }
+}
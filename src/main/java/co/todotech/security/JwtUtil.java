@@ -12,6 +12,7 @@ import org.springframework.stereotype.Component;
 import jakarta.annotation.PostConstruct;
 
 import java.util.Date;
+import java.util.Optional;
 
 @Slf4j
 @Component
@@ -20,6 +21,9 @@ public class JwtUtil {
     private final Environment env;
     private Algorithm algorithm;
 
+    // Inmutable y thread-safe: se construye una vez y se comparte entre peticiones
+    private JWTVerifier verifier;
+
     @Value("${jwt.secret:default_jwt_secret_muy_largo_y_seguro_minimo_32_caracteres}")
     private String jwtSecret;
 
@@ -65,6 +69,9 @@ public class JwtUtil {
 
         try {
             this.algorithm = Algorithm.HMAC256(jwtSecret);
+            this.verifier = JWT.require(algorithm)
+                    .withIssuer(issuer)
+                    .build();
             log.info("✅ JWT algorithm initialized successfully");
         } catch (Exception e) {
             log.error("❌ Failed to initialize JWT algorithm: {}", e.getMessage());
@@ -72,7 +79,10 @@ public class JwtUtil {
         }
     }
 
-    public String generateToken(String username, Long userId, String role) {
+    /**
+     * @param tokenEpoch época vigente del usuario (Usuario.tokenEpoch); ver UserTokenEpochCache
+     */
+    public String generateToken(String username, Long userId, String role, long tokenEpoch) {
         validateInputParameters(username, userId, role);
 
         try {
@@ -84,6 +94,7 @@ public class JwtUtil {
                     .withSubject(username.trim())
                     .withClaim("userId", userId)
                     .withClaim("role", role.toUpperCase())
+                    .withClaim("tokenEpoch", tokenEpoch)
                     .withIssuedAt(now)
                     .withExpiresAt(expiryDate)
                     .withJWTId(generateJwtId())
@@ -106,18 +117,9 @@ public class JwtUtil {
         }
 
         try {
-            JWTVerifier verifier = JWT.require(algorithm)
-                    .withIssuer(issuer)
-                    .build();
-
+            // verify() ya rechaza tokens expirados (TokenExpiredException)
             DecodedJWT jwt = verifier.verify(token);
 
-            // Validación adicional de expiración
-            if (jwt.getExpiresAt().before(new Date())) {
-                log.debug("⌛ Token expired for user: {}", jwt.getSubject());
-                return false;
-            }
-
             log.debug("✅ Token valid for user: {}", jwt.getSubject());
             return true;
 
@@ -133,6 +135,47 @@ public class JwtUtil {
         }
     }
 
+    /**
+     * Verifica firma, emisor y expiración y extrae los claims en una sola pasada.
+     * Sustituye a validateToken + getUsernameFromToken/getUserIdFromToken/getRoleFromToken,
+     * que decodifican el token una vez cada uno.
+     *
+     * @return el principal del token, o vacío si el token no es válido
+     */
+    public Optional<JwtPrincipal> verifyToken(String token) {
+        if (token == null || token.trim().isEmpty()) {
+            log.warn("⚠️ Attempt to validate null/empty token");
+            return Optional.empty();
+        }
+
+        try {
+            DecodedJWT jwt = verifier.verify(token);
+
+            String username = jwt.getSubject();
+            Long userId = jwt.getClaim("userId").asLong();
+            String role = jwt.getClaim("role").asString();
+            // jti y exp son necesarios para revocar el token (TokenBlacklistService)
+            if (username == null || username.trim().isEmpty() || userId == null || role == null
+                    || jwt.getId() == null || jwt.getExpiresAt() == null) {
+                log.warn("⚠️ Token without required claims (sub, userId, role, jti, exp)");
+                return Optional.empty();
+            }
+
+            // Tokens emitidos antes de existir el claim: época 0
+            Long tokenEpoch = jwt.getClaim("tokenEpoch").asLong();
+
+            return Optional.of(new JwtPrincipal(username, userId, role, jwt.getId(), jwt.getExpiresAtAsInstant(),
+                    tokenEpoch != null ? tokenEpoch : 0L));
+
+        } catch (TokenExpiredException e) {
+            log.debug("⌛ Token expired: {}", e.getMessage());
+            return Optional.empty();
+        } catch (JWTVerificationException e) {
+            log.warn("⚠️ Token verification failed: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
     public String getUsernameFromToken(String token) {
         return safelyDecodeToken(token).getSubject();
     }
@@ -241,9 +284,6 @@ public class JwtUtil {
      */
     public DecodedJWT verifyAndGetDecodedToken(String token) {
         try {
-            JWTVerifier verifier = JWT.require(algorithm)
-                    .withIssuer(issuer)
-                    .build();
             return verifier.verify(token);
         } catch (JWTVerificationException e) {
             log.error("❌ Token verification failed: {}", e.getMessage());
@@ -1,21 +1,125 @@
 package co.todotech.security;
 
+import co.todotech.model.entities.TokenRevocado;
+import co.todotech.repository.TokenRevocadoRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Timestamp;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Tokens revocados por logout, indexados por su jti.
+ *
+ * La fuente de verdad es la tabla token_revocado, compartida por todas las instancias.
+ * Cada nodo guarda una réplica en memoria que refresca leyendo las filas con id mayor
+ * que su marca de agua (más una ventana hacia atrás por fecha); la petición nunca
+ * consulta la BD.
+ *
+ * En memoria, cada revocación vive hasta el exp del token (después el token ya es
+ * rechazado por JwtUtil) y se agrupa en cubetas por minuto de expiración; el tick solo
+ * recorre las cubetas vencidas. Delante del mapa hay un filtro de Bloom: el caso normal
+ * ("no revocado") se resuelve sin tocar el mapa.
+ *
+ * Las escrituras (revocar, caducar, reconstruir el filtro) van bajo un candado;
+ * las consultas no bloquean.
+ */
+@Slf4j
 @Service
+@RequiredArgsConstructor
 public class TokenBlacklistService {
 
-    private final Map<String, LocalDateTime> blacklistedTokens = new ConcurrentHashMap<>();
-    private static final long TOKEN_EXPIRATION_HOURS = 24; // Limpiar tokens después de 24h
+    private static final double BLOOM_FALSE_POSITIVE_RATE = 0.01;
+    private static final int POLL_PAGE_SIZE = 500;
+
+    // Otro nodo puede haber revocado el mismo jti antes de que llegue el sondeo: el duplicado se
+    // ignora en la propia sentencia y no aborta la transacción del llamador (p. ej. invalidarTokens)
+    private static final String INSERT_SQL =
+            "INSERT INTO token_revocado (jti, usuario_id, expira_en, fecha_revocacion) VALUES (?, ?, ?, ?) " +
+                    "ON CONFLICT (jti) DO NOTHING";
+
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final TokenRevocadoRepository tokenRevocadoRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    // jti -> exp (segundos epoch)
+    private final Map<String, Long> revokedJtis = new ConcurrentHashMap<>();
+    // cubeta de expiración -> jti que caducan en ella; solo se toca con writeLock
+    private final TreeMap<Long, List<String>> expiryBuckets = new TreeMap<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final ReentrantLock pollLock = new ReentrantLock();
+
+    private volatile JtiBloomFilter bloomFilter;
+    // Mayor id de token_revocado ya aplicado en esta réplica
+    private volatile long highWaterMark;
+
+    @Value("${jwt.revocation.bucket-seconds:60}")
+    private long bucketSeconds;
+
+    @Value("${jwt.revocation.bloom-expected-entries:10000}")
+    private int bloomExpectedEntries;
+
+    @Value("${jwt.revocation.poll-margin-seconds:30}")
+    private long pollMarginSeconds;
 
     public void blacklistToken(String token) {
-        if (token != null && !token.trim().isEmpty()) {
-            blacklistedTokens.put(token, LocalDateTime.now());
+        if (token == null || token.trim().isEmpty()) {
+            return;
+        }
+
+        // Un token que no verifica ya es rechazado por el filtro: no hace falta revocarlo
+        Optional<JwtPrincipal> principal = verifiedTokenCache.verify(token);
+        principal.ifPresent(this::revoke);
+        verifiedTokenCache.invalidate(token);
+    }
+
+    /**
+     * Revoca el token en este nodo de inmediato y lo persiste para el resto de instancias.
+     */
+    public void revoke(JwtPrincipal principal) {
+        revoke(principal.tokenId(), principal.userId(), principal.expiresAt());
+        log.debug("🚫 Token revoked - jti: {}, user: {}", principal.tokenId(), principal.username());
+    }
+
+    /**
+     * Igual que {@link #revoke(JwtPrincipal)} cuando solo se conocen el jti y su exp
+     * (p. ej. al cerrar una sesión desde el registro de sesiones).
+     */
+    public void revoke(String jti, Long userId, Instant expiresAt) {
+        long expSeconds = expiresAt.getEpochSecond();
+        if (expSeconds <= Instant.now().getEpochSecond()) {
+            return;
+        }
+
+        writeLock.lock();
+        try {
+            applyLocally(jti, expSeconds);
+        } finally {
+            writeLock.unlock();
+        }
+
+        int inserted = jdbcTemplate.update(INSERT_SQL, jti, userId,
+                Timestamp.valueOf(LocalDateTime.ofInstant(expiresAt, ZoneId.systemDefault())),
+                Timestamp.valueOf(LocalDateTime.now()));
+        if (inserted == 0) {
+            log.debug("ℹ️ Token already revoked - jti: {}", jti);
         }
     }
 
@@ -23,17 +127,151 @@ public class TokenBlacklistService {
         if (token == null || token.trim().isEmpty()) {
             return false;
         }
-        return blacklistedTokens.containsKey(token);
+        return verifiedTokenCache.verify(token)
+                .map(p -> isRevoked(p.tokenId()))
+                .orElse(false);
+    }
+
+    public boolean isRevoked(String jti) {
+        if (jti == null) {
+            return false;
+        }
+        JtiBloomFilter filter = bloomFilter;
+        if (filter == null || !filter.mightContain(jti)) {
+            return false;
+        }
+        return revokedJtis.containsKey(jti);
+    }
+
+    public int size() {
+        return revokedJtis.size();
     }
 
-    @Scheduled(fixedRate = 3600000) // Ejecutar cada hora
+    /**
+     * Carga las revocaciones vigentes al arrancar; después las trae el sondeo periódico.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadRevocations() {
+        syncRevocations();
+        log.info("TOKEN_REVOCATIONS_LOADED - active: {}, highWaterMark: {}", revokedJtis.size(), highWaterMark);
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revocation.poll-ms:5000}")
+    public void syncRevocations() {
+        if (!pollLock.tryLock()) {
+            return;
+        }
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            int applied = 0;
+
+            List<TokenRevocado> page;
+            do {
+                page = tokenRevocadoRepository.buscarPosterioresA(highWaterMark, now, PageRequest.of(0, POLL_PAGE_SIZE));
+                applied += applyRows(page);
+                if (!page.isEmpty()) {
+                    highWaterMark = page.get(page.size() - 1).getId();
+                }
+            } while (page.size() == POLL_PAGE_SIZE);
+
+            // Idempotente: las que ya estaban en la réplica no cambian nada
+            applied += applyRows(tokenRevocadoRepository.buscarRevocadosDesde(now.minusSeconds(pollMarginSeconds), now));
+
+            if (applied > 0) {
+                log.debug("🔄 Token revocations synced - new: {}, highWaterMark: {}", applied, highWaterMark);
+            }
+        } catch (Exception e) {
+            // La réplica conserva lo que ya tenía; el siguiente sondeo lo reintenta
+            log.error("❌ Error syncing token revocations: {}", e.getMessage());
+        } finally {
+            pollLock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revocation.tick-ms:60000}")
     public void cleanExpiredTokens() {
-        LocalDateTime cutoff = LocalDateTime.now().minusHours(TOKEN_EXPIRATION_HOURS);
+        long nowSeconds = Instant.now().getEpochSecond();
+        int removed = 0;
+
+        writeLock.lock();
+        try {
+            // Una cubeta solo vence cuando ha pasado su último segundo
+            Map<Long, List<String>> expired = expiryBuckets.headMap(nowSeconds / bucketSeconds, false);
+            for (List<String> jtis : expired.values()) {
+                for (String jti : jtis) {
+                    revokedJtis.remove(jti);
+                    removed++;
+                }
+            }
+            expired.clear();
+
+            if (removed > 0) {
+                rebuildBloomFilter();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+
+        if (removed > 0) {
+            log.info("🧹 Token blacklist cleanup - expired: {}, active: {}", removed, revokedJtis.size());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revocation.purge-ms:3600000}")
+    @Transactional
+    public void purgeExpiredRows() {
+        int deleted = tokenRevocadoRepository.eliminarExpirados(LocalDateTime.now());
+        if (deleted > 0) {
+            log.info("🧹 Token revocation table purge - deleted: {}", deleted);
+        }
+    }
+
+    private int applyRows(List<TokenRevocado> rows) {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        int applied = 0;
+        writeLock.lock();
+        try {
+            for (TokenRevocado row : rows) {
+                long expSeconds = row.getExpiraEn().atZone(ZoneId.systemDefault()).toEpochSecond();
+                if (applyLocally(row.getJti(), expSeconds)) {
+                    applied++;
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        return applied;
+    }
+
+    private long bucketOf(long expSeconds) {
+        return expSeconds / bucketSeconds;
+    }
+
+    // Los métodos siguientes requieren writeLock: así ninguna revocación se pierde al cambiar de filtro
 
-        blacklistedTokens.entrySet().removeIf(entry ->
-                entry.getValue().isBefore(cutoff)
-        );
+    private boolean applyLocally(String jti, long expSeconds) {
+        boolean added = revokedJtis.putIfAbsent(jti, expSeconds) == null;
+        if (added) {
+            expiryBuckets.computeIfAbsent(bucketOf(expSeconds), b -> new ArrayList<>()).add(jti);
+            currentBloomFilter().put(jti);
+        }
+        return added;
+    }
+
+    private JtiBloomFilter currentBloomFilter() {
+        if (bloomFilter == null) {
+            rebuildBloomFilter();
+        }
+        return bloomFilter;
+    }
 
-        System.out.println("Limpieza de tokens blacklist completada. Tokens activos: " + blacklistedTokens.size());
+    private void rebuildBloomFilter() {
+        JtiBloomFilter filter = new JtiBloomFilter(
+                Math.max(bloomExpectedEntries, revokedJtis.size() * 2), BLOOM_FALSE_POSITIVE_RATE);
+        revokedJtis.keySet().forEach(filter::put);
+        bloomFilter = filter;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,78 @@
+package co.todotech.security;
+
+import co.todotech.repository.UsuarioRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Época de tokens vigente por usuario. Cada JWT lleva la época con la que se emitió;
+ * al desactivar al usuario, cambiar su contraseña o su rol se incrementa la época en BD
+ * y todos sus tokens anteriores dejan de valer de una vez, sin conocerlos.
+ *
+ * El filtro consulta este mapa en cada petición; la BD solo se lee en un fallo de caché.
+ * En este nodo la entrada se invalida al confirmar la escritura; en los demás caduca a
+ * los {@code jwt.epoch.cache-ttl-ms}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserTokenEpochCache {
+
+    // Usuario eliminado: ningún token suyo es válido
+    private static final long USER_MISSING = Long.MAX_VALUE;
+
+    private final UsuarioRepository usuarioRepository;
+
+    private final ConcurrentHashMap<Long, Entry> epochs = new ConcurrentHashMap<>();
+
+    @Value("${jwt.epoch.cache-ttl-ms:30000}")
+    private long ttlMs;
+
+    /**
+     * True si el token se emitió con la época vigente del usuario.
+     */
+    public boolean isCurrent(JwtPrincipal principal) {
+        return principal.tokenEpoch() == currentEpoch(principal.userId());
+    }
+
+    public long currentEpoch(Long userId) {
+        long now = System.currentTimeMillis();
+        Entry entry = epochs.get(userId);
+        if (entry != null && now - entry.loadedAtMs() < ttlMs) {
+            return entry.epoch();
+        }
+
+        long epoch = usuarioRepository.findTokenEpochById(userId).orElse(USER_MISSING);
+        epochs.put(userId, new Entry(epoch, now));
+        return epoch;
+    }
+
+    public void invalidate(Long userId) {
+        epochs.remove(userId);
+    }
+
+    /**
+     * Invalida la entrada cuando la transacción actual confirma (la nueva época ya es visible).
+     */
+    public void invalidateAfterCommit(Long userId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate(userId);
+                }
+            });
+        } else {
+            invalidate(userId);
+        }
+    }
+
+    private record Entry(long epoch, long loadedAtMs) {
+    }
+}
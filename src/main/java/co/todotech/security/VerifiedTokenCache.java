@@ -0,0 +1,116 @@
+package co.todotech.security;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caché de tokens ya verificados delante de {@link JwtUtil#verifyToken(String)}.
+ * Los terminales reenvían el mismo token en cada petición, así que tras la primera
+ * verificación basta con un SHA-256 del token y una búsqueda en el mapa.
+ *
+ * La clave es el digest (no se guardan tokens en claro) y cada entrada caduca en el
+ * exp del propio token. El logout la elimina vía {@link TokenBlacklistService}; además
+ * el filtro comprueba la revocación del jti después de esta caché.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class VerifiedTokenCache {
+
+    private final JwtUtil jwtUtil;
+
+    private final ConcurrentHashMap<String, JwtPrincipal> entries = new ConcurrentHashMap<>();
+
+    @Value("${jwt.cache.max-entries:10000}")
+    private int maxEntries;
+
+    /**
+     * Devuelve el principal del token, verificándolo con JwtUtil solo si no está en caché.
+     */
+    public Optional<JwtPrincipal> verify(String token) {
+        if (token == null || token.trim().isEmpty()) {
+            return Optional.empty();
+        }
+
+        String key = digest(token);
+        JwtPrincipal cached = entries.get(key);
+        if (cached != null) {
+            if (isAlive(cached, Instant.now())) {
+                return Optional.of(cached);
+            }
+            // Caducada: nunca se sirve desde la caché, decide JwtUtil
+            entries.remove(key, cached);
+        }
+
+        Optional<JwtPrincipal> principal = jwtUtil.verifyToken(token);
+        principal.ifPresent(p -> store(key, p));
+        return principal;
+    }
+
+    public void invalidate(String token) {
+        if (token != null && !token.trim().isEmpty()) {
+            entries.remove(digest(token));
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.cache.purge-ms:300000}")
+    public void purgeExpired() {
+        int before = entries.size();
+        removeExpired(Instant.now());
+        int removed = before - entries.size();
+        if (removed > 0) {
+            log.debug("🧹 Verified token cache purge - removed: {}, active: {}", removed, entries.size());
+        }
+    }
+
+    private void store(String key, JwtPrincipal principal) {
+        if (entries.size() >= maxEntries) {
+            removeExpired(Instant.now());
+        }
+        if (entries.size() >= maxEntries) {
+            // Sigue lleno de tokens vigentes: se descarta una décima parte. El orden de
+            // ConcurrentHashMap depende del hash, así que la elección es prácticamente aleatoria
+            int toRemove = Math.max(1, maxEntries / 10);
+            Iterator<String> it = entries.keySet().iterator();
+            while (it.hasNext() && toRemove-- > 0) {
+                it.next();
+                it.remove();
+            }
+        }
+        entries.put(key, principal);
+    }
+
+    private void removeExpired(Instant now) {
+        entries.values().removeIf(p -> !isAlive(p, now));
+    }
+
+    private boolean isAlive(JwtPrincipal principal, Instant now) {
+        return principal.expiresAt() != null && principal.expiresAt().isAfter(now);
+    }
+
+    private String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 es obligatorio en toda JVM
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
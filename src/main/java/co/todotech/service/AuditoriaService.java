@@ -0,0 +1,28 @@
+package co.todotech.service;
+
+import co.todotech.model.dto.auditoria.EstadoAuditoriaDto;
+import co.todotech.model.dto.auditoria.PaginaAuditoriaDto;
+import co.todotech.model.enums.AccionAuditoria;
+import co.todotech.model.enums.EntidadAuditada;
+
+import java.time.LocalDateTime;
+
+public interface AuditoriaService {
+
+    /**
+     * Encola el registro para escritura asíncrona. Dentro de una transacción solo se encola
+     * si esta confirma; el usuario se toma del contexto de seguridad del hilo que llama.
+     */
+    void registrar(EntidadAuditada entidad, Long entidadId, AccionAuditoria accion, String detalle);
+
+    /**
+     * Registros en [desde, hasta), del más reciente al más antiguo, paginados por (fecha, id).
+     * Sin {@code antesDeId} se excluye {@code hasta}; con él se incluyen además los registros de
+     * esa misma fecha con id menor. {@code entidad} y {@code entidadId} son filtros opcionales;
+     * {@code entidadId} requiere {@code entidad}.
+     */
+    PaginaAuditoriaDto consultar(LocalDateTime desde, LocalDateTime hasta, Long antesDeId, EntidadAuditada entidad,
+                                 Long entidadId, Integer limite);
+
+    EstadoAuditoriaDto obtenerEstado();
+}
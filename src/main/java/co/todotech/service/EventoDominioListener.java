@@ -0,0 +1,15 @@
+package co.todotech.service;
+
+import co.todotech.model.dto.eventos.EventoDominioDto;
+import co.todotech.model.enums.TipoEventoDominio;
+
+/**
+ * Consumidor en proceso de los eventos del outbox.
+ * Si {@link #manejar} lanza una excepción el evento se reintenta, así que debe ser idempotente.
+ */
+public interface EventoDominioListener {
+
+    boolean soporta(TipoEventoDominio tipo);
+
+    void manejar(EventoDominioDto evento);
+}
@@ -0,0 +1,32 @@
+package co.todotech.service;
+
+import co.todotech.model.dto.inventario.MovimientoInventarioDto;
+import co.todotech.model.dto.inventario.StockEnFechaDto;
+import co.todotech.model.enums.TipoMovimiento;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface InventarioService {
+
+    /**
+     * Añade un movimiento al libro en la transacción en curso. {@code cantidad} lleva signo
+     * (negativa si sale stock); un movimiento con cantidad 0 no se registra.
+     */
+    void registrarMovimiento(Long productoId, TipoMovimiento tipo, int cantidad, String referencia);
+
+    StockEnFechaDto consultarStockEn(Long productoId, LocalDateTime fecha);
+
+    /**
+     * Stock de todos los productos con movimientos en la fecha indicada.
+     */
+    List<StockEnFechaDto> reporteStockEn(LocalDateTime fecha);
+
+    List<MovimientoInventarioDto> listarMovimientos(Long productoId, LocalDateTime desde, LocalDateTime hasta, Integer limite);
+
+    /**
+     * Crea instantáneas para los productos con movimientos desde la última compactación.
+     * @return número de instantáneas creadas
+     */
+    int compactarSnapshots();
+}
@@ -3,6 +3,8 @@ package co.todotech.service;
 import co.todotech.model.dto.ordenventa.CreateOrdenDto;
 import co.todotech.model.dto.ordenventa.OrdenConDetallesDto;
 import co.todotech.model.dto.ordenventa.OrdenDto;
+import co.todotech.model.dto.ordenventa.PaginaOrdenesDto;
+import co.todotech.model.dto.ordenventa.TransicionMasivaResultadoDto;
 import co.todotech.model.enums.EstadoOrden;
 
 import java.util.List;
@@ -27,6 +29,9 @@ public interface OrdenService {
 
     OrdenDto actualizarEstadoOrden(Long id, EstadoOrden nuevoEstado);
 
+    // Cierre de jornada (ENTREGADA, CERRADA...): UPDATE condicional por lotes, sin cargar las órdenes
+    TransicionMasivaResultadoDto transicionarEstadoMasivo(List<Long> ordenIds, EstadoOrden nuevoEstado);
+
     OrdenDto marcarComoPagada(Long id);
 
     OrdenDto marcarComoEntregada(Long id);
@@ -45,5 +50,17 @@ public interface OrdenService {
 
     OrdenDto actualizarTotalOrden(Long ordenId, Double nuevoTotal);
 
+    // Recalculo completo desde las líneas (los totales normalmente se mantienen de forma incremental)
+    OrdenDto recalcularTotalesOrden(Long ordenId);
+
     List<OrdenDto> obtenerOrdenesDisponiblesParaPago();
+
+    // Listados paginados por keyset (fecha, id) sobre la proyección de cabecera
+    PaginaOrdenesDto listarOrdenes(String cursor, Integer limite);
+
+    PaginaOrdenesDto listarOrdenesPorCliente(Long clienteId, String cursor, Integer limite);
+
+    PaginaOrdenesDto listarOrdenesPorVendedor(Long vendedorId, String cursor, Integer limite);
+
+    PaginaOrdenesDto listarOrdenesPorEstado(EstadoOrden estado, String cursor, Integer limite);
 }
\ No newline at end of file
@@ -0,0 +1,14 @@
+package co.todotech.service;
+
+import co.todotech.model.enums.TipoEventoDominio;
+
+import java.util.Map;
+
+public interface OutboxEventosService {
+
+    /**
+     * Inserta el evento en el outbox dentro de la transacción en curso (obligatoria):
+     * si la transacción se revierte, el evento tampoco existe.
+     */
+    void registrar(TipoEventoDominio tipo, Long agregadoId, Map<String, Object> datos);
+}
@@ -6,6 +6,9 @@ import co.todotech.model.dto.pasarela.PaymentConfirmationDto;
 import co.todotech.model.enums.TipoMetodo;
 
 public interface PaymentGatewayService {
+    // Identifica la pasarela en PaymentGatewayExecutor (bulkhead y circuit breaker propios)
+    String getGatewayName();
+
     PaymentIntentResponseDto createPaymentIntent(PaymentIntentRequestDto request);
     PaymentIntentResponseDto confirmPayment(PaymentConfirmationDto confirmation);
     PaymentIntentResponseDto getPaymentStatus(String paymentIntentId);
@@ -0,0 +1,38 @@
+package co.todotech.service;
+
+import co.todotech.model.dto.inventario.DisponibilidadStockDto;
+
+import java.util.Collection;
+import java.util.Set;
+
+public interface ReservaStockService {
+
+    /**
+     * Stock menos reservas activas, sin ir a BD si el producto ya está en memoria.
+     * Las unidades reservadas por {@code ordenExcluida} se cuentan como disponibles.
+     */
+    DisponibilidadStockDto consultarDisponibilidad(Long productoId, Long ordenExcluida);
+
+    /**
+     * Carga en memoria, con una sola consulta, los productos que aún no tienen instantánea vigente.
+     *
+     * @return los ids que existen
+     */
+    Set<Long> precargarProductos(Collection<Long> productoIds);
+
+    /**
+     * Fija la reserva de la orden sobre el producto en {@code cantidad} unidades y renueva su expiración.
+     */
+    void reservar(Long ordenId, Long productoId, Integer cantidad);
+
+    void liberar(Long ordenId, Long productoId);
+
+    void liberarOrden(Long ordenId);
+
+    /**
+     * Convierte las reservas de la orden en descuentos reales de stock (al pagar).
+     */
+    void confirmarOrden(Long ordenId);
+
+    int liberarReservasExpiradas();
+}
@@ -0,0 +1,35 @@
+package co.todotech.service;
+
+import co.todotech.model.dto.sesion.SesionDto;
+import co.todotech.model.enums.MotivoCierreSesion;
+
+import java.util.List;
+
+public interface SesionService {
+
+    /**
+     * Registra la sesión del token recién emitido. Si el usuario ya tiene el máximo de
+     * sesiones de su rol, cierra las más antiguas (y revoca sus tokens).
+     */
+    void abrirSesion(String token);
+
+    void cerrarSesion(String token, MotivoCierreSesion motivo);
+
+    /**
+     * Cierra una sesión concreta (p. ej. un terminal perdido); su token deja de valer en todos los nodos.
+     */
+    void expulsarSesion(String jti);
+
+    /**
+     * Cierra todas las sesiones del usuario. Dentro de una transacción, las revocaciones
+     * persistidas se confirman o deshacen con ella.
+     */
+    void cerrarSesionesUsuario(Long usuarioId, MotivoCierreSesion motivo);
+
+    /**
+     * Sesiones activas, de la más reciente a la más antigua; {@code usuarioId} es un filtro opcional.
+     */
+    List<SesionDto> listarSesiones(Long usuarioId);
+
+    int cerrarSesionesExpiradas();
+}
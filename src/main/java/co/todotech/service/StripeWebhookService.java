@@ -0,0 +1,10 @@
+package co.todotech.service;
+
+public interface StripeWebhookService {
+
+    /**
+     * Verifica la firma del evento y lo guarda para procesarlo en segundo plano.
+     * Devuelve false si el evento ya se había recibido (reenvío de Stripe).
+     */
+    boolean registrarEvento(String payload, String firma);
+}
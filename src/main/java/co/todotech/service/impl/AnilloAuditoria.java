@@ -0,0 +1,88 @@
+package co.todotech.service.impl;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Buffer circular acotado sin candados: varios productores, un único consumidor.
+ * Cada celda lleva un número de secuencia que indica si está libre para el productor
+ * de esa vuelta o lista para el consumidor, así que publicar cuesta un CAS y nunca bloquea.
+ * Con el buffer lleno {@link #ofrecer} devuelve false y la política de desborde decide.
+ */
+final class AnilloAuditoria<T> {
+
+    private final int capacidad;
+    private final int mascara;
+    private final AtomicReferenceArray<T> celdas;
+    private final AtomicLongArray secuencias;
+    private final AtomicLong cola = new AtomicLong();
+
+    // Solo la toca el consumidor
+    private long cabeza;
+
+    AnilloAuditoria(int capacidadMinima) {
+        if (capacidadMinima < 2) {
+            throw new IllegalArgumentException("La capacidad del buffer de auditoría debe ser al menos 2");
+        }
+        this.capacidad = Integer.highestOneBit(capacidadMinima - 1) << 1;
+        this.mascara = capacidad - 1;
+        this.celdas = new AtomicReferenceArray<>(capacidad);
+        this.secuencias = new AtomicLongArray(capacidad);
+        for (int i = 0; i < capacidad; i++) {
+            secuencias.set(i, i);
+        }
+    }
+
+    boolean ofrecer(T elemento) {
+        long posicion = cola.get();
+        while (true) {
+            int indice = (int) (posicion & mascara);
+            long diferencia = secuencias.get(indice) - posicion;
+
+            if (diferencia == 0) {
+                if (cola.compareAndSet(posicion, posicion + 1)) {
+                    celdas.set(indice, elemento);
+                    secuencias.set(indice, posicion + 1);
+                    return true;
+                }
+                posicion = cola.get();
+            } else if (diferencia < 0) {
+                // La celda aún no la ha liberado el consumidor: buffer lleno
+                return false;
+            } else {
+                posicion = cola.get();
+            }
+        }
+    }
+
+    /**
+     * Mueve hasta {@code maximo} elementos a {@code destino}. Solo puede llamarlo un hilo a la vez.
+     */
+    int drenar(List<T> destino, int maximo) {
+        int movidos = 0;
+        while (movidos < maximo) {
+            int indice = (int) (cabeza & mascara);
+            if (secuencias.get(indice) != cabeza + 1) {
+                // Vacío, o el productor que reservó la celda todavía no publicó
+                break;
+            }
+            destino.add(celdas.get(indice));
+            celdas.set(indice, null);
+            secuencias.set(indice, cabeza + capacidad);
+            cabeza++;
+            movidos++;
+        }
+        return movidos;
+    }
+
+    int capacidad() {
+        return capacidad;
+    }
+
+    // Aproximado: reservadas por productores menos consumidas
+    long pendientes() {
+        return Math.max(0, cola.get() - cabeza);
+    }
+}
@@ -0,0 +1,124 @@
+package co.todotech.service.impl;
+
+import co.todotech.model.dto.auditoria.AuditoriaDto;
+import co.todotech.model.dto.auditoria.EstadoAuditoriaDto;
+import co.todotech.model.dto.auditoria.PaginaAuditoriaDto;
+import co.todotech.model.enums.AccionAuditoria;
+import co.todotech.model.enums.EntidadAuditada;
+import co.todotech.repository.AuditoriaRepository;
+import co.todotech.service.AuditoriaService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AuditoriaServiceImpl implements AuditoriaService {
+
+    private static final int LIMITE_POR_DEFECTO = 100;
+    private static final int LIMITE_MAXIMO = 1000;
+    private static final int LARGO_MAXIMO_DETALLE = 1000;
+    private static final Duration RANGO_MAXIMO = Duration.ofDays(31);
+    private static final String USUARIO_SISTEMA = "sistema";
+
+    private final AuditoriaWriter auditoriaWriter;
+    private final AuditoriaRepository auditoriaRepository;
+
+    @Override
+    public void registrar(EntidadAuditada entidad, Long entidadId, AccionAuditoria accion, String detalle) {
+        AuditoriaWriter.RegistroAuditoria registro = new AuditoriaWriter.RegistroAuditoria(
+                LocalDateTime.now(), entidad, entidadId, accion, usuarioActual(), recortar(detalle));
+
+        // Un cambio revertido no deja rastro: se encola solo tras el commit
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    auditoriaWriter.encolar(registro);
+                }
+            });
+        } else {
+            auditoriaWriter.encolar(registro);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PaginaAuditoriaDto consultar(LocalDateTime desde, LocalDateTime hasta, Long antesDeId, EntidadAuditada entidad,
+                                        Long entidadId, Integer limite) {
+        if (desde == null || hasta == null) {
+            throw new RuntimeException("Debe indicar el rango de fechas (desde y hasta)");
+        }
+        if (!desde.isBefore(hasta)) {
+            throw new RuntimeException("La fecha 'desde' debe ser anterior a 'hasta'");
+        }
+        if (Duration.between(desde, hasta).compareTo(RANGO_MAXIMO) > 0) {
+            throw new RuntimeException("El rango de consulta no puede superar " + RANGO_MAXIMO.toDays() + " días");
+        }
+        if (entidadId != null && entidad == null) {
+            throw new RuntimeException("Para filtrar por ID debe indicar también la entidad");
+        }
+
+        int tamano = limite == null ? LIMITE_POR_DEFECTO : Math.max(1, Math.min(limite, LIMITE_MAXIMO));
+        // Se pide una fila extra para saber si hay otra página sin un COUNT
+        PageRequest pagina = PageRequest.of(0, tamano + 1);
+        // Sin cursor, ningún id es menor que 0: el rango queda semiabierto en 'hasta'
+        long idTope = antesDeId != null ? antesDeId : 0L;
+
+        log.info("Consultando auditoría entre {} y {} (antes de id {}) - entidad: {}, id: {}, límite: {}",
+                desde, hasta, antesDeId, entidad, entidadId, tamano);
+
+        List<AuditoriaDto> filas;
+        if (entidadId != null) {
+            filas = auditoriaRepository.buscarPorRegistroYRango(entidad, entidadId, desde, hasta, idTope, pagina);
+        } else if (entidad != null) {
+            filas = auditoriaRepository.buscarPorEntidadYRango(entidad, desde, hasta, idTope, pagina);
+        } else {
+            filas = auditoriaRepository.buscarPorRango(desde, hasta, idTope, pagina);
+        }
+        return construirPagina(filas, tamano);
+    }
+
+    private PaginaAuditoriaDto construirPagina(List<AuditoriaDto> filas, int limite) {
+        boolean hayMas = filas.size() > limite;
+        List<AuditoriaDto> registros = hayMas ? new ArrayList<>(filas.subList(0, limite)) : filas;
+
+        if (!hayMas) {
+            return new PaginaAuditoriaDto(registros, null, null, false, limite);
+        }
+        AuditoriaDto ultimo = registros.get(registros.size() - 1);
+        return new PaginaAuditoriaDto(registros, ultimo.fecha(), ultimo.id(), true, limite);
+    }
+
+    @Override
+    public EstadoAuditoriaDto obtenerEstado() {
+        return auditoriaWriter.estado();
+    }
+
+    private String usuarioActual() {
+        Authentication autenticacion = SecurityContextHolder.getContext().getAuthentication();
+        if (autenticacion == null || !autenticacion.isAuthenticated() || autenticacion.getName() == null) {
+            return USUARIO_SISTEMA;
+        }
+        return autenticacion.getName();
+    }
+
+    private String recortar(String detalle) {
+        if (detalle == null || detalle.length() <= LARGO_MAXIMO_DETALLE) {
+            return detalle;
+        }
+        return detalle.substring(0, LARGO_MAXIMO_DETALLE);
+    }
+}
@@ -0,0 +1,165 @@
+package co.todotech.service.impl;
+
+import co.todotech.model.dto.auditoria.EstadoAuditoriaDto;
+import co.todotech.model.enums.AccionAuditoria;
+import co.todotech.model.enums.EntidadAuditada;
+import co.todotech.model.enums.PoliticaDesbordeAuditoria;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Escritor asíncrono de la tabla auditoria.
+ * Los servicios publican en un AnilloAuditoria (sin candados) y este componente lo vacía
+ * periódicamente con INSERTs JDBC por lotes. Si la BD falla, el lote se conserva y no se
+ * drena más hasta escribirlo: el anillo se llena y entra la política de desborde, así la
+ * memoria queda acotada por {@code auditoria.capacidad}.
+ */
+@Slf4j
+@Component
+public class AuditoriaWriter {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO auditoria (fecha, entidad, entidad_id, accion, usuario, detalle) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaccionPropia;
+    private final AnilloAuditoria<RegistroAuditoria> anillo;
+    private final PoliticaDesbordeAuditoria politicaDesborde;
+    private final int tamanoLote;
+
+    // El consumidor del anillo es único: el barrido programado y el vaciado al apagar se excluyen
+    private final ReentrantLock consumidor = new ReentrantLock();
+    private final List<RegistroAuditoria> loteSinEscribir = new ArrayList<>();
+
+    private final LongAdder escritos = new LongAdder();
+    private final LongAdder escritosDirecto = new LongAdder();
+    private final LongAdder descartados = new LongAdder();
+
+    public AuditoriaWriter(JdbcTemplate jdbcTemplate,
+                           @Value("${auditoria.capacidad:16384}") int capacidad,
+                           @Value("${auditoria.tamano-lote:500}") int tamanoLote,
+                           @Value("${auditoria.desborde:ESCRIBIR_DIRECTO}") PoliticaDesbordeAuditoria politicaDesborde,
+                           PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        // encolar() corre en afterCommit, con la conexión de la transacción ya confirmada todavía ligada:
+        // la escritura directa necesita su propia transacción o se pierde sin error
+        this.transaccionPropia = new TransactionTemplate(transactionManager);
+        this.transaccionPropia.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.anillo = new AnilloAuditoria<>(capacidad);
+        this.tamanoLote = tamanoLote;
+        this.politicaDesborde = politicaDesborde;
+    }
+
+    public void encolar(RegistroAuditoria registro) {
+        if (anillo.ofrecer(registro)) {
+            return;
+        }
+
+        if (politicaDesborde == PoliticaDesbordeAuditoria.ESCRIBIR_DIRECTO) {
+            try {
+                transaccionPropia.executeWithoutResult(status -> jdbcTemplate.update(INSERT_SQL, parametros(registro)));
+                escritosDirecto.increment();
+                return;
+            } catch (Exception e) {
+                log.error("No se pudo escribir directamente el registro de auditoría: {}", e.getMessage());
+            }
+        }
+
+        descartados.increment();
+        log.warn("AUDIT_OVERFLOW - buffer lleno, registro descartado: {} {} {}",
+                registro.entidad(), registro.entidadId(), registro.accion());
+    }
+
+    @Scheduled(fixedDelayString = "${auditoria.intervalo-ms:500}")
+    public void vaciar() {
+        if (!consumidor.tryLock()) {
+            return;
+        }
+        try {
+            vaciarPendientes();
+        } finally {
+            consumidor.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void vaciarAlApagar() {
+        consumidor.lock();
+        try {
+            vaciarPendientes();
+            if (anillo.pendientes() > 0 || !loteSinEscribir.isEmpty()) {
+                log.warn("AUDIT_SHUTDOWN - quedaron registros sin escribir: {}", anillo.pendientes() + loteSinEscribir.size());
+            }
+        } finally {
+            consumidor.unlock();
+        }
+    }
+
+    // Requiere el candado del consumidor
+    private void vaciarPendientes() {
+        while (true) {
+            if (loteSinEscribir.isEmpty() && anillo.drenar(loteSinEscribir, tamanoLote) == 0) {
+                return;
+            }
+            if (!escribirLote()) {
+                return;
+            }
+        }
+    }
+
+    public EstadoAuditoriaDto estado() {
+        return new EstadoAuditoriaDto(
+                anillo.capacidad(),
+                anillo.pendientes(),
+                escritos.sum(),
+                escritosDirecto.sum(),
+                descartados.sum(),
+                politicaDesborde);
+    }
+
+    private boolean escribirLote() {
+        try {
+            List<Object[]> filas = new ArrayList<>(loteSinEscribir.size());
+            for (RegistroAuditoria registro : loteSinEscribir) {
+                filas.add(parametros(registro));
+            }
+            jdbcTemplate.batchUpdate(INSERT_SQL, filas);
+            escritos.add(loteSinEscribir.size());
+            loteSinEscribir.clear();
+            return true;
+        } catch (Exception e) {
+            log.error("AUDIT_WRITE_ERROR - lote de {} registros pendiente de reintento: {}",
+                    loteSinEscribir.size(), e.getMessage());
+            return false;
+        }
+    }
+
+    private Object[] parametros(RegistroAuditoria registro) {
+        return new Object[]{
+                Timestamp.valueOf(registro.fecha()),
+                registro.entidad().name(),
+                registro.entidadId(),
+                registro.accion().name(),
+                registro.usuario(),
+                registro.detalle()
+        };
+    }
+
+    public record RegistroAuditoria(LocalDateTime fecha, EntidadAuditada entidad, Long entidadId,
+                                    AccionAuditoria accion, String usuario, String detalle) {
+    }
+}
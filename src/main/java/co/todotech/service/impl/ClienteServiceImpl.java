@@ -3,8 +3,11 @@ package co.todotech.service.impl;
 import co.todotech.mapper.ClienteMapper;
 import co.todotech.model.dto.cliente.ClienteDto;
 import co.todotech.model.entities.Cliente;
+import co.todotech.model.enums.AccionAuditoria;
+import co.todotech.model.enums.EntidadAuditada;
 import co.todotech.model.enums.TipoCliente;
 import co.todotech.repository.ClienteRepository;
+import co.todotech.service.AuditoriaService;
 import co.todotech.service.ClienteService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -24,6 +27,7 @@ public class ClienteServiceImpl implements ClienteService {
 
     private final ClienteMapper clienteMapper;
     private final ClienteRepository clienteRepository;
+    private final AuditoriaService auditoriaService;
 
     @Override
     @Transactional
@@ -49,6 +53,8 @@ public class ClienteServiceImpl implements ClienteService {
 
             Cliente cliente = clienteMapper.toEntity(dto);
             clienteRepository.save(cliente);
+            auditoriaService.registrar(EntidadAuditada.CLIENTE, cliente.getId(), AccionAuditoria.CREACION,
+                    "cedula=" + cliente.getCedula() + ", tipo=" + cliente.getTipoCliente());
 
             // ✅ LOG ESTRUCTURADO PARA MONITOREO
             log.info("MONITORING_CLIENT_CREATE - action: CREATE_SUCCESS, clienteId: {}, cedula: {}, nombre: {}, tipo: {}, fechaRegistro: {}",
@@ -100,6 +106,10 @@ public class ClienteServiceImpl implements ClienteService {
 
             clienteMapper.updateClienteFromDto(dto, cliente);
             clienteRepository.save(cliente);
+            auditoriaService.registrar(EntidadAuditada.CLIENTE, id, AccionAuditoria.ACTUALIZACION,
+                    "nombre: " + nombreAnterior + " -> " + cliente.getNombre()
+                            + ", cedula: " + cedulaAnterior + " -> " + cliente.getCedula()
+                            + ", tipo: " + tipoAnterior + " -> " + cliente.getTipoCliente());
 
             // ✅ LOG ESTRUCTURADO PARA MONITOREO
             log.info("MONITORING_CLIENT_UPDATE - action: UPDATE_SUCCESS, clienteId: {}, " +
@@ -135,6 +145,8 @@ public class ClienteServiceImpl implements ClienteService {
             // }
 
             clienteRepository.delete(cliente);
+            auditoriaService.registrar(EntidadAuditada.CLIENTE, id, AccionAuditoria.ELIMINACION,
+                    "cedula=" + cliente.getCedula());
 
             // ✅ LOG ESTRUCTURADO PARA MONITOREO
             log.info("MONITORING_CLIENT_DELETE - action: DELETE_SUCCESS, clienteId: {}, cedula: {}, nombre: {}",
@@ -4,6 +4,7 @@ import co.todotech.exception.detalleorden.*;
 import co.todotech.exception.ordenventa.OrdenNotFoundException;
 import co.todotech.exception.producto.ProductoNotFoundException;
 import co.todotech.mapper.DetalleOrdenMapper;
+import co.todotech.model.dto.detalleorden.CantidadLineaDto;
 import co.todotech.model.dto.detalleorden.CreateDetalleOrdenDto;
 import co.todotech.model.dto.detalleorden.DetalleOrdenDto;
 import co.todotech.model.dto.detalleorden.EliminarDetalleRequest;
@@ -11,23 +12,31 @@ import co.todotech.model.dto.detalleorden.validacion.BulkStockValidationRequest;
 import co.todotech.model.dto.detalleorden.validacion.BulkValidationResultDto;
 import co.todotech.model.dto.detalleorden.validacion.StockValidationRequest;
 import co.todotech.model.dto.detalleorden.validacion.ValidationResultDto;
+import co.todotech.model.dto.inventario.DisponibilidadStockDto;
 import co.todotech.model.entities.DetalleOrden;
 import co.todotech.model.entities.Orden;
 import co.todotech.model.entities.Producto;
 import co.todotech.model.enums.EstadoOrden;
 import co.todotech.model.enums.EstadoProducto;
+import co.todotech.model.enums.TipoEventoDominio;
 import co.todotech.repository.DetalleOrdenRepository;
 import co.todotech.repository.OrdenRepository;
 import co.todotech.repository.ProductoRepository;
 import co.todotech.service.DetalleOrdenService;
-import co.todotech.service.ProductoService;
+import co.todotech.service.OutboxEventosService;
+import co.todotech.service.ReservaStockService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -39,7 +48,8 @@ public class DetalleOrdenServiceImpl implements DetalleOrdenService {
     private final OrdenRepository ordenRepository;
     private final ProductoRepository productoRepository;
     private final DetalleOrdenMapper detalleOrdenMapper;
-    private final ProductoService productoService;
+    private final ReservaStockService reservaStockService;
+    private final OutboxEventosService outboxEventos;
 
     // Constantes para stock crítico
     private static final int STOCK_CRITICO = 3;
@@ -52,8 +62,8 @@ public class DetalleOrdenServiceImpl implements DetalleOrdenService {
         log.info("Creando detalle de orden para orden ID: {} y producto ID: {}",
                 ordenId, createDetalleOrdenDto.productoId());
 
-        // Validar que la orden existe y está en estado permitido
-        Orden orden = ordenRepository.findById(ordenId)
+        // Validar que la orden existe y está en estado permitido (solo cabecera, bloqueada: los totales son incrementales)
+        Orden orden = ordenRepository.findByIdForUpdate(ordenId)
                 .orElseThrow(() -> new OrdenNotFoundException(ordenId));
 
         validarEstadoOrdenParaModificacion(orden);
@@ -62,18 +72,18 @@ public class DetalleOrdenServiceImpl implements DetalleOrdenService {
         Producto producto = productoRepository.findById(createDetalleOrdenDto.productoId())
                 .orElseThrow(() -> new ProductoNotFoundException(createDetalleOrdenDto.productoId()));
 
-        // 🔥 CORREGIDO: Usar validación que considera contexto
-        validarStockMinimoParaCreacion(producto, createDetalleOrdenDto.cantidad());
-        validarStockDisponible(producto, createDetalleOrdenDto.cantidad(), null);
+        // 🔥 CORREGIDO: Validar contra el stock no reservado por otras órdenes
+        DisponibilidadStockDto disponibilidad = reservaStockService.consultarDisponibilidad(producto.getId(), ordenId);
+        validarStockMinimoParaCreacion(disponibilidad, createDetalleOrdenDto.cantidad());
+        validarStockDisponible(disponibilidad, createDetalleOrdenDto.cantidad());
 
         // Verificar si ya existe un detalle para este producto en la orden
-        detalleOrdenRepository.findByOrdenIdAndProductoId(ordenId, createDetalleOrdenDto.productoId())
-                .ifPresent(existingDetail -> {
-                    throw new DetalleOrdenDuplicateException(ordenId, createDetalleOrdenDto.productoId());
-                });
+        if (detalleOrdenRepository.existsByOrdenIdAndProductoId(ordenId, createDetalleOrdenDto.productoId())) {
+            throw new DetalleOrdenDuplicateException(ordenId, createDetalleOrdenDto.productoId());
+        }
 
-        // 🔥 ACTUALIZAR STOCK: Decrementar el stock del producto
-        productoService.decrementarStock(producto.getId(), createDetalleOrdenDto.cantidad());
+        // 🔥 RESERVAR STOCK: el stock del producto se descuenta al pagar la orden
+        reservaStockService.reservar(ordenId, producto.getId(), createDetalleOrdenDto.cantidad());
 
         // Crear el detalle de orden
         DetalleOrden detalleOrden = DetalleOrden.builder()
@@ -86,14 +96,12 @@ public class DetalleOrdenServiceImpl implements DetalleOrdenService {
 
         DetalleOrden detalleGuardado = detalleOrdenRepository.save(detalleOrden);
 
-        // Agregar el detalle a la orden para mantener la relación bidireccional
+        // Agregar el detalle a la orden: mantiene la relación bidireccional y suma solo esta línea
         orden.agregarDetalle(detalleGuardado);
-
-        // Recalcular totales de la orden
-        orden.calcularTotales();
         ordenRepository.save(orden);
+        outboxEventos.registrar(TipoEventoDominio.DETALLE_ORDEN_AGREGADO, orden.getId(), datosEvento(orden, detalleGuardado));
 
-        log.info("Detalle de orden creado exitosamente con ID: {}. Stock del producto actualizado.", detalleGuardado.getId());
+        log.info("Detalle de orden creado exitosamente con ID: {}. Stock del producto reservado.", detalleGuardado.getId());
         return detalleOrdenMapper.toDto(detalleGuardado);
     }
 
@@ -139,48 +147,42 @@ public class DetalleOrdenServiceImpl implements DetalleOrdenService {
             throw new DetalleOrdenBusinessException("La cantidad debe ser mayor a 0");
         }
 
-        DetalleOrden detalleOrden = detalleOrdenRepository.findById(detalleId)
-                .orElseThrow(() -> new DetalleOrdenNotFoundException(detalleId));
+        DetalleOrden detalleOrden = obtenerDetalleConOrdenBloqueada(detalleId);
 
         // Validar que la orden esté en estado permitido
         validarEstadoOrdenParaModificacion(detalleOrden.getOrden());
 
         Producto producto = detalleOrden.getProducto();
+        Long ordenId = detalleOrden.getOrden().getId();
         Integer cantidadActual = detalleOrden.getCantidad();
 
-        // 🔥 CORREGIDO: Validar considerando unidades ya reservadas
-        validarStockMinimoParaActualizacion(producto, nuevaCantidad, detalleId);
-
-        // Calcular la diferencia de cantidad
-        int diferencia = nuevaCantidad - cantidadActual;
+        // 🔥 CORREGIDO: Las unidades ya reservadas por esta orden cuentan como disponibles
+        DisponibilidadStockDto disponibilidad = reservaStockService.consultarDisponibilidad(producto.getId(), ordenId);
+        validarStockMinimoParaActualizacion(disponibilidad, nuevaCantidad, cantidadActual);
 
-        if (diferencia != 0) {
-            // 🔥 CORREGIDO: Validar stock disponible considerando reservas existentes
-            if (diferencia > 0) {
-                validarStockDisponible(producto, diferencia, detalleId);
+        if (!nuevaCantidad.equals(cantidadActual)) {
+            if (nuevaCantidad > cantidadActual) {
+                validarStockDisponible(disponibilidad, nuevaCantidad);
             }
 
-            // 🔥 ACTUALIZAR STOCK: Ajustar según la diferencia
-            if (diferencia > 0) {
-                // Si se aumenta la cantidad, decrementar stock
-                productoService.decrementarStock(producto.getId(), diferencia);
-            } else {
-                // Si se disminuye la cantidad, incrementar stock
-                productoService.incrementarStock(producto.getId(), Math.abs(diferencia));
-            }
+            // 🔥 RESERVAR STOCK: la reserva pasa a la nueva cantidad
+            reservaStockService.reservar(ordenId, producto.getId(), nuevaCantidad);
         }
 
         // Actualizar cantidad
+        Double subtotalAnterior = detalleOrden.getSubtotal();
         detalleOrden.setCantidad(nuevaCantidad);
+        detalleOrden.calcularSubtotal();
 
         DetalleOrden detalleActualizado = detalleOrdenRepository.save(detalleOrden);
 
-        // Recalcular totales de la orden
+        // Aplicar a la orden solo el delta de esta línea
         Orden orden = detalleOrden.getOrden();
-        orden.calcularTotales();
+        orden.aplicarCambioLinea(subtotalAnterior, detalleOrden.getSubtotal());
         ordenRepository.save(orden);
+        outboxEventos.registrar(TipoEventoDominio.DETALLE_ORDEN_ACTUALIZADO, orden.getId(), datosEvento(orden, detalleActualizado));
 
-        log.info("Cantidad actualizada exitosamente para detalle ID: {}. Stock del producto ajustado.", detalleId);
+        log.info("Cantidad actualizada exitosamente para detalle ID: {}. Reserva de stock ajustada.", detalleId);
         return detalleOrdenMapper.toDto(detalleActualizado);
     }
 
@@ -189,51 +191,45 @@ public class DetalleOrdenServiceImpl implements DetalleOrdenService {
     public DetalleOrdenDto actualizarDetalleOrden(Long id, DetalleOrdenDto detalleOrdenDto) {
         log.info("Actualizando detalle de orden con ID: {}", id);
 
-        DetalleOrden detalleExistente = detalleOrdenRepository.findById(id)
-                .orElseThrow(() -> new DetalleOrdenNotFoundException(id));
+        DetalleOrden detalleExistente = obtenerDetalleConOrdenBloqueada(id);
 
         // Validar que la orden esté en estado permitido
         validarEstadoOrdenParaModificacion(detalleExistente.getOrden());
 
         Producto producto = detalleExistente.getProducto();
+        Long ordenId = detalleExistente.getOrden().getId();
         Integer cantidadActual = detalleExistente.getCantidad();
 
         // Validar stock si se está actualizando la cantidad
         if (detalleOrdenDto.cantidad() != null && !detalleOrdenDto.cantidad().equals(cantidadActual)) {
             Integer nuevaCantidad = detalleOrdenDto.cantidad();
 
-            // 🔥 CORREGIDO: Validar considerando unidades ya reservadas
-            validarStockMinimoParaActualizacion(producto, nuevaCantidad, id);
+            // 🔥 CORREGIDO: Las unidades ya reservadas por esta orden cuentan como disponibles
+            DisponibilidadStockDto disponibilidad = reservaStockService.consultarDisponibilidad(producto.getId(), ordenId);
+            validarStockMinimoParaActualizacion(disponibilidad, nuevaCantidad, cantidadActual);
 
-            // Calcular la diferencia de cantidad
-            int diferencia = nuevaCantidad - cantidadActual;
-
-            if (diferencia != 0) {
-                // 🔥 CORREGIDO: Validar stock disponible considerando reservas existentes
-                if (diferencia > 0) {
-                    validarStockDisponible(producto, diferencia, id);
-                }
-
-                // 🔥 ACTUALIZAR STOCK: Ajustar según la diferencia
-                if (diferencia > 0) {
-                    productoService.decrementarStock(producto.getId(), diferencia);
-                } else {
-                    productoService.incrementarStock(producto.getId(), Math.abs(diferencia));
-                }
+            if (nuevaCantidad > cantidadActual) {
+                validarStockDisponible(disponibilidad, nuevaCantidad);
             }
+
+            // 🔥 RESERVAR STOCK: la reserva pasa a la nueva cantidad
+            reservaStockService.reservar(ordenId, producto.getId(), nuevaCantidad);
         }
 
         // Actualizar campos permitidos
+        Double subtotalAnterior = detalleExistente.getSubtotal();
         detalleOrdenMapper.updateDetalleOrdenFromDto(detalleOrdenDto, detalleExistente);
+        detalleExistente.calcularSubtotal();
 
         DetalleOrden detalleActualizado = detalleOrdenRepository.save(detalleExistente);
 
-        // Recalcular totales de la orden
+        // Aplicar a la orden solo el delta de esta línea
         Orden orden = detalleExistente.getOrden();
-        orden.calcularTotales();
+        orden.aplicarCambioLinea(subtotalAnterior, detalleExistente.getSubtotal());
         ordenRepository.save(orden);
+        outboxEventos.registrar(TipoEventoDominio.DETALLE_ORDEN_ACTUALIZADO, orden.getId(), datosEvento(orden, detalleActualizado));
 
-        log.info("Detalle de orden actualizado exitosamente con ID: {}. Stock del producto ajustado si fue necesario.", id);
+        log.info("Detalle de orden actualizado exitosamente con ID: {}. Reserva de stock ajustada si fue necesario.", id);
         return detalleOrdenMapper.toDto(detalleActualizado);
     }
 
@@ -242,31 +238,38 @@ public class DetalleOrdenServiceImpl implements DetalleOrdenService {
     public void eliminarDetalleOrden(Long id) {
         log.info("Eliminando detalle de orden con ID: {}", id);
 
-        DetalleOrden detalleOrden = detalleOrdenRepository.findById(id)
-                .orElseThrow(() -> new DetalleOrdenNotFoundException(id));
+        DetalleOrden detalleOrden = obtenerDetalleConOrdenBloqueada(id);
 
         // Validar que la orden esté en estado permitido
         validarEstadoOrdenParaModificacion(detalleOrden.getOrden());
 
         Producto producto = detalleOrden.getProducto();
-        Integer cantidad = detalleOrden.getCantidad();
-
         Orden orden = detalleOrden.getOrden();
 
-        // 🔥 ACTUALIZAR STOCK: Incrementar el stock al eliminar el detalle
-        productoService.incrementarStock(producto.getId(), cantidad);
+        // 🔥 LIBERAR RESERVA: el stock nunca se descontó, solo se deja de apartar
+        reservaStockService.liberar(orden.getId(), producto.getId());
 
-        // Remover el detalle de la orden
+        // Remover el detalle de la orden: resta solo el subtotal de esta línea
         orden.removerDetalle(detalleOrden);
 
         // Eliminar el detalle
         detalleOrdenRepository.delete(detalleOrden);
-
-        // Recalcular totales de la orden
-        orden.calcularTotales();
         ordenRepository.save(orden);
+        outboxEventos.registrar(TipoEventoDominio.DETALLE_ORDEN_ELIMINADO, orden.getId(), datosEvento(orden, detalleOrden));
+
+        log.info("Detalle de orden eliminado exitosamente con ID: {}. Reserva de stock liberada.", id);
+    }
+
+    // La orden se bloquea antes de cargar la línea: así la línea y el subtotal que se leen son
+    // los últimos confirmados y el delta de otra edición concurrente no se pierde
+    private DetalleOrden obtenerDetalleConOrdenBloqueada(Long detalleId) {
+        Long ordenId = detalleOrdenRepository.findOrdenIdById(detalleId)
+                .orElseThrow(() -> new DetalleOrdenNotFoundException(detalleId));
+        ordenRepository.findByIdForUpdate(ordenId)
+                .orElseThrow(() -> new OrdenNotFoundException(ordenId));
 
-        log.info("Detalle de orden eliminado exitosamente con ID: {}. Stock del producto restaurado.", id);
+        return detalleOrdenRepository.findById(detalleId)
+                .orElseThrow(() -> new DetalleOrdenNotFoundException(detalleId));
     }
 
     @Override
@@ -283,54 +286,26 @@ public class DetalleOrdenServiceImpl implements DetalleOrdenService {
         eliminarDetalleOrden(detalleOrden.getId());
     }
 
-    // 🔥 CORREGIDO: Método mejorado con nuevas excepciones
+    // 🔥 CORREGIDO: Stock menos reservas activas, servido desde memoria
     @Override
     @Transactional(readOnly = true)
     public void validarStockDisponible(Long productoId, Integer cantidadRequerida) {
         log.debug("Validando stock para producto ID: {}, cantidad requerida: {}", productoId, cantidadRequerida);
 
-        Producto producto = productoRepository.findById(productoId)
-                .orElseThrow(() -> new ProductoNotFoundException(productoId));
-
-        validarStockDisponible(producto, cantidadRequerida, null);
+        validarStockDisponible(reservaStockService.consultarDisponibilidad(productoId, null), cantidadRequerida);
     }
 
-    // 🔥 CORREGIDO COMPLETAMENTE: Método sobrecargado que considera unidades reservadas
-    private void validarStockDisponible(Producto producto, Integer cantidadRequerida, Long detalleOrdenId) {
+    // 🔥 CORREGIDO COMPLETAMENTE: El disponible ya descuenta las reservas de otras órdenes
+    private void validarStockDisponible(DisponibilidadStockDto disponibilidad, Integer cantidadRequerida) {
         // Validar estado del producto
-        if (producto.getEstado() != EstadoProducto.ACTIVO) {
-            throw new ProductoNoDisponibleException(producto.getNombre(), producto.getEstado().toString());
+        if (disponibilidad.estado() != EstadoProducto.ACTIVO) {
+            throw new ProductoNoDisponibleException(disponibilidad.nombre(), disponibilidad.estado().toString());
         }
 
-        // 🔥 NUEVA LÓGICA: Calcular stock disponible real considerando reservas
-        Integer stockDisponibleReal = calcularStockDisponibleReal(producto, detalleOrdenId);
-
         // Validar stock disponible
-        if (stockDisponibleReal < cantidadRequerida) {
-            throw new StockInsufficientException(producto.getNombre(), stockDisponibleReal, cantidadRequerida);
-        }
-    }
-
-    // 🔥 NUEVO: Calcular stock disponible real considerando reservas existentes
-    private Integer calcularStockDisponibleReal(Producto producto, Long detalleOrdenIdExcluir) {
-        Integer stockTotal = producto.getStock();
-
-        // Si no hay detalleOrdenId, es una creación nueva - usar stock total
-        if (detalleOrdenIdExcluir == null) {
-            return stockTotal;
+        if (disponibilidad.disponible() < cantidadRequerida) {
+            throw new StockInsufficientException(disponibilidad.nombre(), disponibilidad.disponible(), cantidadRequerida);
         }
-
-        // 🔥 LÓGICA CORREGIDA: Para actualización, considerar que ya tenemos unidades reservadas
-        // Stock disponible real = Stock total + Cantidad ya reservada en este detalle
-        // Porque al modificar, primero liberamos lo reservado y luego reservamos lo nuevo
-
-        // Obtener la cantidad actual del detalle que se está modificando
-        Integer cantidadReservadaActual = detalleOrdenRepository.findById(detalleOrdenIdExcluir)
-                .map(DetalleOrden::getCantidad)
-                .orElse(0);
-
-        // Stock disponible = Stock actual + Lo que ya tenemos reservado
-        return stockTotal + cantidadReservadaActual;
     }
 
     // 🔥 CORREGIDO COMPLETAMENTE: Validación de stock para detalle
@@ -340,90 +315,139 @@ public class DetalleOrdenServiceImpl implements DetalleOrdenService {
         log.info("Validando stock para producto ID: {}, cantidad: {}, detalle: {}",
                 request.productoId(), request.cantidad(), request.detalleOrdenId());
 
+        // En una actualización, las unidades ya reservadas por la orden de la línea cuentan como disponibles
+        CantidadLineaDto linea = request.detalleOrdenId() != null
+                ? detalleOrdenRepository.findCantidadesByIdIn(List.of(request.detalleOrdenId())).stream()
+                        .findFirst().orElse(null)
+                : null;
+
+        return evaluarStock(
+                request.productoId(),
+                request.cantidad(),
+                request.detalleOrdenId() != null,
+                linea != null ? linea.ordenId() : null,
+                linea != null ? linea.cantidad() : 0
+        );
+    }
+
+    // 🔥 NUEVO: Validación múltiple de stock en memoria tras dos consultas IN (productos y líneas)
+    @Override
+    @Transactional(readOnly = true)
+    public BulkValidationResultDto validarStockMultiple(BulkStockValidationRequest request) {
+        log.info("Validando stock para {} productos", request.validaciones().size());
+
+        // Un mismo producto puede venir varias veces: se valida la suma de cantidades
+        Map<Long, List<StockValidationRequest>> validacionesPorProducto = request.validaciones().stream()
+                .collect(Collectors.groupingBy(StockValidationRequest::productoId, LinkedHashMap::new, Collectors.toList()));
+
+        Set<Long> detalleIds = request.validaciones().stream()
+                .map(StockValidationRequest::detalleOrdenId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+
+        Map<Long, CantidadLineaDto> lineas = detalleIds.isEmpty()
+                ? Map.of()
+                : detalleOrdenRepository.findCantidadesByIdIn(detalleIds).stream()
+                        .collect(Collectors.toMap(CantidadLineaDto::detalleId, Function.identity()));
+
+        Set<Long> productosExistentes = reservaStockService.precargarProductos(validacionesPorProducto.keySet());
+
+        Map<Long, ValidationResultDto> resultados = new LinkedHashMap<>();
+        validacionesPorProducto.forEach((productoId, validaciones) -> {
+            int cantidad = validaciones.stream().mapToInt(StockValidationRequest::cantidad).sum();
+
+            if (!productosExistentes.contains(productoId)) {
+                resultados.put(productoId, ValidationResultDto.invalido(
+                        new ProductoNotFoundException(productoId).getMessage(), 0, cantidad));
+                return;
+            }
+
+            List<CantidadLineaDto> lineasDelProducto = validaciones.stream()
+                    .map(StockValidationRequest::detalleOrdenId)
+                    .filter(Objects::nonNull)
+                    .distinct()
+                    .map(lineas::get)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+
+            boolean esActualizacion = validaciones.stream().anyMatch(v -> v.detalleOrdenId() != null);
+            Long ordenId = lineasDelProducto.isEmpty() ? null : lineasDelProducto.get(0).ordenId();
+            int cantidadActual = lineasDelProducto.stream().mapToInt(CantidadLineaDto::cantidad).sum();
+
+            resultados.put(productoId, evaluarStock(productoId, cantidad, esActualizacion, ordenId, cantidadActual));
+        });
+
+        List<Long> productosConProblemas = resultados.entrySet().stream()
+                .filter(entry -> !entry.getValue().isValido())
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+
+        int totalProductos = resultados.size();
+        int productosValidos = totalProductos - productosConProblemas.size();
+
+        return BulkValidationResultDto.builder()
+                .todoValido(productosConProblemas.isEmpty())
+                .mensajeGeneral(productosConProblemas.isEmpty() ?
+                        "Todos los productos tienen stock suficiente" :
+                        String.format("%d productos tienen problemas de stock", productosConProblemas.size()))
+                .resultados(resultados)
+                .productosConProblemas(productosConProblemas)
+                .totalProductos(totalProductos)
+                .productosValidos(productosValidos)
+                .productosInvalidos(productosConProblemas.size())
+                .build();
+    }
+
+    // Reglas de validación de una línea; el disponible sale del libro de reservas
+    private ValidationResultDto evaluarStock(Long productoId, Integer cantidad, boolean esActualizacion,
+                                             Long ordenId, Integer cantidadActual) {
+        DisponibilidadStockDto disponibilidad = null;
         try {
-            Producto producto = productoRepository.findById(request.productoId())
-                    .orElseThrow(() -> new ProductoNotFoundException(request.productoId()));
+            disponibilidad = reservaStockService.consultarDisponibilidad(productoId, ordenId);
 
             // Validar estado del producto
-            if (producto.getEstado() != EstadoProducto.ACTIVO) {
+            if (disponibilidad.estado() != EstadoProducto.ACTIVO) {
                 return ValidationResultDto.productoNoDisponible();
             }
 
-            // 🔥 CORREGIDO: Calcular stock disponible real
-            Integer stockDisponibleReal = calcularStockDisponibleReal(producto, request.detalleOrdenId());
-
             // Validar stock mínimo según el contexto
-            if (request.detalleOrdenId() == null) {
+            if (!esActualizacion) {
                 // Validación para creación
-                validarStockMinimoParaCreacion(producto, request.cantidad());
+                validarStockMinimoParaCreacion(disponibilidad, cantidad);
             } else {
                 // Validación para actualización
-                validarStockMinimoParaActualizacion(producto, request.cantidad(), request.detalleOrdenId());
+                validarStockMinimoParaActualizacion(disponibilidad, cantidad, cantidadActual);
             }
 
             // 🔥 CORREGIDO: Validar stock disponible considerando reservas
-            if (stockDisponibleReal < request.cantidad()) {
-                throw new StockInsufficientException(producto.getNombre(), stockDisponibleReal, request.cantidad());
+            if (disponibilidad.disponible() < cantidad) {
+                throw new StockInsufficientException(disponibilidad.nombre(), disponibilidad.disponible(), cantidad);
             }
 
             // Si pasa todas las validaciones
             return ValidationResultDto.valido(
                     "Stock suficiente para la operación",
-                    stockDisponibleReal
+                    disponibilidad.disponible()
             );
 
         } catch (StockInsufficientException | StockCriticalException | ProductoNoDisponibleException e) {
             // Capturar excepciones específicas de stock y convertirlas en resultado de validación
-            Producto producto = productoRepository.findById(request.productoId()).orElse(null);
-            Integer stockActual = producto != null ? producto.getStock() : 0;
+            Integer stockActual = disponibilidad != null ? disponibilidad.disponible() : 0;
 
             return ValidationResultDto.invalido(
                     e.getMessage(),
                     stockActual,
-                    request.cantidad()
+                    cantidad
             );
         } catch (Exception e) {
             return ValidationResultDto.invalido(
                     e.getMessage(),
                     0,
-                    request.cantidad()
+                    cantidad
             );
         }
     }
 
-    // 🔥 NUEVO: Validación múltiple de stock
-    @Override
-    @Transactional(readOnly = true)
-    public BulkValidationResultDto validarStockMultiple(BulkStockValidationRequest request) {
-        log.info("Validando stock para {} productos", request.validaciones().size());
-
-        Map<Long, ValidationResultDto> resultados = request.validaciones().stream()
-                .collect(Collectors.toMap(
-                        StockValidationRequest::productoId,
-                        this::validarStockParaDetalle
-                ));
-
-        List<Long> productosConProblemas = resultados.entrySet().stream()
-                .filter(entry -> !entry.getValue().isValido())
-                .map(Map.Entry::getKey)
-                .collect(Collectors.toList());
-
-        int totalProductos = request.validaciones().size();
-        int productosValidos = totalProductos - productosConProblemas.size();
-
-        return BulkValidationResultDto.builder()
-                .todoValido(productosConProblemas.isEmpty())
-                .mensajeGeneral(productosConProblemas.isEmpty() ?
-                        "Todos los productos tienen stock suficiente" :
-                        String.format("%d productos tienen problemas de stock", productosConProblemas.size()))
-                .resultados(resultados)
-                .productosConProblemas(productosConProblemas)
-                .totalProductos(totalProductos)
-                .productosValidos(productosValidos)
-                .productosInvalidos(productosConProblemas.size())
-                .build();
-    }
-
     // 🔥 NUEVO: Obtener productos con stock crítico
     @Override
     @Transactional(readOnly = true)
@@ -451,51 +475,45 @@ public class DetalleOrdenServiceImpl implements DetalleOrdenService {
     public ValidationResultDto obtenerStockDisponible(Long productoId) {
         log.info("Obteniendo stock disponible para producto ID: {}", productoId);
 
-        Producto producto = productoRepository.findById(productoId)
-                .orElseThrow(() -> new ProductoNotFoundException(productoId));
+        DisponibilidadStockDto disponibilidad = reservaStockService.consultarDisponibilidad(productoId, null);
 
-        if (producto.getEstado() != EstadoProducto.ACTIVO) {
+        if (disponibilidad.estado() != EstadoProducto.ACTIVO) {
             return ValidationResultDto.productoNoDisponible();
         }
 
         return ValidationResultDto.valido(
                 "Stock disponible obtenido",
-                producto.getStock()
+                disponibilidad.disponible()
         );
     }
 
     // 🔥 CORREGIDO: Validar stock mínimo para creación con nuevas excepciones
-    private void validarStockMinimoParaCreacion(Producto producto, Integer cantidad) {
-        if (producto.getStock() < STOCK_MINIMO_CREACION) {
+    private void validarStockMinimoParaCreacion(DisponibilidadStockDto disponibilidad, Integer cantidad) {
+        if (disponibilidad.disponible() < STOCK_MINIMO_CREACION) {
             throw new StockInsufficientException(
-                    producto.getNombre(), producto.getStock(), STOCK_MINIMO_CREACION);
+                    disponibilidad.nombre(), disponibilidad.disponible(), STOCK_MINIMO_CREACION);
         }
 
-        if (producto.getStock() == 1 && cantidad > 1) {
+        if (disponibilidad.disponible() == 1 && cantidad > 1) {
             throw new StockCriticalException(
-                    producto.getNombre(), producto.getStock());
+                    disponibilidad.nombre(), disponibilidad.disponible());
         }
     }
 
-    // 🔥 CORREGIDO: Validar stock mínimo para actualización con nuevas excepciones
-    private void validarStockMinimoParaActualizacion(Producto producto, Integer nuevaCantidad, Long detalleOrdenId) {
-        // 🔥 CORREGIDO: Calcular stock disponible real
-        Integer stockDisponibleReal = calcularStockDisponibleReal(producto, detalleOrdenId);
+    // 🔥 CORREGIDO: El disponible ya incluye las unidades reservadas por la propia línea
+    private void validarStockMinimoParaActualizacion(DisponibilidadStockDto disponibilidad, Integer nuevaCantidad,
+                                                     Integer cantidadActual) {
+        Integer stockDisponibleReal = disponibilidad.disponible();
 
         if (stockDisponibleReal < STOCK_MINIMO_ACTUALIZACION) {
             throw new StockInsufficientException(
-                    producto.getNombre(), stockDisponibleReal, STOCK_MINIMO_ACTUALIZACION);
+                    disponibilidad.nombre(), stockDisponibleReal, STOCK_MINIMO_ACTUALIZACION);
         }
 
-        // Obtener la cantidad actual del detalle
-        Integer cantidadActual = detalleOrdenRepository.findById(detalleOrdenId)
-                .map(DetalleOrden::getCantidad)
-                .orElse(0);
-
         // Si el stock real es igual a la cantidad actual, solo permitir mantener o reducir
-        if (stockDisponibleReal == cantidadActual && nuevaCantidad > cantidadActual) {
+        if (stockDisponibleReal.equals(cantidadActual) && nuevaCantidad > cantidadActual) {
             throw new StockCriticalException(
-                    producto.getNombre(), stockDisponibleReal, cantidadActual);
+                    disponibilidad.nombre(), stockDisponibleReal, cantidadActual);
         }
     }
 
@@ -509,6 +527,17 @@ public class DetalleOrdenServiceImpl implements DetalleOrdenService {
         }
     }
 
+    // Datos del evento de línea; el total se lee de la orden porque una línea eliminada ya no la referencia
+    private Map<String, Object> datosEvento(Orden orden, DetalleOrden detalle) {
+        Map<String, Object> datos = new HashMap<>();
+        datos.put("detalleId", detalle.getId());
+        datos.put("productoId", detalle.getProducto().getId());
+        datos.put("cantidad", detalle.getCantidad());
+        datos.put("subtotal", detalle.getSubtotal());
+        datos.put("totalOrden", orden.getTotal());
+        return datos;
+    }
+
     // 🔥 CORREGIDO: Métodos adicionales
     @Transactional(readOnly = true)
     public List<Producto> obtenerProductosDisponibles() {
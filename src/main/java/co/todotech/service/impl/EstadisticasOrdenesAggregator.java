@@ -0,0 +1,196 @@
+package co.todotech.service.impl;
+
+import co.todotech.model.dto.ordenventa.ResumenEstadoOrdenDto;
+import co.todotech.model.enums.EstadoOrden;
+import co.todotech.repository.OrdenRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Estadísticas de órdenes en memoria para el dashboard de monitoreo.
+ * Los contadores se alimentan de las transiciones de estado de OrdenServiceImpl
+ * (solo tras el commit) y se reconstruyen desde la BD al arrancar, de modo que
+ * las lecturas son O(1) y nunca recorren orden_venta.
+ *
+ * Los contadores son de este nodo: solo ven las transiciones que ejecuta esta instancia.
+ * Con varias instancias cada una se desvía hasta la siguiente reconstrucción periódica
+ * ({@code monitoring.ordenes.reconstruir-ms}); la cifra exacta y global la da
+ * /api/monitoring/ordenes/summary/db.
+ *
+ * Las ventas por estado solo se acumulan para estados en los que el total ya no
+ * puede cambiar (PAGADA, ENTREGADA, CERRADA); en los demás solo se cuenta.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EstadisticasOrdenesAggregator {
+
+    private final OrdenRepository ordenRepository;
+
+    private volatile Contadores contadores = new Contadores();
+    private volatile LocalDateTime reconstruidoEn;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${monitoring.ordenes.reconstruir-ms:600000}",
+            fixedDelayString = "${monitoring.ordenes.reconstruir-ms:600000}")
+    public void reconstruir() {
+        Contadores nuevos = new Contadores();
+
+        for (ResumenEstadoOrdenDto fila : ordenRepository.resumirPorEstado()) {
+            nuevos.conteo(fila.estado()).add(fila.cantidad());
+            if (acumulaVentas(fila.estado())) {
+                nuevos.ventas(fila.estado()).add(fila.total());
+            }
+        }
+
+        contadores = nuevos;
+        reconstruidoEn = LocalDateTime.now();
+        log.info("MONITORING_STATS_REBUILD - totalOrdenes: {}", nuevos.totalOrdenes());
+    }
+
+    public void registrarCreacion(EstadoOrden estado) {
+        alConfirmar(() -> contadores.conteo(estado).increment());
+    }
+
+    public void registrarTransicion(EstadoOrden anterior, EstadoOrden nuevo, Double total) {
+        if (anterior == nuevo) {
+            return;
+        }
+
+        double monto = total != null ? total : 0.0;
+        alConfirmar(() -> {
+            Contadores actuales = contadores;
+            actuales.conteo(anterior).decrement();
+            actuales.conteo(nuevo).increment();
+            if (acumulaVentas(anterior)) {
+                actuales.ventas(anterior).add(-monto);
+            }
+            if (acumulaVentas(nuevo)) {
+                actuales.ventas(nuevo).add(monto);
+            }
+        });
+    }
+
+    public void registrarTransicionMasiva(EstadoOrden anterior, EstadoOrden nuevo, long cantidad, double total) {
+        if (anterior == nuevo || cantidad == 0) {
+            return;
+        }
+
+        alConfirmar(() -> {
+            Contadores actuales = contadores;
+            actuales.conteo(anterior).add(-cantidad);
+            actuales.conteo(nuevo).add(cantidad);
+            if (acumulaVentas(anterior)) {
+                actuales.ventas(anterior).add(-total);
+            }
+            if (acumulaVentas(nuevo)) {
+                actuales.ventas(nuevo).add(total);
+            }
+        });
+    }
+
+    /**
+     * Para cambios cuyo detalle no se conoce (p. ej. conflictos en una transición masiva).
+     */
+    public void reconstruirAlConfirmar() {
+        alConfirmar(this::reconstruir);
+    }
+
+    public void registrarEliminacion(EstadoOrden estado, Double total) {
+        double monto = total != null ? total : 0.0;
+        alConfirmar(() -> {
+            Contadores actuales = contadores;
+            actuales.conteo(estado).decrement();
+            if (acumulaVentas(estado)) {
+                actuales.ventas(estado).add(-monto);
+            }
+        });
+    }
+
+    /**
+     * Mismo formato que OrdenServiceImpl.getOrdenesSummaryForMonitoring.
+     */
+    public Map<String, Object> obtenerResumen() {
+        Contadores actuales = contadores;
+
+        Map<EstadoOrden, Long> conteoPorEstado = new EnumMap<>(EstadoOrden.class);
+        Map<EstadoOrden, Double> ventasPorEstado = new EnumMap<>(EstadoOrden.class);
+        for (EstadoOrden estado : EstadoOrden.values()) {
+            long cantidad = actuales.conteo(estado).sum();
+            if (cantidad > 0) {
+                conteoPorEstado.put(estado, cantidad);
+            }
+            if (acumulaVentas(estado)) {
+                ventasPorEstado.put(estado, actuales.ventas(estado).sum());
+            }
+        }
+
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("totalOrdenes", actuales.totalOrdenes());
+        summary.put("totalPagadas", actuales.conteo(EstadoOrden.PAGADA).sum());
+        summary.put("totalVentas", actuales.ventas(EstadoOrden.PAGADA).sum());
+        summary.put("conteoPorEstado", conteoPorEstado);
+        summary.put("ventasPorEstado", ventasPorEstado);
+        summary.put("reconstruidoEn", String.valueOf(reconstruidoEn));
+        summary.put("alcance", "nodo");
+        summary.put("timestamp", LocalDateTime.now().toString());
+        return summary;
+    }
+
+    private boolean acumulaVentas(EstadoOrden estado) {
+        return estado == EstadoOrden.PAGADA
+                || estado == EstadoOrden.ENTREGADA
+                || estado == EstadoOrden.CERRADA;
+    }
+
+    // Aplica el cambio después del commit; sin transacción activa se aplica de inmediato
+    private void alConfirmar(Runnable cambio) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cambio.run();
+                }
+            });
+        } else {
+            cambio.run();
+        }
+    }
+
+    private static final class Contadores {
+        private final EnumMap<EstadoOrden, LongAdder> conteos = new EnumMap<>(EstadoOrden.class);
+        private final EnumMap<EstadoOrden, DoubleAdder> ventas = new EnumMap<>(EstadoOrden.class);
+
+        private Contadores() {
+            for (EstadoOrden estado : EstadoOrden.values()) {
+                conteos.put(estado, new LongAdder());
+                ventas.put(estado, new DoubleAdder());
+            }
+        }
+
+        private LongAdder conteo(EstadoOrden estado) {
+            return conteos.get(estado);
+        }
+
+        private DoubleAdder ventas(EstadoOrden estado) {
+            return ventas.get(estado);
+        }
+
+        private long totalOrdenes() {
+            return conteos.values().stream().mapToLong(LongAdder::sum).sum();
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package co.todotech.service.impl;
+
+import co.todotech.model.dto.inventario.MovimientoInventarioDto;
+import co.todotech.model.dto.inventario.SnapshotProductoDto;
+import co.todotech.model.dto.inventario.StockEnFechaDto;
+import co.todotech.model.dto.inventario.SumaMovimientosDto;
+import co.todotech.model.entities.Inventario;
+import co.todotech.model.entities.SnapshotInventario;
+import co.todotech.model.enums.TipoMovimiento;
+import co.todotech.repository.InventarioRepository;
+import co.todotech.repository.ProductoRepository;
+import co.todotech.repository.SnapshotInventarioRepository;
+import co.todotech.service.InventarioService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Libro de movimientos de inventario con instantáneas periódicas por producto.
+ * Producto.stock sigue siendo el valor operativo; el libro guarda cómo se llegó a él,
+ * de modo que el stock en cualquier fecha se reconstruye con la última instantánea
+ * anterior más una cola corta de movimientos, sin leer ni bloquear producto.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class InventarioServiceImpl implements InventarioService {
+
+    private static final int LIMITE_POR_DEFECTO = 100;
+    private static final int LIMITE_MAXIMO = 1000;
+
+    private final InventarioRepository inventarioRepository;
+    private final SnapshotInventarioRepository snapshotRepository;
+    private final ProductoRepository productoRepository;
+
+    // Solo se compactan movimientos más antiguos que este margen: un id menor aún sin confirmar
+    // quedaría fuera de la instantánea y de la cola
+    @Value("${inventario.snapshots.margen-segundos:300}")
+    private long margenSegundos;
+
+    /**
+     * Da de alta en el libro los productos que no tienen movimientos (anteriores al libro),
+     * con un movimiento INICIAL por su stock actual. Corre antes que la migración de reservas,
+     * que registra sus devoluciones sobre este saldo.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @Transactional
+    public void inicializar() {
+        List<SnapshotProductoDto> sinMovimientos = productoRepository.findSinMovimientosInventario();
+        if (sinMovimientos.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime ahora = LocalDateTime.now();
+        List<Inventario> iniciales = sinMovimientos.stream()
+                .map(p -> Inventario.builder()
+                        .productoId(p.id())
+                        .tipo(TipoMovimiento.INICIAL)
+                        .cantidad(p.stock() != null ? p.stock() : 0)
+                        .fecha(ahora)
+                        .referencia("alta-libro")
+                        .build())
+                .collect(Collectors.toList());
+        inventarioRepository.saveAll(iniciales);
+
+        log.info("INVENTORY_LEDGER_INIT - productos dados de alta: {}", iniciales.size());
+    }
+
+    @Override
+    @Transactional
+    public void registrarMovimiento(Long productoId, TipoMovimiento tipo, int cantidad, String referencia) {
+        if (cantidad == 0 && tipo != TipoMovimiento.INICIAL) {
+            return;
+        }
+
+        inventarioRepository.save(Inventario.builder()
+                .productoId(productoId)
+                .tipo(tipo)
+                .cantidad(cantidad)
+                .fecha(LocalDateTime.now())
+                .referencia(referencia)
+                .build());
+
+        log.debug("Movimiento de inventario {} registrado - producto: {}, cantidad: {}", tipo, productoId, cantidad);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public StockEnFechaDto consultarStockEn(Long productoId, LocalDateTime fecha) {
+        LocalDateTime momento = fecha != null ? fecha : LocalDateTime.now();
+
+        SnapshotInventario snapshot = snapshotRepository
+                .findFirstByProductoIdAndFechaLessThanEqualOrderByFechaDescIdDesc(productoId, momento)
+                .orElse(null);
+        long desdeId = snapshot != null ? snapshot.getUltimoMovimientoId() : 0L;
+        SumaMovimientosDto cola = inventarioRepository.sumarCola(productoId, desdeId, momento).orElse(null);
+
+        if (snapshot == null && cola == null) {
+            throw new RuntimeException("El producto " + productoId + " no tiene movimientos de inventario hasta " + momento);
+        }
+
+        return aStock(productoId, momento, snapshot, cola);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<StockEnFechaDto> reporteStockEn(LocalDateTime fecha) {
+        LocalDateTime momento = fecha != null ? fecha : LocalDateTime.now();
+
+        Map<Long, SnapshotInventario> snapshots = snapshotRepository.findUltimasHasta(momento).stream()
+                .collect(Collectors.toMap(SnapshotInventario::getProductoId, Function.identity(), (a, b) -> a));
+        Map<Long, SumaMovimientosDto> colas = inventarioRepository.sumarColasHasta(momento).stream()
+                .collect(Collectors.toMap(SumaMovimientosDto::productoId, Function.identity()));
+
+        Map<Long, StockEnFechaDto> reporte = new TreeMap<>();
+        snapshots.forEach((productoId, snapshot) ->
+                reporte.put(productoId, aStock(productoId, momento, snapshot, colas.get(productoId))));
+        colas.forEach((productoId, cola) ->
+                reporte.computeIfAbsent(productoId, id -> aStock(id, momento, null, cola)));
+
+        log.info("INVENTORY_REPORT - fecha: {}, productos: {}, instantáneas: {}", momento, reporte.size(), snapshots.size());
+        return new ArrayList<>(reporte.values());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<MovimientoInventarioDto> listarMovimientos(Long productoId, LocalDateTime desde, LocalDateTime hasta,
+                                                           Integer limite) {
+        if (desde == null || hasta == null || !desde.isBefore(hasta)) {
+            throw new RuntimeException("Debe indicar un rango de fechas válido (desde anterior a hasta)");
+        }
+
+        int tamano = limite == null ? LIMITE_POR_DEFECTO : Math.max(1, Math.min(limite, LIMITE_MAXIMO));
+        return inventarioRepository.buscarPorProductoYRango(productoId, desde, hasta, PageRequest.of(0, tamano));
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${inventario.snapshots.intervalo-ms:3600000}")
+    @Transactional
+    public int compactarSnapshots() {
+        LocalDateTime limite = LocalDateTime.now().minusSeconds(margenSegundos);
+        Long hastaId = inventarioRepository.findUltimoIdAntesDe(limite).orElse(null);
+        long desdeId = snapshotRepository.findMarcaCompactacion().orElse(0L);
+
+        if (hastaId == null || hastaId <= desdeId) {
+            return 0;
+        }
+
+        List<SumaMovimientosDto> sumas = inventarioRepository.sumarEntre(desdeId, hastaId);
+        if (sumas.isEmpty()) {
+            return 0;
+        }
+
+        Map<Long, SnapshotInventario> previas = snapshotRepository
+                .findUltimasDe(sumas.stream().map(SumaMovimientosDto::productoId).collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(SnapshotInventario::getProductoId, Function.identity(), (a, b) -> a));
+        Map<Long, LocalDateTime> fechas = inventarioRepository
+                .findAllById(sumas.stream().map(SumaMovimientosDto::ultimoMovimientoId).collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(Inventario::getId, Inventario::getFecha));
+
+        List<SnapshotInventario> nuevas = new ArrayList<>(sumas.size());
+        for (SumaMovimientosDto suma : sumas) {
+            SnapshotInventario previa = previas.get(suma.productoId());
+            long stock = (previa != null ? previa.getStock() : 0L) + suma.cantidad();
+            nuevas.add(SnapshotInventario.builder()
+                    .productoId(suma.productoId())
+                    .stock(Math.toIntExact(stock))
+                    .ultimoMovimientoId(suma.ultimoMovimientoId())
+                    .fecha(fechas.get(suma.ultimoMovimientoId()))
+                    .build());
+        }
+        snapshotRepository.saveAll(nuevas);
+
+        log.info("INVENTORY_SNAPSHOTS - creadas: {}, movimientos compactados: ({}, {}]", nuevas.size(), desdeId, hastaId);
+        return nuevas.size();
+    }
+
+    private StockEnFechaDto aStock(Long productoId, LocalDateTime fecha, SnapshotInventario snapshot,
+                                   SumaMovimientosDto cola) {
+        long stock = (snapshot != null ? snapshot.getStock() : 0L) + (cola != null ? cola.cantidad() : 0L);
+        return new StockEnFechaDto(
+                productoId,
+                fecha,
+                Math.toIntExact(stock),
+                snapshot != null ? snapshot.getFecha() : null,
+                cola != null ? cola.movimientos() : 0L);
+    }
+}
@@ -0,0 +1,79 @@
+package co.todotech.service.impl;
+
+import co.todotech.model.dto.inventario.LineaSinReservaDto;
+import co.todotech.model.entities.ReservaStock;
+import co.todotech.model.enums.EstadoOrden;
+import co.todotech.model.enums.EstadoProducto;
+import co.todotech.model.enums.TipoMovimiento;
+import co.todotech.repository.ProductoRepository;
+import co.todotech.repository.ReservaStockRepository;
+import co.todotech.service.InventarioService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * Migración única de las líneas de órdenes abiertas creadas cuando añadir una línea descontaba
+ * stock: se devuelve ese stock y se convierte en reserva, para que al pagar no se descuente dos
+ * veces. La marca en migracion_datos hace que la aplique un solo nodo, una sola vez; corre antes
+ * de que ReservaStockServiceImpl cargue las reservas en memoria.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MigracionReservasStock {
+
+    static final String NOMBRE = "reservas-stock-lineas-abiertas";
+
+    private static final EnumSet<EstadoOrden> ESTADOS_ABIERTOS = EnumSet.of(
+            EstadoOrden.PENDIENTE, EstadoOrden.AGREGANDOPRODUCTOS, EstadoOrden.DISPONIBLEPARAPAGO);
+
+    private final MigracionesDatos migraciones;
+    private final ReservaStockRepository reservaStockRepository;
+    private final ProductoRepository productoRepository;
+    private final InventarioService inventarioService;
+
+    @Value("${inventario.reservas.ttl-minutos:30}")
+    private long ttlMinutos;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @Transactional
+    public void migrar() {
+        if (!migraciones.reclamar(NOMBRE)) {
+            log.debug("Migración {} ya aplicada", NOMBRE);
+            return;
+        }
+
+        LocalDateTime ahora = LocalDateTime.now();
+        LocalDateTime expiraEn = ahora.plusMinutes(ttlMinutos);
+
+        List<LineaSinReservaDto> lineas = reservaStockRepository.findLineasAbiertasSinReserva(ESTADOS_ABIERTOS);
+        for (LineaSinReservaDto linea : lineas) {
+            productoRepository.incrementarStockAtomico(linea.productoId(), linea.cantidad(),
+                    EstadoProducto.ACTIVO, EstadoProducto.AGOTADO, EstadoProducto.INACTIVO);
+            inventarioService.registrarMovimiento(linea.productoId(), TipoMovimiento.DEVOLUCION, linea.cantidad(),
+                    "migracion-reserva:orden:" + linea.ordenId());
+            reservaStockRepository.save(ReservaStock.builder()
+                    .ordenId(linea.ordenId())
+                    .productoId(linea.productoId())
+                    .cantidad(linea.cantidad())
+                    .expiraEn(expiraEn)
+                    .activa(true)
+                    .fechaActualizacion(ahora)
+                    .build());
+        }
+
+        log.info("DATA_MIGRATION_APPLIED - migracion: {}, lineas: {}", NOMBRE, lineas.size());
+    }
+}
@@ -0,0 +1,35 @@
+package co.todotech.service.impl;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * Migraciones de datos de una sola vez (el esquema lo crea Hibernate, pero los datos no).
+ */
+@Component
+public class MigracionesDatos {
+
+    // Si otro nodo está insertando la misma marca, el INSERT espera a que confirme o revierta
+    private static final String RECLAMAR_SQL =
+            "INSERT INTO migracion_datos (nombre, aplicada_en) VALUES (?, ?) ON CONFLICT (nombre) DO NOTHING";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public MigracionesDatos(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Registra la migración en la transacción en curso y devuelve true si le toca a este nodo
+     * aplicarla: false si ya se aplicó. Si la transacción se revierte, la marca también.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean reclamar(String nombre) {
+        return jdbcTemplate.update(RECLAMAR_SQL, nombre, Timestamp.valueOf(LocalDateTime.now())) == 1;
+    }
+}
@@ -0,0 +1,46 @@
+package co.todotech.service.impl;
+
+import co.todotech.model.dto.eventos.EventoDominioDto;
+import co.todotech.model.enums.TipoEventoDominio;
+import co.todotech.service.EventoDominioListener;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Logs estructurados MONITORING_* (CloudWatch) de los eventos de orden y pago.
+ * Antes se escribían dentro de la transacción del servicio; ahora salen del outbox
+ * una vez confirmado el cambio. Entrega al menos una vez: un log puede repetirse,
+ * el campo eventId permite descartarlo.
+ */
+@Slf4j
+@Component
+public class MonitoringEventosListener implements EventoDominioListener {
+
+    @Override
+    public boolean soporta(TipoEventoDominio tipo) {
+        return true;
+    }
+
+    @Override
+    public void manejar(EventoDominioDto evento) {
+        Map<String, Object> datos = evento.datos();
+
+        switch (evento.tipo()) {
+            case ORDEN_PAGADA -> log.info("MONITORING_PAYMENT_EVENT - action: PAYMENT_SUCCESS, orderId: {}, numeroOrden: {}, amount: {}, customer: {}, vendedor: {}, eventId: {}",
+                    evento.agregadoId(), datos.get("numeroOrden"), datos.get("total"),
+                    datos.get("cliente"), datos.get("vendedor"), evento.id());
+            case ORDEN_ESTADO_CAMBIADO -> log.info("MONITORING_ORDER_EVENT - action: STATUS_CHANGED, orderId: {}, from: {}, to: {}, total: {}, eventId: {}",
+                    evento.agregadoId(), datos.get("estadoAnterior"), datos.get("estado"), datos.get("total"), evento.id());
+            case ORDEN_ESTADO_CAMBIADO_MASIVO -> log.info("MONITORING_ORDER_EVENT - action: BULK_STATUS_CHANGED, from: {}, to: {}, updated: {}, eventId: {}",
+                    datos.get("estadoAnterior"), datos.get("estado"), datos.get("actualizadas"), evento.id());
+            case PAGO_REGISTRADO, PAGO_ACTUALIZADO -> log.info("MONITORING_PAYMENT_EVENT - action: {}, paymentId: {}, orderId: {}, amount: {}, status: {}, eventId: {}",
+                    evento.tipo(), evento.agregadoId(), datos.get("ordenVentaId"), datos.get("monto"), datos.get("estadoPago"), evento.id());
+            case PAGO_ESTADO_CAMBIADO_MASIVO -> log.info("MONITORING_PAYMENT_EVENT - action: BULK_STATUS_CHANGED, to: {}, source: {}, updated: {}, eventId: {}",
+                    datos.get("estado"), datos.get("origen"), datos.get("actualizados"), evento.id());
+            default -> log.info("MONITORING_ORDER_EVENT - action: {}, orderId: {}, eventId: {}",
+                    evento.tipo(), evento.agregadoId(), evento.id());
+        }
+    }
+}
@@ -7,22 +7,33 @@ import co.todotech.mapper.UsuarioMapper;
 import co.todotech.model.dto.cliente.ClienteDto;
 import co.todotech.model.dto.detalleorden.DetalleOrdenDto;
 import co.todotech.model.dto.ordenventa.CreateOrdenDto;
+import co.todotech.model.dto.ordenventa.EstadoOrdenActualDto;
 import co.todotech.model.dto.ordenventa.OrdenConDetallesDto;
 import co.todotech.model.dto.ordenventa.OrdenDto;
+import co.todotech.model.dto.ordenventa.OrdenResumenDto;
+import co.todotech.model.dto.ordenventa.PaginaOrdenesDto;
+import co.todotech.model.dto.ordenventa.ResumenEstadoOrdenDto;
+import co.todotech.model.dto.ordenventa.TransicionMasivaResultadoDto;
 import co.todotech.model.dto.usuario.UsuarioDto;
 import co.todotech.model.entities.Cliente;
 import co.todotech.model.entities.Orden;
 import co.todotech.model.entities.Usuario;
 import co.todotech.model.enums.EstadoOrden;
+import co.todotech.model.enums.TipoEventoDominio;
 import co.todotech.repository.ClienteRepository;
 import co.todotech.repository.OrdenRepository;
 import co.todotech.repository.UsuarioRepository;
 import co.todotech.service.OrdenService;
+import co.todotech.service.OutboxEventosService;
+import co.todotech.service.ReservaStockService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
@@ -40,6 +51,24 @@ public class OrdenServiceImpl implements OrdenService {
     private final DetalleOrdenMapper detalleOrdenMapper;
     private final ClienteMapper clienteMapper;
     private final UsuarioMapper usuarioMapper;
+    private final EstadisticasOrdenesAggregator estadisticasOrdenes;
+    private final ReservaStockService reservaStockService;
+    private final OutboxEventosService outboxEventos;
+
+    // Paginación por keyset
+    private static final int LIMITE_POR_DEFECTO = 20;
+    private static final int LIMITE_MAXIMO = 100;
+    private static final LocalDateTime FECHA_INICIAL_CURSOR = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+    private static final String SEPARADOR_CURSOR = "|";
+
+    // Transiciones masivas: un SELECT y un UPDATE por estado de origen en cada lote
+    private static final int TAMANO_LOTE_TRANSICION = 500;
+
+    // Caché de corta duración del resumen de monitoreo
+    @Value("${monitoring.ordenes.summary-ttl-ms:5000}")
+    private long summaryTtlMs;
+
+    private volatile ResumenCacheado resumenCacheado;
 
 
     @Override
@@ -85,6 +114,9 @@ public class OrdenServiceImpl implements OrdenService {
         log.info("Orden guardada en BD - ID: {}, Descuento: {}",
                 ordenGuardada.getId(), ordenGuardada.getDescuento());
 
+        estadisticasOrdenes.registrarCreacion(EstadoOrden.PENDIENTE);
+        outboxEventos.registrar(TipoEventoDominio.ORDEN_CREADA, ordenGuardada.getId(), datosEvento(ordenGuardada));
+
         return ordenMapper.toDto(ordenGuardada);
     }
 
@@ -93,7 +125,7 @@ public class OrdenServiceImpl implements OrdenService {
     public OrdenConDetallesDto obtenerOrdenConDetalles(Long id) {
         log.info("Obteniendo orden con detalles para ID: {}", id);
 
-        Orden orden = ordenRepository.findByIdWithDetalles(id)
+        Orden orden = ordenRepository.findByIdWithDetallesCompletos(id)
                 .orElseThrow(() -> new RuntimeException("Orden no encontrada con ID: " + id));
 
         return mapToOrdenConDetallesDto(orden);
@@ -137,8 +169,8 @@ public class OrdenServiceImpl implements OrdenService {
     public OrdenDto actualizarOrden(Long id, OrdenDto ordenDto) {
         log.info("Actualizando orden con ID: {}", id);
 
-        // ✅ CORREGIDO: Cargar con detalles para cálculos precisos
-        Orden ordenExistente = ordenRepository.findByIdWithDetalles(id)
+        // Solo cabecera: el subtotal se mantiene incrementalmente, no hace falta cargar las líneas
+        Orden ordenExistente = ordenRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Orden no encontrada con ID: " + id));
 
         // ✅ CORREGIDO: Usar el nuevo método de validación de la entidad
@@ -154,13 +186,19 @@ public class OrdenServiceImpl implements OrdenService {
         // ✅ CORREGIDO: Usar mapper que NO ignora el descuento
         ordenMapper.updateOrdenFromDto(ordenDto, ordenExistente);
 
-        // Recalcular totales automáticamente
-        ordenExistente.calcularTotales();
+        // Derivar descuento, impuestos y total desde el subtotal actual
+        ordenExistente.recalcularDerivados();
 
         Orden ordenActualizada = ordenRepository.save(ordenExistente);
         log.info("Orden actualizada exitosamente con ID: {}, Descuento: {}, Total: {}",
                 ordenActualizada.getId(), ordenActualizada.getDescuento(), ordenActualizada.getTotal());
 
+        // Un cambio de estado en el DTO sigue el mismo camino que PATCH /estado: validación,
+        // reservas, evento y estadísticas. El mapper no copia el estado.
+        if (ordenDto.estado() != null && ordenDto.estado() != ordenActualizada.getEstado()) {
+            return actualizarEstadoOrden(id, ordenDto.estado());
+        }
+
         return ordenMapper.toDto(ordenActualizada);
     }
 
@@ -169,12 +207,23 @@ public class OrdenServiceImpl implements OrdenService {
     public OrdenDto actualizarEstadoOrden(Long id, EstadoOrden nuevoEstado) {
         log.info("Actualizando estado de orden ID: {} a {}", id, nuevoEstado);
 
-        Orden orden = ordenRepository.findByIdWithDetalles(id)
+        Orden orden = ordenRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Orden no encontrada con ID: " + id));
 
-        validarTransicionEstado(orden.getEstado(), nuevoEstado);
+        EstadoOrden estadoAnterior = orden.getEstado();
+        TransicionesEstadoOrden.validar(estadoAnterior, nuevoEstado);
 
-        orden.setEstado(nuevoEstado);
+        if (estadoAnterior == nuevoEstado) {
+            return ordenMapper.toDto(orden);
+        }
+
+        // Al pasar a PAGADA las reservas de la orden se convierten en descuento real de stock
+        if (nuevoEstado == EstadoOrden.PAGADA && esEstadoPrevioAlPago(estadoAnterior)) {
+            reservaStockService.confirmarOrden(id);
+        }
+
+        // Solo se escribe el estado, y solo si nadie lo cambió desde que se leyó
+        cambiarEstadoSiCoincide(orden, estadoAnterior, nuevoEstado);
 
         if (nuevoEstado == EstadoOrden.PAGADA) {
             log.info("Orden ID: {} marcada como pagada", id);
@@ -184,10 +233,87 @@ public class OrdenServiceImpl implements OrdenService {
             log.info("Orden ID: {} marcada como cerrada", id);
         }
 
-        Orden ordenActualizada = ordenRepository.save(orden);
+        estadisticasOrdenes.registrarTransicion(estadoAnterior, nuevoEstado, orden.getTotal());
+
+        Map<String, Object> datos = datosEvento(orden);
+        datos.put("estadoAnterior", estadoAnterior.name());
+        datos.put("estado", nuevoEstado.name());
+        outboxEventos.registrar(nuevoEstado == EstadoOrden.PAGADA ? TipoEventoDominio.ORDEN_PAGADA : TipoEventoDominio.ORDEN_ESTADO_CAMBIADO,
+                id, datos);
 
         log.info("Estado de orden actualizado exitosamente. Orden ID: {}, Nuevo estado: {}", id, nuevoEstado);
-        return ordenMapper.toDto(ordenActualizada);
+        return ordenMapper.toDto(orden);
+    }
+
+    @Override
+    @Transactional
+    public TransicionMasivaResultadoDto transicionarEstadoMasivo(List<Long> ordenIds, EstadoOrden nuevoEstado) {
+        log.info("Transición masiva de {} órdenes a {}", ordenIds.size(), nuevoEstado);
+
+        // El pago descuenta stock orden por orden: no se admite en bloque
+        if (nuevoEstado == EstadoOrden.PAGADA) {
+            throw new RuntimeException("El pago debe registrarse orden por orden. Use PATCH /ordenes/{id}/pagada");
+        }
+
+        List<Long> ids = ordenIds.stream().filter(Objects::nonNull).distinct().collect(Collectors.toList());
+        Map<Long, String> rechazadas = new LinkedHashMap<>();
+        int actualizadas = 0;
+        int sinCambios = 0;
+        int conflictos = 0;
+
+        for (int desde = 0; desde < ids.size(); desde += TAMANO_LOTE_TRANSICION) {
+            List<Long> lote = ids.subList(desde, Math.min(desde + TAMANO_LOTE_TRANSICION, ids.size()));
+
+            Map<Long, EstadoOrdenActualDto> actuales = ordenRepository.findEstadosByIdIn(lote).stream()
+                    .collect(Collectors.toMap(EstadoOrdenActualDto::id, e -> e));
+
+            // Agrupar por estado de origen: un UPDATE condicional por grupo
+            Map<EstadoOrden, List<EstadoOrdenActualDto>> porOrigen = new EnumMap<>(EstadoOrden.class);
+            for (Long id : lote) {
+                EstadoOrdenActualDto actual = actuales.get(id);
+                if (actual == null) {
+                    rechazadas.put(id, "Orden no encontrada con ID: " + id);
+                } else if (actual.estado() == nuevoEstado) {
+                    sinCambios++;
+                } else if (!TransicionesEstadoOrden.permite(actual.estado(), nuevoEstado)) {
+                    rechazadas.put(id, TransicionesEstadoOrden.motivoRechazo(actual.estado(), nuevoEstado));
+                } else {
+                    porOrigen.computeIfAbsent(actual.estado(), e -> new ArrayList<>()).add(actual);
+                }
+            }
+
+            for (Map.Entry<EstadoOrden, List<EstadoOrdenActualDto>> grupo : porOrigen.entrySet()) {
+                List<Long> idsGrupo = grupo.getValue().stream().map(EstadoOrdenActualDto::id).collect(Collectors.toList());
+                int filas = ordenRepository.actualizarEstadoMasivo(idsGrupo, grupo.getKey(), nuevoEstado);
+                actualizadas += filas;
+
+                if (filas > 0) {
+                    // Un evento por grupo; en conflicto la lista puede incluir órdenes que no cambiaron
+                    Map<String, Object> datos = new HashMap<>();
+                    datos.put("estadoAnterior", grupo.getKey().name());
+                    datos.put("estado", nuevoEstado.name());
+                    datos.put("ordenIds", idsGrupo);
+                    datos.put("actualizadas", filas);
+                    outboxEventos.registrar(TipoEventoDominio.ORDEN_ESTADO_CAMBIADO_MASIVO, null, datos);
+                }
+
+                if (filas == idsGrupo.size()) {
+                    double total = grupo.getValue().stream()
+                            .mapToDouble(e -> e.total() != null ? e.total() : 0.0)
+                            .sum();
+                    estadisticasOrdenes.registrarTransicionMasiva(grupo.getKey(), nuevoEstado, filas, total);
+                } else {
+                    // Alguna orden cambió entre la lectura y el UPDATE: no se sabe cuál, se recalcula todo
+                    conflictos += idsGrupo.size() - filas;
+                    estadisticasOrdenes.reconstruirAlConfirmar();
+                }
+            }
+        }
+
+        log.info("Transición masiva a {} completada - actualizadas: {}, sinCambios: {}, rechazadas: {}, conflictos: {}",
+                nuevoEstado, actualizadas, sinCambios, rechazadas.size(), conflictos);
+
+        return new TransicionMasivaResultadoDto(nuevoEstado, ids.size(), actualizadas, sinCambios, conflictos, rechazadas);
     }
 
     @Override
@@ -202,7 +328,10 @@ public class OrdenServiceImpl implements OrdenService {
             throw new RuntimeException("Solo se pueden eliminar órdenes en estado PENDIENTE. Estado actual: " + orden.getEstado());
         }
 
+        reservaStockService.liberarOrden(id);
         ordenRepository.delete(orden);
+        estadisticasOrdenes.registrarEliminacion(orden.getEstado(), orden.getTotal());
+        outboxEventos.registrar(TipoEventoDominio.ORDEN_ELIMINADA, id, datosEvento(orden));
         log.info("Orden eliminada exitosamente con ID: {}", id);
     }
 
@@ -211,8 +340,8 @@ public class OrdenServiceImpl implements OrdenService {
     public OrdenDto aplicarDescuento(Long ordenId, Double porcentajeDescuento) {
         log.info("Aplicando descuento del {}% a orden ID: {}", porcentajeDescuento, ordenId);
 
-        // ✅ CORREGIDO: Cargar con detalles para cálculo preciso
-        Orden orden = ordenRepository.findByIdWithDetalles(ordenId)
+        // Solo cabecera: el descuento se calcula sobre el subtotal mantenido incrementalmente
+        Orden orden = ordenRepository.findById(ordenId)
                 .orElseThrow(() -> new RuntimeException("Orden no encontrada con ID: " + ordenId));
 
         // ✅ CORREGIDO: Usar el nuevo método de validación de la entidad
@@ -251,7 +380,7 @@ public class OrdenServiceImpl implements OrdenService {
     public OrdenDto quitarDescuento(Long ordenId) {
         log.info("Quitando descuento a orden ID: {}", ordenId);
 
-        Orden orden = ordenRepository.findByIdWithDetalles(ordenId)
+        Orden orden = ordenRepository.findById(ordenId)
                 .orElseThrow(() -> new RuntimeException("Orden no encontrada con ID: " + ordenId));
 
         // ✅ CORREGIDO: Usar el nuevo método de validación de la entidad
@@ -307,26 +436,19 @@ public class OrdenServiceImpl implements OrdenService {
         return "ORD-" + fecha + "-" + uuid;
     }
 
-    private void validarTransicionEstado(EstadoOrden estadoActual, EstadoOrden nuevoEstado) {
-        if (estadoActual == EstadoOrden.CERRADA) {
-            throw new RuntimeException("No se puede modificar el estado de una orden CERRADA");
-        }
-
-        if (estadoActual == EstadoOrden.PENDIENTE &&
-                (nuevoEstado == EstadoOrden.ENTREGADA || nuevoEstado == EstadoOrden.CERRADA)) {
-            throw new RuntimeException("No se puede saltar de PENDIENTE a " + nuevoEstado + ". Primero debe marcarse como PAGADA");
-        }
-
-        if (estadoActual == EstadoOrden.PAGADA && nuevoEstado == EstadoOrden.CERRADA) {
-            throw new RuntimeException("No se puede saltar de PAGADA a CERRADA. Primero debe marcarse como ENTREGADA");
-        }
+    private boolean esEstadoPrevioAlPago(EstadoOrden estado) {
+        return estado == EstadoOrden.PENDIENTE
+                || estado == EstadoOrden.AGREGANDOPRODUCTOS
+                || estado == EstadoOrden.DISPONIBLEPARAPAGO;
+    }
 
-        if ((estadoActual == EstadoOrden.PAGADA && nuevoEstado == EstadoOrden.PENDIENTE) ||
-                (estadoActual == EstadoOrden.ENTREGADA &&
-                        (nuevoEstado == EstadoOrden.PENDIENTE || nuevoEstado == EstadoOrden.PAGADA)) ||
-                (estadoActual == EstadoOrden.CERRADA && nuevoEstado != EstadoOrden.CERRADA)) {
-            throw new RuntimeException("No se puede retroceder el estado de la orden");
+    // El estado se escribe con un UPDATE directo; la entidad gestionada se alinea para que
+    // un flush posterior o el DTO de respuesta no devuelvan el estado anterior
+    private void cambiarEstadoSiCoincide(Orden orden, EstadoOrden estadoActual, EstadoOrden nuevoEstado) {
+        if (ordenRepository.actualizarEstadoSiCoincide(orden.getId(), estadoActual, nuevoEstado) == 0) {
+            throw new RuntimeException("La orden cambió de estado mientras se procesaba. Estado esperado: " + estadoActual);
         }
+        orden.setEstado(nuevoEstado);
     }
 
     private OrdenConDetallesDto mapToOrdenConDetallesDto(Orden orden) {
@@ -382,7 +504,7 @@ public class OrdenServiceImpl implements OrdenService {
 
     // ✅ NUEVO: Método para obtener información detallada del descuento
     public String obtenerInformacionDescuento(Long ordenId) {
-        Orden orden = ordenRepository.findByIdWithDetalles(ordenId)
+        Orden orden = ordenRepository.findById(ordenId)
                 .orElseThrow(() -> new RuntimeException("Orden no encontrada con ID: " + ordenId));
 
         return String.format(
@@ -401,7 +523,7 @@ public class OrdenServiceImpl implements OrdenService {
     public OrdenDto actualizarTotalOrden(Long ordenId, Double nuevoTotal) {
         log.info("Actualizando total de orden ID: {} a {}", ordenId, nuevoTotal);
 
-        Orden orden = ordenRepository.findByIdWithDetalles(ordenId)
+        Orden orden = ordenRepository.findById(ordenId)
                 .orElseThrow(() -> new RuntimeException("Orden no encontrada con ID: " + ordenId));
 
         // Validar que la orden esté en un estado que permita modificar el total
@@ -442,6 +564,136 @@ public class OrdenServiceImpl implements OrdenService {
     }
 
 
+    @Override
+    @Transactional
+    public OrdenDto recalcularTotalesOrden(Long ordenId) {
+        log.info("Recalculando totales completos de orden ID: {}", ordenId);
+
+        Orden orden = ordenRepository.findByIdWithDetalles(ordenId)
+                .orElseThrow(() -> new RuntimeException("Orden no encontrada con ID: " + ordenId));
+
+        if (!orden.totalesConsistentes()) {
+            log.warn("Totales inconsistentes en orden ID: {} - Subtotal almacenado: {}. Se recalculan desde las líneas",
+                    ordenId, orden.getSubtotal());
+        }
+
+        orden.calcularTotales();
+        Orden ordenActualizada = ordenRepository.save(orden);
+
+        log.info("Totales recalculados. Orden ID: {}, Subtotal: {}, Total: {}",
+                ordenId, ordenActualizada.getSubtotal(), ordenActualizada.getTotal());
+
+        return ordenMapper.toDto(ordenActualizada);
+    }
+
+    // ========== LISTADOS PAGINADOS POR KEYSET ==========
+
+    @Override
+    @Transactional(readOnly = true)
+    public PaginaOrdenesDto listarOrdenes(String cursor, Integer limite) {
+        log.info("Listando órdenes - cursor: {}, limite: {}", cursor, limite);
+
+        int tamanio = normalizarLimite(limite);
+        CursorOrden desde = decodificarCursor(cursor);
+
+        return construirPagina(
+                ordenRepository.findResumenAntesDe(desde.fecha(), desde.id(), PageRequest.of(0, tamanio + 1)),
+                tamanio);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PaginaOrdenesDto listarOrdenesPorCliente(Long clienteId, String cursor, Integer limite) {
+        log.info("Listando órdenes para cliente ID: {} - cursor: {}, limite: {}", clienteId, cursor, limite);
+
+        int tamanio = normalizarLimite(limite);
+        CursorOrden desde = decodificarCursor(cursor);
+
+        return construirPagina(
+                ordenRepository.findResumenPorClienteAntesDe(clienteId, desde.fecha(), desde.id(),
+                        PageRequest.of(0, tamanio + 1)),
+                tamanio);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PaginaOrdenesDto listarOrdenesPorVendedor(Long vendedorId, String cursor, Integer limite) {
+        log.info("Listando órdenes para vendedor ID: {} - cursor: {}, limite: {}", vendedorId, cursor, limite);
+
+        if (!usuarioRepository.existsById(vendedorId)) {
+            throw new RuntimeException("Vendedor no encontrado con ID: " + vendedorId);
+        }
+
+        int tamanio = normalizarLimite(limite);
+        CursorOrden desde = decodificarCursor(cursor);
+
+        return construirPagina(
+                ordenRepository.findResumenPorVendedorAntesDe(vendedorId, desde.fecha(), desde.id(),
+                        PageRequest.of(0, tamanio + 1)),
+                tamanio);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PaginaOrdenesDto listarOrdenesPorEstado(EstadoOrden estado, String cursor, Integer limite) {
+        log.info("Listando órdenes por estado: {} - cursor: {}, limite: {}", estado, cursor, limite);
+
+        int tamanio = normalizarLimite(limite);
+        CursorOrden desde = decodificarCursor(cursor);
+
+        return construirPagina(
+                ordenRepository.findResumenPorEstadoAntesDe(estado, desde.fecha(), desde.id(),
+                        PageRequest.of(0, tamanio + 1)),
+                tamanio);
+    }
+
+    private int normalizarLimite(Integer limite) {
+        if (limite == null) {
+            return LIMITE_POR_DEFECTO;
+        }
+        if (limite <= 0) {
+            throw new RuntimeException("El límite debe ser mayor a 0");
+        }
+        return Math.min(limite, LIMITE_MAXIMO);
+    }
+
+    // Se pide limite + 1 filas: si llega la fila extra, hay otra página y no hace falta un COUNT
+    private PaginaOrdenesDto construirPagina(List<OrdenResumenDto> filas, int limite) {
+        boolean hayMas = filas.size() > limite;
+        List<OrdenResumenDto> ordenes = hayMas ? filas.subList(0, limite) : filas;
+
+        String siguienteCursor = null;
+        if (hayMas) {
+            OrdenResumenDto ultima = ordenes.get(ordenes.size() - 1);
+            siguienteCursor = codificarCursor(ultima.fecha(), ultima.id());
+        }
+
+        return new PaginaOrdenesDto(new ArrayList<>(ordenes), siguienteCursor, hayMas, limite);
+    }
+
+    private String codificarCursor(LocalDateTime fecha, Long id) {
+        String valor = fecha.toString() + SEPARADOR_CURSOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private CursorOrden decodificarCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return new CursorOrden(FECHA_INICIAL_CURSOR, Long.MAX_VALUE);
+        }
+
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separador = valor.lastIndexOf(SEPARADOR_CURSOR);
+            return new CursorOrden(
+                    LocalDateTime.parse(valor.substring(0, separador)),
+                    Long.parseLong(valor.substring(separador + 1)));
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Cursor de paginación inválido: " + cursor);
+        }
+    }
+
+    private record CursorOrden(LocalDateTime fecha, Long id) {}
+
     @Transactional(readOnly = true)
     public Map<String, Object> getOrdenStatusForMonitoring(Long ordenId) {
         log.info("MONITORING_ORDER_STATUS - action: QUERY, orderId: {}", ordenId);
@@ -480,39 +732,64 @@ public class OrdenServiceImpl implements OrdenService {
 
     /**
      * ✅ MÉTODO PARA MONITOREO: Resumen general de órdenes
+     * Se calcula con un GROUP BY por estado (una sola consulta) y se cachea
+     * durante monitoring.ordenes.summary-ttl-ms (0 deshabilita la caché).
      */
     @Transactional(readOnly = true)
     public Map<String, Object> getOrdenesSummaryForMonitoring() {
-        log.info("MONITORING_ORDERS_SUMMARY - action: GENERATE_REPORT");
+        long ahora = System.currentTimeMillis();
+        ResumenCacheado cache = resumenCacheado;
+        if (summaryTtlMs > 0 && cache != null && ahora - cache.generadoEn() < summaryTtlMs) {
+            log.debug("MONITORING_ORDERS_SUMMARY - action: CACHE_HIT, edadMs: {}", ahora - cache.generadoEn());
+            return cache.resumen();
+        }
 
-        List<Orden> ordenes = ordenRepository.findAll();
+        log.info("MONITORING_ORDERS_SUMMARY - action: GENERATE_REPORT");
 
-        Map<EstadoOrden, Long> conteoPorEstado = ordenes.stream()
-                .collect(Collectors.groupingBy(Orden::getEstado, Collectors.counting()));
+        Map<EstadoOrden, Long> conteoPorEstado = new EnumMap<>(EstadoOrden.class);
+        Map<EstadoOrden, Double> ventasPorEstado = new EnumMap<>(EstadoOrden.class);
+        long totalOrdenes = 0;
 
-        long totalPagadas = ordenes.stream()
-                .filter(orden -> orden.getEstado().equals(EstadoOrden.PAGADA))
-                .count();
+        for (ResumenEstadoOrdenDto fila : ordenRepository.resumirPorEstado()) {
+            conteoPorEstado.put(fila.estado(), fila.cantidad());
+            ventasPorEstado.put(fila.estado(), fila.total());
+            totalOrdenes += fila.cantidad();
+        }
 
-        double totalVentas = ordenes.stream()
-                .filter(orden -> orden.getEstado().equals(EstadoOrden.PAGADA))
-                .mapToDouble(Orden::getTotal)
-                .sum();
+        long totalPagadas = conteoPorEstado.getOrDefault(EstadoOrden.PAGADA, 0L);
+        double totalVentas = ventasPorEstado.getOrDefault(EstadoOrden.PAGADA, 0.0);
 
         Map<String, Object> summary = new HashMap<>();
-        summary.put("totalOrdenes", ordenes.size());
+        summary.put("totalOrdenes", totalOrdenes);
         summary.put("totalPagadas", totalPagadas);
         summary.put("totalVentas", totalVentas);
         summary.put("conteoPorEstado", conteoPorEstado);
+        summary.put("ventasPorEstado", ventasPorEstado);
         summary.put("timestamp", LocalDateTime.now().toString());
 
+        Map<String, Object> resumen = Collections.unmodifiableMap(summary);
+        resumenCacheado = new ResumenCacheado(resumen, ahora);
+
         // ✅ LOG ESTRUCTURADO PARA DASHBOARD
         log.info("MONITORING_ORDERS_SUMMARY - totalOrdenes: {}, totalPagadas: {}, totalVentas: {}, estados: {}",
-                ordenes.size(), totalPagadas, totalVentas, conteoPorEstado);
+                totalOrdenes, totalPagadas, totalVentas, conteoPorEstado);
+
+        return resumen;
+    }
 
-        return summary;
+    // Datos comunes de los eventos de orden; mutable para que cada evento añada los suyos
+    private Map<String, Object> datosEvento(Orden orden) {
+        Map<String, Object> datos = new HashMap<>();
+        datos.put("numeroOrden", orden.getNumeroOrden());
+        datos.put("estado", orden.getEstado().name());
+        datos.put("total", orden.getTotal());
+        datos.put("clienteId", orden.getCliente() != null ? orden.getCliente().getId() : null);
+        datos.put("vendedorId", orden.getVendedor() != null ? orden.getVendedor().getId() : null);
+        return datos;
     }
 
+    private record ResumenCacheado(Map<String, Object> resumen, long generadoEn) {}
+
     /**
      * ✅ MÉTODO MEJORADO: Marcar como pagada con monitoreo
      */
@@ -522,7 +799,7 @@ public class OrdenServiceImpl implements OrdenService {
         log.info("MONITORING_PAYMENT_EVENT - action: PAYMENT_PROCESSING_START, orderId: {}", id);
 
         try {
-            Orden orden = ordenRepository.findByIdWithDetalles(id)
+            Orden orden = ordenRepository.findById(id)
                     .orElseThrow(() -> new RuntimeException("Orden no encontrada"));
 
             // Validar que puede ser pagada
@@ -532,16 +809,23 @@ public class OrdenServiceImpl implements OrdenService {
                 throw new RuntimeException("La orden no está disponible para pago. Estado actual: " + orden.getEstado());
             }
 
-            // Cambiar estado
-            orden.setEstado(EstadoOrden.PAGADA);
-            Orden ordenActualizada = ordenRepository.save(orden);
+            // Descontar del stock las unidades reservadas por la orden
+            reservaStockService.confirmarOrden(id);
+
+            // Cambiar estado: si otro pago concurrente ya la movió, el UPDATE condicional no afecta filas
+            cambiarEstadoSiCoincide(orden, EstadoOrden.DISPONIBLEPARAPAGO, EstadoOrden.PAGADA);
+            estadisticasOrdenes.registrarTransicion(
+                    EstadoOrden.DISPONIBLEPARAPAGO, EstadoOrden.PAGADA, orden.getTotal());
 
-            // ✅ LOG ESTRUCTURADO PARA MONITOREO
-            log.info("MONITORING_PAYMENT_EVENT - action: PAYMENT_SUCCESS, orderId: {}, numeroOrden: {}, amount: {}, customer: {}, vendedor: {}",
-                    id, orden.getNumeroOrden(), orden.getTotal(),
-                    orden.getCliente().getNombre(), orden.getVendedor().getNombre());
+            // ✅ El log PAYMENT_SUCCESS lo escribe MonitoringEventosListener cuando el pago ya confirmó
+            Map<String, Object> datos = datosEvento(orden);
+            datos.put("estadoAnterior", EstadoOrden.DISPONIBLEPARAPAGO.name());
+            datos.put("estado", EstadoOrden.PAGADA.name());
+            datos.put("cliente", orden.getCliente().getNombre());
+            datos.put("vendedor", orden.getVendedor().getNombre());
+            outboxEventos.registrar(TipoEventoDominio.ORDEN_PAGADA, id, datos);
 
-            return ordenMapper.toDto(ordenActualizada);
+            return ordenMapper.toDto(orden);
 
         } catch (Exception e) {
             log.error("MONITORING_PAYMENT_EVENT - action: PAYMENT_ERROR, orderId: {}, error: {}", id, e.getMessage());
@@ -556,7 +840,7 @@ public class OrdenServiceImpl implements OrdenService {
     public List<Map<String, Object>> getOrdenesPorEstadoForMonitoring(EstadoOrden estado) {
         log.info("MONITORING_ORDERS_BY_STATUS - action: QUERY, status: {}", estado);
 
-        return ordenRepository.findByEstado(estado)
+        return ordenRepository.findByEstadoWithDetalles(estado)
                 .stream()
                 .map(orden -> {
                     Map<String, Object> orderInfo = new HashMap<>();
@@ -0,0 +1,50 @@
+package co.todotech.service.impl;
+
+import co.todotech.model.entities.EventoOutbox;
+import co.todotech.model.enums.EstadoEventoOutbox;
+import co.todotech.model.enums.TipoEventoDominio;
+import co.todotech.repository.EventoOutboxRepository;
+import co.todotech.service.OutboxEventosService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OutboxEventosServiceImpl implements OutboxEventosService {
+
+    private final EventoOutboxRepository eventoOutboxRepository;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrar(TipoEventoDominio tipo, Long agregadoId, Map<String, Object> datos) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(datos);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("No se pudo serializar el evento " + tipo + ": " + e.getMessage(), e);
+        }
+
+        LocalDateTime ahora = LocalDateTime.now();
+        eventoOutboxRepository.save(EventoOutbox.builder()
+                .tipo(tipo)
+                .agregadoId(agregadoId)
+                .payload(payload)
+                .estado(EstadoEventoOutbox.PENDIENTE)
+                .intentos(0)
+                .siguienteIntento(ahora)
+                .fechaCreacion(ahora)
+                .build());
+
+        log.debug("Evento {} registrado en outbox para el agregado {}", tipo, agregadoId);
+    }
+}
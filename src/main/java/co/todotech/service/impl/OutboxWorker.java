@@ -0,0 +1,140 @@
+package co.todotech.service.impl;
+
+import co.todotech.model.dto.eventos.EventoDominioDto;
+import co.todotech.model.entities.EventoOutbox;
+import co.todotech.model.enums.EstadoEventoOutbox;
+import co.todotech.repository.EventoOutboxRepository;
+import co.todotech.service.EventoDominioListener;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Drena el outbox por lotes y entrega cada evento a los EventoDominioListener que lo soportan.
+ * El lote se bloquea con FOR UPDATE SKIP LOCKED, así que varias instancias pueden drenar a la
+ * vez sin repartir el mismo evento. Un evento cuyo listener falla se reintenta con espera
+ * exponencial hasta {@code outbox.max-intentos}; después queda FALLIDO para revisión.
+ */
+@Slf4j
+@Component
+public class OutboxWorker {
+
+    private static final TypeReference<Map<String, Object>> TIPO_DATOS = new TypeReference<>() {
+    };
+    private static final long ESPERA_MAXIMA_SEGUNDOS = 3600;
+
+    private final EventoOutboxRepository eventoOutboxRepository;
+    private final List<EventoDominioListener> listeners;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${outbox.tamano-lote:100}")
+    private int tamanoLote;
+
+    @Value("${outbox.max-intentos:10}")
+    private int maxIntentos;
+
+    @Value("${outbox.retencion-horas:72}")
+    private long retencionHoras;
+
+    public OutboxWorker(EventoOutboxRepository eventoOutboxRepository,
+                        List<EventoDominioListener> listeners,
+                        ObjectMapper objectMapper,
+                        PlatformTransactionManager transactionManager) {
+        this.eventoOutboxRepository = eventoOutboxRepository;
+        this.listeners = listeners;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.intervalo-ms:1000}")
+    public void drenar() {
+        int procesados;
+        do {
+            Integer lote = transactionTemplate.execute(status -> procesarLote());
+            procesados = lote != null ? lote : 0;
+        } while (procesados == tamanoLote);
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.purga-ms:3600000}")
+    public void purgarProcesados() {
+        LocalDateTime limite = LocalDateTime.now().minusHours(retencionHoras);
+        Integer eliminados = transactionTemplate.execute(status ->
+                eventoOutboxRepository.eliminarProcesadosAntesDe(EstadoEventoOutbox.PROCESADO, limite));
+        if (eliminados != null && eliminados > 0) {
+            log.info("OUTBOX_PURGE - eliminados: {}", eliminados);
+        }
+    }
+
+    /**
+     * Bloquea y procesa un lote dentro de la transacción en curso; devuelve cuántos eventos tomó.
+     */
+    int procesarLote() {
+        LocalDateTime ahora = LocalDateTime.now();
+        List<EventoOutbox> eventos = eventoOutboxRepository.bloquearPendientes(
+                EstadoEventoOutbox.PENDIENTE, ahora, PageRequest.of(0, tamanoLote));
+
+        for (EventoOutbox evento : eventos) {
+            try {
+                despachar(evento);
+                evento.setEstado(EstadoEventoOutbox.PROCESADO);
+                evento.setProcesadoEn(LocalDateTime.now());
+                evento.setUltimoError(null);
+            } catch (Exception e) {
+                registrarFallo(evento, e, ahora);
+            }
+        }
+
+        return eventos.size();
+    }
+
+    private void despachar(EventoOutbox evento) throws Exception {
+        EventoDominioDto dto = new EventoDominioDto(
+                evento.getId(),
+                evento.getTipo(),
+                evento.getAgregadoId(),
+                objectMapper.readValue(evento.getPayload(), TIPO_DATOS),
+                evento.getFechaCreacion());
+
+        for (EventoDominioListener listener : listeners) {
+            if (listener.soporta(dto.tipo())) {
+                listener.manejar(dto);
+            }
+        }
+    }
+
+    private void registrarFallo(EventoOutbox evento, Exception e, LocalDateTime ahora) {
+        int intentos = evento.getIntentos() + 1;
+        evento.setIntentos(intentos);
+        evento.setUltimoError(recortar(e.getMessage()));
+
+        if (intentos >= maxIntentos) {
+            evento.setEstado(EstadoEventoOutbox.FALLIDO);
+            log.error("OUTBOX_EVENT_FAILED - id: {}, tipo: {}, intentos: {}, error: {}",
+                    evento.getId(), evento.getTipo(), intentos, e.getMessage());
+            return;
+        }
+
+        long espera = Math.min(1L << Math.min(intentos, 20), ESPERA_MAXIMA_SEGUNDOS);
+        evento.setSiguienteIntento(ahora.plusSeconds(espera));
+        log.warn("Evento {} ({}) falló en el intento {}, se reintenta en {}s: {}",
+                evento.getId(), evento.getTipo(), intentos, espera, e.getMessage());
+    }
+
+    private String recortar(String mensaje) {
+        if (mensaje == null) {
+            return null;
+        }
+        return mensaje.length() > 500 ? mensaje.substring(0, 500) : mensaje;
+    }
+}
@@ -6,11 +6,16 @@ import co.todotech.model.entities.MetodoPago;
 import co.todotech.model.entities.Orden;
 import co.todotech.model.entities.Pago;
 import co.todotech.model.entities.Usuario;
+import co.todotech.model.enums.AccionAuditoria;
+import co.todotech.model.enums.EntidadAuditada;
 import co.todotech.model.enums.EstadoPago;
+import co.todotech.model.enums.TipoEventoDominio;
 import co.todotech.repository.MetodoPagoRepository;
 import co.todotech.repository.OrdenRepository;
 import co.todotech.repository.PagoRepository;
 import co.todotech.repository.UsuarioRepository;
+import co.todotech.service.AuditoriaService;
+import co.todotech.service.OutboxEventosService;
 import co.todotech.service.PagoService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -18,7 +23,9 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -36,6 +43,8 @@ public class PagoServiceImpl implements PagoService {
     private final OrdenRepository ordenVentaRepository;
     private final MetodoPagoRepository metodoPagoRepository;
     private final UsuarioRepository usuarioRepository;
+    private final OutboxEventosService outboxEventos;
+    private final AuditoriaService auditoriaService;
 
     /**
      * Crea un nuevo registro de pago asociado a una orden, usuario y método de pago.
@@ -71,6 +80,8 @@ public class PagoServiceImpl implements PagoService {
 
         Pago pago = pagoMapper.toEntity(dto);
         pagoRepository.save(pago);
+        outboxEventos.registrar(TipoEventoDominio.PAGO_REGISTRADO, pago.getId(), datosEvento(pago));
+        auditoriaService.registrar(EntidadAuditada.PAGO, pago.getId(), AccionAuditoria.CREACION, resumenAuditoria(pago));
 
         log.info("Pago creado exitosamente: id={}, ordenVenta={}", pago.getId(), pago.getOrdenVenta().getId());
         return pagoMapper.toDto(pago);
@@ -122,6 +133,8 @@ public class PagoServiceImpl implements PagoService {
 
         pagoMapper.updatePagoFromDto(dto, pago);
         pagoRepository.save(pago);
+        outboxEventos.registrar(TipoEventoDominio.PAGO_ACTUALIZADO, pago.getId(), datosEvento(pago));
+        auditoriaService.registrar(EntidadAuditada.PAGO, pago.getId(), AccionAuditoria.ACTUALIZACION, resumenAuditoria(pago));
 
         log.info("Pago actualizado: id={}", pago.getId());
         return pagoMapper.toDto(pago);
@@ -139,6 +152,7 @@ public class PagoServiceImpl implements PagoService {
                 .orElseThrow(() -> new Exception("Pago no encontrado con ID: " + id));
 
         pagoRepository.delete(pago);
+        auditoriaService.registrar(EntidadAuditada.PAGO, id, AccionAuditoria.ELIMINACION, resumenAuditoria(pago));
         log.info("Pago eliminado: {}", id);
     }
 
@@ -263,4 +277,30 @@ public class PagoServiceImpl implements PagoService {
                 .orElseThrow(() -> new Exception("Pago no encontrado con número de transacción: " + numeroTransaccion));
         return pagoMapper.toDto(pago);
     }
-}
\ No newline at end of file
+
+    /**
+     * Datos publicados en el outbox para los eventos de pago.
+     * @param pago Pago recién guardado.
+     * @return Mapa serializable con los datos del evento.
+     */
+    private Map<String, Object> datosEvento(Pago pago) {
+        Map<String, Object> datos = new HashMap<>();
+        datos.put("ordenVentaId", pago.getOrdenVenta() != null ? pago.getOrdenVenta().getId() : null);
+        datos.put("monto", pago.getMonto());
+        datos.put("estadoPago", pago.getEstadoPago() != null ? pago.getEstadoPago().name() : null);
+        datos.put("numeroTransaccion", pago.getNumeroTransaccion());
+        return datos;
+    }
+
+    /**
+     * Resumen del pago para el registro de auditoría.
+     * @param pago Pago afectado.
+     * @return Texto con orden, monto, estado y número de transacción.
+     */
+    private String resumenAuditoria(Pago pago) {
+        return "ordenVentaId=" + (pago.getOrdenVenta() != null ? pago.getOrdenVenta().getId() : null)
+                + ", monto=" + pago.getMonto()
+                + ", estado=" + pago.getEstadoPago()
+                + ", transaccion=" + pago.getNumeroTransaccion();
+    }
+}
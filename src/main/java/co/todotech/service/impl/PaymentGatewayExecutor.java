@@ -0,0 +1,383 @@
+package co.todotech.service.impl;
+
+import co.todotech.exception.pasarela.PasarelaNoDisponibleException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Ejecuta las llamadas a las pasarelas de pago fuera de los hilos de Tomcat, en hilos virtuales.
+ * Cada pasarela tiene:
+ * - un bulkhead: como mucho {@code payment.gateway.max-concurrent} llamadas en curso; si no hay
+ *   hueco en {@code bulkhead-wait-ms} se rechaza en lugar de encolar;
+ * - un plazo por llamada ({@code timeout-ms}): al vencer, el cliente recibe la excepción y la
+ *   llamada se interrumpe;
+ * - un circuit breaker: tras {@code circuit.failure-threshold} fallos seguidos (excepciones o
+ *   llamadas más lentas que el plazo) se rechaza todo durante {@code circuit.open-ms}; después
+ *   pasa una llamada de prueba y su resultado decide si se cierra.
+ * Los rechazos y plazos vencidos se señalan con PasarelaNoDisponibleException.
+ *
+ * Además lleva estadísticas de la última ventana ({@code stats.window-ms}) por pasarela:
+ * llamadas, errores, rechazos y latencia. PaymentGatewayFactory las usa para elegir entre
+ * pasarelas que sirven el mismo método y el API de monitoreo las expone.
+ */
+@Slf4j
+@Component
+public class PaymentGatewayExecutor {
+
+    private final ExecutorService executor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("payment-gateway-", 1).factory());
+    private final ConcurrentHashMap<String, Gateway> gateways = new ConcurrentHashMap<>();
+
+    @Value("${payment.gateway.timeout-ms:12000}")
+    private long timeoutMs;
+
+    @Value("${payment.gateway.max-concurrent:20}")
+    private int maxConcurrent;
+
+    @Value("${payment.gateway.bulkhead-wait-ms:250}")
+    private long bulkheadWaitMs;
+
+    @Value("${payment.gateway.circuit.failure-threshold:5}")
+    private int failureThreshold;
+
+    @Value("${payment.gateway.circuit.open-ms:30000}")
+    private long openMs;
+
+    @Value("${payment.gateway.stats.window-ms:60000}")
+    private long statsWindowMs = 60000;
+
+    @Value("${payment.gateway.stats.buckets:6}")
+    private int statsBuckets = 6;
+
+    public <T> CompletableFuture<T> execute(String gatewayName, Supplier<T> call) {
+        Gateway gateway = gateway(gatewayName);
+
+        if (!gateway.circuitBreaker().tryAcquire()) {
+            gateway.stats().recordRejection();
+            return CompletableFuture.failedFuture(new PasarelaNoDisponibleException(
+                    "La pasarela " + gatewayName + " no está disponible temporalmente, intente de nuevo en unos segundos"));
+        }
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> task = executor.submit(() -> run(gateway, call, result));
+
+        return result.orTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                .exceptionallyCompose(e -> {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    if (cause instanceof TimeoutException) {
+                        task.cancel(true);
+                        log.warn("Payment gateway {} call exceeded the {}ms deadline", gatewayName, timeoutMs);
+                        cause = new PasarelaNoDisponibleException(
+                                "La pasarela " + gatewayName + " no respondió a tiempo", cause);
+                    }
+                    return CompletableFuture.failedFuture(cause);
+                });
+    }
+
+    /**
+     * Subtarea de una llamada ya admitida por {@link #execute}: no pasa por el bulkhead ni por el
+     * circuito, que ya cuentan la llamada que la lanza. Cancelar el future interrumpe la subtarea.
+     */
+    public <T> CompletableFuture<T> fork(Callable<T> subtask) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> task = executor.submit(() -> {
+            try {
+                result.complete(subtask.call());
+            } catch (Exception e) {
+                result.completeExceptionally(e);
+            }
+        });
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                task.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Versión bloqueante para quien ya corre fuera de un hilo de Tomcat.
+     */
+    public <T> T executeAndWait(String gatewayName, Supplier<T> call) {
+        try {
+            return execute(gatewayName, call).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PasarelaNoDisponibleException("Llamada a la pasarela " + gatewayName + " interrumpida", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new PasarelaNoDisponibleException(e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    public CircuitBreaker.State circuitState(String gatewayName) {
+        Gateway gateway = gateways.get(gatewayName);
+        return gateway != null ? gateway.circuitBreaker().state() : CircuitBreaker.State.CLOSED;
+    }
+
+    /**
+     * Estado y estadísticas de la ventana actual; una pasarela aún sin llamadas aparece sana y vacía.
+     */
+    public GatewayHealth health(String gatewayName) {
+        Gateway gateway = gateway(gatewayName);
+        RollingStats.Snapshot snapshot = gateway.stats().snapshot();
+        return new GatewayHealth(
+                gatewayName,
+                gateway.circuitBreaker().state(),
+                gateway.circuitBreaker().acceptsCalls(),
+                maxConcurrent - gateway.bulkhead().availablePermits(),
+                snapshot.calls(),
+                snapshot.failures(),
+                snapshot.rejections(),
+                snapshot.calls() > 0 ? (double) snapshot.failures() / snapshot.calls() : 0.0,
+                snapshot.calls() > 0 ? snapshot.totalNanos() / 1_000_000.0 / snapshot.calls() : 0.0,
+                TimeUnit.NANOSECONDS.toMillis(snapshot.maxNanos()),
+                statsWindowMs);
+    }
+
+    public long getTimeoutMs() {
+        return timeoutMs;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private Gateway gateway(String gatewayName) {
+        return gateways.computeIfAbsent(gatewayName, name -> new Gateway(name,
+                new Semaphore(maxConcurrent),
+                new CircuitBreaker(failureThreshold, openMs),
+                new RollingStats(statsWindowMs, statsBuckets)));
+    }
+
+    private <T> void run(Gateway gateway, Supplier<T> call, CompletableFuture<T> result) {
+        boolean acquired = false;
+        try {
+            acquired = gateway.bulkhead().tryAcquire(bulkheadWaitMs, TimeUnit.MILLISECONDS);
+            if (!acquired) {
+                // No cuenta para el circuito: la pasarela no ha fallado, estamos saturados nosotros
+                gateway.circuitBreaker().release();
+                gateway.stats().recordRejection();
+                result.completeExceptionally(new PasarelaNoDisponibleException(
+                        "Demasiadas operaciones en curso con la pasarela " + gateway.name() + ", intente de nuevo"));
+                return;
+            }
+
+            long start = System.nanoTime();
+            try {
+                T value = call.get();
+                long elapsed = System.nanoTime() - start;
+                boolean inTime = elapsed <= TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+                gateway.circuitBreaker().record(inTime, gateway.name());
+                gateway.stats().record(elapsed, inTime);
+                result.complete(value);
+            } catch (RuntimeException e) {
+                gateway.circuitBreaker().record(false, gateway.name());
+                gateway.stats().record(System.nanoTime() - start, false);
+                result.completeExceptionally(e);
+            }
+        } catch (InterruptedException e) {
+            // Plazo vencido esperando hueco: el cliente ya recibió el error
+            gateway.circuitBreaker().release();
+            Thread.currentThread().interrupt();
+        } finally {
+            if (acquired) {
+                gateway.bulkhead().release();
+            }
+        }
+    }
+
+    private record Gateway(String name, Semaphore bulkhead, CircuitBreaker circuitBreaker, RollingStats stats) {
+    }
+
+    /**
+     * Salud de una pasarela. {@code acceptingCalls} es false mientras el circuito está abierto
+     * y aún no toca la llamada de prueba.
+     */
+    public record GatewayHealth(
+            String name,
+            CircuitBreaker.State circuitState,
+            boolean acceptingCalls,
+            int inFlight,
+            long calls,
+            long failures,
+            long rejections,
+            double errorRate,
+            double avgLatencyMs,
+            long maxLatencyMs,
+            long windowMs
+    ) {
+    }
+
+    /**
+     * Contadores de una ventana deslizante dividida en cubetas de {@code windowMs / buckets};
+     * una cubeta se reutiliza cuando su periodo ya salió de la ventana.
+     */
+    static final class RollingStats {
+
+        record Snapshot(long calls, long failures, long rejections, long totalNanos, long maxNanos) {
+        }
+
+        private final long bucketMs;
+        private final long[] periods;
+        private final long[] calls;
+        private final long[] failures;
+        private final long[] rejections;
+        private final long[] totalNanos;
+        private final long[] maxNanos;
+
+        RollingStats(long windowMs, int buckets) {
+            int count = Math.max(buckets, 1);
+            this.bucketMs = Math.max(windowMs / count, 1);
+            this.periods = new long[count];
+            this.calls = new long[count];
+            this.failures = new long[count];
+            this.rejections = new long[count];
+            this.totalNanos = new long[count];
+            this.maxNanos = new long[count];
+            Arrays.fill(periods, -1);
+        }
+
+        synchronized void record(long elapsedNanos, boolean success) {
+            int i = bucket(System.currentTimeMillis());
+            calls[i]++;
+            if (!success) {
+                failures[i]++;
+            }
+            totalNanos[i] += elapsedNanos;
+            maxNanos[i] = Math.max(maxNanos[i], elapsedNanos);
+        }
+
+        synchronized void recordRejection() {
+            rejections[bucket(System.currentTimeMillis())]++;
+        }
+
+        synchronized Snapshot snapshot() {
+            long current = System.currentTimeMillis() / bucketMs;
+            long c = 0, f = 0, r = 0, total = 0, max = 0;
+            for (int i = 0; i < periods.length; i++) {
+                if (current - periods[i] >= periods.length) {
+                    continue;
+                }
+                c += calls[i];
+                f += failures[i];
+                r += rejections[i];
+                total += totalNanos[i];
+                max = Math.max(max, maxNanos[i]);
+            }
+            return new Snapshot(c, f, r, total, max);
+        }
+
+        private int bucket(long nowMs) {
+            long period = nowMs / bucketMs;
+            int i = (int) (period % periods.length);
+            if (periods[i] != period) {
+                periods[i] = period;
+                calls[i] = 0;
+                failures[i] = 0;
+                rejections[i] = 0;
+                totalNanos[i] = 0;
+                maxNanos[i] = 0;
+            }
+            return i;
+        }
+    }
+
+    /**
+     * Circuit breaker por fallos consecutivos. En HALF_OPEN deja pasar una sola llamada de prueba.
+     */
+    public static final class CircuitBreaker {
+
+        public enum State {
+            CLOSED,
+            OPEN,
+            HALF_OPEN
+        }
+
+        private final int failureThreshold;
+        private final long openMs;
+
+        private State state = State.CLOSED;
+        private int consecutiveFailures;
+        private long openedAt;
+        private boolean trialInFlight;
+        private long trialStartedAt;
+
+        CircuitBreaker(int failureThreshold, long openMs) {
+            this.failureThreshold = failureThreshold;
+            this.openMs = openMs;
+        }
+
+        synchronized boolean tryAcquire() {
+            if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openMs) {
+                state = State.HALF_OPEN;
+            }
+            if (state == State.CLOSED) {
+                return true;
+            }
+            // Una prueba que nunca informó (tarea cancelada antes de empezar) no bloquea para siempre
+            if (state == State.HALF_OPEN && (!trialInFlight || System.currentTimeMillis() - trialStartedAt >= openMs)) {
+                trialInFlight = true;
+                trialStartedAt = System.currentTimeMillis();
+                return true;
+            }
+            return false;
+        }
+
+        // Sin cambiar de estado: si tryAcquire dejaría pasar una llamada ahora
+        synchronized boolean acceptsCalls() {
+            return switch (state) {
+                case CLOSED -> true;
+                case OPEN -> System.currentTimeMillis() - openedAt >= openMs;
+                case HALF_OPEN -> !trialInFlight || System.currentTimeMillis() - trialStartedAt >= openMs;
+            };
+        }
+
+        // La llamada autorizada no llegó a la pasarela
+        synchronized void release() {
+            trialInFlight = false;
+        }
+
+        synchronized void record(boolean success, String gatewayName) {
+            trialInFlight = false;
+            if (success) {
+                if (state != State.CLOSED) {
+                    log.info("Payment gateway {} circuit CLOSED", gatewayName);
+                }
+                state = State.CLOSED;
+                consecutiveFailures = 0;
+                return;
+            }
+
+            consecutiveFailures++;
+            if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+                state = State.OPEN;
+                openedAt = System.currentTimeMillis();
+                log.warn("Payment gateway {} circuit OPEN after {} consecutive failures", gatewayName, consecutiveFailures);
+            }
+        }
+
+        public synchronized State state() {
+            return state;
+        }
+    }
+}
@@ -1,24 +1,122 @@
 package co.todotech.service.impl;
 
+import co.todotech.model.dto.monitoreo.EstadoPasarelaDto;
 import co.todotech.model.enums.TipoMetodo;
 import co.todotech.service.PaymentGatewayService;
-import lombok.RequiredArgsConstructor;
+import co.todotech.service.impl.PaymentGatewayExecutor.GatewayHealth;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 
+/**
+ * Elige la pasarela para cada método de pago. La tabla método → pasarelas se calcula una vez
+ * al arrancar, en el orden en que Spring registra los servicios.
+ *
+ * Si varias pasarelas atienden el mismo método (tarjetas por Stripe o Wompi), se descartan las
+ * que tienen el circuito abierto y, entre las demás, gana la de menor latencia media más
+ * tasa de error × plazo (un error pesa como una llamada que agota el plazo). Las estadísticas
+ * son de una ventana deslizante: una pasarela que deja de recibir tráfico vuelve a puntuar
+ * como nueva al salir sus datos de la ventana y recibe llamadas otra vez.
+ */
+@Slf4j
 @Service
-@RequiredArgsConstructor
 public class PaymentGatewayFactory {
 
     private final List<PaymentGatewayService> paymentServices;
+    private final PaymentGatewayExecutor gatewayExecutor;
+    private final Map<TipoMetodo, List<PaymentGatewayService>> routes = new EnumMap<>(TipoMetodo.class);
+
+    public PaymentGatewayFactory(List<PaymentGatewayService> paymentServices, PaymentGatewayExecutor gatewayExecutor) {
+        this.paymentServices = List.copyOf(paymentServices);
+        this.gatewayExecutor = gatewayExecutor;
+
+        for (TipoMetodo method : TipoMetodo.values()) {
+            List<PaymentGatewayService> candidates = new ArrayList<>();
+            for (PaymentGatewayService service : this.paymentServices) {
+                if (service.supports(method)) {
+                    candidates.add(service);
+                }
+            }
+            if (!candidates.isEmpty()) {
+                routes.put(method, List.copyOf(candidates));
+            }
+        }
+        log.info("Payment gateway routes: {}", describeRoutes());
+    }
 
     public PaymentGatewayService getPaymentService(TipoMetodo paymentMethodType) {
-        return paymentServices.stream()
-                .filter(service -> service.supports(paymentMethodType))
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException(
-                        "No payment service found for method: " + paymentMethodType
-                ));
+        List<PaymentGatewayService> candidates =
+                paymentMethodType != null ? routes.get(paymentMethodType) : null;
+        if (candidates == null) {
+            throw new IllegalArgumentException("No payment service found for method: " + paymentMethodType);
+        }
+        if (candidates.size() == 1) {
+            return candidates.get(0);
+        }
+
+        PaymentGatewayService best = null;
+        double bestScore = Double.MAX_VALUE;
+        for (PaymentGatewayService candidate : candidates) {
+            GatewayHealth health = gatewayExecutor.health(candidate.getGatewayName());
+            if (!health.acceptingCalls()) {
+                continue;
+            }
+            double score = score(health);
+            // Estricto: en empate se respeta el orden de registro
+            if (score < bestScore) {
+                best = candidate;
+                bestScore = score;
+            }
+        }
+
+        // Todas con el circuito abierto: la primera, que fallará rápido con 503
+        return best != null ? best : candidates.get(0);
+    }
+
+    /**
+     * Estado de cada pasarela registrada, con los métodos que atiende.
+     */
+    public List<EstadoPasarelaDto> gatewayStatus() {
+        List<EstadoPasarelaDto> status = new ArrayList<>();
+        for (PaymentGatewayService service : paymentServices) {
+            List<TipoMetodo> methods = new ArrayList<>();
+            routes.forEach((method, candidates) -> {
+                if (candidates.contains(service)) {
+                    methods.add(method);
+                }
+            });
+
+            GatewayHealth health = gatewayExecutor.health(service.getGatewayName());
+            status.add(new EstadoPasarelaDto(
+                    health.name(),
+                    Collections.unmodifiableList(methods),
+                    health.circuitState().name(),
+                    health.acceptingCalls(),
+                    health.inFlight(),
+                    health.calls(),
+                    health.failures(),
+                    health.rejections(),
+                    health.errorRate(),
+                    health.avgLatencyMs(),
+                    health.maxLatencyMs(),
+                    health.windowMs() / 1000));
+        }
+        return status;
+    }
+
+    private double score(GatewayHealth health) {
+        return health.avgLatencyMs() + health.errorRate() * gatewayExecutor.getTimeoutMs();
+    }
+
+    private Map<TipoMetodo, List<String>> describeRoutes() {
+        Map<TipoMetodo, List<String>> names = new EnumMap<>(TipoMetodo.class);
+        routes.forEach((method, candidates) ->
+                names.put(method, candidates.stream().map(PaymentGatewayService::getGatewayName).toList()));
+        return names;
     }
-}
\ No newline at end of file
+}
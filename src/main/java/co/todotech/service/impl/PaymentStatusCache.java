@@ -0,0 +1,120 @@
+package co.todotech.service.impl;
+
+import co.todotech.model.dto.pasarela.PaymentIntentResponseDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Caché del estado de cada payment intent delante de la pasarela.
+ * Los frontends consultan el estado cada segundo mientras el cliente paga: con esta caché
+ * varias consultas del mismo intent comparten una sola llamada en curso (single-flight) y el
+ * resultado se reutiliza durante un TTL que depende del estado: corto mientras el pago puede
+ * cambiar y largo cuando ya es definitivo (succeeded, canceled).
+ *
+ * Los errores y las respuestas con {@code errorMessage} no se guardan.
+ */
+@Slf4j
+@Component
+public class PaymentStatusCache {
+
+    private static final Set<String> TERMINAL_STATUSES = Set.of("succeeded", "canceled");
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, CompletableFuture<PaymentIntentResponseDto>> inFlight = new ConcurrentHashMap<>();
+
+    @Value("${payment.status-cache.pending-ttl-ms:1000}")
+    private long pendingTtlMs;
+
+    @Value("${payment.status-cache.terminal-ttl-ms:600000}")
+    private long terminalTtlMs;
+
+    @Value("${payment.status-cache.max-entries:10000}")
+    private int maxEntries;
+
+    /**
+     * Estado en caché o, si no hay uno vigente, el de {@code loader}; las llamadas concurrentes
+     * para el mismo intent esperan al mismo loader.
+     */
+    public CompletableFuture<PaymentIntentResponseDto> get(String paymentIntentId,
+                                                           Supplier<CompletableFuture<PaymentIntentResponseDto>> loader) {
+        Entry cached = entries.get(paymentIntentId);
+        if (cached != null && cached.isAlive(System.nanoTime())) {
+            return CompletableFuture.completedFuture(cached.response());
+        }
+
+        CompletableFuture<PaymentIntentResponseDto> load = new CompletableFuture<>();
+        CompletableFuture<PaymentIntentResponseDto> existing = inFlight.putIfAbsent(paymentIntentId, load);
+        if (existing != null) {
+            // copy(): que un cliente cancele su espera no cancela la de los demás
+            return existing.copy();
+        }
+
+        try {
+            loader.get().whenComplete((response, error) -> {
+                if (error == null) {
+                    store(paymentIntentId, response);
+                }
+                inFlight.remove(paymentIntentId, load);
+                if (error != null) {
+                    load.completeExceptionally(error);
+                } else {
+                    load.complete(response);
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.remove(paymentIntentId, load);
+            load.completeExceptionally(e);
+        }
+        return load.copy();
+    }
+
+    /**
+     * Guarda un estado obtenido por otra vía (confirmación, webhook).
+     */
+    public void store(String paymentIntentId, PaymentIntentResponseDto response) {
+        if (paymentIntentId == null || response == null || response.errorMessage() != null) {
+            return;
+        }
+        if (entries.size() >= maxEntries && !entries.containsKey(paymentIntentId)) {
+            purgeExpired();
+            if (entries.size() >= maxEntries) {
+                return;
+            }
+        }
+
+        long ttlMs = TERMINAL_STATUSES.contains(response.status()) ? terminalTtlMs : pendingTtlMs;
+        entries.put(paymentIntentId, new Entry(response, System.nanoTime() + ttlMs * 1_000_000L));
+    }
+
+    public void invalidate(String paymentIntentId) {
+        entries.remove(paymentIntentId);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    @Scheduled(fixedDelayString = "${payment.status-cache.purge-ms:60000}")
+    public void purgeExpired() {
+        long now = System.nanoTime();
+        int before = entries.size();
+        entries.values().removeIf(entry -> !entry.isAlive(now));
+        int removed = before - entries.size();
+        if (removed > 0) {
+            log.debug("Payment status cache purge - removed: {}, remaining: {}", removed, entries.size());
+        }
+    }
+
+    private record Entry(PaymentIntentResponseDto response, long expiresAtNanos) {
+        private boolean isAlive(long now) {
+            return now - expiresAtNanos < 0;
+        }
+    }
+}
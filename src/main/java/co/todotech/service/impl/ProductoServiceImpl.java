@@ -6,8 +6,13 @@ import co.todotech.exception.producto.ProductoNotFoundException;
 import co.todotech.mapper.ProductoMapper;
 import co.todotech.model.dto.producto.ProductoDto;
 import co.todotech.model.entities.Producto;
+import co.todotech.model.enums.AccionAuditoria;
+import co.todotech.model.enums.EntidadAuditada;
 import co.todotech.model.enums.EstadoProducto;
+import co.todotech.model.enums.TipoMovimiento;
 import co.todotech.repository.ProductoRepository;
+import co.todotech.service.AuditoriaService;
+import co.todotech.service.InventarioService;
 import co.todotech.service.ProductoService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -15,6 +20,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Objects;
 
 @Slf4j
 @Service
@@ -23,6 +29,9 @@ public class ProductoServiceImpl implements ProductoService {
 
     private final ProductoMapper productoMapper;
     private final ProductoRepository productoRepository;
+    private final ReservasStockLedger reservasStock;
+    private final AuditoriaService auditoriaService;
+    private final InventarioService inventarioService;
 
     @Override
     @Transactional
@@ -35,6 +44,10 @@ public class ProductoServiceImpl implements ProductoService {
         establecerEstadoAutomatico(producto);
 
         productoRepository.save(producto);
+        inventarioService.registrarMovimiento(producto.getId(), TipoMovimiento.INICIAL,
+                producto.getStock() != null ? producto.getStock() : 0, "alta-producto");
+        auditoriaService.registrar(EntidadAuditada.PRODUCTO, producto.getId(), AccionAuditoria.CREACION,
+                "codigo=" + producto.getCodigo() + ", precio=" + producto.getPrecio() + ", stock=" + producto.getStock());
         log.info("Producto creado exitosamente: id={}, codigo={}", producto.getId(), producto.getCodigo());
     }
 
@@ -43,13 +56,18 @@ public class ProductoServiceImpl implements ProductoService {
     public void actualizarProducto(Long id, ProductoDto dto) {
         log.info("Actualizando producto id={}", id);
 
-        Producto producto = obtenerProductoPorIdSeguro(id);
+        // Fila bloqueada: el stock anterior no cambia hasta el commit y el guardado no pisa una venta
+        Producto producto = obtenerProductoBloqueado(id);
         validarDatosActualizacion(id, dto, producto);
+        Double precioAnterior = producto.getPrecio();
+        Integer stockAnterior = producto.getStock();
 
         productoMapper.updateProductoFromDto(dto, producto);
         ajustarEstadoSegunStock(producto, dto.getEstado());
 
         productoRepository.save(producto);
+        reservasStock.invalidarProductoAlConfirmar(id);
+        auditarActualizacion(producto, precioAnterior, stockAnterior);
         log.info("Producto actualizado: id={}, codigo={}", producto.getId(), producto.getCodigo());
     }
 
@@ -66,6 +84,9 @@ public class ProductoServiceImpl implements ProductoService {
         // }
 
         productoRepository.delete(producto);
+        reservasStock.invalidarProductoAlConfirmar(id);
+        auditoriaService.registrar(EntidadAuditada.PRODUCTO, id, AccionAuditoria.ELIMINACION,
+                "codigo=" + producto.getCodigo());
         log.info("Producto eliminado físicamente: id={}", id);
     }
 
@@ -75,12 +96,16 @@ public class ProductoServiceImpl implements ProductoService {
         log.info("Cambiando estado del producto id={}", id);
 
         Producto producto = obtenerProductoPorIdSeguro(id);
-        EstadoProducto nuevoEstado = calcularNuevoEstado(producto.getEstado());
+        EstadoProducto estadoAnterior = producto.getEstado();
+        EstadoProducto nuevoEstado = calcularNuevoEstado(estadoAnterior);
 
         producto.setEstado(nuevoEstado);
         productoRepository.save(producto);
+        reservasStock.invalidarProductoAlConfirmar(id);
+        auditoriaService.registrar(EntidadAuditada.PRODUCTO, id, AccionAuditoria.CAMBIO_ESTADO,
+                estadoAnterior + " -> " + nuevoEstado);
 
-        log.info("Estado del producto {} cambiado de {} a {}", id, producto.getEstado(), nuevoEstado);
+        log.info("Estado del producto {} cambiado de {} a {}", id, estadoAnterior, nuevoEstado);
     }
 
     @Override
@@ -201,8 +226,25 @@ public class ProductoServiceImpl implements ProductoService {
         // Validaciones básicas
         validarParametrosStock(id, cantidad, operacion);
 
-        // Obtener el producto
-        Producto producto = obtenerProductoPorIdSeguro(id);
+        // Incrementos y decrementos van directo al UPDATE atómico, sin cargar la entidad
+        switch (operacion.toUpperCase()) {
+            case "INCREMENTAR":
+                sumarStock(id, cantidad, TipoMovimiento.REABASTECIMIENTO);
+                return;
+            case "DEVOLUCION":
+                sumarStock(id, cantidad, TipoMovimiento.DEVOLUCION);
+                return;
+            case "DECREMENTAR":
+                restarStock(id, cantidad, TipoMovimiento.AJUSTE);
+                return;
+            default:
+                break;
+        }
+
+        // Fijar un valor absoluto: el stock anterior se lee con la fila bloqueada para que el
+        // movimiento AJUSTE sea exactamente la diferencia y el libro cuadre con producto.stock
+        Producto producto = obtenerProductoBloqueado(id);
+        Integer stockAnterior = producto.getStock();
 
         // Validar que el producto esté activo para operaciones de stock
         if (producto.getEstado() == EstadoProducto.INACTIVO) {
@@ -211,23 +253,22 @@ public class ProductoServiceImpl implements ProductoService {
 
         // Realizar la operación correspondiente
         switch (operacion.toUpperCase()) {
-            case "INCREMENTAR":
-                incrementarStock(producto, cantidad);
-                break;
-            case "DECREMENTAR":
-                decrementarStock(producto, cantidad);
-                break;
             case "AJUSTAR":
                 establecerStockDirecto(producto, cantidad);
                 break;
             default:
-                throw new ProductoBusinessException("Operación no válida. Use: INCREMENTAR, DECREMENTAR o AJUSTAR");
+                throw new ProductoBusinessException("Operación no válida. Use: INCREMENTAR, DECREMENTAR, DEVOLUCION o AJUSTAR");
         }
 
         // Actualizar estado automáticamente según el stock
         actualizarEstadoSegunStock(producto);
 
         productoRepository.save(producto);
+        reservasStock.invalidarProductoAlConfirmar(id);
+        inventarioService.registrarMovimiento(id, TipoMovimiento.AJUSTE,
+                producto.getStock() - (stockAnterior != null ? stockAnterior : 0), "ajuste-manual");
+        auditoriaService.registrar(EntidadAuditada.PRODUCTO, id, AccionAuditoria.CAMBIO_STOCK,
+                "AJUSTAR: " + stockAnterior + " -> " + producto.getStock());
         log.info("Stock ajustado exitosamente - Producto: {}, Stock final: {}, Operación: {}",
                 producto.getNombre(), producto.getStock(), operacion);
     }
@@ -235,15 +276,46 @@ public class ProductoServiceImpl implements ProductoService {
     @Override
     @Transactional
     public void incrementarStock(Long id, Integer cantidad) {
-        log.info("Incrementando stock del producto id={}, cantidad: {}", id, cantidad);
-        ajustarStockProducto(id, cantidad, "INCREMENTAR");
+        sumarStock(id, cantidad, TipoMovimiento.REABASTECIMIENTO);
     }
 
+    // Descuento de stock por venta (confirmación de pago de una orden)
     @Override
     @Transactional
     public void decrementarStock(Long id, Integer cantidad) {
-        log.info("Decrementando stock del producto id={}, cantidad: {}", id, cantidad);
-        ajustarStockProducto(id, cantidad, "DECREMENTAR");
+        restarStock(id, cantidad, TipoMovimiento.VENTA);
+    }
+
+    private void sumarStock(Long id, Integer cantidad, TipoMovimiento tipo) {
+        log.info("Incrementando stock del producto id={}, cantidad: {}, tipo: {}", id, cantidad, tipo);
+        validarParametrosStock(id, cantidad, "INCREMENTAR");
+
+        int filas = productoRepository.incrementarStockAtomico(
+                id, cantidad, EstadoProducto.ACTIVO, EstadoProducto.AGOTADO, EstadoProducto.INACTIVO);
+
+        if (filas == 0) {
+            throw motivoFalloStock(id, cantidad);
+        }
+        reservasStock.invalidarProductoAlConfirmar(id);
+        inventarioService.registrarMovimiento(id, tipo, cantidad, null);
+        auditoriaService.registrar(EntidadAuditada.PRODUCTO, id, AccionAuditoria.CAMBIO_STOCK, tipo + ": +" + cantidad);
+        log.debug("Stock incrementado atómicamente - Producto: {}, cantidad: {}", id, cantidad);
+    }
+
+    private void restarStock(Long id, Integer cantidad, TipoMovimiento tipo) {
+        log.info("Decrementando stock del producto id={}, cantidad: {}, tipo: {}", id, cantidad, tipo);
+        validarParametrosStock(id, cantidad, "DECREMENTAR");
+
+        int filas = productoRepository.decrementarStockSiDisponible(
+                id, cantidad, EstadoProducto.ACTIVO, EstadoProducto.AGOTADO, EstadoProducto.INACTIVO);
+
+        if (filas == 0) {
+            throw motivoFalloStock(id, cantidad);
+        }
+        reservasStock.invalidarProductoAlConfirmar(id);
+        inventarioService.registrarMovimiento(id, tipo, -cantidad, null);
+        auditoriaService.registrar(EntidadAuditada.PRODUCTO, id, AccionAuditoria.CAMBIO_STOCK, tipo + ": -" + cantidad);
+        log.debug("Stock decrementado atómicamente - Producto: {}, cantidad: {}", id, cantidad);
     }
 
     @Override
@@ -286,25 +358,20 @@ public class ProductoServiceImpl implements ProductoService {
         }
     }
 
-    private void incrementarStock(Producto producto, Integer cantidad) {
-        int nuevoStock = producto.getStock() + cantidad;
-        producto.setStock(nuevoStock);
-        log.debug("Stock incrementado: {} + {} = {}", producto.getStock() - cantidad, cantidad, nuevoStock);
-    }
-
-    private void decrementarStock(Producto producto, Integer cantidad) {
-        int stockActual = producto.getStock();
+    // Solo se ejecuta cuando el UPDATE atómico no afectó filas: explica el motivo
+    private RuntimeException motivoFalloStock(Long id, Integer cantidad) {
+        Producto producto = obtenerProductoPorIdSeguro(id);
 
-        if (stockActual < cantidad) {
-            throw new ProductoBusinessException(
-                    String.format("Stock insuficiente. Stock actual: %d, cantidad a decrementar: %d",
-                            stockActual, cantidad)
-            );
+        if (producto.getEstado() == EstadoProducto.INACTIVO) {
+            return new ProductoBusinessException("No se puede ajustar el stock de un producto inactivo");
         }
 
-        int nuevoStock = stockActual - cantidad;
-        producto.setStock(nuevoStock);
-        log.debug("Stock decrementado: {} - {} = {}", stockActual, cantidad, nuevoStock);
+        // El stock se relee con una consulta: la entidad en contexto puede estar desactualizada
+        Integer stockActual = productoRepository.findStockById(id).orElse(producto.getStock());
+        return new ProductoBusinessException(
+                String.format("Stock insuficiente. Stock actual: %d, cantidad a decrementar: %d",
+                        stockActual, cantidad)
+        );
     }
 
     private void establecerStockDirecto(Producto producto, Integer nuevoStock) {
@@ -340,6 +407,15 @@ public class ProductoServiceImpl implements ProductoService {
                 .orElseThrow(() -> new ProductoNotFoundException(id));
     }
 
+    private Producto obtenerProductoBloqueado(Long id) {
+        if (id == null) {
+            throw new ProductoBusinessException("El ID del producto no puede ser nulo");
+        }
+
+        return productoRepository.findByIdForUpdate(id)
+                .orElseThrow(() -> new ProductoNotFoundException(id));
+    }
+
     private void validarDatosCreacion(ProductoDto dto) {
         if (dto.getCodigo() != null && productoRepository.existsByCodigo(dto.getCodigo())) {
             throw new ProductoDuplicateException("código", dto.getCodigo());
@@ -403,4 +479,22 @@ public class ProductoServiceImpl implements ProductoService {
                 ? EstadoProducto.INACTIVO
                 : EstadoProducto.ACTIVO;
     }
-}
\ No newline at end of file
+
+    // Precio y stock se auditan aparte del resto de campos para poder filtrarlos
+    private void auditarActualizacion(Producto producto, Double precioAnterior, Integer stockAnterior) {
+        Long id = producto.getId();
+        if (!Objects.equals(precioAnterior, producto.getPrecio())) {
+            auditoriaService.registrar(EntidadAuditada.PRODUCTO, id, AccionAuditoria.CAMBIO_PRECIO,
+                    precioAnterior + " -> " + producto.getPrecio());
+        }
+        if (!Objects.equals(stockAnterior, producto.getStock())) {
+            inventarioService.registrarMovimiento(id, TipoMovimiento.AJUSTE,
+                    (producto.getStock() != null ? producto.getStock() : 0) - (stockAnterior != null ? stockAnterior : 0),
+                    "edicion-producto");
+            auditoriaService.registrar(EntidadAuditada.PRODUCTO, id, AccionAuditoria.CAMBIO_STOCK,
+                    stockAnterior + " -> " + producto.getStock());
+        }
+        auditoriaService.registrar(EntidadAuditada.PRODUCTO, id, AccionAuditoria.ACTUALIZACION,
+                "codigo=" + producto.getCodigo() + ", estado=" + producto.getEstado());
+    }
+}
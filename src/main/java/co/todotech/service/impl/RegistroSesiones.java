@@ -0,0 +1,196 @@
+package co.todotech.service.impl;
+
+import co.todotech.model.entities.Sesion;
+import co.todotech.model.enums.TipoUsuario;
+import lombok.Getter;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Sesiones activas de este nodo, por jti y por usuario.
+ * La consulta del filtro ({@link #registrarActividad}) es una búsqueda en el mapa por jti
+ * sin reservar memoria; las operaciones de un usuario se serializan con el candado de su
+ * franja, igual que en ReservasStockLedger.
+ *
+ * La tabla sesion la escribe SesionWriter en segundo plano; SesionServiceImpl la usa para
+ * completar este registro con las sesiones abiertas en otras instancias.
+ */
+@Component
+public class RegistroSesiones {
+
+    private static final int FRANJAS = 64;
+    // No se reescribe la última actividad más de una vez por segundo
+    private static final long RESOLUCION_ACTIVIDAD_MS = 1000;
+
+    private final ReentrantLock[] candados = new ReentrantLock[FRANJAS];
+    private final ConcurrentHashMap<String, SesionActiva> porJti = new ConcurrentHashMap<>();
+    // Las listas solo se tocan con el candado del usuario
+    private final Map<Long, List<SesionActiva>> porUsuario = new ConcurrentHashMap<>();
+
+    public RegistroSesiones() {
+        for (int i = 0; i < FRANJAS; i++) {
+            candados[i] = new ReentrantLock();
+        }
+    }
+
+    public void registrarActividad(String jti) {
+        SesionActiva sesion = porJti.get(jti);
+        if (sesion != null) {
+            long ahora = System.currentTimeMillis();
+            if (ahora - sesion.ultimaActividadMs >= RESOLUCION_ACTIVIDAD_MS) {
+                sesion.ultimaActividadMs = ahora;
+            }
+        }
+    }
+
+    public SesionActiva buscar(String jti) {
+        return porJti.get(jti);
+    }
+
+    /**
+     * Ejecuta {@code accion} con el candado del usuario (reentrante: puede llamar a los demás métodos).
+     */
+    public <T> T conCandado(Long usuarioId, Supplier<T> accion) {
+        ReentrantLock candado = candado(usuarioId);
+        candado.lock();
+        try {
+            return accion.get();
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    /**
+     * Sesiones del usuario de la más antigua a la más reciente.
+     */
+    public List<SesionActiva> sesionesDe(Long usuarioId) {
+        return conCandado(usuarioId, () -> {
+            List<SesionActiva> sesiones = new ArrayList<>(porUsuario.getOrDefault(usuarioId, List.of()));
+            sesiones.sort(Comparator.comparing(SesionActiva::getFechaInicio));
+            return sesiones;
+        });
+    }
+
+    public void agregar(SesionActiva sesion) {
+        conCandado(sesion.getUsuarioId(), () -> {
+            porJti.put(sesion.getJti(), sesion);
+            porUsuario.computeIfAbsent(sesion.getUsuarioId(), id -> new ArrayList<>()).add(sesion);
+            return null;
+        });
+    }
+
+    public SesionActiva quitar(String jti) {
+        SesionActiva sesion = porJti.get(jti);
+        if (sesion == null) {
+            return null;
+        }
+
+        return conCandado(sesion.getUsuarioId(), () -> {
+            if (!porJti.remove(jti, sesion)) {
+                return null;
+            }
+            List<SesionActiva> delUsuario = porUsuario.get(sesion.getUsuarioId());
+            if (delUsuario != null) {
+                delUsuario.remove(sesion);
+                if (delUsuario.isEmpty()) {
+                    porUsuario.remove(sesion.getUsuarioId());
+                }
+            }
+            return sesion;
+        });
+    }
+
+    public List<SesionActiva> quitarExpiradas(Instant ahora) {
+        List<SesionActiva> expiradas = new ArrayList<>();
+        for (SesionActiva sesion : porJti.values()) {
+            if (sesion.expirada(ahora) && quitar(sesion.getJti()) != null) {
+                expiradas.add(sesion);
+            }
+        }
+        return expiradas;
+    }
+
+    public Collection<SesionActiva> todas() {
+        return porJti.values();
+    }
+
+    public int tamano() {
+        return porJti.size();
+    }
+
+    private ReentrantLock candado(Long usuarioId) {
+        return candados[Math.floorMod(usuarioId.hashCode(), FRANJAS)];
+    }
+
+    @Getter
+    public static final class SesionActiva {
+        private final String jti;
+        private final Long usuarioId;
+        private final String nombreUsuario;
+        private final TipoUsuario rol;
+        private final String terminal;
+        private final String ip;
+        private final LocalDateTime fechaInicio;
+        private final Instant expiraEn;
+
+        private volatile long ultimaActividadMs;
+        // Solo los modifica SesionWriter
+        private volatile long actividadEscritaMs;
+        private volatile boolean persistida;
+
+        public SesionActiva(String jti, Long usuarioId, String nombreUsuario, TipoUsuario rol, String terminal,
+                            String ip, LocalDateTime fechaInicio, Instant expiraEn) {
+            this.jti = jti;
+            this.usuarioId = usuarioId;
+            this.nombreUsuario = nombreUsuario;
+            this.rol = rol;
+            this.terminal = terminal;
+            this.ip = ip;
+            this.fechaInicio = fechaInicio;
+            this.expiraEn = expiraEn;
+            this.ultimaActividadMs = System.currentTimeMillis();
+            this.actividadEscritaMs = ultimaActividadMs;
+        }
+
+        /**
+         * Sesión ya guardada en BD (abierta en otro nodo o antes de reiniciar).
+         */
+        public static SesionActiva desde(Sesion fila) {
+            ZoneId zona = ZoneId.systemDefault();
+            SesionActiva sesion = new SesionActiva(fila.getJti(), fila.getUsuarioId(), fila.getNombreUsuario(),
+                    fila.getRol(), fila.getTerminal(), fila.getIp(), fila.getFechaInicio(),
+                    fila.getExpiraEn().atZone(zona).toInstant());
+            sesion.ultimaActividadMs = fila.getUltimaActividad().atZone(zona).toInstant().toEpochMilli();
+            sesion.actividadEscritaMs = sesion.ultimaActividadMs;
+            sesion.persistida = true;
+            return sesion;
+        }
+
+        public boolean expirada(Instant ahora) {
+            return !expiraEn.isAfter(ahora);
+        }
+
+        public LocalDateTime getUltimaActividad() {
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli(ultimaActividadMs), ZoneId.systemDefault());
+        }
+
+        void marcarPersistida() {
+            this.persistida = true;
+        }
+
+        void marcarActividadEscrita(long actividadMs) {
+            this.actividadEscritaMs = actividadMs;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package co.todotech.service.impl;
+
+import co.todotech.exception.producto.ProductoNotFoundException;
+import co.todotech.model.dto.inventario.DisponibilidadStockDto;
+import co.todotech.model.dto.inventario.SnapshotProductoDto;
+import co.todotech.model.entities.Producto;
+import co.todotech.model.entities.ReservaStock;
+import co.todotech.repository.ProductoRepository;
+import co.todotech.repository.ReservaStockRepository;
+import co.todotech.service.ProductoService;
+import co.todotech.service.ReservaStockService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reservas de stock de las órdenes en curso.
+ * Añadir o editar una línea solo aparta unidades (tabla reserva_stock + ReservasStockLedger);
+ * el stock de producto se descuenta al pagar. Las reservas vencidas las libera el barrido.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReservaStockServiceImpl implements ReservaStockService {
+
+    private final ReservaStockRepository reservaStockRepository;
+    private final ProductoRepository productoRepository;
+    private final ProductoService productoService;
+    private final ReservasStockLedger ledger;
+
+    @Value("${inventario.reservas.ttl-minutos:30}")
+    private long ttlMinutos;
+
+    /**
+     * Vuelca las reservas activas al libro en memoria. Corre después de MigracionReservasStock.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @Transactional(readOnly = true)
+    public void reconstruir() {
+        ledger.limpiar();
+        List<ReservaStock> activas = reservaStockRepository.findByActivaTrue();
+        activas.forEach(r -> ledger.cargar(r.getProductoId(), r.getOrdenId(), r.getCantidad(), r.getExpiraEn()));
+
+        log.info("STOCK_RESERVATIONS_REBUILD - activas: {}", activas.size());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public DisponibilidadStockDto consultarDisponibilidad(Long productoId, Long ordenExcluida) {
+        DisponibilidadStockDto disponibilidad = ledger.disponibilidad(productoId, ordenExcluida, true);
+        if (disponibilidad != null) {
+            return disponibilidad;
+        }
+
+        cargarSnapshot(productoId);
+        return ledger.disponibilidad(productoId, ordenExcluida, false);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Set<Long> precargarProductos(Collection<Long> productoIds) {
+        Set<Long> existentes = new HashSet<>();
+        Map<Long, Long> versionesPorCargar = new HashMap<>();
+
+        for (Long productoId : productoIds) {
+            if (ledger.disponibilidad(productoId, null, true) != null) {
+                existentes.add(productoId);
+            } else {
+                versionesPorCargar.put(productoId, ledger.versionSnapshot(productoId));
+            }
+        }
+
+        if (!versionesPorCargar.isEmpty()) {
+            for (SnapshotProductoDto snapshot : productoRepository.findSnapshotsByIdIn(versionesPorCargar.keySet())) {
+                ledger.registrarSnapshot(snapshot.id(), snapshot.nombre(), snapshot.estado(), snapshot.stock(),
+                        versionesPorCargar.get(snapshot.id()));
+                existentes.add(snapshot.id());
+            }
+        }
+
+        return existentes;
+    }
+
+    @Override
+    @Transactional
+    public void reservar(Long ordenId, Long productoId, Integer cantidad) {
+        log.debug("Reservando {} unidades del producto {} para la orden {}", cantidad, productoId, ordenId);
+
+        if (ledger.disponibilidad(productoId, ordenId, true) == null) {
+            cargarSnapshot(productoId);
+        }
+
+        LocalDateTime ahora = LocalDateTime.now();
+        LocalDateTime expiraEn = ahora.plusMinutes(ttlMinutos);
+
+        // El libro valida y aparta bajo el candado del producto; si la transacción no confirma se deshace
+        ReservasStockLedger.Reserva anterior = ledger.reservar(productoId, ordenId, cantidad, expiraEn);
+        alRevertir(() -> ledger.restaurar(productoId, ordenId, anterior));
+
+        ReservaStock reserva = reservaStockRepository.findByOrdenIdAndProductoId(ordenId, productoId)
+                .orElseGet(() -> ReservaStock.builder()
+                        .ordenId(ordenId)
+                        .productoId(productoId)
+                        .build());
+        reserva.setCantidad(cantidad);
+        reserva.setExpiraEn(expiraEn);
+        reserva.setActiva(true);
+        reserva.setFechaActualizacion(ahora);
+        reservaStockRepository.save(reserva);
+    }
+
+    @Override
+    @Transactional
+    public void liberar(Long ordenId, Long productoId) {
+        log.debug("Liberando reserva del producto {} para la orden {}", productoId, ordenId);
+
+        reservaStockRepository.eliminarReserva(ordenId, productoId);
+        alConfirmar(() -> ledger.liberar(productoId, ordenId));
+    }
+
+    @Override
+    @Transactional
+    public void liberarOrden(Long ordenId) {
+        List<ReservaStock> reservas = reservaStockRepository.findByOrdenId(ordenId);
+        if (reservas.isEmpty()) {
+            return;
+        }
+
+        reservaStockRepository.eliminarReservasDeOrden(ordenId);
+        alConfirmar(() -> reservas.forEach(r -> ledger.liberar(r.getProductoId(), ordenId)));
+        log.info("Liberadas {} reservas de la orden {}", reservas.size(), ordenId);
+    }
+
+    @Override
+    @Transactional
+    public void confirmarOrden(Long ordenId) {
+        List<ReservaStock> reservas = reservaStockRepository.findByOrdenId(ordenId);
+
+        // También las desactivadas por el barrido: la línea sigue en la orden y el
+        // UPDATE condicional de stock decide si todavía hay unidades
+        for (ReservaStock reserva : reservas) {
+            productoService.decrementarStock(reserva.getProductoId(), reserva.getCantidad());
+        }
+
+        reservaStockRepository.eliminarReservasDeOrden(ordenId);
+        alConfirmar(() -> reservas.forEach(r -> ledger.liberar(r.getProductoId(), ordenId)));
+        log.info("Reservas de la orden {} convertidas en descuento de stock: {}", ordenId, reservas.size());
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${inventario.reservas.barrido-ms:60000}")
+    @Transactional
+    public int liberarReservasExpiradas() {
+        LocalDateTime ahora = LocalDateTime.now();
+
+        int liberadasEnMemoria = ledger.extraerExpiradas(ahora).size();
+        int desactivadas = reservaStockRepository.desactivarExpiradas(ahora);
+
+        if (desactivadas > 0 || liberadasEnMemoria > 0) {
+            log.info("STOCK_RESERVATIONS_SWEEP - liberadas: {}, desactivadas en BD: {}", liberadasEnMemoria, desactivadas);
+        }
+        return desactivadas;
+    }
+
+    private void cargarSnapshot(Long productoId) {
+        long version = ledger.versionSnapshot(productoId);
+        Producto producto = productoRepository.findById(productoId)
+                .orElseThrow(() -> new ProductoNotFoundException(productoId));
+        ledger.registrarSnapshot(productoId, producto.getNombre(), producto.getEstado(), producto.getStock(), version);
+    }
+
+    private void alConfirmar(Runnable cambio) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cambio.run();
+                }
+            });
+        } else {
+            cambio.run();
+        }
+    }
+
+    private void alRevertir(Runnable deshacer) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        deshacer.run();
+                    }
+                }
+            });
+        }
+    }
+}
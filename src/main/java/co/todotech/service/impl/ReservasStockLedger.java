@@ -0,0 +1,259 @@
+package co.todotech.service.impl;
+
+import co.todotech.exception.detalleorden.StockInsufficientException;
+import co.todotech.model.dto.inventario.DisponibilidadStockDto;
+import co.todotech.model.enums.EstadoProducto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Libro en memoria de las reservas de stock por producto.
+ * Cada producto guarda una instantánea de su stock/estado y las reservas por orden;
+ * las operaciones sobre un producto se serializan con un candado de su franja, así
+ * que productos distintos no compiten entre sí.
+ *
+ * La fuente de verdad es la tabla reserva_stock (ReservaStockServiceImpl la vuelca
+ * aquí al arrancar); este libro solo evita ir a BD para calcular el disponible.
+ */
+@Component
+public class ReservasStockLedger {
+
+    private static final int FRANJAS = 64;
+
+    private final ReentrantLock[] candados = new ReentrantLock[FRANJAS];
+    private final ConcurrentHashMap<Long, EntradaProducto> entradas = new ConcurrentHashMap<>();
+
+    // Red de seguridad ante cambios de stock que no pasan por ProductoServiceImpl
+    @Value("${inventario.reservas.snapshot-ttl-ms:60000}")
+    private long snapshotTtlMs;
+
+    public ReservasStockLedger() {
+        for (int i = 0; i < FRANJAS; i++) {
+            candados[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Disponible del producto excluyendo lo que ya reservó {@code ordenExcluida}
+     * (al editar una línea, sus propias unidades cuentan como disponibles).
+     * Devuelve null si no hay instantánea del producto o, con {@code exigirVigente}, si ha caducado.
+     */
+    public DisponibilidadStockDto disponibilidad(Long productoId, Long ordenExcluida, boolean exigirVigente) {
+        ReentrantLock candado = candado(productoId);
+        candado.lock();
+        try {
+            EntradaProducto entrada = entradas.get(productoId);
+            if (entrada == null || entrada.nombre == null
+                    || (exigirVigente && !entrada.snapshotVigente(snapshotTtlMs))) {
+                return null;
+            }
+            return entrada.disponibilidad(productoId, ordenExcluida);
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    /**
+     * Versión de la instantánea antes de leer el producto de BD; ver {@link #registrarSnapshot}.
+     */
+    public long versionSnapshot(Long productoId) {
+        EntradaProducto entrada = entradas.get(productoId);
+        return entrada != null ? entrada.version : 0L;
+    }
+
+    /**
+     * Guarda la instantánea leída de BD. Si se invalidó mientras se leía, los valores se
+     * guardan pero quedan caducados para que la siguiente consulta vuelva a leer.
+     */
+    public void registrarSnapshot(Long productoId, String nombre, EstadoProducto estado, int stock, long versionLeida) {
+        ReentrantLock candado = candado(productoId);
+        candado.lock();
+        try {
+            EntradaProducto entrada = entradas.computeIfAbsent(productoId, id -> new EntradaProducto());
+            entrada.nombre = nombre;
+            entrada.estado = estado;
+            entrada.stock = stock;
+            entrada.cargadoEnMs = entrada.version == versionLeida ? System.currentTimeMillis() : 0L;
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    public void invalidarProducto(Long productoId) {
+        ReentrantLock candado = candado(productoId);
+        candado.lock();
+        try {
+            EntradaProducto entrada = entradas.get(productoId);
+            if (entrada != null) {
+                entrada.version++;
+                entrada.cargadoEnMs = 0L;
+            }
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    /**
+     * Invalida la instantánea cuando la transacción actual confirma (el nuevo stock ya es visible).
+     */
+    public void invalidarProductoAlConfirmar(Long productoId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidarProducto(productoId);
+                }
+            });
+        } else {
+            invalidarProducto(productoId);
+        }
+    }
+
+    /**
+     * Fija la reserva de la orden sobre el producto en {@code cantidad} unidades si hay disponible.
+     * Requiere que el producto tenga instantánea (ver {@link #registrarSnapshot}).
+     *
+     * @return la reserva anterior de la orden, o null si no tenía
+     */
+    public Reserva reservar(Long productoId, Long ordenId, int cantidad, LocalDateTime expiraEn) {
+        ReentrantLock candado = candado(productoId);
+        candado.lock();
+        try {
+            EntradaProducto entrada = entradas.computeIfAbsent(productoId, id -> new EntradaProducto());
+            Reserva anterior = entrada.reservas.get(ordenId);
+            int disponible = entrada.stock - entrada.totalReservado + (anterior != null ? anterior.cantidad() : 0);
+
+            if (cantidad > disponible) {
+                throw new StockInsufficientException(entrada.nombre, Math.max(disponible, 0), cantidad);
+            }
+
+            entrada.poner(ordenId, new Reserva(cantidad, expiraEn));
+            return anterior;
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    /**
+     * Deja la reserva de la orden como estaba (null = sin reserva). Se usa al revertir una transacción.
+     */
+    public void restaurar(Long productoId, Long ordenId, Reserva anterior) {
+        ReentrantLock candado = candado(productoId);
+        candado.lock();
+        try {
+            EntradaProducto entrada = entradas.computeIfAbsent(productoId, id -> new EntradaProducto());
+            if (anterior == null) {
+                entrada.quitar(ordenId);
+            } else {
+                entrada.poner(ordenId, anterior);
+            }
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    /**
+     * Registra una reserva existente sin validar disponible (reconstrucción desde BD).
+     */
+    public void cargar(Long productoId, Long ordenId, int cantidad, LocalDateTime expiraEn) {
+        restaurar(productoId, ordenId, new Reserva(cantidad, expiraEn));
+    }
+
+    public Reserva liberar(Long productoId, Long ordenId) {
+        ReentrantLock candado = candado(productoId);
+        candado.lock();
+        try {
+            EntradaProducto entrada = entradas.get(productoId);
+            return entrada != null ? entrada.quitar(ordenId) : null;
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    /**
+     * Quita del libro las reservas vencidas y las devuelve para desactivarlas en BD.
+     */
+    public List<ReservaExpirada> extraerExpiradas(LocalDateTime ahora) {
+        List<ReservaExpirada> expiradas = new ArrayList<>();
+
+        for (Map.Entry<Long, EntradaProducto> e : entradas.entrySet()) {
+            Long productoId = e.getKey();
+            ReentrantLock candado = candado(productoId);
+            candado.lock();
+            try {
+                Iterator<Map.Entry<Long, Reserva>> it = e.getValue().reservas.entrySet().iterator();
+                while (it.hasNext()) {
+                    Map.Entry<Long, Reserva> reserva = it.next();
+                    if (!reserva.getValue().expiraEn().isAfter(ahora)) {
+                        e.getValue().totalReservado -= reserva.getValue().cantidad();
+                        it.remove();
+                        expiradas.add(new ReservaExpirada(productoId, reserva.getKey(), reserva.getValue().cantidad()));
+                    }
+                }
+            } finally {
+                candado.unlock();
+            }
+        }
+
+        return expiradas;
+    }
+
+    public void limpiar() {
+        entradas.clear();
+    }
+
+    private ReentrantLock candado(Long productoId) {
+        return candados[Math.floorMod(productoId.hashCode(), FRANJAS)];
+    }
+
+    public record Reserva(int cantidad, LocalDateTime expiraEn) {
+    }
+
+    public record ReservaExpirada(Long productoId, Long ordenId, int cantidad) {
+    }
+
+    // Estado de un producto; solo se toca con el candado de su franja
+    private static final class EntradaProducto {
+        private final Map<Long, Reserva> reservas = new HashMap<>();
+        private int totalReservado;
+        private String nombre;
+        private EstadoProducto estado;
+        private int stock;
+        private long cargadoEnMs;
+        private long version;
+
+        private boolean snapshotVigente(long ttlMs) {
+            return cargadoEnMs > 0 && System.currentTimeMillis() - cargadoEnMs < ttlMs;
+        }
+
+        private DisponibilidadStockDto disponibilidad(Long productoId, Long ordenExcluida) {
+            Reserva propia = ordenExcluida != null ? reservas.get(ordenExcluida) : null;
+            int reservado = totalReservado - (propia != null ? propia.cantidad() : 0);
+            return new DisponibilidadStockDto(productoId, nombre, estado, stock, reservado, stock - reservado);
+        }
+
+        private void poner(Long ordenId, Reserva reserva) {
+            Reserva anterior = reservas.put(ordenId, reserva);
+            totalReservado += reserva.cantidad() - (anterior != null ? anterior.cantidad() : 0);
+        }
+
+        private Reserva quitar(Long ordenId) {
+            Reserva anterior = reservas.remove(ordenId);
+            if (anterior != null) {
+                totalReservado -= anterior.cantidad();
+            }
+            return anterior;
+        }
+    }
+}
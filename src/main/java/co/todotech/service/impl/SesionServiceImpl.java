@@ -0,0 +1,259 @@
+package co.todotech.service.impl;
+
+import co.todotech.model.dto.sesion.SesionDto;
+import co.todotech.model.entities.Sesion;
+import co.todotech.model.enums.MotivoCierreSesion;
+import co.todotech.model.enums.TipoUsuario;
+import co.todotech.repository.SesionRepository;
+import co.todotech.security.JwtPrincipal;
+import co.todotech.security.TokenBlacklistService;
+import co.todotech.security.VerifiedTokenCache;
+import co.todotech.service.SesionService;
+import co.todotech.service.impl.RegistroSesiones.SesionActiva;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Registro de sesiones activas con límite por rol.
+ * El estado vive en RegistroSesiones y se persiste con SesionWriter en diferido. Cerrar una
+ * sesión revoca su jti en TokenBlacklistService, así que el token deja de valer en todos los
+ * nodos sin que el filtro consulte la tabla sesion.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SesionServiceImpl implements SesionService {
+
+    private final RegistroSesiones registro;
+    private final SesionWriter sesionWriter;
+    private final SesionRepository sesionRepository;
+    private final TokenBlacklistService tokenBlacklistService;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final Environment env;
+
+    private final Map<TipoUsuario, Integer> maxSesionesPorRol = new EnumMap<>(TipoUsuario.class);
+
+    @Value("${sesiones.max-por-defecto:3}")
+    private int maxSesionesPorDefecto;
+
+    @PostConstruct
+    void cargarLimites() {
+        for (TipoUsuario rol : TipoUsuario.values()) {
+            maxSesionesPorRol.put(rol, env.getProperty("sesiones.max-por-rol." + rol.name(), Integer.class,
+                    maxSesionesPorDefecto));
+        }
+        log.info("Límite de sesiones por rol: {}", maxSesionesPorRol);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconstruir() {
+        List<Sesion> activas = sesionRepository.buscarActivas(LocalDateTime.now());
+        for (Sesion fila : activas) {
+            if (!tokenBlacklistService.isRevoked(fila.getJti())) {
+                registro.agregar(SesionActiva.desde(fila));
+            }
+        }
+        log.info("SESSIONS_REBUILD - activas: {}", registro.tamano());
+    }
+
+    @Override
+    public void abrirSesion(String token) {
+        JwtPrincipal principal = verifiedTokenCache.verify(token)
+                .orElseThrow(() -> new RuntimeException("No se pudo registrar la sesión: token inválido"));
+
+        TipoUsuario rol = TipoUsuario.valueOf(principal.role());
+        LocalDateTime ahora = LocalDateTime.now();
+        SesionActiva nueva = new SesionActiva(principal.tokenId(), principal.userId(), principal.username(), rol,
+                cabecera("User-Agent"), ipCliente(), ahora, principal.expiresAt());
+
+        registro.conCandado(principal.userId(), () -> {
+            sincronizarUsuario(principal.userId());
+
+            List<SesionActiva> actuales = registro.sesionesDe(principal.userId());
+            int limite = maxSesionesPorRol.getOrDefault(rol, maxSesionesPorDefecto);
+            int sobrantes = actuales.size() - limite + 1;
+            for (int i = 0; i < sobrantes; i++) {
+                cerrar(actuales.get(i), MotivoCierreSesion.LIMITE_EXCEDIDO, ahora);
+                log.info("SESSION_EVICTED - usuario: {}, jti: {}, límite {}: {}",
+                        principal.username(), actuales.get(i).getJti(), rol, limite);
+            }
+
+            registro.agregar(nueva);
+            sesionWriter.encolarAlta(nueva);
+            return null;
+        });
+
+        log.info("SESSION_OPENED - usuario: {}, terminal: {}", principal.username(), nueva.getTerminal());
+    }
+
+    @Override
+    public void cerrarSesion(String token, MotivoCierreSesion motivo) {
+        verifiedTokenCache.verify(token).ifPresent(principal -> {
+            SesionActiva sesion = registro.buscar(principal.tokenId());
+            if (sesion != null) {
+                cerrar(sesion, motivo, LocalDateTime.now());
+            } else {
+                // Abierta en otro nodo: el UPDATE es idempotente
+                sesionWriter.encolarCierre(principal.tokenId(), motivo, LocalDateTime.now());
+            }
+        });
+    }
+
+    @Override
+    public void expulsarSesion(String jti) {
+        SesionActiva sesion = registro.buscar(jti);
+        if (sesion != null) {
+            cerrar(sesion, MotivoCierreSesion.EXPULSADA, LocalDateTime.now());
+            log.info("SESSION_KILLED - usuario: {}, jti: {}", sesion.getNombreUsuario(), jti);
+            return;
+        }
+
+        // Puede ser de otro nodo: se busca en la tabla con lo pendiente ya escrito
+        sesionWriter.vaciarAhora();
+        Sesion fila = sesionRepository.findByJti(jti)
+                .filter(Sesion::isActiva)
+                .orElseThrow(() -> new RuntimeException("Sesión no encontrada o ya cerrada: " + jti));
+
+        tokenBlacklistService.revoke(jti, fila.getUsuarioId(), fila.getExpiraEn().atZone(ZoneId.systemDefault()).toInstant());
+        sesionWriter.encolarCierre(jti, MotivoCierreSesion.EXPULSADA, LocalDateTime.now());
+        log.info("SESSION_KILLED - usuario: {}, jti: {}", fila.getNombreUsuario(), jti);
+    }
+
+    @Override
+    public void cerrarSesionesUsuario(Long usuarioId, MotivoCierreSesion motivo) {
+        registro.conCandado(usuarioId, () -> {
+            LocalDateTime ahora = LocalDateTime.now();
+            registro.sesionesDe(usuarioId).forEach(s -> cerrar(s, motivo, ahora));
+
+            // Las de otros nodos también se revocan, para que ningún nodo las vuelva a cargar
+            for (Sesion fila : sesionRepository.buscarActivasDeUsuario(usuarioId, ahora)) {
+                if (!tokenBlacklistService.isRevoked(fila.getJti())) {
+                    tokenBlacklistService.revoke(fila.getJti(), usuarioId,
+                            fila.getExpiraEn().atZone(ZoneId.systemDefault()).toInstant());
+                }
+            }
+            sesionWriter.encolarCierreUsuario(usuarioId, motivo, ahora);
+            log.info("SESSIONS_CLOSED - usuario: {}, motivo: {}", usuarioId, motivo);
+            return null;
+        });
+    }
+
+    @Override
+    public List<SesionDto> listarSesiones(Long usuarioId) {
+        sesionWriter.vaciarAhora();
+
+        LocalDateTime ahora = LocalDateTime.now();
+        List<Sesion> filas = usuarioId != null
+                ? sesionRepository.buscarActivasDeUsuario(usuarioId, ahora)
+                : sesionRepository.buscarActivas(ahora);
+
+        return filas.stream()
+                .filter(fila -> !tokenBlacklistService.isRevoked(fila.getJti()))
+                .map(this::toDto)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${sesiones.barrido-ms:60000}")
+    public int cerrarSesionesExpiradas() {
+        int enMemoria = registro.quitarExpiradas(Instant.now()).size();
+        int enBd = sesionWriter.marcarExpiradas(LocalDateTime.now());
+        if (enMemoria > 0 || enBd > 0) {
+            log.info("SESSIONS_SWEEP - expiradas en memoria: {}, en BD: {}", enMemoria, enBd);
+        }
+        return enBd;
+    }
+
+    /**
+     * Completa el registro con las sesiones del usuario abiertas en otros nodos y descarta
+     * las que otro nodo cerró. Requiere el candado del usuario.
+     */
+    private void sincronizarUsuario(Long usuarioId) {
+        LocalDateTime ahora = LocalDateTime.now();
+        List<Sesion> enBd = sesionRepository.buscarActivasDeUsuario(usuarioId, ahora);
+        Set<String> activasEnBd = enBd.stream().map(Sesion::getJti).collect(Collectors.toSet());
+
+        Instant instante = Instant.now();
+        for (SesionActiva sesion : registro.sesionesDe(usuarioId)) {
+            if (sesion.expirada(instante)
+                    || tokenBlacklistService.isRevoked(sesion.getJti())
+                    || (sesion.isPersistida() && !activasEnBd.contains(sesion.getJti()))) {
+                registro.quitar(sesion.getJti());
+            }
+        }
+
+        for (Sesion fila : enBd) {
+            if (registro.buscar(fila.getJti()) == null && !tokenBlacklistService.isRevoked(fila.getJti())) {
+                registro.agregar(SesionActiva.desde(fila));
+            }
+        }
+    }
+
+    private void cerrar(SesionActiva sesion, MotivoCierreSesion motivo, LocalDateTime fecha) {
+        registro.quitar(sesion.getJti());
+        if (!tokenBlacklistService.isRevoked(sesion.getJti())) {
+            tokenBlacklistService.revoke(sesion.getJti(), sesion.getUsuarioId(), sesion.getExpiraEn());
+        }
+        sesionWriter.encolarCierre(sesion.getJti(), motivo, fecha);
+    }
+
+    private SesionDto toDto(Sesion fila) {
+        // La actividad en memoria es más reciente que la escrita
+        SesionActiva enMemoria = registro.buscar(fila.getJti());
+        return new SesionDto(
+                fila.getJti(),
+                fila.getUsuarioId(),
+                fila.getNombreUsuario(),
+                fila.getRol(),
+                fila.getTerminal(),
+                fila.getIp(),
+                fila.getFechaInicio(),
+                enMemoria != null ? enMemoria.getUltimaActividad() : fila.getUltimaActividad(),
+                fila.getExpiraEn());
+    }
+
+    private String cabecera(String nombre) {
+        HttpServletRequest request = peticionActual();
+        if (request == null || request.getHeader(nombre) == null) {
+            return null;
+        }
+        String valor = request.getHeader(nombre);
+        return valor.length() > 255 ? valor.substring(0, 255) : valor;
+    }
+
+    private String ipCliente() {
+        HttpServletRequest request = peticionActual();
+        if (request == null) {
+            return null;
+        }
+        String reenviada = request.getHeader("X-Forwarded-For");
+        String ip = reenviada != null && !reenviada.isBlank() ? reenviada.split(",")[0].trim() : request.getRemoteAddr();
+        return ip != null && ip.length() > 45 ? ip.substring(0, 45) : ip;
+    }
+
+    private HttpServletRequest peticionActual() {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes atributos) {
+            return atributos.getRequest();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,212 @@
+package co.todotech.service.impl;
+
+import co.todotech.model.enums.MotivoCierreSesion;
+import co.todotech.service.impl.RegistroSesiones.SesionActiva;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Escritura diferida de la tabla sesion.
+ * Altas y cierres se encolan y se aplican en orden por lotes JDBC; la última actividad
+ * de cada sesión se vuelca en el mismo ciclo, solo para las que cambiaron. Si la BD
+ * falla, las operaciones no aplicadas se conservan y se reintentan en orden.
+ */
+@Slf4j
+@Component
+public class SesionWriter {
+
+    // Idempotente: un reintento tras un fallo parcial no duplica la sesión
+    private static final String INSERT_SQL =
+            "INSERT INTO sesion (jti, usuario_id, nombre_usuario, rol, terminal, ip, fecha_inicio, ultima_actividad, " +
+                    "expira_en, activa) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, true) ON CONFLICT (jti) DO NOTHING";
+    private static final String CERRAR_SQL =
+            "UPDATE sesion SET activa = false, motivo_cierre = ?, fecha_cierre = ? WHERE jti = ? AND activa = true";
+    // Solo las abiertas antes del cierre: un login posterior de otro nodo sigue activo
+    private static final String CERRAR_USUARIO_SQL =
+            "UPDATE sesion SET activa = false, motivo_cierre = ?, fecha_cierre = ? " +
+                    "WHERE usuario_id = ? AND activa = true AND fecha_inicio <= ?";
+    private static final String EXPIRAR_SQL =
+            "UPDATE sesion SET activa = false, motivo_cierre = ?, fecha_cierre = ? WHERE activa = true AND expira_en <= ?";
+    private static final String ACTIVIDAD_SQL =
+            "UPDATE sesion SET ultima_actividad = ? WHERE jti = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RegistroSesiones registro;
+
+    private final Queue<Operacion> cola = new ConcurrentLinkedQueue<>();
+    // El consumidor es único: el ciclo programado, los vaciados a demanda y el del apagado se excluyen
+    private final ReentrantLock consumidor = new ReentrantLock();
+    private final List<Operacion> sinEscribir = new ArrayList<>();
+
+    public SesionWriter(JdbcTemplate jdbcTemplate, RegistroSesiones registro) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.registro = registro;
+    }
+
+    public void encolarAlta(SesionActiva sesion) {
+        cola.add(new Alta(sesion));
+    }
+
+    public void encolarCierre(String jti, MotivoCierreSesion motivo, LocalDateTime fecha) {
+        cola.add(new Cierre(jti, motivo, fecha));
+    }
+
+    public void encolarCierreUsuario(Long usuarioId, MotivoCierreSesion motivo, LocalDateTime fecha) {
+        cola.add(new CierreUsuario(usuarioId, motivo, fecha));
+    }
+
+    @Scheduled(fixedDelayString = "${sesiones.escritura-ms:5000}")
+    public void vaciar() {
+        if (!consumidor.tryLock()) {
+            return;
+        }
+        try {
+            vaciarPendientes();
+        } finally {
+            consumidor.unlock();
+        }
+    }
+
+    /**
+     * Espera al ciclo en curso y escribe lo pendiente; para leer la tabla justo después.
+     */
+    public void vaciarAhora() {
+        consumidor.lock();
+        try {
+            vaciarPendientes();
+        } finally {
+            consumidor.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void vaciarAlApagar() {
+        vaciarAhora();
+        if (!sinEscribir.isEmpty() || !cola.isEmpty()) {
+            log.warn("SESSION_SHUTDOWN - quedaron operaciones sin escribir: {}", sinEscribir.size() + cola.size());
+        }
+    }
+
+    public int marcarExpiradas(LocalDateTime ahora) {
+        Timestamp fecha = Timestamp.valueOf(ahora);
+        return jdbcTemplate.update(EXPIRAR_SQL, MotivoCierreSesion.EXPIRADA.name(), fecha, fecha);
+    }
+
+    public int pendientes() {
+        return sinEscribir.size() + cola.size();
+    }
+
+    // Requiere el candado del consumidor
+    private void vaciarPendientes() {
+        Operacion operacion;
+        while ((operacion = cola.poll()) != null) {
+            sinEscribir.add(operacion);
+        }
+
+        int aplicadas = 0;
+        try {
+            while (aplicadas < sinEscribir.size()) {
+                aplicadas = aplicarDesde(aplicadas);
+            }
+            escribirActividad();
+        } catch (Exception e) {
+            log.error("SESSION_WRITE_ERROR - {} operaciones pendientes de reintento: {}",
+                    sinEscribir.size() - aplicadas, e.getMessage());
+        } finally {
+            sinEscribir.subList(0, aplicadas).clear();
+        }
+    }
+
+    // Aplica la operación en la posición indicada (las altas consecutivas en un solo lote) y devuelve la siguiente
+    private int aplicarDesde(int inicio) {
+        Operacion operacion = sinEscribir.get(inicio);
+        switch (operacion) {
+            case Alta alta -> {
+                int fin = inicio;
+                List<SesionActiva> altas = new ArrayList<>();
+                while (fin < sinEscribir.size() && sinEscribir.get(fin) instanceof Alta siguiente) {
+                    altas.add(siguiente.sesion());
+                    fin++;
+                }
+                insertar(altas);
+                return fin;
+            }
+            case Cierre cierre -> {
+                jdbcTemplate.update(CERRAR_SQL, cierre.motivo().name(), Timestamp.valueOf(cierre.fecha()), cierre.jti());
+                return inicio + 1;
+            }
+            case CierreUsuario cierre -> {
+                Timestamp fecha = Timestamp.valueOf(cierre.fecha());
+                jdbcTemplate.update(CERRAR_USUARIO_SQL, cierre.motivo().name(), fecha, cierre.usuarioId(), fecha);
+                return inicio + 1;
+            }
+        }
+    }
+
+    private void insertar(List<SesionActiva> altas) {
+        ZoneId zona = ZoneId.systemDefault();
+        List<Object[]> filas = new ArrayList<>(altas.size());
+        for (SesionActiva sesion : altas) {
+            filas.add(new Object[]{
+                    sesion.getJti(),
+                    sesion.getUsuarioId(),
+                    sesion.getNombreUsuario(),
+                    sesion.getRol().name(),
+                    sesion.getTerminal(),
+                    sesion.getIp(),
+                    Timestamp.valueOf(sesion.getFechaInicio()),
+                    Timestamp.valueOf(sesion.getUltimaActividad()),
+                    Timestamp.valueOf(LocalDateTime.ofInstant(sesion.getExpiraEn(), zona))
+            });
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, filas);
+        altas.forEach(SesionActiva::marcarPersistida);
+    }
+
+    private void escribirActividad() {
+        List<SesionActiva> cambiadas = new ArrayList<>();
+        List<Long> actividades = new ArrayList<>();
+        List<Object[]> filas = new ArrayList<>();
+        for (SesionActiva sesion : registro.todas()) {
+            long actividadMs = sesion.getUltimaActividadMs();
+            if (sesion.isPersistida() && actividadMs > sesion.getActividadEscritaMs()) {
+                cambiadas.add(sesion);
+                actividades.add(actividadMs);
+                filas.add(new Object[]{Timestamp.from(Instant.ofEpochMilli(actividadMs)), sesion.getJti()});
+            }
+        }
+        if (filas.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.batchUpdate(ACTIVIDAD_SQL, filas);
+        for (int i = 0; i < cambiadas.size(); i++) {
+            cambiadas.get(i).marcarActividadEscrita(actividades.get(i));
+        }
+    }
+
+    private sealed interface Operacion permits Alta, Cierre, CierreUsuario {
+    }
+
+    private record Alta(SesionActiva sesion) implements Operacion {
+    }
+
+    private record Cierre(String jti, MotivoCierreSesion motivo, LocalDateTime fecha) implements Operacion {
+    }
+
+    private record CierreUsuario(Long usuarioId, MotivoCierreSesion motivo, LocalDateTime fecha) implements Operacion {
+    }
+}
@@ -6,33 +6,46 @@ import co.todotech.model.dto.pasarela.PaymentIntentResponseDto;
 import co.todotech.model.dto.pasarela.PaymentConfirmationDto;
 import co.todotech.model.enums.TipoMetodo;
 import co.todotech.service.PaymentGatewayService;
-import com.stripe.Stripe;
+import co.todotech.exception.pasarela.PasarelaNoDisponibleException;
+import com.stripe.StripeClient;
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.exception.RateLimitException;
 import com.stripe.exception.StripeException;
 import com.stripe.model.PaymentIntent;
 import com.stripe.model.Charge;
 import com.stripe.param.PaymentIntentCreateParams;
 import com.stripe.param.PaymentIntentConfirmParams;
 import com.stripe.param.ChargeListParams;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import jakarta.annotation.PostConstruct;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
+/**
+ * Pasarela Stripe. Las llamadas son bloqueantes; PaymentGatewayController las ejecuta a través
+ * de PaymentGatewayExecutor. Los errores de red, límite de peticiones y 5xx se lanzan como
+ * PasarelaNoDisponibleException (cuentan para el circuit breaker); los rechazos de negocio
+ * se devuelven en {@code errorMessage} como hasta ahora.
+ */
 @Slf4j
 @Service
+@RequiredArgsConstructor
 public class StripePaymentService implements PaymentGatewayService {
 
-    @Value("${stripe.secret-key}")
-    private String stripeSecretKey;
+    public static final String GATEWAY_NAME = "stripe";
 
-    @PostConstruct
-    public void init() {
-        Stripe.apiKey = stripeSecretKey;
+    private final StripeClient stripeClient;
+    private final PaymentGatewayExecutor gatewayExecutor;
+
+    @Override
+    public String getGatewayName() {
+        return GATEWAY_NAME;
     }
 
     @Override
@@ -41,14 +54,15 @@ public class StripePaymentService implements PaymentGatewayService {
             // Convertir a centavos (Stripe trabaja en la unidad más pequeña de la moneda)
             Long amountInCents = Math.round(request.amount() * 100);
 
+            // La metadata del cliente va primero: order_id la fija el servidor, el webhook paga esa orden
             Map<String, String> initialMetadata = new HashMap<>();
+            if (request.metadata() != null) {
+                initialMetadata.putAll(request.metadata());
+            }
             initialMetadata.put("order_id", request.orderId().toString());
             if (request.customerEmail() != null) {
                 initialMetadata.put("customer_email", request.customerEmail());
             }
-            if (request.metadata() != null) {
-                initialMetadata.putAll(request.metadata());
-            }
 
             PaymentIntentCreateParams params = PaymentIntentCreateParams.builder()
                     .setAmount(amountInCents)
@@ -61,7 +75,7 @@ public class StripePaymentService implements PaymentGatewayService {
                     .putAllMetadata(initialMetadata)
                     .build();
 
-            PaymentIntent paymentIntent = PaymentIntent.create(params);
+            PaymentIntent paymentIntent = stripeClient.paymentIntents().create(params);
 
             // CORREGIDO: Usar HashMap en lugar de Map.of() para manejar valores nulos
             Map<String, Object> additionalData = new HashMap<>();
@@ -80,6 +94,7 @@ public class StripePaymentService implements PaymentGatewayService {
             );
 
         } catch (StripeException e) {
+            failIfUnavailable(e);
             log.error("Error creating Stripe payment intent: {}", e.getMessage(), e);
             return new PaymentIntentResponseDto(
                     null, null, "failed", false, null, e.getMessage(), null
@@ -90,18 +105,22 @@ public class StripePaymentService implements PaymentGatewayService {
     @Override
     public PaymentIntentResponseDto confirmPayment(PaymentConfirmationDto confirmation) {
         try {
-            PaymentIntent paymentIntent = PaymentIntent.retrieve(confirmation.paymentIntentId());
+            PaymentIntent paymentIntent;
+            List<Map<String, Object>> chargesData;
 
             if (confirmation.paymentMethodId() != null) {
+                // confirm ya devuelve el intent actualizado; los cargos solo existen después de confirmar
                 PaymentIntentConfirmParams params = PaymentIntentConfirmParams.builder()
                         .setPaymentMethod(confirmation.paymentMethodId())
                         .build();
-                paymentIntent = paymentIntent.confirm(params);
+                paymentIntent = stripeClient.paymentIntents().confirm(confirmation.paymentIntentId(), params);
+                chargesData = getChargesData(paymentIntent.getId());
+            } else {
+                IntentWithCharges result = retrieveWithCharges(confirmation.paymentIntentId());
+                paymentIntent = result.paymentIntent();
+                chargesData = result.charges();
             }
 
-            // Obtener los cargos asociados al payment intent
-            List<Map<String, Object>> chargesData = getChargesData(paymentIntent.getId());
-
             // CORREGIDO: Usar HashMap en lugar de Map.of() para manejar valores nulos
             Map<String, Object> additionalData = new HashMap<>();
             additionalData.put("amount_received", paymentIntent.getAmountReceived());
@@ -122,6 +141,7 @@ public class StripePaymentService implements PaymentGatewayService {
             );
 
         } catch (StripeException e) {
+            failIfUnavailable(e);
             log.error("Error confirming Stripe payment: {}", e.getMessage(), e);
             return new PaymentIntentResponseDto(
                     null, null, "failed", false, null, e.getMessage(), null
@@ -132,10 +152,10 @@ public class StripePaymentService implements PaymentGatewayService {
     @Override
     public PaymentIntentResponseDto getPaymentStatus(String paymentIntentId) {
         try {
-            PaymentIntent paymentIntent = PaymentIntent.retrieve(paymentIntentId);
-
-            // Obtener los cargos asociados al payment intent
-            List<Map<String, Object>> chargesData = getChargesData(paymentIntentId);
+            // El intent y sus cargos se piden a la vez
+            IntentWithCharges result = retrieveWithCharges(paymentIntentId);
+            PaymentIntent paymentIntent = result.paymentIntent();
+            List<Map<String, Object>> chargesData = result.charges();
 
             // CORREGIDO: Usar HashMap en lugar de Map.of() para manejar valores nulos
             Map<String, Object> additionalData = new HashMap<>();
@@ -160,6 +180,7 @@ public class StripePaymentService implements PaymentGatewayService {
             );
 
         } catch (StripeException e) {
+            failIfUnavailable(e);
             log.error("Error getting Stripe payment status: {}", e.getMessage(), e);
             return new PaymentIntentResponseDto(
                     null, null, "failed", false, null, e.getMessage(), null
@@ -167,6 +188,43 @@ public class StripePaymentService implements PaymentGatewayService {
         }
     }
 
+    /**
+     * Lee el PaymentIntent y lista sus cargos en paralelo (subtareas de la llamada en curso).
+     * Si una falla, o vence el plazo de la llamada, la otra se cancela.
+     */
+    private IntentWithCharges retrieveWithCharges(String paymentIntentId) throws StripeException {
+        CompletableFuture<PaymentIntent> intentTask =
+                gatewayExecutor.fork(() -> stripeClient.paymentIntents().retrieve(paymentIntentId));
+        CompletableFuture<List<Map<String, Object>>> chargesTask =
+                gatewayExecutor.fork(() -> getChargesData(paymentIntentId));
+
+        PaymentIntent paymentIntent = await(intentTask, chargesTask);
+        return new IntentWithCharges(paymentIntent, await(chargesTask, intentTask));
+    }
+
+    private <T> T await(CompletableFuture<T> task, CompletableFuture<?> sibling) throws StripeException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            task.cancel(true);
+            sibling.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new PasarelaNoDisponibleException("Consulta a Stripe interrumpida", e);
+        } catch (ExecutionException e) {
+            sibling.cancel(true);
+            if (e.getCause() instanceof StripeException stripeException) {
+                throw stripeException;
+            }
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private record IntentWithCharges(PaymentIntent paymentIntent, List<Map<String, Object>> charges) {
+    }
+
     /**
      * Método auxiliar para obtener los cargos asociados a un PaymentIntent
      */
@@ -176,7 +234,7 @@ public class StripePaymentService implements PaymentGatewayService {
                     .setPaymentIntent(paymentIntentId)
                     .build();
 
-            List<Charge> charges = Charge.list(params).getData();
+            List<Charge> charges = stripeClient.charges().list(params).getData();
             List<Map<String, Object>> chargesData = new ArrayList<>();
 
             for (Charge charge : charges) {
@@ -199,6 +257,15 @@ public class StripePaymentService implements PaymentGatewayService {
         }
     }
 
+    // Fallo de la pasarela y no del pago: se propaga para que el circuit breaker lo cuente
+    private void failIfUnavailable(StripeException e) {
+        boolean serverError = e.getStatusCode() != null && e.getStatusCode() >= 500;
+        if (e instanceof ApiConnectionException || e instanceof RateLimitException || serverError) {
+            log.warn("Stripe unavailable: {}", e.getMessage());
+            throw new PasarelaNoDisponibleException("Stripe no está disponible: " + e.getMessage(), e);
+        }
+    }
+
     @Override
     public boolean supports(TipoMetodo paymentMethodType) {
         return paymentMethodType == TipoMetodo.STRIPE ||
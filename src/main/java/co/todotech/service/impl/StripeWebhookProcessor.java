@@ -0,0 +1,335 @@
+package co.todotech.service.impl;
+
+import co.todotech.model.dto.ordenventa.EstadoOrdenActualDto;
+import co.todotech.model.entities.EventoStripe;
+import co.todotech.model.enums.EstadoEventoStripe;
+import co.todotech.model.enums.EstadoOrden;
+import co.todotech.model.enums.EstadoPago;
+import co.todotech.model.enums.TipoEventoDominio;
+import co.todotech.repository.EventoStripeRepository;
+import co.todotech.repository.OrdenRepository;
+import co.todotech.repository.PagoRepository;
+import co.todotech.service.OrdenService;
+import co.todotech.service.OutboxEventosService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Aplica los eventos de Stripe guardados por el webhook.
+ * Un lote se aplica en una sola transacción: los pagos con UPDATE masivos por número de
+ * transacción (payment intent) y las órdenes pagadas una a una con
+ * {@link OrdenService#marcarComoPagada}, que además confirma el stock reservado.
+ * Un cobro exitoso solo paga su orden si la moneda y el importe cobrado coinciden con la orden;
+ * si no, el evento queda FALLIDO sin aplicar nada, para conciliarlo a mano.
+ * Si el lote falla, sus eventos se aplican uno a uno para aislar el que falla; ese evento
+ * se reintenta en los siguientes ciclos y, agotados {@code stripe.webhook.max-intentos},
+ * queda FALLIDO.
+ *
+ * El webhook despierta al procesador en cuanto guarda un evento; el ciclo programado solo
+ * recoge lo que quedó pendiente (reinicios, fallos, eventos recibidos por otro nodo).
+ */
+@Slf4j
+@Component
+public class StripeWebhookProcessor {
+
+    static final String PAGO_EXITOSO = "payment_intent.succeeded";
+    static final String PAGO_FALLIDO = "payment_intent.payment_failed";
+    static final String PAGO_CANCELADO = "payment_intent.canceled";
+
+    private static final Set<EstadoOrden> ESTADOS_PAGADOS =
+            EnumSet.of(EstadoOrden.PAGADA, EstadoOrden.ENTREGADA, EstadoOrden.CERRADA);
+
+    private final EventoStripeRepository eventoStripeRepository;
+    private final PagoRepository pagoRepository;
+    private final OrdenRepository ordenRepository;
+    private final OrdenService ordenService;
+    private final OutboxEventosService outboxEventos;
+    private final PaymentStatusCache paymentStatusCache;
+    private final TransactionTemplate transactionTemplate;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("stripe-webhook-", 1).daemon(true).factory());
+    // Los avisos que llegan mientras ya hay una pasada programada se agrupan en ella
+    private final AtomicBoolean programado = new AtomicBoolean();
+
+    @Value("${stripe.webhook.tamano-lote:100}")
+    private int tamanoLote;
+
+    @Value("${stripe.webhook.max-intentos:5}")
+    private int maxIntentos;
+
+    // Moneda en la que cobra la tienda; los totales de las órdenes están en ella
+    @Value("${stripe.webhook.moneda:cop}")
+    private String moneda;
+
+    public StripeWebhookProcessor(EventoStripeRepository eventoStripeRepository,
+                                  PagoRepository pagoRepository,
+                                  OrdenRepository ordenRepository,
+                                  OrdenService ordenService,
+                                  OutboxEventosService outboxEventos,
+                                  PaymentStatusCache paymentStatusCache,
+                                  PlatformTransactionManager transactionManager) {
+        this.eventoStripeRepository = eventoStripeRepository;
+        this.pagoRepository = pagoRepository;
+        this.ordenRepository = ordenRepository;
+        this.ordenService = ordenService;
+        this.outboxEventos = outboxEventos;
+        this.paymentStatusCache = paymentStatusCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public void despertar() {
+        if (programado.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                programado.set(false);
+                procesarPendientes();
+            });
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${stripe.webhook.intervalo-ms:5000}")
+    public void barrer() {
+        despertar();
+    }
+
+    @PreDestroy
+    public void detener() {
+        executor.shutdownNow();
+    }
+
+    void procesarPendientes() {
+        try {
+            while (procesarLote() >= tamanoLote) {
+                // Lote lleno: probablemente quedan más
+            }
+        } catch (Exception e) {
+            log.error("❌ Error procesando eventos de Stripe: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reclama y aplica un lote de eventos pendientes; devuelve cuántos tomó.
+     */
+    int procesarLote() {
+        List<String> reclamados = new ArrayList<>();
+        Set<String> intents;
+        try {
+            intents = transactionTemplate.execute(status -> {
+                List<EventoStripe> lote = eventoStripeRepository.bloquearPendientes(
+                        EstadoEventoStripe.PENDIENTE, PageRequest.of(0, tamanoLote));
+                lote.forEach(evento -> reclamados.add(evento.getId()));
+                return aplicar(lote);
+            });
+        } catch (RuntimeException e) {
+            if (reclamados.isEmpty()) {
+                throw e;
+            }
+            log.warn("Lote de {} eventos de Stripe revertido ({}), se aplican uno a uno",
+                    reclamados.size(), e.getMessage());
+            reclamados.forEach(this::procesarUno);
+            return reclamados.size();
+        }
+
+        invalidarCache(intents);
+        return reclamados.size();
+    }
+
+    private void procesarUno(String id) {
+        try {
+            invalidarCache(transactionTemplate.execute(status ->
+                    aplicar(eventoStripeRepository.bloquearPorId(id, EstadoEventoStripe.PENDIENTE))));
+        } catch (RuntimeException e) {
+            transactionTemplate.executeWithoutResult(status -> registrarFallo(id, e));
+        }
+    }
+
+    /**
+     * Aplica los eventos dentro de la transacción en curso y devuelve los payment intents afectados.
+     */
+    private Set<String> aplicar(List<EventoStripe> eventos) {
+        if (eventos.isEmpty()) {
+            return Set.of();
+        }
+
+        Map<Long, EstadoOrdenActualDto> ordenes = cargarOrdenes(eventos);
+        LocalDateTime ahora = LocalDateTime.now();
+
+        Set<String> aprobados = new LinkedHashSet<>();
+        Set<String> rechazados = new LinkedHashSet<>();
+        List<EventoStripe> pagosDeOrden = new ArrayList<>();
+        List<String> procesados = new ArrayList<>();
+        List<String> ignorados = new ArrayList<>();
+        int fallidos = 0;
+
+        for (EventoStripe evento : eventos) {
+            String intent = evento.getPaymentIntentId();
+            if (intent == null) {
+                ignorados.add(evento.getId());
+                continue;
+            }
+            switch (evento.getTipo()) {
+                case PAGO_EXITOSO -> {
+                    String motivo = evento.getOrdenId() != null
+                            ? validarCobro(evento, ordenes.get(evento.getOrdenId())) : null;
+                    if (motivo != null) {
+                        // Dinero cobrado que no corresponde a la orden: no se aplica nada, queda para revisión
+                        evento.setEstado(EstadoEventoStripe.FALLIDO);
+                        evento.setUltimoError(recortar(motivo));
+                        evento.setProcesadoEn(ahora);
+                        fallidos++;
+                        log.error("STRIPE_WEBHOOK_PAYMENT_MISMATCH - eventId: {}, paymentIntent: {}, orderId: {}, amount: {}, currency: {}, motivo: {}",
+                                evento.getId(), intent, evento.getOrdenId(), evento.getMontoRecibido(), evento.getMoneda(), motivo);
+                        continue;
+                    }
+                    aprobados.add(intent);
+                    if (evento.getOrdenId() != null) {
+                        pagosDeOrden.add(evento);
+                    }
+                    procesados.add(evento.getId());
+                }
+                case PAGO_FALLIDO, PAGO_CANCELADO -> {
+                    rechazados.add(intent);
+                    procesados.add(evento.getId());
+                }
+                default -> ignorados.add(evento.getId());
+            }
+        }
+        // Un intento fallido seguido de uno exitoso del mismo intent: gana el éxito
+        rechazados.removeAll(aprobados);
+
+        // Un pago rechazado puede aprobarse después (el cliente reintenta con otra tarjeta), al revés no
+        actualizarPagos(aprobados, EnumSet.of(EstadoPago.PENDIENTE, EstadoPago.RECHAZADO), EstadoPago.APROBADO);
+        actualizarPagos(rechazados, EnumSet.of(EstadoPago.PENDIENTE), EstadoPago.RECHAZADO);
+        pagarOrdenes(pagosDeOrden, ordenes);
+
+        if (!procesados.isEmpty()) {
+            eventoStripeRepository.marcar(procesados, EstadoEventoStripe.PROCESADO, ahora);
+        }
+        if (!ignorados.isEmpty()) {
+            eventoStripeRepository.marcar(ignorados, EstadoEventoStripe.IGNORADO, ahora);
+        }
+
+        log.info("STRIPE_WEBHOOK_BATCH - eventos: {}, aprobados: {}, rechazados: {}, ordenes: {}, ignorados: {}, fallidos: {}",
+                eventos.size(), aprobados.size(), rechazados.size(), pagosDeOrden.size(), ignorados.size(), fallidos);
+
+        Set<String> intents = new LinkedHashSet<>(aprobados);
+        intents.addAll(rechazados);
+        return intents;
+    }
+
+    private Map<Long, EstadoOrdenActualDto> cargarOrdenes(List<EventoStripe> eventos) {
+        Set<Long> ordenIds = new LinkedHashSet<>();
+        for (EventoStripe evento : eventos) {
+            if (PAGO_EXITOSO.equals(evento.getTipo()) && evento.getOrdenId() != null) {
+                ordenIds.add(evento.getOrdenId());
+            }
+        }
+        if (ordenIds.isEmpty()) {
+            return Map.of();
+        }
+        Map<Long, EstadoOrdenActualDto> ordenes = new HashMap<>();
+        for (EstadoOrdenActualDto orden : ordenRepository.findEstadosByIdIn(ordenIds)) {
+            ordenes.put(orden.id(), orden);
+        }
+        return ordenes;
+    }
+
+    /**
+     * Motivo por el que el cobro no puede pagar la orden, o null si corresponde:
+     * la orden existe, la moneda es la de la tienda y el importe cobrado es el total de la orden.
+     * El importe y la metadata los elige quien crea el intent, así que no bastan por sí solos.
+     */
+    String validarCobro(EventoStripe evento, EstadoOrdenActualDto orden) {
+        if (orden == null) {
+            return "La orden " + evento.getOrdenId() + " no existe";
+        }
+        if (evento.getMoneda() == null || !evento.getMoneda().equalsIgnoreCase(moneda)) {
+            return "Moneda " + evento.getMoneda() + " distinta de la de la tienda (" + moneda + ")";
+        }
+        long esperado = Math.round((orden.total() != null ? orden.total() : 0.0) * 100);
+        if (evento.getMontoRecibido() == null || evento.getMontoRecibido() != esperado) {
+            return "Importe cobrado " + evento.getMontoRecibido() + " distinto del total de la orden (" + esperado + ")";
+        }
+        if (orden.estado() != EstadoOrden.DISPONIBLEPARAPAGO && !ESTADOS_PAGADOS.contains(orden.estado())) {
+            return "La orden está en estado " + orden.estado() + " y no admite el pago";
+        }
+        return null;
+    }
+
+    // El pago de cada orden descuenta su stock: no admite un UPDATE masivo
+    private void pagarOrdenes(List<EventoStripe> pagos, Map<Long, EstadoOrdenActualDto> ordenes) {
+        Set<Long> pagadas = new LinkedHashSet<>();
+        for (EventoStripe pago : pagos) {
+            EstadoOrdenActualDto orden = ordenes.get(pago.getOrdenId());
+            if (orden.estado() == EstadoOrden.DISPONIBLEPARAPAGO && pagadas.add(orden.id())) {
+                ordenService.marcarComoPagada(orden.id());
+            } else {
+                // Ya pagada (por caja, por otro intent o antes en este lote): puede ser un doble cobro
+                log.warn("STRIPE_WEBHOOK_ORDER_ALREADY_PAID - eventId: {}, paymentIntent: {}, orderId: {}, estado: {}, amount: {} - revisar posible doble cobro",
+                        pago.getId(), pago.getPaymentIntentId(), orden.id(),
+                        pagadas.contains(orden.id()) ? EstadoOrden.PAGADA : orden.estado(), pago.getMontoRecibido());
+            }
+        }
+    }
+
+    private void actualizarPagos(Set<String> transacciones, Set<EstadoPago> origenes, EstadoPago nuevoEstado) {
+        if (transacciones.isEmpty()) {
+            return;
+        }
+        int filas = pagoRepository.actualizarEstadoPorTransacciones(transacciones, origenes, nuevoEstado);
+        if (filas > 0) {
+            Map<String, Object> datos = new HashMap<>();
+            datos.put("estado", nuevoEstado.name());
+            datos.put("origen", "STRIPE_WEBHOOK");
+            datos.put("transacciones", List.copyOf(transacciones));
+            datos.put("actualizados", filas);
+            outboxEventos.registrar(TipoEventoDominio.PAGO_ESTADO_CAMBIADO_MASIVO, null, datos);
+        }
+    }
+
+    private void registrarFallo(String id, RuntimeException e) {
+        eventoStripeRepository.findById(id).ifPresent(evento -> {
+            int intentos = evento.getIntentos() + 1;
+            evento.setIntentos(intentos);
+            evento.setUltimoError(recortar(e.getMessage()));
+            if (intentos >= maxIntentos) {
+                evento.setEstado(EstadoEventoStripe.FALLIDO);
+                log.error("STRIPE_WEBHOOK_DEAD_LETTER - eventId: {}, type: {}, paymentIntent: {}, orderId: {}, intentos: {}, error: {}",
+                        id, evento.getTipo(), evento.getPaymentIntentId(), evento.getOrdenId(), intentos, e.getMessage());
+            } else {
+                log.warn("Evento de Stripe {} ({}) falló en el intento {}: {}", id, evento.getTipo(), intentos, e.getMessage());
+            }
+        });
+    }
+
+    private void invalidarCache(Set<String> intents) {
+        if (intents != null) {
+            intents.forEach(paymentStatusCache::invalidate);
+        }
+    }
+
+    private String recortar(String mensaje) {
+        if (mensaje == null) {
+            return null;
+        }
+        return mensaje.length() > 500 ? mensaje.substring(0, 500) : mensaje;
+    }
+}
@@ -0,0 +1,136 @@
+package co.todotech.service.impl;
+
+import co.todotech.exception.pasarela.FirmaWebhookInvalidaException;
+import co.todotech.model.enums.EstadoEventoStripe;
+import co.todotech.service.StripeWebhookService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stripe.exception.SignatureVerificationException;
+import com.stripe.net.Webhook;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Entrada del webhook de Stripe: comprueba la firma (Stripe-Signature, HMAC-SHA256 con el
+ * secreto del endpoint), extrae lo necesario del evento y lo inserta en evento_stripe.
+ * No aplica nada: responder rápido evita los reenvíos de Stripe por timeout, y
+ * StripeWebhookProcessor aplica los eventos por lotes.
+ */
+@Slf4j
+@Service
+public class StripeWebhookServiceImpl implements StripeWebhookService {
+
+    // La clave es el id del evento: un reenvío no inserta nada
+    private static final String INSERT_SQL =
+            "INSERT INTO evento_stripe (id, tipo, payment_intent_id, orden_id, monto_recibido, moneda, payload, " +
+                    "estado, intentos, creado_en_stripe, fecha_recepcion) VALUES (?, ?, ?, ?, ?, ?, ?, ?, 0, ?, ?) " +
+                    "ON CONFLICT (id) DO NOTHING";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final StripeWebhookProcessor procesador;
+
+    @Value("${stripe.webhook.secret:}")
+    private String secreto;
+
+    // Antigüedad máxima de la firma: limita la reutilización de una petición capturada
+    @Value("${stripe.webhook.tolerancia-segundos:300}")
+    private long toleranciaSegundos;
+
+    public StripeWebhookServiceImpl(JdbcTemplate jdbcTemplate,
+                                    ObjectMapper objectMapper,
+                                    StripeWebhookProcessor procesador) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.procesador = procesador;
+    }
+
+    @Override
+    public boolean registrarEvento(String payload, String firma) {
+        verificarFirma(payload, firma);
+
+        JsonNode evento;
+        try {
+            evento = objectMapper.readTree(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("El evento de Stripe no es un JSON válido", e);
+        }
+
+        String id = texto(evento.path("id"));
+        String tipo = texto(evento.path("type"));
+        if (id == null || tipo == null) {
+            throw new IllegalArgumentException("El evento de Stripe no tiene id o type");
+        }
+
+        JsonNode objeto = evento.path("data").path("object");
+        String paymentIntentId = null;
+        Long ordenId = null;
+        Long montoRecibido = null;
+        String moneda = null;
+        if ("payment_intent".equals(objeto.path("object").asText())) {
+            paymentIntentId = texto(objeto.path("id"));
+            ordenId = ordenId(objeto.path("metadata").path("order_id"));
+            montoRecibido = objeto.path("amount_received").canConvertToLong()
+                    ? objeto.path("amount_received").asLong() : null;
+            moneda = texto(objeto.path("currency"));
+        }
+
+        LocalDateTime ahora = LocalDateTime.now();
+        LocalDateTime creado = evento.path("created").canConvertToLong()
+                ? LocalDateTime.ofInstant(Instant.ofEpochSecond(evento.path("created").asLong()), ZoneId.systemDefault())
+                : ahora;
+
+        int insertados = jdbcTemplate.update(INSERT_SQL, id, tipo, paymentIntentId, ordenId, montoRecibido, moneda, payload,
+                EstadoEventoStripe.PENDIENTE.name(), Timestamp.valueOf(creado), Timestamp.valueOf(ahora));
+
+        if (insertados == 0) {
+            log.debug("Evento de Stripe {} ({}) ya recibido, se ignora el reenvío", id, tipo);
+            return false;
+        }
+
+        log.info("STRIPE_WEBHOOK_RECEIVED - eventId: {}, type: {}, paymentIntent: {}, orderId: {}",
+                id, tipo, paymentIntentId, ordenId);
+        procesador.despertar();
+        return true;
+    }
+
+    private void verificarFirma(String payload, String firma) {
+        if (secreto == null || secreto.isBlank()) {
+            log.error("❌ stripe.webhook.secret no está configurado: se rechazan los eventos del webhook");
+            throw new FirmaWebhookInvalidaException("Webhook de Stripe no configurado");
+        }
+        if (firma == null || firma.isBlank()) {
+            throw new FirmaWebhookInvalidaException("Falta la cabecera Stripe-Signature");
+        }
+        try {
+            Webhook.Signature.verifyHeader(payload, firma, secreto, toleranciaSegundos);
+        } catch (SignatureVerificationException e) {
+            log.warn("Firma de webhook de Stripe rechazada: {}", e.getMessage());
+            throw new FirmaWebhookInvalidaException("Firma de Stripe inválida", e);
+        }
+    }
+
+    private static String texto(JsonNode nodo) {
+        return nodo.isTextual() && !nodo.asText().isBlank() ? nodo.asText() : null;
+    }
+
+    private static Long ordenId(JsonNode nodo) {
+        String valor = texto(nodo);
+        if (valor == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(valor.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
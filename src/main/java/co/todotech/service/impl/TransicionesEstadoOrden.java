@@ -0,0 +1,79 @@
+package co.todotech.service.impl;
+
+import co.todotech.model.enums.EstadoOrden;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tabla de transiciones de estado de una orden.
+ * Sustituye la cadena de ifs de validarTransicionEstado conservando sus reglas:
+ * CERRADA es final, no se salta el pago ni la entrega y no se retrocede tras pagar.
+ */
+final class TransicionesEstadoOrden {
+
+    private static final Map<EstadoOrden, Set<EstadoOrden>> PERMITIDAS = new EnumMap<>(EstadoOrden.class);
+
+    // Estado intermedio que falta cuando se intenta saltar uno
+    private static final Map<EstadoOrden, EstadoOrden> PASO_PREVIO = new EnumMap<>(EstadoOrden.class);
+
+    static {
+        PERMITIDAS.put(EstadoOrden.PENDIENTE, EnumSet.of(
+                EstadoOrden.PENDIENTE, EstadoOrden.AGREGANDOPRODUCTOS,
+                EstadoOrden.DISPONIBLEPARAPAGO, EstadoOrden.PAGADA));
+        // Las reservas de stock de una orden abierta solo se descuentan al pasar a PAGADA: si se
+        // pudiera saltar a ENTREGADA o CERRADA, las reservas caducarían y el stock nunca bajaría
+        PERMITIDAS.put(EstadoOrden.AGREGANDOPRODUCTOS, EnumSet.of(
+                EstadoOrden.PENDIENTE, EstadoOrden.AGREGANDOPRODUCTOS,
+                EstadoOrden.DISPONIBLEPARAPAGO, EstadoOrden.PAGADA));
+        PERMITIDAS.put(EstadoOrden.DISPONIBLEPARAPAGO, EnumSet.of(
+                EstadoOrden.PENDIENTE, EstadoOrden.AGREGANDOPRODUCTOS,
+                EstadoOrden.DISPONIBLEPARAPAGO, EstadoOrden.PAGADA));
+        PERMITIDAS.put(EstadoOrden.PAGADA, EnumSet.complementOf(EnumSet.of(
+                EstadoOrden.PENDIENTE, EstadoOrden.CERRADA)));
+        PERMITIDAS.put(EstadoOrden.ENTREGADA, EnumSet.complementOf(EnumSet.of(
+                EstadoOrden.PENDIENTE, EstadoOrden.PAGADA)));
+        PERMITIDAS.put(EstadoOrden.CERRADA, EnumSet.noneOf(EstadoOrden.class));
+
+        PASO_PREVIO.put(EstadoOrden.PENDIENTE, EstadoOrden.PAGADA);
+        PASO_PREVIO.put(EstadoOrden.AGREGANDOPRODUCTOS, EstadoOrden.PAGADA);
+        PASO_PREVIO.put(EstadoOrden.DISPONIBLEPARAPAGO, EstadoOrden.PAGADA);
+        PASO_PREVIO.put(EstadoOrden.PAGADA, EstadoOrden.ENTREGADA);
+    }
+
+    private TransicionesEstadoOrden() {
+    }
+
+    static boolean permite(EstadoOrden actual, EstadoOrden nuevo) {
+        return PERMITIDAS.get(actual).contains(nuevo);
+    }
+
+    static void validar(EstadoOrden actual, EstadoOrden nuevo) {
+        String motivo = motivoRechazo(actual, nuevo);
+        if (motivo != null) {
+            throw new RuntimeException(motivo);
+        }
+    }
+
+    /**
+     * Mensaje de error de la transición, o null si está permitida.
+     */
+    static String motivoRechazo(EstadoOrden actual, EstadoOrden nuevo) {
+        if (permite(actual, nuevo)) {
+            return null;
+        }
+
+        if (actual == EstadoOrden.CERRADA) {
+            return "No se puede modificar el estado de una orden CERRADA";
+        }
+
+        if (nuevo.ordinal() > actual.ordinal() && PASO_PREVIO.containsKey(actual)) {
+            return "No se puede saltar de " + actual + " a " + nuevo
+                    + ". Primero debe marcarse como " + PASO_PREVIO.get(actual);
+        }
+
+        return "No se puede retroceder el estado de la orden";
+    }
+}
@@ -5,10 +5,16 @@ import co.todotech.mapper.UsuarioMapper;
 import co.todotech.model.dto.usuario.LoginResponse;
 import co.todotech.model.dto.usuario.UsuarioDto;
 import co.todotech.model.entities.Usuario;
+import co.todotech.model.enums.AccionAuditoria;
+import co.todotech.model.enums.EntidadAuditada;
+import co.todotech.model.enums.MotivoCierreSesion;
 import co.todotech.model.enums.TipoUsuario;
 import co.todotech.repository.UsuarioRepository;
 import co.todotech.security.JwtUtil;
 import co.todotech.security.TokenBlacklistService;
+import co.todotech.security.UserTokenEpochCache;
+import co.todotech.service.SesionService;
+import co.todotech.service.AuditoriaService;
 import co.todotech.service.UsuarioService;
 import co.todotech.utils.EmailService;
 import lombok.RequiredArgsConstructor;
@@ -35,6 +41,9 @@ public class UsuarioServiceImpl implements UsuarioService {
     private final JwtUtil jwtUtil;
     private final PasswordEncoder passwordEncoder;
     private final TokenBlacklistService tokenBlacklistService;
+    private final AuditoriaService auditoriaService;
+    private final UserTokenEpochCache userTokenEpochCache;
+    private final SesionService sesionService;
 
     @Override
     public LoginResponse login(String nombreUsuario, String contrasena) {
@@ -50,6 +59,8 @@ public class UsuarioServiceImpl implements UsuarioService {
             throw new AuthenticationException("Contraseña incorrecta");
         }
 
+        rehashSiCambioElCoste(usuario, contrasena);
+
         if (!usuario.isEstado()) {
             throw new UsuarioEstadoException("Usuario inactivo. Contacte al administrador");
         }
@@ -57,8 +68,10 @@ public class UsuarioServiceImpl implements UsuarioService {
         String token = jwtUtil.generateToken(
                 usuario.getNombreUsuario(),
                 usuario.getId(),
-                usuario.getTipoUsuario().name()
+                usuario.getTipoUsuario().name(),
+                usuario.getTokenEpoch()
         );
+        sesionService.abrirSesion(token);
 
         if (usuario.getTipoUsuario().name().equals("ADMIN")) {
             log.info("Usuario es ADMIN - enviando notificación SOLO a: {}", usuario.getCorreo());
@@ -136,6 +149,23 @@ public class UsuarioServiceImpl implements UsuarioService {
         return usuarioMapper.toDto(usuario);
     }
 
+    // El coste de BCrypt configurado cambió: se aprovecha la contraseña en claro del login para rehacer el hash
+    private void rehashSiCambioElCoste(Usuario usuario, String contrasena) {
+        if (!passwordEncoder.upgradeEncoding(usuario.getContrasena())) {
+            return;
+        }
+        try {
+            String nuevoHash = passwordEncoder.encode(contrasena);
+            if (usuarioRepository.actualizarHashContrasena(usuario.getId(), usuario.getContrasena(), nuevoHash) > 0) {
+                usuario.setContrasena(nuevoHash);
+                log.info("Hash de contraseña actualizado al coste configurado para el usuario {}", usuario.getId());
+            }
+        } catch (Exception e) {
+            // No afecta al login: se reintenta en el siguiente
+            log.warn("No se pudo actualizar el hash de contraseña del usuario {}: {}", usuario.getId(), e.getMessage());
+        }
+    }
+
     private void notificarIngresoAdmin(Usuario admin) {
         try {
             String fechaHora = LocalDateTime.now()
@@ -161,8 +191,13 @@ public class UsuarioServiceImpl implements UsuarioService {
         Usuario usuario = usuarioRepository.findById(id)
                 .orElseThrow(() -> new UsuarioNotFoundException("Usuario no encontrado con ID: " + id));
 
+        if (usuario.isEstado() && !estado) {
+            invalidarTokens(usuario);
+        }
         usuario.setEstado(estado);
         usuarioRepository.save(usuario);
+        auditoriaService.registrar(EntidadAuditada.USUARIO, id, AccionAuditoria.CAMBIO_ESTADO,
+                estado ? "ACTIVO" : "INACTIVO");
 
         log.info("Estado del usuario {} cambiado a: {}", id, estado ? "ACTIVO" : "INACTIVO");
     }
@@ -197,6 +232,8 @@ public class UsuarioServiceImpl implements UsuarioService {
         usuario.setContrasena(contrasenaEncriptada);
 
         usuarioRepository.save(usuario);
+        auditoriaService.registrar(EntidadAuditada.USUARIO, usuario.getId(), AccionAuditoria.CREACION,
+                "nombreUsuario=" + usuario.getNombreUsuario() + ", tipo=" + usuario.getTipoUsuario());
         log.info("Usuario creado exitosamente: {}", usuario.getNombreUsuario());
     }
 
@@ -222,6 +259,9 @@ public class UsuarioServiceImpl implements UsuarioService {
             throw new UsuarioDuplicateException("Ya existe otro usuario con el nombre de usuario: " + dto.getNombreUsuario());
         }
 
+        boolean estabaActivo = usuario.isEstado();
+        TipoUsuario tipoAnterior = usuario.getTipoUsuario();
+
         // Actualizar campos EXCEPTO la contraseña
         usuarioMapper.updateUsuarioFromDto(dto, usuario);
         usuario.setEstado(dto.getEstado());
@@ -237,7 +277,19 @@ public class UsuarioServiceImpl implements UsuarioService {
             }
         }
 
+        // Desactivación, cambio de contraseña o de rol: los tokens ya emitidos dejan de valer
+        if ((estabaActivo && !usuario.isEstado())
+                || Boolean.TRUE.equals(dto.getCambiarContrasena())
+                || tipoAnterior != usuario.getTipoUsuario()) {
+            invalidarTokens(usuario);
+        }
+
         usuarioRepository.save(usuario);
+        // Nunca se registra la contraseña, solo si cambió
+        auditoriaService.registrar(EntidadAuditada.USUARIO, id, AccionAuditoria.ACTUALIZACION,
+                "nombreUsuario=" + usuario.getNombreUsuario() + ", tipo=" + usuario.getTipoUsuario()
+                        + ", estado=" + usuario.isEstado()
+                        + (Boolean.TRUE.equals(dto.getCambiarContrasena()) ? ", contrasena cambiada" : ""));
         log.info("Usuario actualizado exitosamente: {}", usuario.getNombreUsuario());
     }
 
@@ -248,6 +300,10 @@ public class UsuarioServiceImpl implements UsuarioService {
                 .orElseThrow(() -> new UsuarioNotFoundException("Usuario no encontrado con ID: " + id));
 
         usuarioRepository.delete(usuario);
+        userTokenEpochCache.invalidateAfterCommit(id);
+        sesionService.cerrarSesionesUsuario(id, MotivoCierreSesion.EXPULSADA);
+        auditoriaService.registrar(EntidadAuditada.USUARIO, id, AccionAuditoria.ELIMINACION,
+                "nombreUsuario=" + usuario.getNombreUsuario());
         log.info("Usuario eliminado físicamente: {}", id);
     }
 
@@ -377,4 +433,12 @@ public class UsuarioServiceImpl implements UsuarioService {
                 .map(usuarioMapper::toDtoSafe)
                 .collect(Collectors.toList());
     }
-}
\ No newline at end of file
+
+    // Sube la época de tokens del usuario; la caché del filtro se invalida al confirmar
+    private void invalidarTokens(Usuario usuario) {
+        usuario.setTokenEpoch(usuario.getTokenEpoch() + 1);
+        userTokenEpochCache.invalidateAfterCommit(usuario.getId());
+        sesionService.cerrarSesionesUsuario(usuario.getId(), MotivoCierreSesion.CREDENCIALES);
+        log.info("Tokens del usuario {} invalidados (época {})", usuario.getId(), usuario.getTokenEpoch());
+    }
+}
@@ -0,0 +1,83 @@
+package co.todotech.utils.impl;
+
+import co.todotech.model.entities.CorreoSaliente;
+import co.todotech.model.enums.EstadoCorreo;
+import co.todotech.model.enums.TipoCorreo;
+import co.todotech.repository.CorreoSalienteRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entrada de la cola persistente de correo (tabla correo_saliente).
+ * Encolar es un INSERT: quien envía un correo no espera al servidor SMTP.
+ * Tras el commit se despierta a un worker de CorreoWorkerPool para que no
+ * tenga que esperar a su siguiente sondeo.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ColaCorreos {
+
+    private final CorreoSalienteRepository correoSalienteRepository;
+
+    private final Semaphore avisos = new Semaphore(0);
+
+    /**
+     * Transacción propia: el recordatorio de contraseña se pide desde una transacción de solo
+     * lectura, y el correo debe quedar encolado aunque la operación que lo origina falle después.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public Long encolar(TipoCorreo tipo, String destinatario, String asunto, String cuerpoHtml) {
+        LocalDateTime ahora = LocalDateTime.now();
+        CorreoSaliente correo = correoSalienteRepository.save(CorreoSaliente.builder()
+                .tipo(tipo)
+                .destinatario(destinatario)
+                .asunto(asunto)
+                .cuerpoHtml(cuerpoHtml)
+                .estado(EstadoCorreo.PENDIENTE)
+                .intentos(0)
+                .siguienteIntento(ahora)
+                .fechaCreacion(ahora)
+                .build());
+
+        alConfirmar(avisos::release);
+        log.debug("Correo {} ({}) encolado para {}", correo.getId(), tipo, destinatario);
+        return correo.getId();
+    }
+
+    public long pendientes() {
+        return correoSalienteRepository.countByEstado(EstadoCorreo.PENDIENTE);
+    }
+
+    /**
+     * Bloquea hasta que se encole un correo o pase {@code esperaMs}. El worker que despierta
+     * reclama todo lo pendiente, así que los avisos acumulados se descartan.
+     */
+    void esperarTrabajo(long esperaMs) throws InterruptedException {
+        if (avisos.tryAcquire(esperaMs, TimeUnit.MILLISECONDS)) {
+            avisos.drainPermits();
+        }
+    }
+
+    private void alConfirmar(Runnable accion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accion.run();
+                }
+            });
+        } else {
+            accion.run();
+        }
+    }
+}
@@ -0,0 +1,334 @@
+package co.todotech.utils.impl;
+
+import co.todotech.model.entities.CorreoFallido;
+import co.todotech.model.entities.CorreoSaliente;
+import co.todotech.model.enums.EstadoCorreo;
+import co.todotech.repository.CorreoFallidoRepository;
+import co.todotech.repository.CorreoSalienteRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.AddressException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Workers que drenan correo_saliente y envían por SMTP.
+ * Cada worker mantiene abierta su propia conexión (Transport) y la reutiliza entre correos;
+ * se cierra tras {@code correo.conexion-inactiva-ms} sin uso y se reabre si el servidor la corta.
+ *
+ * Un envío fallido se reintenta primero en el momento con RetryTemplate (reconectando) y,
+ * si sigue fallando, se reprograma con espera exponencial. Agotados {@code correo.max-intentos},
+ * o si el destinatario es inválido, el correo pasa a correo_fallido.
+ * La entrega es al menos una vez: si el nodo cae tras enviar y antes de marcarlo, se reenvía.
+ */
+@Slf4j
+@Component
+public class CorreoWorkerPool {
+
+    private static final long ESPERA_BASE_SEGUNDOS = 30;
+    private static final long ESPERA_MAXIMA_SEGUNDOS = 3600;
+
+    private final CorreoSalienteRepository correoSalienteRepository;
+    private final CorreoFallidoRepository correoFallidoRepository;
+    private final ColaCorreos colaCorreos;
+    private final JavaMailSender mailSender;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.email.from}")
+    private String remitente;
+
+    @Value("${correo.workers:2}")
+    private int workers;
+
+    @Value("${correo.tamano-lote:20}")
+    private int tamanoLote;
+
+    @Value("${correo.intervalo-ms:5000}")
+    private long intervaloMs;
+
+    @Value("${correo.max-intentos:8}")
+    private int maxIntentos;
+
+    @Value("${correo.reintentos-inmediatos:3}")
+    private int reintentosInmediatos;
+
+    @Value("${correo.reintento-espera-ms:500}")
+    private long reintentoEsperaMs;
+
+    // Lo que un correo reclamado queda oculto a los demás workers mientras se envía
+    @Value("${correo.lease-segundos:300}")
+    private long leaseSegundos;
+
+    @Value("${correo.conexion-inactiva-ms:60000}")
+    private long conexionInactivaMs;
+
+    @Value("${correo.retencion-horas:72}")
+    private long retencionHoras;
+
+    private RetryTemplate retryTemplate;
+    private ExecutorService executor;
+    private volatile boolean activo;
+
+    public CorreoWorkerPool(CorreoSalienteRepository correoSalienteRepository,
+                            CorreoFallidoRepository correoFallidoRepository,
+                            ColaCorreos colaCorreos,
+                            JavaMailSender mailSender,
+                            PlatformTransactionManager transactionManager) {
+        this.correoSalienteRepository = correoSalienteRepository;
+        this.correoFallidoRepository = correoFallidoRepository;
+        this.colaCorreos = colaCorreos;
+        this.mailSender = mailSender;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    void configurar() {
+        // Un destinatario mal formado no se arregla reintentando
+        retryTemplate = RetryTemplate.builder()
+                .maxAttempts(Math.max(reintentosInmediatos, 1))
+                .exponentialBackoff(reintentoEsperaMs, 2.0, reintentoEsperaMs * 8)
+                .notRetryOn(AddressException.class)
+                .build();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        activo = true;
+        executor = Executors.newFixedThreadPool(workers,
+                Thread.ofPlatform().name("correo-worker-", 1).daemon(true).factory());
+        for (int i = 0; i < workers; i++) {
+            executor.submit(this::ejecutarWorker);
+        }
+        log.info("EMAIL_WORKERS_STARTED - workers: {}, pendientes: {}", workers, colaCorreos.pendientes());
+    }
+
+    @PreDestroy
+    public void detener() {
+        activo = false;
+        if (executor == null) {
+            return;
+        }
+        executor.shutdownNow();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("Los workers de correo no terminaron a tiempo; lo no marcado se reenviará al vencer el lease");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${correo.purga-ms:3600000}")
+    public void purgarEnviados() {
+        LocalDateTime limite = LocalDateTime.now().minusHours(retencionHoras);
+        Integer eliminados = transactionTemplate.execute(status ->
+                correoSalienteRepository.eliminarEnviadosAntesDe(EstadoCorreo.ENVIADO, limite));
+        if (eliminados != null && eliminados > 0) {
+            log.info("EMAIL_OUTBOX_PURGE - eliminados: {}", eliminados);
+        }
+    }
+
+    private void ejecutarWorker() {
+        ConexionSmtp conexion = new ConexionSmtp();
+        try {
+            while (activo) {
+                try {
+                    if (procesarLote(conexion) == 0) {
+                        conexion.cerrarSiInactiva();
+                        colaCorreos.esperarTrabajo(intervaloMs);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (Exception e) {
+                    // Normalmente la BD: se espera un ciclo y se vuelve a intentar
+                    log.error("❌ Error en el worker de correo: {}", e.getMessage(), e);
+                    try {
+                        Thread.sleep(intervaloMs);
+                    } catch (InterruptedException ie) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+        } finally {
+            conexion.cerrar();
+        }
+    }
+
+    /**
+     * Reclama un lote y lo envía con {@code enviador}; devuelve cuántos correos tomó.
+     * El envío ocurre fuera de transacción, para no retener una conexión de BD durante el SMTP.
+     */
+    int procesarLote(EnviadorCorreo enviador) {
+        List<CorreoSaliente> lote = reclamarLote();
+
+        for (CorreoSaliente correo : lote) {
+            try {
+                retryTemplate.<Void, Exception>execute(contexto -> {
+                    enviador.enviar(correo);
+                    return null;
+                });
+            } catch (Exception e) {
+                registrarFallo(correo, e);
+                continue;
+            }
+
+            transactionTemplate.executeWithoutResult(status ->
+                    correoSalienteRepository.marcarEnviado(correo.getId(), EstadoCorreo.ENVIADO, LocalDateTime.now()));
+            log.info("✅ Correo {} ({}) enviado a {}", correo.getId(), correo.getTipo(), correo.getDestinatario());
+        }
+
+        return lote.size();
+    }
+
+    // Cuenta el intento y aplaza el correo un lease antes de soltar el bloqueo de la fila
+    private List<CorreoSaliente> reclamarLote() {
+        List<CorreoSaliente> lote = transactionTemplate.execute(status -> {
+            LocalDateTime ahora = LocalDateTime.now();
+            List<CorreoSaliente> pendientes = correoSalienteRepository.bloquearPendientes(
+                    EstadoCorreo.PENDIENTE, ahora, PageRequest.of(0, tamanoLote));
+            for (CorreoSaliente correo : pendientes) {
+                correo.setIntentos(correo.getIntentos() + 1);
+                correo.setSiguienteIntento(ahora.plusSeconds(leaseSegundos));
+            }
+            return pendientes;
+        });
+        return lote != null ? lote : List.of();
+    }
+
+    private void registrarFallo(CorreoSaliente correo, Exception e) {
+        int intentos = correo.getIntentos();
+        String error = recortar(e.getMessage());
+        LocalDateTime ahora = LocalDateTime.now();
+
+        if (e instanceof AddressException || intentos >= maxIntentos) {
+            transactionTemplate.executeWithoutResult(status -> {
+                correoFallidoRepository.save(CorreoFallido.builder()
+                        .correoId(correo.getId())
+                        .tipo(correo.getTipo())
+                        .destinatario(correo.getDestinatario())
+                        .asunto(correo.getAsunto())
+                        .cuerpoHtml(correo.getCuerpoHtml())
+                        .intentos(intentos)
+                        .ultimoError(error)
+                        .fechaCreacion(correo.getFechaCreacion())
+                        .fechaFallo(ahora)
+                        .build());
+                correoSalienteRepository.deleteById(correo.getId());
+            });
+            log.error("EMAIL_DEAD_LETTER - id: {}, tipo: {}, destinatario: {}, intentos: {}, error: {}",
+                    correo.getId(), correo.getTipo(), correo.getDestinatario(), intentos, error);
+            return;
+        }
+
+        long espera = Math.min(ESPERA_BASE_SEGUNDOS << Math.min(intentos - 1, 16), ESPERA_MAXIMA_SEGUNDOS);
+        transactionTemplate.executeWithoutResult(status ->
+                correoSalienteRepository.reprogramar(correo.getId(), ahora.plusSeconds(espera), error));
+        log.warn("Correo {} ({}) falló en el intento {}, se reintenta en {}s: {}",
+                correo.getId(), correo.getTipo(), intentos, espera, error);
+    }
+
+    private MimeMessage construirMensaje(MimeMessage mensaje, CorreoSaliente correo) throws MessagingException {
+        MimeMessageHelper helper = new MimeMessageHelper(mensaje, true, "UTF-8");
+        helper.setFrom(remitente);
+        helper.setTo(correo.getDestinatario());
+        helper.setSubject(correo.getAsunto());
+        helper.setText(correo.getCuerpoHtml(), true);
+        mensaje.setSentDate(new Date());
+        mensaje.saveChanges();
+        return mensaje;
+    }
+
+    private String recortar(String mensaje) {
+        if (mensaje == null) {
+            return null;
+        }
+        return mensaje.length() > 500 ? mensaje.substring(0, 500) : mensaje;
+    }
+
+    @FunctionalInterface
+    interface EnviadorCorreo {
+        void enviar(CorreoSaliente correo) throws Exception;
+    }
+
+    // Conexión SMTP de un worker; solo la usa su hilo
+    private final class ConexionSmtp implements EnviadorCorreo {
+        private Transport transport;
+        private long ultimoUsoMs;
+
+        @Override
+        public void enviar(CorreoSaliente correo) throws Exception {
+            if (!(mailSender instanceof JavaMailSenderImpl smtp)) {
+                // Sin acceso a la sesión JavaMail: cada envío abre su propia conexión
+                mailSender.send(construirMensaje(mailSender.createMimeMessage(), correo));
+                return;
+            }
+
+            MimeMessage mensaje = construirMensaje(new MimeMessage(smtp.getSession()), correo);
+            try {
+                if (transport == null || !transport.isConnected()) {
+                    conectar(smtp);
+                }
+                transport.sendMessage(mensaje, mensaje.getAllRecipients());
+                ultimoUsoMs = System.currentTimeMillis();
+            } catch (MessagingException e) {
+                // La conexión puede haber quedado a medias: el siguiente intento reconecta
+                cerrar();
+                throw e;
+            }
+        }
+
+        private void conectar(JavaMailSenderImpl smtp) throws MessagingException {
+            cerrar();
+            String usuario = smtp.getUsername();
+            String contrasena = smtp.getPassword();
+            if (usuario != null && usuario.isEmpty()) {
+                usuario = null;
+                contrasena = null;
+            }
+            transport = smtp.getSession().getTransport(smtp.getProtocol());
+            transport.connect(smtp.getHost(), smtp.getPort(), usuario, contrasena);
+            log.debug("Conexión SMTP abierta en {}", Thread.currentThread().getName());
+        }
+
+        private void cerrarSiInactiva() {
+            if (transport != null && System.currentTimeMillis() - ultimoUsoMs > conexionInactivaMs) {
+                cerrar();
+            }
+        }
+
+        private void cerrar() {
+            if (transport == null) {
+                return;
+            }
+            try {
+                transport.close();
+            } catch (MessagingException e) {
+                log.debug("Error al cerrar la conexión SMTP: {}", e.getMessage());
+            }
+            transport = null;
+        }
+    }
+}
@@ -1,26 +1,29 @@
 package co.todotech.utils.impl;
 
+import co.todotech.model.enums.TipoCorreo;
 import co.todotech.utils.EmailService;
-import jakarta.mail.internet.MimeMessage;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 
 
+import java.util.Map;
+import java.util.Objects;
 import java.util.regex.Pattern;
 
+/**
+ * Valida y renderiza los correos (PlantillasCorreo) y los deja en la cola persistente (ColaCorreos);
+ * el envío SMTP lo hace CorreoWorkerPool en segundo plano. Una excepción aquí
+ * significa que el correo no se pudo encolar, no que el servidor lo rechazara.
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class EmailServiceImpl implements EmailService {
 
-    private final JavaMailSender mailSender;
-
-    @Value("${app.email.from}")
-    private String fromEmail;
+    private final ColaCorreos colaCorreos;
+    private final PlantillasCorreo plantillas;
 
     @Value("${app.email.admin-subject}")
     private String adminSubject;
@@ -39,26 +42,15 @@ public class EmailServiceImpl implements EmailService {
         validateSingleEmail(email);
 
         try {
-            log.info("=== ENVIANDO NOTIFICACIÓN ADMIN A: {} ===", email);
-
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-
-            // Configuración simple y directa
-            helper.setFrom(fromEmail);
-            helper.setTo(email.trim()); // SOLO un destinatario
-            helper.setSubject(adminSubject);
-
-            String htmlContent = buildAdminLoginNotificationHtml(nombre, fechaHora);
-            helper.setText(htmlContent, true);
-
-            // Enviar mensaje
-            mailSender.send(message);
+            String htmlContent = plantillas.renderizar(PlantillasCorreo.INGRESO_ADMIN, Map.of(
+                    "nombre", Objects.toString(nombre, ""),
+                    "fechaHora", Objects.toString(fechaHora, "")));
+            Long id = colaCorreos.encolar(TipoCorreo.NOTIFICACION_INGRESO_ADMIN, email.trim(), adminSubject, htmlContent);
 
-            log.info("✅ Notificación admin enviada EXITOSAMENTE a: {}", email);
+            log.info("📨 Notificación admin encolada (id: {}) para: {}", id, email);
 
         } catch (Exception e) {
-            log.error("❌ ERROR al enviar notificación admin a {}: {}", email, e.getMessage(), e);
+            log.error("❌ ERROR al encolar notificación admin para {}: {}", email, e.getMessage(), e);
             throw new Exception("Error al enviar notificación por correo: " + e.getMessage());
         }
     }
@@ -69,58 +61,24 @@ public class EmailServiceImpl implements EmailService {
         validateSingleEmail(email);
 
         try {
-            log.info("=== INICIANDO ENVÍO DE RECORDATORIO ===");
-            log.info("📧 Destinatario: {}", email);
-            log.info("👤 Nombre: {}", nombre);
-            log.info("👤 Nombre de usuario: {}", nombreUsuario);
-            log.info("🔒 Contraseña: [PROTEGIDA]"); // No loggear contraseñas reales por seguridad
-
-            long startTime = System.currentTimeMillis();
-
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-
-            // Configuración simple y directa
-            helper.setFrom(fromEmail);
-            log.debug("📨 Remitente configurado: {}", fromEmail);
-
-            helper.setTo(email.trim()); // SOLO un destinatario
-            log.debug("✅ Destinatario configurado: {}", email.trim());
+            log.info("📧 Encolando recordatorio para: {} (usuario: {})", email, nombreUsuario);
 
-            helper.setSubject(passwordReminderSubject);
-            log.debug("📝 Asunto configurado: {}", passwordReminderSubject);
-
-            String htmlContent = buildPasswordReminderHtml(nombre, nombreUsuario, contrasena);
+            String htmlContent = plantillas.renderizar(PlantillasCorreo.RECORDATORIO_CONTRASENA, Map.of(
+                    "nombre", Objects.toString(nombre, ""),
+                    "nombreUsuario", Objects.toString(nombreUsuario, ""),
+                    "contrasena", Objects.toString(contrasena, "")));
             log.debug("📄 Contenido HTML generado (tamaño aprox.): {} caracteres", htmlContent.length());
 
-            helper.setText(htmlContent, true);
-            log.debug("✅ Contenido del email configurado");
-
-            // Enviar mensaje
-            log.info("🚀 Enviando email...");
-            mailSender.send(message);
+            Long id = colaCorreos.encolar(TipoCorreo.RECORDATORIO_CONTRASENA, email.trim(), passwordReminderSubject, htmlContent);
 
-            long endTime = System.currentTimeMillis();
-            long duration = endTime - startTime;
-
-            log.info("✅ Recordatorio enviado EXITOSAMENTE a: {}", email);
-            log.info("⏰ Tiempo de ejecución: {} ms", duration);
-            log.info("=== ENVÍO COMPLETADO ===\n");
+            log.info("✅ Recordatorio encolado (id: {}) para: {}", id, email);
 
         } catch (Exception e) {
-            log.error("❌ ERROR CRÍTICO al enviar recordatorio");
-            log.error("📧 Destinatario fallido: {}", email);
-            log.error("🔍 Mensaje de error: {}", e.getMessage());
-            log.error("📋 Stack trace completo:", e);
-            log.error("=== ENVÍO FALLIDO ===");
-
+            log.error("❌ ERROR al encolar recordatorio para {}: {}", email, e.getMessage(), e);
             throw new Exception("Error al enviar recordatorio por correo: " + e.getMessage());
         }
     }
 
-    /**
-     * Valida que el email sea único y válido
-     */
     private void validateSingleEmail(String email) throws Exception {
         if (email == null || email.trim().isEmpty()) {
             throw new Exception("El email no puede estar vacío");
@@ -140,89 +98,4 @@ public class EmailServiceImpl implements EmailService {
 
         log.info("✅ Email validado: {}", cleanEmail);
     }
-
-    private String buildAdminLoginNotificationHtml(String nombre, String fechaHora) {
-        return "<!DOCTYPE html>" +
-                "<html>" +
-                "<head>" +
-                "    <meta charset='UTF-8'>" +
-                "    <style>" +
-                "        body { font-family: Arial, sans-serif; line-height: 1.6; color: #333; }" +
-                "        .container { max-width: 600px; margin: 0 auto; padding: 20px; }" +
-                "        .header { background-color: #007bff; color: white; text-align: center; padding: 20px; border-radius: 5px 5px 0 0; }" +
-                "        .content { background-color: #f8f9fa; padding: 20px; border: 1px solid #dee2e6; }" +
-                "        .footer { background-color: #6c757d; color: white; text-align: center; padding: 10px; border-radius: 0 0 5px 5px; }" +
-                "        .info-box { background-color: white; padding: 15px; margin: 10px 0; border-left: 4px solid #007bff; }" +
-                "    </style>" +
-                "</head>" +
-                "<body>" +
-                "    <div class='container'>" +
-                "        <div class='header'>" +
-                "            <h2>🔐 Notificación de Ingreso al Sistema</h2>" +
-                "        </div>" +
-                "        <div class='content'>" +
-                "            <h3>¡Hola " + nombre + "!</h3>" +
-                "            <p>Se ha detectado un nuevo ingreso a tu cuenta de administrador en el sistema TodoTech.</p>" +
-                "            <div class='info-box'>" +
-                "                <p><strong>📅 Fecha y hora de ingreso:</strong> " + fechaHora + "</p>" +
-                "                <p><strong>👤 Usuario:</strong> " + nombre + "</p>" +
-                "            </div>" +
-                "            <p>Si fuiste tú quien ingresó, puedes ignorar este mensaje. Si no reconoces este acceso, por favor contacta al soporte técnico inmediatamente.</p>" +
-                "            <p><strong>Por tu seguridad, revisa regularmente los accesos a tu cuenta.</strong></p>" +
-                "        </div>" +
-                "        <div class='footer'>" +
-                "            <p>© 2024 TodoTech - Sistema de Gestión</p>" +
-                "        </div>" +
-                "    </div>" +
-                "</body>" +
-                "</html>";
-    }
-
-    private String buildPasswordReminderHtml(String nombre, String nombreUsuario, String contrasena) {
-        return "<!DOCTYPE html>" +
-                "<html>" +
-                "<head>" +
-                "    <meta charset='UTF-8'>" +
-                "    <style>" +
-                "        body { font-family: Arial, sans-serif; line-height: 1.6; color: #333; }" +
-                "        .container { max-width: 600px; margin: 0 auto; padding: 20px; }" +
-                "        .header { background-color: #28a745; color: white; text-align: center; padding: 20px; border-radius: 5px 5px 0 0; }" +
-                "        .content { background-color: #f8f9fa; padding: 20px; border: 1px solid #dee2e6; }" +
-                "        .footer { background-color: #6c757d; color: white; text-align: center; padding: 10px; border-radius: 0 0 5px 5px; }" +
-                "        .credentials-box { background-color: white; padding: 15px; margin: 15px 0; border-left: 4px solid #28a745; border-radius: 4px; }" +
-                "        .warning { background-color: #fff3cd; border: 1px solid #ffeeba; color: #856404; padding: 10px; border-radius: 4px; margin: 15px 0; }" +
-                "        .password { font-family: 'Courier New', monospace; font-weight: bold; color: #dc3545; font-size: 16px; }" +
-                "    </style>" +
-                "</head>" +
-                "<body>" +
-                "    <div class='container'>" +
-                "        <div class='header'>" +
-                "            <h2>🔑 Recordatorio de Contraseña</h2>" +
-                "        </div>" +
-                "        <div class='content'>" +
-                "            <h3>¡Hola " + nombre + "!</h3>" +
-                "            <p>Has solicitado un recordatorio de tus credenciales de acceso al sistema TodoTech.</p>" +
-                "            <div class='credentials-box'>" +
-                "                <h4>📝 Tus credenciales son:</h4>" +
-                "                <p><strong>👤 Usuario:</strong> " + nombreUsuario + "</p>" +
-                "                <p><strong>🔐 Contraseña:</strong> <span class='password'>" + contrasena + "</span></p>" +
-                "            </div>" +
-                "            <div class='warning'>" +
-                "                <p><strong>⚠️ Importante:</strong></p>" +
-                "                <ul>" +
-                "                    <li>Guarda esta información en un lugar seguro</li>" +
-                "                    <li>No compartas tus credenciales con nadie</li>" +
-                "                    <li>Considera cambiar tu contraseña después de iniciar sesión</li>" +
-                "                    <li>Si no solicitaste este recordatorio, contacta al administrador</li>" +
-                "                </ul>" +
-                "            </div>" +
-                "            <p>Puedes iniciar sesión en el sistema usando las credenciales proporcionadas arriba.</p>" +
-                "        </div>" +
-                "        <div class='footer'>" +
-                "            <p>© 2024 TodoTech - Sistema de Gestión</p>" +
-                "        </div>" +
-                "    </div>" +
-                "</body>" +
-                "</html>";
-    }
-}
\ No newline at end of file
+}
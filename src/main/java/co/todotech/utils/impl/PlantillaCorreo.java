@@ -0,0 +1,160 @@
+package co.todotech.utils.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Plantilla HTML compilada: el texto fijo se guarda ya codificado en UTF-8 y entre cada
+ * dos segmentos va una variable {@code {{nombre}}}. Renderizar solo copia segmentos y
+ * escribe los valores escapados en un búfer por hilo que se reutiliza entre envíos.
+ * Una variable sin valor (o null) se renderiza vacía.
+ */
+public final class PlantillaCorreo {
+
+    private static final Pattern NOMBRE_VARIABLE = Pattern.compile("[A-Za-z0-9_.]+");
+    private static final String APERTURA = "{{";
+    private static final String CIERRE = "}}";
+
+    private static final byte[] AMP = "&amp;".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] LT = "&lt;".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] GT = "&gt;".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] COMILLA = "&quot;".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] APOSTROFO = "&#39;".getBytes(StandardCharsets.US_ASCII);
+
+    // Un búfer que creció por un documento excepcional no se retiene
+    private static final int TAMANO_INICIAL = 8 * 1024;
+    private static final int TAMANO_MAXIMO_RETENIDO = 256 * 1024;
+    private static final ThreadLocal<Buffer> BUFFER = ThreadLocal.withInitial(() -> new Buffer(TAMANO_INICIAL));
+
+    private final String nombre;
+    // segmentos.length == variables.length + 1
+    private final byte[][] segmentos;
+    private final String[] variables;
+    private final int tamanoFijo;
+
+    private PlantillaCorreo(String nombre, byte[][] segmentos, String[] variables) {
+        this.nombre = nombre;
+        this.segmentos = segmentos;
+        this.variables = variables;
+        this.tamanoFijo = Arrays.stream(segmentos).mapToInt(s -> s.length).sum();
+    }
+
+    public static PlantillaCorreo compilar(String nombre, String fuente) {
+        List<byte[]> segmentos = new ArrayList<>();
+        List<String> variables = new ArrayList<>();
+
+        int desde = 0;
+        int apertura;
+        while ((apertura = fuente.indexOf(APERTURA, desde)) >= 0) {
+            int cierre = fuente.indexOf(CIERRE, apertura + APERTURA.length());
+            if (cierre < 0) {
+                throw new IllegalArgumentException("Plantilla " + nombre + ": '{{' sin cerrar en la posición " + apertura);
+            }
+            String variable = fuente.substring(apertura + APERTURA.length(), cierre).trim();
+            if (!NOMBRE_VARIABLE.matcher(variable).matches()) {
+                throw new IllegalArgumentException("Plantilla " + nombre + ": variable inválida '" + variable + "'");
+            }
+
+            segmentos.add(fuente.substring(desde, apertura).getBytes(StandardCharsets.UTF_8));
+            variables.add(variable);
+            desde = cierre + CIERRE.length();
+        }
+        segmentos.add(fuente.substring(desde).getBytes(StandardCharsets.UTF_8));
+
+        return new PlantillaCorreo(nombre, segmentos.toArray(new byte[0][]), variables.toArray(new String[0]));
+    }
+
+    public String renderizar(Map<String, ?> valores) {
+        Buffer buffer = BUFFER.get();
+        buffer.reiniciar(tamanoFijo);
+        try {
+            for (int i = 0; i < variables.length; i++) {
+                buffer.escribir(segmentos[i]);
+                Object valor = valores.get(variables[i]);
+                if (valor != null) {
+                    escribirEscapado(buffer, valor.toString().getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            buffer.escribir(segmentos[variables.length]);
+            return buffer.comoTexto();
+        } finally {
+            if (buffer.capacidad() > TAMANO_MAXIMO_RETENIDO) {
+                BUFFER.remove();
+            }
+        }
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public Set<String> variables() {
+        return Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(variables)));
+    }
+
+    // Los caracteres a escapar son ASCII y en UTF-8 ningún byte de un carácter multibyte lo es
+    private static void escribirEscapado(Buffer buffer, byte[] valor) {
+        int inicio = 0;
+        for (int i = 0; i < valor.length; i++) {
+            byte[] entidad = switch (valor[i]) {
+                case '&' -> AMP;
+                case '<' -> LT;
+                case '>' -> GT;
+                case '"' -> COMILLA;
+                case '\'' -> APOSTROFO;
+                default -> null;
+            };
+            if (entidad != null) {
+                buffer.escribir(valor, inicio, i - inicio);
+                buffer.escribir(entidad);
+                inicio = i + 1;
+            }
+        }
+        buffer.escribir(valor, inicio, valor.length - inicio);
+    }
+
+    private static final class Buffer {
+        private byte[] datos;
+        private int tamano;
+
+        private Buffer(int capacidad) {
+            this.datos = new byte[capacidad];
+        }
+
+        private void reiniciar(int capacidadMinima) {
+            tamano = 0;
+            asegurar(capacidadMinima);
+        }
+
+        private void escribir(byte[] bytes) {
+            escribir(bytes, 0, bytes.length);
+        }
+
+        private void escribir(byte[] bytes, int desde, int longitud) {
+            asegurar(tamano + longitud);
+            System.arraycopy(bytes, desde, datos, tamano, longitud);
+            tamano += longitud;
+        }
+
+        private void asegurar(int capacidad) {
+            if (capacidad > datos.length) {
+                datos = Arrays.copyOf(datos, Math.max(capacidad, datos.length * 2));
+            }
+        }
+
+        private int capacidad() {
+            return datos.length;
+        }
+
+        private String comoTexto() {
+            return new String(datos, 0, tamano, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package co.todotech.utils.impl;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registro de plantillas de correo. Al arrancar compila todos los .html de
+ * {@code correo.plantillas.ubicacion}; el nombre de la plantilla es el del archivo sin
+ * extensión (ingreso-admin.html → "ingreso-admin"). Para una plantilla nueva (recibos,
+ * alertas de stock...) basta con añadir el archivo.
+ */
+@Slf4j
+@Component
+public class PlantillasCorreo {
+
+    public static final String INGRESO_ADMIN = "ingreso-admin";
+    public static final String RECORDATORIO_CONTRASENA = "recordatorio-contrasena";
+
+    private final Map<String, PlantillaCorreo> plantillas = new ConcurrentHashMap<>();
+
+    @Value("${correo.plantillas.ubicacion:classpath*:correo/plantillas/}")
+    private String ubicacion = "classpath*:correo/plantillas/";
+
+    @PostConstruct
+    public void cargar() throws IOException {
+        Resource[] recursos = new PathMatchingResourcePatternResolver().getResources(ubicacion + "*.html");
+        for (Resource recurso : recursos) {
+            String archivo = recurso.getFilename();
+            if (archivo == null) {
+                continue;
+            }
+            try (InputStream in = recurso.getInputStream()) {
+                registrar(archivo.substring(0, archivo.length() - ".html".length()),
+                        new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+
+        for (String requerida : new String[]{INGRESO_ADMIN, RECORDATORIO_CONTRASENA}) {
+            if (!plantillas.containsKey(requerida)) {
+                throw new IllegalStateException("Falta la plantilla de correo: " + requerida);
+            }
+        }
+        log.info("EMAIL_TEMPLATES_LOADED - plantillas: {}", plantillas.keySet());
+    }
+
+    /**
+     * Compila y registra (o reemplaza) una plantilla.
+     */
+    public PlantillaCorreo registrar(String nombre, String fuente) {
+        PlantillaCorreo plantilla = PlantillaCorreo.compilar(nombre, fuente);
+        plantillas.put(nombre, plantilla);
+        log.debug("Plantilla de correo {} compilada con variables {}", nombre, plantilla.variables());
+        return plantilla;
+    }
+
+    public String renderizar(String nombre, Map<String, ?> valores) {
+        return obtener(nombre).renderizar(valores);
+    }
+
+    public PlantillaCorreo obtener(String nombre) {
+        PlantillaCorreo plantilla = plantillas.get(nombre);
+        if (plantilla == null) {
+            throw new IllegalArgumentException("Plantilla de correo no encontrada: " + nombre);
+        }
+        return plantilla;
+    }
+
+    public Set<String> nombres() {
+        return Set.copyOf(plantillas.keySet());
+    }
+}
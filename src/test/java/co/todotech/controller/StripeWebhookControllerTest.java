@@ -0,0 +1,114 @@
+package co.todotech.controller;
+
+import co.todotech.configuration.SecurityConfig;
+import co.todotech.security.TokenBlacklistService;
+import co.todotech.security.UserTokenEpochCache;
+import co.todotech.security.VerifiedTokenCache;
+import co.todotech.service.impl.RegistroSesiones;
+import co.todotech.service.impl.StripeWebhookProcessor;
+import co.todotech.service.impl.StripeWebhookServiceImpl;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * El webhook pasa por la cadena de seguridad real (SecurityConfig + JwtAuthenticationFilter):
+ * Stripe no envía token, solo la firma.
+ */
+@WebMvcTest(StripeWebhookController.class)
+@Import({SecurityConfig.class, StripeWebhookServiceImpl.class})
+@TestPropertySource(properties = "stripe.webhook.secret=" + StripeWebhookControllerTest.SECRETO)
+class StripeWebhookControllerTest {
+
+    static final String SECRETO = "whsec_test_secreto";
+    private static final String PAYLOAD = "{\"id\":\"evt_1\",\"type\":\"payment_intent.succeeded\",\"created\":1760000000," +
+            "\"data\":{\"object\":{\"id\":\"pi_1\",\"object\":\"payment_intent\",\"amount_received\":15000," +
+            "\"currency\":\"cop\",\"metadata\":{\"order_id\":\"42\"}}}}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private StripeWebhookProcessor procesador;
+
+    @MockitoBean
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @MockitoBean
+    private TokenBlacklistService tokenBlacklistService;
+
+    @MockitoBean
+    private UserTokenEpochCache userTokenEpochCache;
+
+    @MockitoBean
+    private RegistroSesiones registroSesiones;
+
+    private static String firmar(String payload, String secreto) throws Exception {
+        long timestamp = System.currentTimeMillis() / 1000;
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(secreto.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        byte[] firma = mac.doFinal((timestamp + "." + payload).getBytes(StandardCharsets.UTF_8));
+        return "t=" + timestamp + ",v1=" + HexFormat.of().formatHex(firma);
+    }
+
+    @Test
+    @DisplayName("Debería aceptar un evento firmado sin cabecera Authorization")
+    void testEventoFirmadoSinToken() throws Exception {
+        // Arrange
+        when(jdbcTemplate.update(anyString(), any(Object[].class))).thenReturn(1);
+
+        // Act & Assert
+        mockMvc.perform(post("/stripe/webhook")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("Stripe-Signature", firmar(PAYLOAD, SECRETO))
+                        .content(PAYLOAD))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.error").value(false));
+        verify(procesador).despertar();
+        verifyNoInteractions(verifiedTokenCache);
+    }
+
+    @Test
+    @DisplayName("Debería rechazar con 400 un evento con firma inválida")
+    void testEventoConFirmaInvalida() throws Exception {
+        // Act & Assert
+        mockMvc.perform(post("/stripe/webhook")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("Stripe-Signature", firmar(PAYLOAD, "whsec_otro"))
+                        .content(PAYLOAD))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value(true));
+        verifyNoInteractions(jdbcTemplate, procesador);
+    }
+
+    @Test
+    @DisplayName("Debería seguir exigiendo token fuera de /stripe/")
+    void testRutaProtegidaSinToken() throws Exception {
+        // Act & Assert
+        mockMvc.perform(post("/api/payment-gateway/create-payment-intent")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(status().isUnauthorized());
+    }
+}
@@ -0,0 +1,45 @@
+package co.todotech.security;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JtiBloomFilterTest {
+
+    @Test
+    @DisplayName("No debería dar nunca un falso negativo")
+    void testSinFalsosNegativos() {
+        // Arrange
+        JtiBloomFilter filtro = new JtiBloomFilter(1000, 0.01);
+        for (int i = 0; i < 1000; i++) {
+            filtro.put("jti-" + i);
+        }
+
+        // Act & Assert
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(filtro.mightContain("jti-" + i));
+        }
+    }
+
+    @Test
+    @DisplayName("Debería mantener la tasa de falsos positivos cerca de la configurada")
+    void testTasaDeFalsosPositivos() {
+        // Arrange
+        JtiBloomFilter filtro = new JtiBloomFilter(1000, 0.01);
+        for (int i = 0; i < 1000; i++) {
+            filtro.put("jti-" + i);
+        }
+
+        // Act
+        int falsosPositivos = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (filtro.mightContain("otro-" + i)) {
+                falsosPositivos++;
+            }
+        }
+
+        // Assert: 1 % configurado, con margen para la varianza
+        assertTrue(falsosPositivos < 300, "Falsos positivos: " + falsosPositivos);
+    }
+}
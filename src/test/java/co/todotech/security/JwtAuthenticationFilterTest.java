@@ -0,0 +1,134 @@
+package co.todotech.security;
+
+import co.todotech.repository.UsuarioRepository;
+import co.todotech.service.impl.RegistroSesiones;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JwtAuthenticationFilterTest {
+
+    @Mock
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @Mock
+    private TokenBlacklistService tokenBlacklistService;
+
+    @Mock
+    private UsuarioRepository usuarioRepository;
+
+    @Mock
+    private RegistroSesiones registroSesiones;
+
+    @Mock
+    private FilterChain filterChain;
+
+    private JwtAuthenticationFilter filtro;
+
+    @BeforeEach
+    void setUp() {
+        UserTokenEpochCache userTokenEpochCache = new UserTokenEpochCache(usuarioRepository);
+        ReflectionTestUtils.setField(userTokenEpochCache, "ttlMs", 30000L);
+        filtro = new JwtAuthenticationFilter(verifiedTokenCache, tokenBlacklistService, userTokenEpochCache, registroSesiones);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private MockHttpServletRequest peticionConToken() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/ordenes");
+        request.addHeader("Authorization", "Bearer token-1");
+        return request;
+    }
+
+    private void tokenConEpoca(long epoca) {
+        JwtPrincipal principal = new JwtPrincipal("admin", 1L, "ADMIN", "jti-1", Instant.now().plusSeconds(600), epoca);
+        when(verifiedTokenCache.verify("token-1")).thenReturn(Optional.of(principal));
+    }
+
+    @Test
+    @DisplayName("Debería autenticar un token emitido con la época vigente del usuario")
+    void testEpocaVigente() throws Exception {
+        // Arrange
+        tokenConEpoca(2L);
+        when(usuarioRepository.findTokenEpochById(1L)).thenReturn(Optional.of(2L));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Act
+        filtro.doFilter(peticionConToken(), response, filterChain);
+
+        // Assert
+        assertEquals(200, response.getStatus());
+        verify(filterChain).doFilter(any(), any());
+        assertNotNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    @Test
+    @DisplayName("Debería responder 401 a un token con época anterior a la vigente")
+    void testEpocaObsoleta() throws Exception {
+        // Arrange: la contraseña se cambió después de emitir el token
+        tokenConEpoca(1L);
+        when(usuarioRepository.findTokenEpochById(1L)).thenReturn(Optional.of(2L));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Act
+        filtro.doFilter(peticionConToken(), response, filterChain);
+
+        // Assert
+        assertEquals(401, response.getStatus());
+        assertTrue(response.getContentAsString().contains("Credenciales o estado del usuario modificados"));
+        verify(filterChain, never()).doFilter(any(), any());
+        verify(registroSesiones, never()).registrarActividad(anyString());
+    }
+
+    @Test
+    @DisplayName("Debería aceptar como época 0 un token sin el claim mientras el usuario siga en época 0")
+    void testTokenSinClaimDeEpoca() throws Exception {
+        // Arrange: JwtUtil.verifyToken traduce el claim ausente a época 0
+        tokenConEpoca(0L);
+        when(usuarioRepository.findTokenEpochById(1L)).thenReturn(Optional.of(0L));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Act
+        filtro.doFilter(peticionConToken(), response, filterChain);
+
+        // Assert
+        assertEquals(200, response.getStatus());
+        verify(filterChain).doFilter(any(), any());
+    }
+
+    @Test
+    @DisplayName("Debería responder 401 si el usuario del token ya no existe")
+    void testUsuarioEliminado() throws Exception {
+        // Arrange: sin fila, la época vigente es USER_MISSING y ninguna época la iguala
+        tokenConEpoca(0L);
+        when(usuarioRepository.findTokenEpochById(1L)).thenReturn(Optional.empty());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Act
+        filtro.doFilter(peticionConToken(), response, filterChain);
+
+        // Assert
+        assertEquals(401, response.getStatus());
+        verify(filterChain, never()).doFilter(any(), any());
+    }
+}
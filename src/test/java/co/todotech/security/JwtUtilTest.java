@@ -0,0 +1,66 @@
+package co.todotech.security;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtUtilTest {
+
+    private static final String SECRETO = "secreto_de_prueba_con_mas_de_32_caracteres";
+    private static final String EMISOR = "todotech-app";
+
+    private JwtUtil jwtUtil;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = new JwtUtil(new MockEnvironment());
+        ReflectionTestUtils.setField(jwtUtil, "jwtSecret", SECRETO);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 3600000L);
+        ReflectionTestUtils.setField(jwtUtil, "issuer", EMISOR);
+        jwtUtil.init();
+    }
+
+    @Test
+    @DisplayName("Debería conservar la época con la que se emitió el token")
+    void testVerificarConEpoca() {
+        // Arrange
+        String token = jwtUtil.generateToken("admin", 1L, "ADMIN", 3L);
+
+        // Act
+        Optional<JwtPrincipal> principal = jwtUtil.verifyToken(token);
+
+        // Assert
+        assertTrue(principal.isPresent());
+        assertEquals(3L, principal.get().tokenEpoch());
+    }
+
+    @Test
+    @DisplayName("Debería tratar como época 0 un token emitido antes de existir el claim")
+    void testVerificarSinClaimDeEpoca() {
+        // Arrange: mismo formato que generateToken, sin tokenEpoch
+        String token = JWT.create()
+                .withIssuer(EMISOR)
+                .withSubject("admin")
+                .withClaim("userId", 1L)
+                .withClaim("role", "ADMIN")
+                .withExpiresAt(new Date(System.currentTimeMillis() + 600000))
+                .withJWTId("jti-legado")
+                .sign(Algorithm.HMAC256(SECRETO));
+
+        // Act
+        Optional<JwtPrincipal> principal = jwtUtil.verifyToken(token);
+
+        // Assert
+        assertTrue(principal.isPresent());
+        assertEquals(0L, principal.get().tokenEpoch());
+    }
+}
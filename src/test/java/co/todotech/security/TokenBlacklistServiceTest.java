@@ -0,0 +1,259 @@
+package co.todotech.security;
+
+import co.todotech.model.entities.TokenRevocado;
+import co.todotech.repository.TokenRevocadoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TokenBlacklistServiceTest {
+
+    @Mock
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @Mock
+    private TokenRevocadoRepository tokenRevocadoRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private TokenBlacklistService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new TokenBlacklistService(verifiedTokenCache, tokenRevocadoRepository, jdbcTemplate);
+        ReflectionTestUtils.setField(service, "bucketSeconds", 60L);
+        ReflectionTestUtils.setField(service, "bloomExpectedEntries", 100);
+        ReflectionTestUtils.setField(service, "pollMarginSeconds", 30L);
+    }
+
+    private TokenRevocado fila(long id, String jti, long expSeconds) {
+        return TokenRevocado.builder()
+                .id(id)
+                .jti(jti)
+                .usuarioId(7L)
+                .expiraEn(LocalDateTime.ofInstant(Instant.ofEpochSecond(expSeconds), ZoneId.systemDefault()))
+                .fechaRevocacion(LocalDateTime.now())
+                .build();
+    }
+
+    @Test
+    @DisplayName("Debería persistir la revocación con un INSERT que ignora el jti duplicado")
+    void testRevocarPersisteSinDuplicar() {
+        // Arrange
+        Instant exp = Instant.now().plusSeconds(600);
+        when(jdbcTemplate.update(anyString(), any(Object[].class))).thenReturn(1);
+
+        // Act
+        service.revoke("jti-1", 7L, exp);
+
+        // Assert
+        verify(jdbcTemplate).update(contains("ON CONFLICT (jti) DO NOTHING"), any(Object[].class));
+        verify(tokenRevocadoRepository, never()).save(any());
+        assertTrue(service.isRevoked("jti-1"));
+    }
+
+    @Test
+    @DisplayName("Debería aceptar un jti ya revocado por otro nodo sin lanzar excepción")
+    void testRevocarJtiYaRevocadoEnOtroNodo() {
+        // Arrange: el INSERT no afecta filas porque la fila ya existe
+        Instant exp = Instant.now().plusSeconds(600);
+        when(jdbcTemplate.update(anyString(), any(Object[].class))).thenReturn(0);
+
+        // Act & Assert
+        assertDoesNotThrow(() -> service.revoke("jti-1", 7L, exp));
+        assertTrue(service.isRevoked("jti-1"));
+    }
+
+    @Test
+    @DisplayName("Debería marcar como revocado el jti revocado y no uno ajeno")
+    void testRevocarYConsultar() {
+        // Arrange
+        Instant exp = Instant.now().plusSeconds(600);
+        for (int i = 0; i < 50; i++) {
+            service.revoke("jti-" + i, 7L, exp);
+        }
+
+        // Act & Assert
+        assertTrue(service.isRevoked("jti-0"));
+        assertTrue(service.isRevoked("jti-49"));
+        assertFalse(service.isRevoked("jti-ajeno"));
+        assertFalse(service.isRevoked(null));
+        assertEquals(50, service.size());
+    }
+
+    @Test
+    @DisplayName("Debería caducar solo las cubetas cuyo último segundo ya pasó")
+    void testLimpiarSoloCubetasVencidas() {
+        // Arrange: cubetas de una hora para que la prueba no dependa del segundo actual
+        ReflectionTestUtils.setField(service, "bucketSeconds", 3600L);
+        long cubetaActual = Instant.now().getEpochSecond() / 3600;
+        long inicioCubetaActual = cubetaActual * 3600;
+        when(tokenRevocadoRepository.buscarPosterioresA(eq(0L), any(), any())).thenReturn(List.of(
+                fila(1L, "cubeta-anterior", inicioCubetaActual - 1),
+                fila(2L, "cubeta-actual", inicioCubetaActual),
+                fila(3L, "vigente", inicioCubetaActual + 7200)));
+        service.syncRevocations();
+
+        // Act
+        service.cleanExpiredTokens();
+
+        // Assert: la cubeta en curso se conserva aunque su primer segundo ya haya pasado
+        assertFalse(service.isRevoked("cubeta-anterior"));
+        assertTrue(service.isRevoked("cubeta-actual"));
+        assertTrue(service.isRevoked("vigente"));
+        assertEquals(2, service.size());
+    }
+
+    @Test
+    @DisplayName("Debería seguir reportando como revocado un jti revocado mientras se reconstruye el filtro")
+    void testRevocarDuranteReconstruccionDelFiltro() throws Exception {
+        // Arrange: cada sondeo trae una fila ya caducada y cada limpieza la quita y reconstruye el filtro
+        long pasado = Instant.now().getEpochSecond() - 3600;
+        AtomicLong ids = new AtomicLong();
+        when(tokenRevocadoRepository.buscarPosterioresA(anyLong(), any(), any())).thenAnswer(inv -> {
+            long id = ids.incrementAndGet();
+            return List.of(fila(id, "caducado-" + id, pasado));
+        });
+        AtomicBoolean activo = new AtomicBoolean(true);
+        Thread reconstructor = new Thread(() -> {
+            while (activo.get()) {
+                service.syncRevocations();
+                service.cleanExpiredTokens();
+            }
+        });
+        Instant exp = Instant.now().plusSeconds(600);
+
+        // Act
+        reconstructor.start();
+        try {
+            for (int i = 0; i < 2000; i++) {
+                String jti = "activo-" + i;
+                service.revoke(jti, 7L, exp);
+
+                // Assert: un negativo del filtro es definitivo, así que nunca puede perder un jti revocado
+                assertTrue(service.isRevoked(jti), "Revocación perdida al cambiar de filtro: " + jti);
+            }
+        } finally {
+            activo.set(false);
+            reconstructor.join();
+        }
+
+        for (int i = 0; i < 2000; i++) {
+            assertTrue(service.isRevoked("activo-" + i));
+        }
+        assertTrue(ids.get() > 0);
+    }
+
+    @Test
+    @DisplayName("Debería aplicar las páginas por encima de la marca de agua y avanzarla")
+    void testSincronizarPorPaginas() {
+        // Arrange: una página completa obliga a pedir la siguiente
+        long exp = Instant.now().getEpochSecond() + 600;
+        List<TokenRevocado> primera = new ArrayList<>();
+        for (long id = 1; id <= 500; id++) {
+            primera.add(fila(id, "jti-" + id, exp));
+        }
+        when(tokenRevocadoRepository.buscarPosterioresA(eq(0L), any(), any())).thenReturn(primera);
+        when(tokenRevocadoRepository.buscarPosterioresA(eq(500L), any(), any()))
+                .thenReturn(List.of(fila(501L, "jti-501", exp), fila(502L, "jti-502", exp)));
+        when(tokenRevocadoRepository.buscarPosterioresA(eq(502L), any(), any())).thenReturn(List.of());
+
+        // Act
+        service.syncRevocations();
+
+        // Assert
+        assertEquals(502L, (long) ReflectionTestUtils.getField(service, "highWaterMark"));
+        assertEquals(502, service.size());
+        assertTrue(service.isRevoked("jti-1"));
+        assertTrue(service.isRevoked("jti-502"));
+
+        // El siguiente sondeo parte de la nueva marca
+        service.syncRevocations();
+        verify(tokenRevocadoRepository).buscarPosterioresA(eq(502L), any(), any());
+    }
+
+    @Test
+    @DisplayName("Debería recoger por la ventana hacia atrás un id bajo que confirmó tarde")
+    void testSincronizarIdBajoConfirmadoTarde() {
+        // Arrange: la marca ya está en 10 y la fila 5 se confirmó después
+        long exp = Instant.now().getEpochSecond() + 600;
+        ReflectionTestUtils.setField(service, "highWaterMark", 10L);
+        when(tokenRevocadoRepository.buscarRevocadosDesde(any(), any()))
+                .thenReturn(List.of(fila(5L, "tardio", exp)));
+
+        // Act
+        service.syncRevocations();
+
+        // Assert
+        assertTrue(service.isRevoked("tardio"));
+        assertEquals(10L, (long) ReflectionTestUtils.getField(service, "highWaterMark"));
+        ArgumentCaptor<LocalDateTime> desde = ArgumentCaptor.forClass(LocalDateTime.class);
+        ArgumentCaptor<LocalDateTime> ahora = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(tokenRevocadoRepository).buscarRevocadosDesde(desde.capture(), ahora.capture());
+        assertEquals(ahora.getValue().minusSeconds(30), desde.getValue());
+    }
+
+    @Test
+    @DisplayName("Debería ser idempotente al aplicar varias veces la misma fila")
+    void testSincronizarFilaRepetida() {
+        // Arrange: la misma fila llega por la marca de agua y por la ventana, y el jti ya estaba revocado aquí
+        long exp = Instant.now().getEpochSecond() + 600;
+        service.revoke("repetido", 7L, Instant.ofEpochSecond(exp));
+        TokenRevocado repetida = fila(1L, "repetido", exp);
+        when(tokenRevocadoRepository.buscarPosterioresA(eq(0L), any(), any())).thenReturn(List.of(repetida));
+        when(tokenRevocadoRepository.buscarPosterioresA(eq(1L), any(), any())).thenReturn(List.of());
+        when(tokenRevocadoRepository.buscarRevocadosDesde(any(), any())).thenReturn(List.of(repetida));
+
+        // Act
+        service.syncRevocations();
+        service.syncRevocations();
+
+        // Assert
+        assertEquals(1, service.size());
+        assertTrue(service.isRevoked("repetido"));
+        service.cleanExpiredTokens();
+        assertEquals(1, service.size());
+    }
+
+    @Test
+    @DisplayName("Debería conservar la réplica y la marca de agua si la base de datos falla")
+    void testSincronizarConErrorDeBaseDeDatos() {
+        // Arrange
+        long exp = Instant.now().getEpochSecond() + 600;
+        when(tokenRevocadoRepository.buscarPosterioresA(eq(0L), any(), any()))
+                .thenReturn(List.of(fila(1L, "jti-1", exp), fila(2L, "jti-2", exp)));
+        service.syncRevocations();
+        when(tokenRevocadoRepository.buscarPosterioresA(eq(2L), any(), any()))
+                .thenThrow(new DataAccessResourceFailureException("BD no disponible"));
+
+        // Act
+        assertDoesNotThrow(() -> service.syncRevocations());
+
+        // Assert
+        assertEquals(2L, (long) ReflectionTestUtils.getField(service, "highWaterMark"));
+        assertEquals(2, service.size());
+        assertTrue(service.isRevoked("jti-1"));
+        assertTrue(service.isRevoked("jti-2"));
+    }
+}
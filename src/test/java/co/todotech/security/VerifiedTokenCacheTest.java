@@ -0,0 +1,124 @@
+package co.todotech.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class VerifiedTokenCacheTest {
+
+    @Mock
+    private JwtUtil jwtUtil;
+
+    private VerifiedTokenCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new VerifiedTokenCache(jwtUtil);
+        ReflectionTestUtils.setField(cache, "maxEntries", 20);
+    }
+
+    private JwtPrincipal principal(String jti, Instant exp) {
+        return new JwtPrincipal("admin", 1L, "ADMIN", jti, exp, 0L);
+    }
+
+    @Test
+    @DisplayName("Debería servir un token ya verificado sin volver a verificarlo")
+    void testAciertoNoReverifica() {
+        // Arrange
+        JwtPrincipal principal = principal("jti-1", Instant.now().plusSeconds(600));
+        when(jwtUtil.verifyToken("token-1")).thenReturn(Optional.of(principal));
+
+        // Act
+        Optional<JwtPrincipal> primera = cache.verify("token-1");
+        Optional<JwtPrincipal> segunda = cache.verify("token-1");
+
+        // Assert
+        assertEquals(Optional.of(principal), primera);
+        assertEquals(Optional.of(principal), segunda);
+        verify(jwtUtil, times(1)).verifyToken("token-1");
+    }
+
+    @Test
+    @DisplayName("Debería volver a verificar una entrada cuyo exp ya pasó en lugar de servirla")
+    void testEntradaCaducadaSeReverifica() {
+        // Arrange
+        JwtPrincipal caducado = principal("jti-1", Instant.now().minusSeconds(1));
+        when(jwtUtil.verifyToken("token-1"))
+                .thenReturn(Optional.of(caducado))
+                .thenReturn(Optional.empty());
+        cache.verify("token-1");
+
+        // Act
+        Optional<JwtPrincipal> resultado = cache.verify("token-1");
+
+        // Assert
+        assertTrue(resultado.isEmpty());
+        verify(jwtUtil, times(2)).verifyToken("token-1");
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    @DisplayName("Debería quitar solo las entradas caducadas en la purga")
+    void testPurgaPorExp() {
+        // Arrange
+        when(jwtUtil.verifyToken("vigente")).thenReturn(Optional.of(principal("jti-1", Instant.now().plusSeconds(600))));
+        when(jwtUtil.verifyToken("caducado")).thenReturn(Optional.of(principal("jti-2", Instant.now().minusSeconds(1))));
+        cache.verify("vigente");
+        cache.verify("caducado");
+
+        // Act
+        cache.purgeExpired();
+
+        // Assert
+        assertEquals(1, cache.size());
+        cache.verify("vigente");
+        verify(jwtUtil, times(1)).verifyToken("vigente");
+    }
+
+    @Test
+    @DisplayName("Debería verificar de nuevo un token invalidado por logout")
+    void testInvalidarEnLogout() {
+        // Arrange
+        when(jwtUtil.verifyToken("token-1")).thenReturn(Optional.of(principal("jti-1", Instant.now().plusSeconds(600))));
+        cache.verify("token-1");
+
+        // Act
+        cache.invalidate("token-1");
+        cache.verify("token-1");
+
+        // Assert
+        verify(jwtUtil, times(2)).verifyToken("token-1");
+    }
+
+    @Test
+    @DisplayName("Debería descartar una décima parte de las entradas cuando la caché está llena de tokens vigentes")
+    void testDesalojoAlLlenarse() {
+        // Arrange
+        Instant exp = Instant.now().plusSeconds(600);
+        when(jwtUtil.verifyToken(anyString()))
+                .thenAnswer(inv -> Optional.of(principal(inv.getArgument(0), exp)));
+        for (int i = 0; i < 20; i++) {
+            cache.verify("token-" + i);
+        }
+
+        // Act
+        cache.verify("token-nuevo");
+
+        // Assert: 20 - 2 descartadas + la nueva
+        assertEquals(19, cache.size());
+        cache.verify("token-nuevo");
+        verify(jwtUtil, times(1)).verifyToken("token-nuevo");
+    }
+}
@@ -0,0 +1,83 @@
+package co.todotech.service.impl;
+
+import co.todotech.model.dto.auditoria.AuditoriaDto;
+import co.todotech.model.dto.auditoria.PaginaAuditoriaDto;
+import co.todotech.model.enums.AccionAuditoria;
+import co.todotech.model.enums.EntidadAuditada;
+import co.todotech.repository.AuditoriaRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AuditoriaServiceImplTest {
+
+    private static final LocalDateTime DESDE = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final LocalDateTime HASTA = LocalDateTime.of(2025, 1, 2, 0, 0);
+
+    @Mock
+    private AuditoriaWriter auditoriaWriter;
+
+    @Mock
+    private AuditoriaRepository auditoriaRepository;
+
+    @InjectMocks
+    private AuditoriaServiceImpl auditoriaService;
+
+    private AuditoriaDto registro(Long id, LocalDateTime fecha, AccionAuditoria accion) {
+        return new AuditoriaDto(id, fecha, EntidadAuditada.PRODUCTO, 1L, accion, "admin", null);
+    }
+
+    @Test
+    @DisplayName("Debería devolver como cursor la fecha y el id del último registro cuando hay más páginas")
+    void testPrimeraPaginaDevuelveCursor() {
+        // Arrange: CAMBIO_STOCK y ACTUALIZACION de la misma edición comparten fecha
+        LocalDateTime mismaFecha = LocalDateTime.of(2025, 1, 1, 12, 0);
+        when(auditoriaRepository.buscarPorRango(eq(DESDE), eq(HASTA), eq(0L), any(Pageable.class))).thenReturn(List.of(
+                registro(3L, mismaFecha, AccionAuditoria.ACTUALIZACION),
+                registro(2L, mismaFecha, AccionAuditoria.CAMBIO_STOCK)));
+
+        // Act
+        PaginaAuditoriaDto pagina = auditoriaService.consultar(DESDE, HASTA, null, null, null, 1);
+
+        // Assert
+        ArgumentCaptor<Pageable> pageable = ArgumentCaptor.forClass(Pageable.class);
+        verify(auditoriaRepository).buscarPorRango(eq(DESDE), eq(HASTA), eq(0L), pageable.capture());
+        assertEquals(2, pageable.getValue().getPageSize());
+        assertEquals(1, pagina.registros().size());
+        assertTrue(pagina.hayMas());
+        assertEquals(mismaFecha, pagina.siguienteHasta());
+        assertEquals(3L, pagina.siguienteAntesDeId());
+    }
+
+    @Test
+    @DisplayName("Debería pedir la página siguiente con el par (fecha, id) sin saltar registros de la misma fecha")
+    void testPaginaSiguienteUsaElPar() {
+        // Arrange
+        LocalDateTime mismaFecha = LocalDateTime.of(2025, 1, 1, 12, 0);
+        when(auditoriaRepository.buscarPorEntidadYRango(eq(EntidadAuditada.PRODUCTO), eq(DESDE), eq(mismaFecha), eq(3L),
+                any(Pageable.class))).thenReturn(List.of(registro(2L, mismaFecha, AccionAuditoria.CAMBIO_STOCK)));
+
+        // Act
+        PaginaAuditoriaDto pagina = auditoriaService.consultar(DESDE, mismaFecha, 3L, EntidadAuditada.PRODUCTO, null, 1);
+
+        // Assert
+        assertEquals(1, pagina.registros().size());
+        assertEquals(2L, pagina.registros().get(0).id());
+        assertFalse(pagina.hayMas());
+        assertNull(pagina.siguienteHasta());
+        assertNull(pagina.siguienteAntesDeId());
+    }
+}
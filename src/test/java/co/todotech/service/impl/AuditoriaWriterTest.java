@@ -0,0 +1,110 @@
+package co.todotech.service.impl;
+
+import co.todotech.model.dto.auditoria.EstadoAuditoriaDto;
+import co.todotech.model.enums.AccionAuditoria;
+import co.todotech.model.enums.EntidadAuditada;
+import co.todotech.model.enums.PoliticaDesbordeAuditoria;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AuditoriaWriterTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private AuditoriaWriter.RegistroAuditoria registro(Long productoId) {
+        return new AuditoriaWriter.RegistroAuditoria(LocalDateTime.now(), EntidadAuditada.PRODUCTO, productoId,
+                AccionAuditoria.CAMBIO_PRECIO, "admin", "10.0 -> 12.0");
+    }
+
+    @Test
+    @DisplayName("Debería escribir los registros encolados en lotes JDBC")
+    @SuppressWarnings("unchecked")
+    void testVaciarEnLotes() {
+        // Arrange
+        AuditoriaWriter writer = new AuditoriaWriter(jdbcTemplate, 16, 2, PoliticaDesbordeAuditoria.DESCARTAR, transactionManager);
+        for (long i = 1; i <= 5; i++) {
+            writer.encolar(registro(i));
+        }
+
+        // Act
+        writer.vaciar();
+
+        // Assert
+        ArgumentCaptor<List<Object[]>> lotes = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(3)).batchUpdate(anyString(), lotes.capture());
+        assertEquals(2, lotes.getAllValues().get(0).size());
+        assertEquals(1, lotes.getAllValues().get(2).size());
+        assertEquals(1L, lotes.getAllValues().get(0).get(0)[2]);
+
+        EstadoAuditoriaDto estado = writer.estado();
+        assertEquals(5, estado.escritos());
+        assertEquals(0, estado.pendientes());
+    }
+
+    @Test
+    @DisplayName("Debería aplicar la política de desborde cuando el buffer está lleno")
+    void testDesbordeDelBuffer() {
+        // Arrange
+        AuditoriaWriter descartar = new AuditoriaWriter(jdbcTemplate, 2, 10, PoliticaDesbordeAuditoria.DESCARTAR, transactionManager);
+        AuditoriaWriter directo = new AuditoriaWriter(jdbcTemplate, 2, 10, PoliticaDesbordeAuditoria.ESCRIBIR_DIRECTO, transactionManager);
+
+        // Act
+        for (long i = 1; i <= 3; i++) {
+            descartar.encolar(registro(i));
+            directo.encolar(registro(i));
+        }
+
+        // Assert
+        assertEquals(1, descartar.estado().descartados());
+        assertEquals(2, descartar.estado().pendientes());
+        assertEquals(1, directo.estado().escritosDirecto());
+        assertEquals(0, directo.estado().descartados());
+        verify(jdbcTemplate, times(1)).update(anyString(), any(Object[].class));
+        ArgumentCaptor<TransactionDefinition> definicion = ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(transactionManager).getTransaction(definicion.capture());
+        assertEquals(TransactionDefinition.PROPAGATION_REQUIRES_NEW, definicion.getValue().getPropagationBehavior());
+    }
+
+    @Test
+    @DisplayName("Debería conservar el lote y reintentarlo si la base de datos falla")
+    @SuppressWarnings("unchecked")
+    void testReintentoTrasFalloDeEscritura() {
+        // Arrange
+        AuditoriaWriter writer = new AuditoriaWriter(jdbcTemplate, 16, 10, PoliticaDesbordeAuditoria.DESCARTAR, transactionManager);
+        writer.encolar(registro(1L));
+        writer.encolar(registro(2L));
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenThrow(new DataAccessResourceFailureException("BD no disponible"))
+                .thenReturn(new int[]{1, 1});
+
+        // Act
+        writer.vaciar();
+        long escritosTrasFallo = writer.estado().escritos();
+        writer.vaciar();
+
+        // Assert
+        assertEquals(0, escritosTrasFallo);
+        assertEquals(2, writer.estado().escritos());
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), anyList());
+    }
+}
@@ -5,6 +5,7 @@ import co.todotech.model.dto.cliente.ClienteDto;
 import co.todotech.model.entities.Cliente;
 import co.todotech.model.enums.TipoCliente;
 import co.todotech.repository.ClienteRepository;
+import co.todotech.service.AuditoriaService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -30,6 +31,9 @@ class ClienteServiceImplTest {
     @Mock
     private ClienteMapper clienteMapper;
 
+    @Mock
+    private AuditoriaService auditoriaService;
+
     @InjectMocks
     private ClienteServiceImpl clienteService;
 
@@ -0,0 +1,154 @@
+package co.todotech.service.impl;
+
+import co.todotech.mapper.DetalleOrdenMapper;
+import co.todotech.model.dto.detalleorden.CantidadLineaDto;
+import co.todotech.model.dto.detalleorden.validacion.BulkStockValidationRequest;
+import co.todotech.model.dto.detalleorden.validacion.BulkValidationResultDto;
+import co.todotech.model.dto.detalleorden.validacion.StockValidationRequest;
+import co.todotech.model.dto.inventario.DisponibilidadStockDto;
+import co.todotech.model.entities.DetalleOrden;
+import co.todotech.model.entities.Orden;
+import co.todotech.model.entities.Producto;
+import co.todotech.model.enums.EstadoOrden;
+import co.todotech.model.enums.EstadoProducto;
+import co.todotech.model.enums.TipoEventoDominio;
+import co.todotech.repository.DetalleOrdenRepository;
+import co.todotech.repository.OrdenRepository;
+import co.todotech.repository.ProductoRepository;
+import co.todotech.service.OutboxEventosService;
+import co.todotech.service.ReservaStockService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DetalleOrdenServiceImplTest {
+
+    @Mock
+    private DetalleOrdenRepository detalleOrdenRepository;
+
+    @Mock
+    private OrdenRepository ordenRepository;
+
+    @Mock
+    private ProductoRepository productoRepository;
+
+    @Mock
+    private DetalleOrdenMapper detalleOrdenMapper;
+
+    @Mock
+    private ReservaStockService reservaStockService;
+
+    @Mock
+    private OutboxEventosService outboxEventos;
+
+    @InjectMocks
+    private DetalleOrdenServiceImpl detalleOrdenService;
+
+    @Test
+    @DisplayName("Debería sumar las cantidades de un producto repetido en la validación múltiple")
+    void testValidarStockMultipleConProductoRepetido() {
+        // Arrange
+        BulkStockValidationRequest request = new BulkStockValidationRequest(Arrays.asList(
+                new StockValidationRequest(1L, 2, null),
+                new StockValidationRequest(1L, 3, null)
+        ));
+        when(reservaStockService.precargarProductos(anyCollection())).thenReturn(Set.of(1L));
+        when(reservaStockService.consultarDisponibilidad(1L, null)).thenReturn(
+                new DisponibilidadStockDto(1L, "Laptop Gaming", EstadoProducto.ACTIVO, 10, 6, 4));
+
+        // Act
+        BulkValidationResultDto resultado = detalleOrdenService.validarStockMultiple(request);
+
+        // Assert
+        assertFalse(resultado.isTodoValido());
+        assertEquals(1, resultado.getTotalProductos());
+        assertEquals(Arrays.asList(1L), resultado.getProductosConProblemas());
+        verify(detalleOrdenRepository, never()).findCantidadesByIdIn(anyCollection());
+        verify(productoRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    @DisplayName("Debería cargar las líneas referenciadas con una sola consulta y marcar productos inexistentes")
+    void testValidarStockMultipleConLineasYProductoInexistente() {
+        // Arrange
+        BulkStockValidationRequest request = new BulkStockValidationRequest(Arrays.asList(
+                new StockValidationRequest(1L, 5, 10L),
+                new StockValidationRequest(99L, 1, null)
+        ));
+        when(detalleOrdenRepository.findCantidadesByIdIn(anyCollection())).thenReturn(Arrays.asList(
+                new CantidadLineaDto(10L, 100L, 1L, 4)
+        ));
+        when(reservaStockService.precargarProductos(anyCollection())).thenReturn(Set.of(1L));
+        when(reservaStockService.consultarDisponibilidad(1L, 100L)).thenReturn(
+                new DisponibilidadStockDto(1L, "Laptop Gaming", EstadoProducto.ACTIVO, 10, 2, 8));
+
+        // Act
+        BulkValidationResultDto resultado = detalleOrdenService.validarStockMultiple(request);
+
+        // Assert
+        assertTrue(resultado.getResultados().get(1L).isValido());
+        assertFalse(resultado.getResultados().get(99L).isValido());
+        assertEquals(Arrays.asList(99L), resultado.getProductosConProblemas());
+        verify(detalleOrdenRepository, times(1)).findCantidadesByIdIn(anyCollection());
+        verify(reservaStockService, never()).consultarDisponibilidad(eq(99L), any());
+    }
+
+    @Test
+    @DisplayName("Debería eliminar una línea, liberar su reserva y publicar el evento con el total ya descontado")
+    void testEliminarDetalleOrden() {
+        // Arrange
+        Producto producto = Producto.builder().id(1L).nombre("Laptop Gaming").precio(50.0).stock(10).build();
+        Orden orden = Orden.builder()
+                .id(5L)
+                .estado(EstadoOrden.AGREGANDOPRODUCTOS)
+                .productos(new ArrayList<>())
+                .subtotal(0.0)
+                .descuento(0.0)
+                .build();
+        DetalleOrden detalle = DetalleOrden.builder()
+                .id(10L)
+                .producto(producto)
+                .cantidad(2)
+                .precioUnitario(50.0)
+                .build();
+        orden.agregarDetalle(detalle);
+        when(detalleOrdenRepository.findOrdenIdById(10L)).thenReturn(Optional.of(5L));
+        when(ordenRepository.findByIdForUpdate(5L)).thenReturn(Optional.of(orden));
+        when(detalleOrdenRepository.findById(10L)).thenReturn(Optional.of(detalle));
+
+        // Act
+        detalleOrdenService.eliminarDetalleOrden(10L);
+
+        // Assert
+        InOrder secuencia = inOrder(ordenRepository, detalleOrdenRepository);
+        secuencia.verify(ordenRepository).findByIdForUpdate(5L);
+        secuencia.verify(detalleOrdenRepository).findById(10L);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<String, Object>> datos = ArgumentCaptor.forClass(Map.class);
+        verify(reservaStockService).liberar(5L, 1L);
+        verify(detalleOrdenRepository).delete(detalle);
+        verify(ordenRepository).save(orden);
+        verify(outboxEventos).registrar(eq(TipoEventoDominio.DETALLE_ORDEN_ELIMINADO), eq(5L), datos.capture());
+        assertNull(detalle.getOrden());
+        assertTrue(orden.getProductos().isEmpty());
+        assertEquals(0.0, orden.getSubtotal(), 0.001);
+        assertEquals(orden.getTotal(), datos.getValue().get("totalOrden"));
+        assertEquals(10L, datos.getValue().get("detalleId"));
+    }
+}
@@ -0,0 +1,71 @@
+package co.todotech.service.impl;
+
+import co.todotech.model.dto.ordenventa.ResumenEstadoOrdenDto;
+import co.todotech.model.enums.EstadoOrden;
+import co.todotech.repository.OrdenRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EstadisticasOrdenesAggregatorTest {
+
+    @Mock
+    private OrdenRepository ordenRepository;
+
+    @InjectMocks
+    private EstadisticasOrdenesAggregator aggregator;
+
+    @Test
+    @DisplayName("Debería reconstruir los contadores desde la consulta agregada")
+    void testReconstruir() {
+        // Arrange
+        when(ordenRepository.resumirPorEstado()).thenReturn(Arrays.asList(
+                new ResumenEstadoOrdenDto(EstadoOrden.PENDIENTE, 4L, 400.0),
+                new ResumenEstadoOrdenDto(EstadoOrden.PAGADA, 2L, 2000.0)
+        ));
+
+        // Act
+        aggregator.reconstruir();
+        Map<String, Object> resumen = aggregator.obtenerResumen();
+
+        // Assert
+        assertEquals(6L, resumen.get("totalOrdenes"));
+        assertEquals(2L, resumen.get("totalPagadas"));
+        assertEquals(2000.0, (Double) resumen.get("totalVentas"), 0.001);
+    }
+
+    @Test
+    @DisplayName("Debería mover conteo y ventas al registrar transiciones")
+    void testRegistrarTransiciones() {
+        // Arrange
+        when(ordenRepository.resumirPorEstado()).thenReturn(Arrays.asList());
+        aggregator.reconstruir();
+
+        // Act
+        aggregator.registrarCreacion(EstadoOrden.PENDIENTE);
+        aggregator.registrarCreacion(EstadoOrden.PENDIENTE);
+        aggregator.registrarTransicion(EstadoOrden.PENDIENTE, EstadoOrden.DISPONIBLEPARAPAGO, 500.0);
+        aggregator.registrarTransicion(EstadoOrden.DISPONIBLEPARAPAGO, EstadoOrden.PAGADA, 500.0);
+        aggregator.registrarTransicion(EstadoOrden.PAGADA, EstadoOrden.ENTREGADA, 500.0);
+        aggregator.registrarEliminacion(EstadoOrden.PENDIENTE, 0.0);
+        Map<String, Object> resumen = aggregator.obtenerResumen();
+
+        // Assert
+        assertEquals(1L, resumen.get("totalOrdenes"));
+        assertEquals(0L, resumen.get("totalPagadas"));
+        assertEquals(0.0, (Double) resumen.get("totalVentas"), 0.001);
+        @SuppressWarnings("unchecked")
+        Map<EstadoOrden, Double> ventas = (Map<EstadoOrden, Double>) resumen.get("ventasPorEstado");
+        assertEquals(500.0, ventas.get(EstadoOrden.ENTREGADA), 0.001);
+    }
+}
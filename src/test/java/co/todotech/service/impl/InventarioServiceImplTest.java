@@ -0,0 +1,118 @@
+package co.todotech.service.impl;
+
+import co.todotech.model.dto.inventario.StockEnFechaDto;
+import co.todotech.model.dto.inventario.SumaMovimientosDto;
+import co.todotech.model.entities.Inventario;
+import co.todotech.model.entities.SnapshotInventario;
+import co.todotech.model.enums.TipoMovimiento;
+import co.todotech.repository.InventarioRepository;
+import co.todotech.repository.ProductoRepository;
+import co.todotech.repository.SnapshotInventarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InventarioServiceImplTest {
+
+    @Mock
+    private InventarioRepository inventarioRepository;
+
+    @Mock
+    private SnapshotInventarioRepository snapshotRepository;
+
+    @Mock
+    private ProductoRepository productoRepository;
+
+    @InjectMocks
+    private InventarioServiceImpl inventarioService;
+
+    private final LocalDateTime fecha = LocalDateTime.of(2025, 10, 1, 12, 0);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(inventarioService, "margenSegundos", 300L);
+    }
+
+    @Test
+    @DisplayName("Debería reconstruir el stock en una fecha desde la instantánea y la cola de movimientos")
+    void testConsultarStockEnFecha() {
+        // Arrange
+        SnapshotInventario snapshot = SnapshotInventario.builder()
+                .productoId(1L).stock(20).ultimoMovimientoId(50L).fecha(fecha.minusDays(1)).build();
+        when(snapshotRepository.findFirstByProductoIdAndFechaLessThanEqualOrderByFechaDescIdDesc(1L, fecha))
+                .thenReturn(Optional.of(snapshot));
+        when(inventarioRepository.sumarCola(1L, 50L, fecha))
+                .thenReturn(Optional.of(new SumaMovimientosDto(1L, -7L, 3L, 58L)));
+
+        // Act
+        StockEnFechaDto resultado = inventarioService.consultarStockEn(1L, fecha);
+
+        // Assert
+        assertEquals(13, resultado.stock());
+        assertEquals(3L, resultado.movimientosAplicados());
+        assertEquals(fecha.minusDays(1), resultado.fechaSnapshot());
+        verifyNoInteractions(productoRepository);
+    }
+
+    @Test
+    @DisplayName("Debería no registrar movimientos de cantidad cero salvo el inicial")
+    void testRegistrarMovimientoCantidadCero() {
+        // Act
+        inventarioService.registrarMovimiento(1L, TipoMovimiento.AJUSTE, 0, null);
+        inventarioService.registrarMovimiento(2L, TipoMovimiento.INICIAL, 0, "alta-producto");
+
+        // Assert
+        ArgumentCaptor<Inventario> captor = ArgumentCaptor.forClass(Inventario.class);
+        verify(inventarioRepository, times(1)).save(captor.capture());
+        assertEquals(2L, captor.getValue().getProductoId());
+        assertEquals(TipoMovimiento.INICIAL, captor.getValue().getTipo());
+    }
+
+    @Test
+    @DisplayName("Debería compactar los movimientos nuevos sobre la instantánea anterior de cada producto")
+    @SuppressWarnings("unchecked")
+    void testCompactarSnapshots() {
+        // Arrange
+        when(inventarioRepository.findUltimoIdAntesDe(any(LocalDateTime.class))).thenReturn(Optional.of(120L));
+        when(snapshotRepository.findMarcaCompactacion()).thenReturn(Optional.of(100L));
+        when(inventarioRepository.sumarEntre(100L, 120L)).thenReturn(Arrays.asList(
+                new SumaMovimientosDto(1L, 5L, 2L, 110L),
+                new SumaMovimientosDto(2L, -3L, 1L, 120L)));
+        when(snapshotRepository.findUltimasDe(anyCollection())).thenReturn(Arrays.asList(
+                SnapshotInventario.builder().productoId(1L).stock(10).ultimoMovimientoId(90L).fecha(fecha).build()));
+        when(inventarioRepository.findAllById(anyIterable())).thenReturn(Arrays.asList(
+                Inventario.builder().id(110L).fecha(fecha.plusHours(1)).build(),
+                Inventario.builder().id(120L).fecha(fecha.plusHours(2)).build()));
+
+        // Act
+        int creadas = inventarioService.compactarSnapshots();
+
+        // Assert
+        assertEquals(2, creadas);
+        ArgumentCaptor<List<SnapshotInventario>> captor = ArgumentCaptor.forClass(List.class);
+        verify(snapshotRepository).saveAll(captor.capture());
+        SnapshotInventario producto1 = captor.getValue().get(0);
+        SnapshotInventario producto2 = captor.getValue().get(1);
+        assertEquals(15, producto1.getStock());
+        assertEquals(110L, producto1.getUltimoMovimientoId());
+        assertEquals(fecha.plusHours(1), producto1.getFecha());
+        assertEquals(-3, producto2.getStock());
+        assertEquals(120L, producto2.getUltimoMovimientoId());
+    }
+}
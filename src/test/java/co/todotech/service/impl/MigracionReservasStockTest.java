@@ -0,0 +1,68 @@
+package co.todotech.service.impl;
+
+import co.todotech.model.dto.inventario.LineaSinReservaDto;
+import co.todotech.model.entities.ReservaStock;
+import co.todotech.model.enums.TipoMovimiento;
+import co.todotech.repository.ProductoRepository;
+import co.todotech.repository.ReservaStockRepository;
+import co.todotech.service.InventarioService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MigracionReservasStockTest {
+
+    @Mock
+    private MigracionesDatos migraciones;
+
+    @Mock
+    private ReservaStockRepository reservaStockRepository;
+
+    @Mock
+    private ProductoRepository productoRepository;
+
+    @Mock
+    private InventarioService inventarioService;
+
+    @InjectMocks
+    private MigracionReservasStock migracion;
+
+    @Test
+    @DisplayName("Debería devolver el stock de las líneas abiertas y convertirlo en reserva la primera vez")
+    void testMigrarPrimeraVez() {
+        // Arrange
+        when(migraciones.reclamar(MigracionReservasStock.NOMBRE)).thenReturn(true);
+        when(reservaStockRepository.findLineasAbiertasSinReserva(anyCollection())).thenReturn(Arrays.asList(
+                new LineaSinReservaDto(10L, 1L, 3)));
+
+        // Act
+        migracion.migrar();
+
+        // Assert
+        verify(productoRepository).incrementarStockAtomico(eq(1L), eq(3), any(), any(), any());
+        verify(inventarioService).registrarMovimiento(1L, TipoMovimiento.DEVOLUCION, 3, "migracion-reserva:orden:10");
+        verify(reservaStockRepository).save(any(ReservaStock.class));
+    }
+
+    @Test
+    @DisplayName("No debería tocar stock ni reservas si la migración ya se aplicó")
+    void testMigrarYaAplicada() {
+        // Arrange
+        when(migraciones.reclamar(MigracionReservasStock.NOMBRE)).thenReturn(false);
+
+        // Act
+        migracion.migrar();
+
+        // Assert
+        verifyNoInteractions(reservaStockRepository, productoRepository, inventarioService);
+    }
+}
@@ -7,8 +7,13 @@ import co.todotech.mapper.UsuarioMapper;
 import co.todotech.model.dto.cliente.ClienteDto;
 import co.todotech.model.dto.detalleorden.DetalleOrdenDto;
 import co.todotech.model.dto.ordenventa.CreateOrdenDto;
+import co.todotech.model.dto.ordenventa.EstadoOrdenActualDto;
 import co.todotech.model.dto.ordenventa.OrdenConDetallesDto;
 import co.todotech.model.dto.ordenventa.OrdenDto;
+import co.todotech.model.dto.ordenventa.OrdenResumenDto;
+import co.todotech.model.dto.ordenventa.PaginaOrdenesDto;
+import co.todotech.model.dto.ordenventa.ResumenEstadoOrdenDto;
+import co.todotech.model.dto.ordenventa.TransicionMasivaResultadoDto;
 import co.todotech.model.dto.usuario.UsuarioDto;
 import co.todotech.model.entities.Cliente;
 import co.todotech.model.entities.DetalleOrden;
@@ -16,10 +21,13 @@ import co.todotech.model.entities.Orden;
 import co.todotech.model.entities.Usuario;
 import co.todotech.model.enums.EstadoOrden;
 import co.todotech.model.enums.TipoCliente;
+import co.todotech.model.enums.TipoEventoDominio;
 import co.todotech.model.enums.TipoUsuario;
 import co.todotech.repository.ClienteRepository;
 import co.todotech.repository.OrdenRepository;
 import co.todotech.repository.UsuarioRepository;
+import co.todotech.service.OutboxEventosService;
+import co.todotech.service.ReservaStockService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -27,11 +35,14 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -62,6 +73,15 @@ class OrdenServiceImplTest {
     @Mock
     private UsuarioMapper usuarioMapper;
 
+    @Mock
+    private EstadisticasOrdenesAggregator estadisticasOrdenes;
+
+    @Mock
+    private ReservaStockService reservaStockService;
+
+    @Mock
+    private OutboxEventosService outboxEventos;
+
     @InjectMocks
     private OrdenServiceImpl ordenService;
 
@@ -204,6 +224,7 @@ class OrdenServiceImplTest {
         assertNotNull(resultado);
         assertEquals(1L, resultado.id());
         verify(ordenRepository).save(any(Orden.class));
+        verify(estadisticasOrdenes).registrarCreacion(EstadoOrden.PENDIENTE);
     }
 
     @Test
@@ -257,7 +278,7 @@ class OrdenServiceImplTest {
     @DisplayName("Debería obtener orden con detalles exitosamente")
     void testObtenerOrdenConDetalles() {
         // Arrange
-        when(ordenRepository.findByIdWithDetalles(1L)).thenReturn(Optional.of(orden));
+        when(ordenRepository.findByIdWithDetallesCompletos(1L)).thenReturn(Optional.of(orden));
         // ✅ CORREGIDO: Solo mockear lo necesario
         when(clienteMapper.toDto(cliente)).thenReturn(clienteDto);
         when(usuarioMapper.toDtoSafe(vendedor)).thenReturn(vendedorDto);
@@ -274,7 +295,7 @@ class OrdenServiceImplTest {
     @DisplayName("Debería lanzar excepción cuando orden no existe al obtener con detalles")
     void testObtenerOrdenConDetallesNoEncontrada() {
         // Arrange
-        when(ordenRepository.findByIdWithDetalles(1L)).thenReturn(Optional.empty());
+        when(ordenRepository.findByIdWithDetallesCompletos(1L)).thenReturn(Optional.empty());
 
         // Act & Assert
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
@@ -332,7 +353,7 @@ class OrdenServiceImplTest {
     @DisplayName("Debería actualizar orden exitosamente cuando estado no es CERRADA")
     void testActualizarOrdenExitoso() {
         // Arrange
-        when(ordenRepository.findByIdWithDetalles(1L)).thenReturn(Optional.of(orden));
+        when(ordenRepository.findById(1L)).thenReturn(Optional.of(orden));
         when(ordenRepository.save(any(Orden.class))).thenReturn(orden);
         when(ordenMapper.toDto(any(Orden.class))).thenReturn(ordenDto);
 
@@ -344,12 +365,53 @@ class OrdenServiceImplTest {
         verify(ordenRepository).save(orden);
     }
 
+    @Test
+    @DisplayName("Debería cambiar el estado al actualizar la orden pasando por la transición validada")
+    void testActualizarOrdenConCambioDeEstado() {
+        // Arrange
+        OrdenDto conNuevoEstado = new OrdenDto(1L, "ORD-20231201-ABC123", LocalDateTime.now(), clienteDto,
+                vendedorDto, EstadoOrden.AGREGANDOPRODUCTOS, 1000.0, 10.0, 19.8, 1009.8, "Orden de prueba");
+        when(ordenRepository.findById(1L)).thenReturn(Optional.of(orden));
+        when(ordenRepository.save(any(Orden.class))).thenReturn(orden);
+        when(ordenRepository.actualizarEstadoSiCoincide(1L, EstadoOrden.PENDIENTE, EstadoOrden.AGREGANDOPRODUCTOS))
+                .thenReturn(1);
+        when(ordenMapper.toDto(any(Orden.class))).thenReturn(conNuevoEstado);
+
+        // Act
+        ordenService.actualizarOrden(1L, conNuevoEstado);
+
+        // Assert
+        assertEquals(EstadoOrden.AGREGANDOPRODUCTOS, orden.getEstado());
+        verify(estadisticasOrdenes).registrarTransicion(
+                EstadoOrden.PENDIENTE, EstadoOrden.AGREGANDOPRODUCTOS, orden.getTotal());
+        verify(outboxEventos).registrar(eq(TipoEventoDominio.ORDEN_ESTADO_CAMBIADO), eq(1L), anyMap());
+    }
+
+    @Test
+    @DisplayName("Debería rechazar en la actualización un cambio de estado que salta el pago")
+    void testActualizarOrdenConEstadoNoPermitido() {
+        // Arrange
+        OrdenDto conNuevoEstado = new OrdenDto(1L, "ORD-20231201-ABC123", LocalDateTime.now(), clienteDto,
+                vendedorDto, EstadoOrden.ENTREGADA, 1000.0, 10.0, 19.8, 1009.8, "Orden de prueba");
+        when(ordenRepository.findById(1L)).thenReturn(Optional.of(orden));
+        when(ordenRepository.save(any(Orden.class))).thenReturn(orden);
+
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
+            ordenService.actualizarOrden(1L, conNuevoEstado);
+        });
+
+        assertTrue(exception.getMessage().contains("No se puede saltar"));
+        verify(ordenRepository, never()).actualizarEstadoSiCoincide(anyLong(), any(), any());
+        verify(estadisticasOrdenes, never()).registrarTransicion(any(), any(), any());
+    }
+
     @Test
     @DisplayName("Debería lanzar excepción al actualizar orden en estado CERRADA")
     void testActualizarOrdenConEstadoCerrada() {
         // Arrange
         orden.setEstado(EstadoOrden.CERRADA);
-        when(ordenRepository.findByIdWithDetalles(1L)).thenReturn(Optional.of(orden));
+        when(ordenRepository.findById(1L)).thenReturn(Optional.of(orden));
 
         // Act & Assert
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
@@ -363,8 +425,9 @@ class OrdenServiceImplTest {
     @DisplayName("Debería actualizar estado de orden exitosamente con transición válida")
     void testActualizarEstadoOrdenExitoso() {
         // Arrange
-        when(ordenRepository.findByIdWithDetalles(1L)).thenReturn(Optional.of(orden));
-        when(ordenRepository.save(any(Orden.class))).thenReturn(orden);
+        when(ordenRepository.findById(1L)).thenReturn(Optional.of(orden));
+        when(ordenRepository.actualizarEstadoSiCoincide(1L, EstadoOrden.PENDIENTE, EstadoOrden.AGREGANDOPRODUCTOS))
+                .thenReturn(1);
         when(ordenMapper.toDto(any(Orden.class))).thenReturn(ordenDto);
 
         // Act
@@ -372,7 +435,11 @@ class OrdenServiceImplTest {
 
         // Assert
         assertNotNull(resultado);
-        verify(ordenRepository).save(orden);
+        assertEquals(EstadoOrden.AGREGANDOPRODUCTOS, orden.getEstado());
+        verify(ordenRepository, never()).save(any(Orden.class));
+        verify(estadisticasOrdenes).registrarTransicion(
+                EstadoOrden.PENDIENTE, EstadoOrden.AGREGANDOPRODUCTOS, orden.getTotal());
+        verify(outboxEventos).registrar(eq(TipoEventoDominio.ORDEN_ESTADO_CAMBIADO), eq(1L), anyMap());
     }
 
     @Test
@@ -380,7 +447,7 @@ class OrdenServiceImplTest {
     void testActualizarEstadoOrdenConEstadoCerrada() {
         // Arrange
         orden.setEstado(EstadoOrden.CERRADA);
-        when(ordenRepository.findByIdWithDetalles(1L)).thenReturn(Optional.of(orden));
+        when(ordenRepository.findById(1L)).thenReturn(Optional.of(orden));
 
         // Act & Assert
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
@@ -390,6 +457,64 @@ class OrdenServiceImplTest {
         assertEquals("No se puede modificar el estado de una orden CERRADA", exception.getMessage());
     }
 
+    @Test
+    @DisplayName("Debería fallar si la orden cambió de estado antes del UPDATE condicional")
+    void testActualizarEstadoOrdenConCambioConcurrente() {
+        // Arrange
+        when(ordenRepository.findById(1L)).thenReturn(Optional.of(orden));
+        when(ordenRepository.actualizarEstadoSiCoincide(1L, EstadoOrden.PENDIENTE, EstadoOrden.AGREGANDOPRODUCTOS))
+                .thenReturn(0);
+
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
+            ordenService.actualizarEstadoOrden(1L, EstadoOrden.AGREGANDOPRODUCTOS);
+        });
+
+        assertTrue(exception.getMessage().contains("cambió de estado"));
+        verify(estadisticasOrdenes, never()).registrarTransicion(any(), any(), any());
+        verify(outboxEventos, never()).registrar(any(), any(), anyMap());
+    }
+
+    @Test
+    @DisplayName("Debería transicionar en bloque solo las órdenes con transición válida")
+    void testTransicionarEstadoMasivo() {
+        // Arrange
+        when(ordenRepository.findEstadosByIdIn(anyCollection())).thenReturn(Arrays.asList(
+                new EstadoOrdenActualDto(1L, EstadoOrden.ENTREGADA, 100.0),
+                new EstadoOrdenActualDto(2L, EstadoOrden.ENTREGADA, 50.0),
+                new EstadoOrdenActualDto(3L, EstadoOrden.PENDIENTE, 10.0),
+                new EstadoOrdenActualDto(4L, EstadoOrden.CERRADA, 20.0)
+        ));
+        when(ordenRepository.actualizarEstadoMasivo(anyCollection(), eq(EstadoOrden.ENTREGADA), eq(EstadoOrden.CERRADA)))
+                .thenReturn(2);
+
+        // Act
+        TransicionMasivaResultadoDto resultado = ordenService.transicionarEstadoMasivo(
+                Arrays.asList(1L, 2L, 3L, 4L, 5L, 1L), EstadoOrden.CERRADA);
+
+        // Assert
+        assertEquals(5, resultado.solicitadas());
+        assertEquals(2, resultado.actualizadas());
+        assertEquals(1, resultado.sinCambios());
+        assertEquals(0, resultado.conflictos());
+        assertTrue(resultado.rechazadas().containsKey(3L));
+        assertTrue(resultado.rechazadas().containsKey(5L));
+        verify(ordenRepository, times(1)).actualizarEstadoMasivo(anyCollection(), any(), any());
+        verify(estadisticasOrdenes).registrarTransicionMasiva(EstadoOrden.ENTREGADA, EstadoOrden.CERRADA, 2L, 150.0);
+        verify(ordenRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    @DisplayName("Debería rechazar el pago masivo de órdenes")
+    void testTransicionarEstadoMasivoAPagada() {
+        // Act & Assert
+        assertThrows(RuntimeException.class, () -> {
+            ordenService.transicionarEstadoMasivo(Arrays.asList(1L), EstadoOrden.PAGADA);
+        });
+
+        verify(ordenRepository, never()).actualizarEstadoMasivo(anyCollection(), any(), any());
+    }
+
     @Test
     @DisplayName("Debería eliminar orden exitosamente cuando está en estado PENDIENTE")
     void testEliminarOrdenExitoso() {
@@ -401,6 +526,7 @@ class OrdenServiceImplTest {
         ordenService.eliminarOrden(1L);
 
         // Assert
+        verify(reservaStockService).liberarOrden(1L);
         verify(ordenRepository).delete(orden);
     }
 
@@ -423,7 +549,7 @@ class OrdenServiceImplTest {
     @DisplayName("Debería aplicar descuento exitosamente cuando datos son válidos")
     void testAplicarDescuentoExitoso() {
         // Arrange
-        when(ordenRepository.findByIdWithDetalles(1L)).thenReturn(Optional.of(orden));
+        when(ordenRepository.findById(1L)).thenReturn(Optional.of(orden));
         when(ordenRepository.save(any(Orden.class))).thenReturn(orden);
         when(ordenMapper.toDto(any(Orden.class))).thenReturn(ordenDto);
 
@@ -440,7 +566,7 @@ class OrdenServiceImplTest {
     void testAplicarDescuentoConEstadoNoPendiente() {
         // Arrange
         orden.setEstado(EstadoOrden.PAGADA);
-        when(ordenRepository.findByIdWithDetalles(1L)).thenReturn(Optional.of(orden));
+        when(ordenRepository.findById(1L)).thenReturn(Optional.of(orden));
 
         // Act & Assert
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
@@ -454,7 +580,7 @@ class OrdenServiceImplTest {
     @DisplayName("Debería lanzar excepción al aplicar descuento con porcentaje inválido")
     void testAplicarDescuentoConPorcentajeInvalido() {
         // Arrange
-        when(ordenRepository.findByIdWithDetalles(1L)).thenReturn(Optional.of(orden));
+        when(ordenRepository.findById(1L)).thenReturn(Optional.of(orden));
 
         // Act & Assert - Porcentaje negativo
         RuntimeException exceptionNegativo = assertThrows(RuntimeException.class, () -> {
@@ -514,4 +640,175 @@ class OrdenServiceImplTest {
         // Assert
         assertEquals(1, resultados.size());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Debería aplicar descuento sobre el subtotal incremental sin cargar las líneas")
+    void testAplicarDescuentoSinCargarLineas() {
+        // Arrange
+        when(ordenRepository.findById(1L)).thenReturn(Optional.of(orden));
+        when(ordenRepository.save(any(Orden.class))).thenReturn(orden);
+        when(ordenMapper.toDto(any(Orden.class))).thenReturn(ordenDto);
+
+        // Act
+        ordenService.aplicarDescuento(1L, 10.0);
+
+        // Assert
+        assertEquals(100.0, orden.getDescuento(), 0.001);
+        assertEquals(918.0, orden.getTotal(), 0.001);
+        verify(ordenRepository, never()).findByIdWithDetalles(anyLong());
+    }
+
+    @Test
+    @DisplayName("Debería recalcular los totales completos desde las líneas bajo demanda")
+    void testRecalcularTotalesOrden() {
+        // Arrange
+        orden.setSubtotal(0.0);
+        orden.setDescuento(0.0);
+        orden.getProductos().add(detalleOrden);
+        when(ordenRepository.findByIdWithDetalles(1L)).thenReturn(Optional.of(orden));
+        when(ordenRepository.save(any(Orden.class))).thenReturn(orden);
+        when(ordenMapper.toDto(any(Orden.class))).thenReturn(ordenDto);
+
+        // Act
+        ordenService.recalcularTotalesOrden(1L);
+
+        // Assert
+        assertEquals(1000.0, orden.getSubtotal(), 0.001);
+        assertEquals(1020.0, orden.getTotal(), 0.001);
+        assertTrue(orden.totalesConsistentes());
+    }
+
+    @Test
+    @DisplayName("Debería devolver cursor cuando hay más órdenes que el límite")
+    void testListarOrdenesConSiguientePagina() {
+        // Arrange
+        LocalDateTime fecha = LocalDateTime.of(2025, 1, 15, 10, 30);
+        List<OrdenResumenDto> filas = Arrays.asList(
+                resumen(3L, fecha),
+                resumen(2L, fecha),
+                resumen(1L, fecha.minusDays(1))
+        );
+        when(ordenRepository.findResumenAntesDe(any(LocalDateTime.class), eq(Long.MAX_VALUE), any(Pageable.class)))
+                .thenReturn(filas);
+
+        // Act
+        PaginaOrdenesDto pagina = ordenService.listarOrdenes(null, 2);
+
+        // Assert
+        assertEquals(2, pagina.ordenes().size());
+        assertTrue(pagina.hayMas());
+        assertNotNull(pagina.siguienteCursor());
+        verify(ordenRepository).findResumenAntesDe(any(LocalDateTime.class), eq(Long.MAX_VALUE),
+                argThat(pageable -> pageable.getPageSize() == 3));
+        verify(ordenRepository, never()).findAll();
+    }
+
+    @Test
+    @DisplayName("Debería continuar desde el cursor de la página anterior")
+    void testListarOrdenesDesdeCursor() {
+        // Arrange
+        LocalDateTime fecha = LocalDateTime.of(2025, 1, 15, 10, 30);
+        when(ordenRepository.findResumenAntesDe(any(LocalDateTime.class), anyLong(), any(Pageable.class)))
+                .thenReturn(Arrays.asList(resumen(3L, fecha), resumen(2L, fecha), resumen(1L, fecha)))
+                .thenReturn(List.of(resumen(1L, fecha)));
+        String cursor = ordenService.listarOrdenes(null, 2).siguienteCursor();
+
+        // Act
+        PaginaOrdenesDto pagina = ordenService.listarOrdenes(cursor, 2);
+
+        // Assert
+        assertEquals(1, pagina.ordenes().size());
+        assertFalse(pagina.hayMas());
+        assertNull(pagina.siguienteCursor());
+        verify(ordenRepository).findResumenAntesDe(eq(fecha), eq(2L), any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Debería lanzar excepción cuando el cursor es inválido")
+    void testListarOrdenesConCursorInvalido() {
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
+            ordenService.listarOrdenesPorEstado(EstadoOrden.PENDIENTE, "no-es-un-cursor", 10);
+        });
+
+        assertTrue(exception.getMessage().contains("Cursor de paginación inválido"));
+    }
+
+    @Test
+    @DisplayName("Debería generar el resumen de monitoreo con la consulta agregada por estado")
+    void testGetOrdenesSummaryForMonitoring() {
+        // Arrange
+        when(ordenRepository.resumirPorEstado()).thenReturn(Arrays.asList(
+                new ResumenEstadoOrdenDto(EstadoOrden.PENDIENTE, 3L, 300.0),
+                new ResumenEstadoOrdenDto(EstadoOrden.PAGADA, 2L, 2019.6)
+        ));
+
+        // Act
+        Map<String, Object> summary = ordenService.getOrdenesSummaryForMonitoring();
+
+        // Assert
+        assertEquals(5L, summary.get("totalOrdenes"));
+        assertEquals(2L, summary.get("totalPagadas"));
+        assertEquals(2019.6, (Double) summary.get("totalVentas"), 0.001);
+        verify(ordenRepository, never()).findAll();
+    }
+
+    @Test
+    @DisplayName("Debería reutilizar el resumen cacheado dentro del TTL")
+    void testGetOrdenesSummaryForMonitoringCacheado() {
+        // Arrange
+        ReflectionTestUtils.setField(ordenService, "summaryTtlMs", 60_000L);
+        when(ordenRepository.resumirPorEstado()).thenReturn(List.of(
+                new ResumenEstadoOrdenDto(EstadoOrden.PAGADA, 1L, 1009.8)
+        ));
+
+        // Act
+        Map<String, Object> primero = ordenService.getOrdenesSummaryForMonitoring();
+        Map<String, Object> segundo = ordenService.getOrdenesSummaryForMonitoring();
+
+        // Assert
+        assertSame(primero, segundo);
+        verify(ordenRepository, times(1)).resumirPorEstado();
+    }
+
+    private OrdenResumenDto resumen(Long id, LocalDateTime fecha) {
+        return new OrdenResumenDto(id, "ORD-" + id, fecha, EstadoOrden.PENDIENTE,
+                1L, "Juan Pérez", 1L, "Carlos Vendedor", 1000.0, 10.0, 19.8, 1009.8);
+    }
+
+    @Test
+    @DisplayName("Debería impedir que una orden abierta pase a ENTREGADA o CERRADA sin pagarse")
+    void testActualizarEstadoOrdenSinPagar() {
+        // Arrange
+        orden.setEstado(EstadoOrden.DISPONIBLEPARAPAGO);
+        when(ordenRepository.findById(1L)).thenReturn(Optional.of(orden));
+
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
+            ordenService.actualizarEstadoOrden(1L, EstadoOrden.ENTREGADA);
+        });
+
+        assertTrue(exception.getMessage().contains("Primero debe marcarse como PAGADA"));
+        verify(reservaStockService, never()).confirmarOrden(anyLong());
+        verify(ordenRepository, never()).actualizarEstadoSiCoincide(anyLong(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Debería rechazar en bloque el cierre de órdenes abiertas sin pagar")
+    void testTransicionarEstadoMasivoSinPagar() {
+        // Arrange
+        when(ordenRepository.findEstadosByIdIn(anyCollection())).thenReturn(Arrays.asList(
+                new EstadoOrdenActualDto(1L, EstadoOrden.AGREGANDOPRODUCTOS, 100.0),
+                new EstadoOrdenActualDto(2L, EstadoOrden.DISPONIBLEPARAPAGO, 50.0)
+        ));
+
+        // Act
+        TransicionMasivaResultadoDto resultado = ordenService.transicionarEstadoMasivo(
+                Arrays.asList(1L, 2L), EstadoOrden.CERRADA);
+
+        // Assert
+        assertEquals(0, resultado.actualizadas());
+        assertEquals(2, resultado.rechazadas().size());
+        verify(ordenRepository, never()).actualizarEstadoMasivo(anyCollection(), any(), any());
+    }
+}
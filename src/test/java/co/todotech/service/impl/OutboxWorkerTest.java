@@ -0,0 +1,111 @@
+package co.todotech.service.impl;
+
+import co.todotech.model.dto.eventos.EventoDominioDto;
+import co.todotech.model.entities.EventoOutbox;
+import co.todotech.model.enums.EstadoEventoOutbox;
+import co.todotech.model.enums.TipoEventoDominio;
+import co.todotech.repository.EventoOutboxRepository;
+import co.todotech.service.EventoDominioListener;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxWorkerTest {
+
+    @Mock
+    private EventoOutboxRepository eventoOutboxRepository;
+
+    @Mock
+    private EventoDominioListener listener;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private OutboxWorker outboxWorker;
+
+    @BeforeEach
+    void setUp() {
+        outboxWorker = new OutboxWorker(eventoOutboxRepository, List.of(listener), new ObjectMapper(), transactionManager);
+        ReflectionTestUtils.setField(outboxWorker, "tamanoLote", 100);
+        ReflectionTestUtils.setField(outboxWorker, "maxIntentos", 3);
+    }
+
+    private EventoOutbox evento(Long id, int intentos) {
+        LocalDateTime ahora = LocalDateTime.now();
+        return EventoOutbox.builder()
+                .id(id)
+                .tipo(TipoEventoDominio.ORDEN_PAGADA)
+                .agregadoId(10L)
+                .payload("{\"numeroOrden\":\"ORD-1\",\"total\":150.0}")
+                .estado(EstadoEventoOutbox.PENDIENTE)
+                .intentos(intentos)
+                .siguienteIntento(ahora)
+                .fechaCreacion(ahora)
+                .build();
+    }
+
+    @Test
+    @DisplayName("Debería entregar el evento a los listeners y marcarlo como procesado")
+    void testProcesarLoteExitoso() {
+        // Arrange
+        EventoOutbox evento = evento(1L, 0);
+        when(eventoOutboxRepository.bloquearPendientes(eq(EstadoEventoOutbox.PENDIENTE), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(Arrays.asList(evento));
+        when(listener.soporta(TipoEventoDominio.ORDEN_PAGADA)).thenReturn(true);
+
+        // Act
+        int procesados = outboxWorker.procesarLote();
+
+        // Assert
+        assertEquals(1, procesados);
+        assertEquals(EstadoEventoOutbox.PROCESADO, evento.getEstado());
+        assertNotNull(evento.getProcesadoEn());
+
+        ArgumentCaptor<EventoDominioDto> captor = ArgumentCaptor.forClass(EventoDominioDto.class);
+        verify(listener).manejar(captor.capture());
+        assertEquals(1L, captor.getValue().id());
+        assertEquals("ORD-1", captor.getValue().datos().get("numeroOrden"));
+    }
+
+    @Test
+    @DisplayName("Debería reprogramar el evento si el listener falla y marcarlo FALLIDO al agotar los intentos")
+    void testProcesarLoteConFalloDelListener() {
+        // Arrange
+        EventoOutbox reintentable = evento(1L, 0);
+        EventoOutbox agotado = evento(2L, 2);
+        when(eventoOutboxRepository.bloquearPendientes(eq(EstadoEventoOutbox.PENDIENTE), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(Arrays.asList(reintentable, agotado));
+        when(listener.soporta(any())).thenReturn(true);
+        doThrow(new IllegalStateException("Servicio externo caído")).when(listener).manejar(any());
+
+        // Act
+        outboxWorker.procesarLote();
+
+        // Assert
+        assertEquals(EstadoEventoOutbox.PENDIENTE, reintentable.getEstado());
+        assertEquals(1, reintentable.getIntentos());
+        assertTrue(reintentable.getSiguienteIntento().isAfter(LocalDateTime.now()));
+        assertEquals("Servicio externo caído", reintentable.getUltimoError());
+
+        assertEquals(EstadoEventoOutbox.FALLIDO, agotado.getEstado());
+        assertEquals(3, agotado.getIntentos());
+        assertNull(agotado.getProcesadoEn());
+    }
+}
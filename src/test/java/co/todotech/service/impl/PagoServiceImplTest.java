@@ -10,6 +10,8 @@ import co.todotech.repository.MetodoPagoRepository;
 import co.todotech.repository.OrdenRepository;
 import co.todotech.repository.PagoRepository;
 import co.todotech.repository.UsuarioRepository;
+import co.todotech.service.AuditoriaService;
+import co.todotech.service.OutboxEventosService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -45,6 +47,12 @@ class PagoServiceImplTest {
     @Mock
     private UsuarioRepository usuarioRepository;
 
+    @Mock
+    private OutboxEventosService outboxEventos;
+
+    @Mock
+    private AuditoriaService auditoriaService;
+
     @InjectMocks
     private PagoServiceImpl pagoService;
 
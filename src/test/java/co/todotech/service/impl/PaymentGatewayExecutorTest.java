@@ -0,0 +1,148 @@
+package co.todotech.service.impl;
+
+import co.todotech.exception.pasarela.PasarelaNoDisponibleException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PaymentGatewayExecutorTest {
+
+    private PaymentGatewayExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = new PaymentGatewayExecutor();
+        ReflectionTestUtils.setField(executor, "timeoutMs", 2000L);
+        ReflectionTestUtils.setField(executor, "maxConcurrent", 5);
+        ReflectionTestUtils.setField(executor, "bulkheadWaitMs", 20L);
+        ReflectionTestUtils.setField(executor, "failureThreshold", 3);
+        ReflectionTestUtils.setField(executor, "openMs", 60000L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("Debería devolver el resultado de la llamada a la pasarela")
+    void testExecuteExitoso() throws Exception {
+        // Act
+        String resultado = executor.execute("stripe", () -> "pi_123").get(1, TimeUnit.SECONDS);
+
+        // Assert
+        assertEquals("pi_123", resultado);
+        assertEquals(PaymentGatewayExecutor.CircuitBreaker.State.CLOSED, executor.circuitState("stripe"));
+    }
+
+    @Test
+    @DisplayName("Debería abrir el circuito tras fallos consecutivos y rechazar sin llamar a la pasarela")
+    void testCircuitoAbiertoTrasFallos() {
+        // Arrange
+        AtomicInteger llamadas = new AtomicInteger();
+        for (int i = 0; i < 3; i++) {
+            CompletableFuture<String> fallida = executor.execute("stripe", () -> {
+                llamadas.incrementAndGet();
+                throw new PasarelaNoDisponibleException("Stripe no está disponible");
+            });
+            assertThrows(ExecutionException.class, () -> fallida.get(1, TimeUnit.SECONDS));
+        }
+
+        // Act
+        CompletableFuture<String> rechazada = executor.execute("stripe", () -> {
+            llamadas.incrementAndGet();
+            return "pi_123";
+        });
+
+        // Assert
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> rechazada.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(PasarelaNoDisponibleException.class, ex.getCause());
+        assertEquals(3, llamadas.get());
+        assertEquals(PaymentGatewayExecutor.CircuitBreaker.State.OPEN, executor.circuitState("stripe"));
+        assertEquals(PaymentGatewayExecutor.CircuitBreaker.State.CLOSED, executor.circuitState("wompi"));
+    }
+
+    @Test
+    @DisplayName("Debería fallar con PasarelaNoDisponibleException cuando vence el plazo")
+    void testPlazoVencido() {
+        // Arrange
+        ReflectionTestUtils.setField(executor, "timeoutMs", 50L);
+
+        // Act
+        CompletableFuture<String> lenta = executor.execute("stripe", () -> {
+            try {
+                Thread.sleep(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "pi_123";
+        });
+
+        // Assert
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> lenta.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(PasarelaNoDisponibleException.class, ex.getCause());
+    }
+
+    @Test
+    @DisplayName("Debería rechazar las llamadas que superan el bulkhead de la pasarela")
+    void testBulkheadLleno() throws Exception {
+        // Arrange
+        ReflectionTestUtils.setField(executor, "maxConcurrent", 1);
+        CountDownLatch enCurso = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        CompletableFuture<String> ocupada = executor.execute("stripe", () -> {
+            enCurso.countDown();
+            try {
+                liberar.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "pi_1";
+        });
+        assertTrue(enCurso.await(1, TimeUnit.SECONDS));
+
+        // Act
+        CompletableFuture<String> rechazada = executor.execute("stripe", () -> "pi_2");
+
+        // Assert
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> rechazada.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(PasarelaNoDisponibleException.class, ex.getCause());
+        liberar.countDown();
+        assertEquals("pi_1", ocupada.get(1, TimeUnit.SECONDS));
+        assertEquals(PaymentGatewayExecutor.CircuitBreaker.State.CLOSED, executor.circuitState("stripe"));
+    }
+
+    @Test
+    @DisplayName("Debería contar llamadas, errores y rechazos de la ventana en la salud de la pasarela")
+    void testEstadisticasDeSalud() throws Exception {
+        // Arrange
+        executor.execute("stripe", () -> "pi_1").get(1, TimeUnit.SECONDS);
+        executor.execute("stripe", () -> "pi_2").get(1, TimeUnit.SECONDS);
+        CompletableFuture<String> fallida = executor.execute("stripe", () -> {
+            throw new PasarelaNoDisponibleException("Stripe no está disponible");
+        });
+        assertThrows(ExecutionException.class, () -> fallida.get(1, TimeUnit.SECONDS));
+
+        // Act
+        PaymentGatewayExecutor.GatewayHealth salud = executor.health("stripe");
+        PaymentGatewayExecutor.GatewayHealth sinLlamadas = executor.health("wompi");
+
+        // Assert
+        assertEquals(3, salud.calls());
+        assertEquals(1, salud.failures());
+        assertEquals(1.0 / 3, salud.errorRate(), 0.0001);
+        assertTrue(salud.acceptingCalls());
+        assertEquals(0, sinLlamadas.calls());
+        assertEquals(0.0, sinLlamadas.errorRate());
+    }
+}
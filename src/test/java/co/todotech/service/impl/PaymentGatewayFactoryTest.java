@@ -0,0 +1,107 @@
+package co.todotech.service.impl;
+
+import co.todotech.model.dto.monitoreo.EstadoPasarelaDto;
+import co.todotech.model.enums.TipoMetodo;
+import co.todotech.service.PaymentGatewayService;
+import co.todotech.service.impl.PaymentGatewayExecutor.CircuitBreaker;
+import co.todotech.service.impl.PaymentGatewayExecutor.GatewayHealth;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class PaymentGatewayFactoryTest {
+
+    @Mock
+    private PaymentGatewayService stripe;
+
+    @Mock
+    private PaymentGatewayService wompi;
+
+    @Mock
+    private PaymentGatewayExecutor gatewayExecutor;
+
+    private PaymentGatewayFactory factory;
+
+    @BeforeEach
+    void setUp() {
+        when(stripe.getGatewayName()).thenReturn("stripe");
+        when(stripe.supports(any())).thenAnswer(inv -> switch ((TipoMetodo) inv.getArgument(0)) {
+            case STRIPE, TARJETA_CREDITO, TARJETA_DEBITO -> true;
+            default -> false;
+        });
+        when(wompi.getGatewayName()).thenReturn("wompi");
+        when(wompi.supports(any())).thenAnswer(inv -> switch ((TipoMetodo) inv.getArgument(0)) {
+            case WOMPI, TARJETA_CREDITO, TARJETA_DEBITO -> true;
+            default -> false;
+        });
+        when(gatewayExecutor.getTimeoutMs()).thenReturn(12000L);
+        when(gatewayExecutor.health("stripe")).thenReturn(salud("stripe", CircuitBreaker.State.CLOSED, true, 0.0, 300.0));
+        when(gatewayExecutor.health("wompi")).thenReturn(salud("wompi", CircuitBreaker.State.CLOSED, true, 0.0, 300.0));
+
+        factory = new PaymentGatewayFactory(List.of(stripe, wompi), gatewayExecutor);
+    }
+
+    private GatewayHealth salud(String nombre, CircuitBreaker.State estado, boolean disponible,
+                                double tasaError, double latenciaMediaMs) {
+        return new GatewayHealth(nombre, estado, disponible, 0, 20, Math.round(20 * tasaError), 0,
+                tasaError, latenciaMediaMs, (long) latenciaMediaMs * 2, 60000);
+    }
+
+    @Test
+    @DisplayName("Debería usar la única pasarela que atiende el método sin consultar su salud")
+    void testPasarelaUnica() {
+        // Act
+        PaymentGatewayService servicio = factory.getPaymentService(TipoMetodo.STRIPE);
+
+        // Assert
+        assertSame(stripe, servicio);
+        verify(gatewayExecutor, never()).health(anyString());
+        assertThrows(IllegalArgumentException.class, () -> factory.getPaymentService(TipoMetodo.EFECTIVO));
+    }
+
+    @Test
+    @DisplayName("Debería elegir la pasarela más sana y respetar el orden de registro en empate")
+    void testPasarelaMasSana() {
+        // Act & Assert: empate → la primera registrada
+        assertSame(stripe, factory.getPaymentService(TipoMetodo.TARJETA_CREDITO));
+
+        // Arrange: Stripe lenta y con errores
+        when(gatewayExecutor.health("stripe")).thenReturn(salud("stripe", CircuitBreaker.State.CLOSED, true, 0.2, 900.0));
+
+        // Act & Assert
+        assertSame(wompi, factory.getPaymentService(TipoMetodo.TARJETA_CREDITO));
+    }
+
+    @Test
+    @DisplayName("Debería descartar la pasarela con el circuito abierto y exponer su estado")
+    void testCircuitoAbierto() {
+        // Arrange
+        when(gatewayExecutor.health("wompi")).thenReturn(salud("wompi", CircuitBreaker.State.CLOSED, true, 0.0, 100.0));
+        when(gatewayExecutor.health("stripe")).thenReturn(salud("stripe", CircuitBreaker.State.OPEN, false, 1.0, 0.0));
+
+        // Act
+        PaymentGatewayService servicio = factory.getPaymentService(TipoMetodo.TARJETA_DEBITO);
+        List<EstadoPasarelaDto> estado = factory.gatewayStatus();
+
+        // Assert
+        assertSame(wompi, servicio);
+        assertEquals(2, estado.size());
+        assertEquals("stripe", estado.get(0).pasarela());
+        assertEquals("OPEN", estado.get(0).circuito());
+        assertFalse(estado.get(0).disponible());
+        assertEquals(List.of(TipoMetodo.TARJETA_CREDITO, TipoMetodo.TARJETA_DEBITO, TipoMetodo.STRIPE),
+                estado.get(0).metodos());
+    }
+}
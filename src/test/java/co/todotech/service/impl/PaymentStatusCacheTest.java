@@ -0,0 +1,108 @@
+package co.todotech.service.impl;
+
+import co.todotech.model.dto.pasarela.PaymentIntentResponseDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PaymentStatusCacheTest {
+
+    private PaymentStatusCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new PaymentStatusCache();
+        ReflectionTestUtils.setField(cache, "pendingTtlMs", 60000L);
+        ReflectionTestUtils.setField(cache, "terminalTtlMs", 600000L);
+        ReflectionTestUtils.setField(cache, "maxEntries", 100);
+    }
+
+    private PaymentIntentResponseDto estado(String status, String errorMessage) {
+        return new PaymentIntentResponseDto("secret", "pi_123", status, false, null, errorMessage, null);
+    }
+
+    @Test
+    @DisplayName("Debería compartir una sola llamada entre consultas simultáneas del mismo intent")
+    void testConsultasSimultaneasCompartenLlamada() throws Exception {
+        // Arrange
+        AtomicInteger llamadas = new AtomicInteger();
+        CompletableFuture<PaymentIntentResponseDto> pasarela = new CompletableFuture<>();
+
+        // Act
+        CompletableFuture<PaymentIntentResponseDto> primera = cache.get("pi_123", () -> {
+            llamadas.incrementAndGet();
+            return pasarela;
+        });
+        CompletableFuture<PaymentIntentResponseDto> segunda = cache.get("pi_123", () -> {
+            llamadas.incrementAndGet();
+            return pasarela;
+        });
+        pasarela.complete(estado("processing", null));
+        CompletableFuture<PaymentIntentResponseDto> tercera = cache.get("pi_123", () -> {
+            llamadas.incrementAndGet();
+            return CompletableFuture.completedFuture(estado("succeeded", null));
+        });
+
+        // Assert
+        assertEquals(1, llamadas.get());
+        assertEquals("processing", primera.get().status());
+        assertEquals("processing", segunda.get().status());
+        assertEquals("processing", tercera.get().status());
+    }
+
+    @Test
+    @DisplayName("Debería volver a la pasarela cuando vence el TTL de un estado no definitivo")
+    void testTtlCortoParaEstadosPendientes() throws Exception {
+        // Arrange
+        ReflectionTestUtils.setField(cache, "pendingTtlMs", 0L);
+        cache.store("pi_123", estado("processing", null));
+        AtomicInteger llamadas = new AtomicInteger();
+
+        // Act
+        PaymentIntentResponseDto resultado = cache.get("pi_123", () -> {
+            llamadas.incrementAndGet();
+            return CompletableFuture.completedFuture(estado("succeeded", null));
+        }).get();
+        PaymentIntentResponseDto enCache = cache.get("pi_123", () -> {
+            llamadas.incrementAndGet();
+            return CompletableFuture.completedFuture(estado("processing", null));
+        }).get();
+
+        // Assert
+        assertEquals(1, llamadas.get());
+        assertEquals("succeeded", resultado.status());
+        assertEquals("succeeded", enCache.status());
+    }
+
+    @Test
+    @DisplayName("No debería guardar respuestas con error ni fallos de la pasarela")
+    void testNoGuardaErrores() {
+        // Arrange
+        AtomicInteger llamadas = new AtomicInteger();
+
+        // Act
+        cache.get("pi_123", () -> {
+            llamadas.incrementAndGet();
+            return CompletableFuture.completedFuture(estado("failed", "No such payment_intent"));
+        });
+        CompletableFuture<PaymentIntentResponseDto> fallida = cache.get("pi_123", () -> {
+            llamadas.incrementAndGet();
+            return CompletableFuture.failedFuture(new IllegalStateException("timeout"));
+        });
+        cache.get("pi_123", () -> {
+            llamadas.incrementAndGet();
+            return CompletableFuture.completedFuture(estado("succeeded", null));
+        });
+
+        // Assert
+        assertTrue(fallida.isCompletedExceptionally());
+        assertEquals(3, llamadas.get());
+        assertEquals(1, cache.size());
+    }
+}
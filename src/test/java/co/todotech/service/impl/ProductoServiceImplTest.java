@@ -7,8 +7,12 @@ import co.todotech.mapper.ProductoMapper;
 import co.todotech.model.dto.producto.ProductoDto;
 import co.todotech.model.entities.Categoria;
 import co.todotech.model.entities.Producto;
+import co.todotech.model.enums.AccionAuditoria;
 import co.todotech.model.enums.EstadoProducto;
+import co.todotech.model.enums.TipoMovimiento;
 import co.todotech.repository.ProductoRepository;
+import co.todotech.service.AuditoriaService;
+import co.todotech.service.InventarioService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -23,7 +27,10 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -35,6 +42,15 @@ class ProductoServiceImplTest {
     @Mock
     private ProductoMapper productoMapper;
 
+    @Mock
+    private ReservasStockLedger reservasStock;
+
+    @Mock
+    private AuditoriaService auditoriaService;
+
+    @Mock
+    private InventarioService inventarioService;
+
     @InjectMocks
     private ProductoServiceImpl productoService;
 
@@ -213,7 +229,7 @@ class ProductoServiceImplTest {
         dtoActualizado.setStock(15);
         dtoActualizado.setCategoria(categoria);
 
-        when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
+        when(productoRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(producto));
         // Solo mantener esta línea si es necesaria
         when(productoRepository.existsByNombreAndIdNot(anyString(), anyLong())).thenReturn(false);
         when(productoRepository.save(any(Producto.class))).thenReturn(producto);
@@ -227,6 +243,40 @@ class ProductoServiceImplTest {
         verify(productoRepository).save(producto);
     }
 
+    @Test
+    @DisplayName("Debería editar el producto bajo bloqueo sin tocar el stock cuando no cambia")
+    void testActualizarProductoSinCambioDeStock() {
+        // Arrange
+        ProductoDto dtoActualizado = new ProductoDto();
+        dtoActualizado.setNombre("Laptop Gaming Pro");
+        dtoActualizado.setCodigo("LAP-001");
+        dtoActualizado.setPrecio(1600.0);
+        dtoActualizado.setStock(10);
+        dtoActualizado.setCategoria(categoria);
+
+        when(productoRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(producto));
+        when(productoRepository.existsByNombreAndIdNot(anyString(), anyLong())).thenReturn(false);
+        doAnswer(invocacion -> {
+            Producto destino = invocacion.getArgument(1);
+            destino.setNombre(dtoActualizado.getNombre());
+            destino.setPrecio(dtoActualizado.getPrecio());
+            destino.setStock(dtoActualizado.getStock());
+            return null;
+        }).when(productoMapper).updateProductoFromDto(dtoActualizado, producto);
+
+        // Act
+        productoService.actualizarProducto(1L, dtoActualizado);
+
+        // Assert
+        verify(productoRepository, never()).findById(anyLong());
+        verify(productoRepository).save(producto);
+        assertEquals(10, producto.getStock());
+        // El stock no queda sucio (con @DynamicUpdate no entra en el UPDATE): sin movimiento ni auditoría de stock
+        verify(inventarioService, never()).registrarMovimiento(anyLong(), any(), anyInt(), any());
+        verify(auditoriaService, never()).registrar(any(), anyLong(), eq(AccionAuditoria.CAMBIO_STOCK), anyString());
+        verify(auditoriaService).registrar(any(), eq(1L), eq(AccionAuditoria.CAMBIO_PRECIO), eq("1500.0 -> 1600.0"));
+    }
+
     @Test
     @DisplayName("Debería lanzar excepción al actualizar con código duplicado")
     void testActualizarProductoConCodigoDuplicado() {
@@ -235,7 +285,7 @@ class ProductoServiceImplTest {
         dtoActualizado.setCodigo("LAP-002"); // Código diferente al original
         dtoActualizado.setCategoria(categoria);
 
-        when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
+        when(productoRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(producto));
         when(productoRepository.existsByCodigoAndIdNot("LAP-002", 1L)).thenReturn(true);
 
         // Act & Assert
@@ -365,4 +415,114 @@ class ProductoServiceImplTest {
 
         assertEquals("La categoría es obligatoria", exception.getMessage());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Debería decrementar stock con un UPDATE atómico sin cargar el producto")
+    void testDecrementarStockAtomico() {
+        // Arrange
+        when(productoRepository.decrementarStockSiDisponible(1L, 3,
+                EstadoProducto.ACTIVO, EstadoProducto.AGOTADO, EstadoProducto.INACTIVO)).thenReturn(1);
+
+        // Act
+        productoService.decrementarStock(1L, 3);
+
+        // Assert
+        verify(productoRepository).decrementarStockSiDisponible(1L, 3,
+                EstadoProducto.ACTIVO, EstadoProducto.AGOTADO, EstadoProducto.INACTIVO);
+        verify(productoRepository, never()).findById(anyLong());
+        verify(productoRepository, never()).save(any(Producto.class));
+        verify(reservasStock).invalidarProductoAlConfirmar(1L);
+        verify(inventarioService).registrarMovimiento(1L, TipoMovimiento.VENTA, -3, null);
+    }
+
+    @Test
+    @DisplayName("Debería lanzar excepción de stock insuficiente cuando el UPDATE no afecta filas")
+    void testDecrementarStockInsuficiente() {
+        // Arrange
+        when(productoRepository.decrementarStockSiDisponible(1L, 15,
+                EstadoProducto.ACTIVO, EstadoProducto.AGOTADO, EstadoProducto.INACTIVO)).thenReturn(0);
+        when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
+        when(productoRepository.findStockById(1L)).thenReturn(Optional.of(10));
+
+        // Act & Assert
+        ProductoBusinessException exception = assertThrows(ProductoBusinessException.class, () -> {
+            productoService.decrementarStock(1L, 15);
+        });
+
+        assertEquals("Stock insuficiente. Stock actual: 10, cantidad a decrementar: 15", exception.getMessage());
+        verify(productoRepository, never()).save(any(Producto.class));
+    }
+
+    @Test
+    @DisplayName("Debería rechazar ajuste de stock de producto inactivo")
+    void testIncrementarStockProductoInactivo() {
+        // Arrange
+        producto.setEstado(EstadoProducto.INACTIVO);
+        when(productoRepository.incrementarStockAtomico(1L, 5,
+                EstadoProducto.ACTIVO, EstadoProducto.AGOTADO, EstadoProducto.INACTIVO)).thenReturn(0);
+        when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
+
+        // Act & Assert
+        ProductoBusinessException exception = assertThrows(ProductoBusinessException.class, () -> {
+            productoService.ajustarStockProducto(1L, 5, "INCREMENTAR");
+        });
+
+        assertEquals("No se puede ajustar el stock de un producto inactivo", exception.getMessage());
+    }
+
+    @Test
+    @DisplayName("Debería registrar el AJUSTE como diferencia respecto al stock leído con bloqueo")
+    void testAjustarStockDesdeLecturaBloqueada() {
+        // Arrange
+        producto.setStock(7); // una venta ya descontó 3 de los 10 iniciales antes de tomar el bloqueo
+        when(productoRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(producto));
+
+        // Act
+        productoService.ajustarStockProducto(1L, 20, "AJUSTAR");
+
+        // Assert
+        verify(productoRepository, never()).findById(anyLong());
+        verify(productoRepository).save(producto);
+        assertEquals(20, producto.getStock());
+        verify(inventarioService).registrarMovimiento(1L, TipoMovimiento.AJUSTE, 13, "ajuste-manual");
+        verify(auditoriaService).registrar(any(), eq(1L), eq(AccionAuditoria.CAMBIO_STOCK), eq("AJUSTAR: 7 -> 20"));
+    }
+
+    @Test
+    @DisplayName("Debería registrar el cambio de stock de la edición respecto al stock leído con bloqueo")
+    void testActualizarProductoConCambioDeStock() {
+        // Arrange
+        producto.setStock(8);
+        ProductoDto dtoActualizado = new ProductoDto();
+        dtoActualizado.setCodigo("LAP-001");
+        dtoActualizado.setStock(5);
+        dtoActualizado.setCategoria(categoria);
+
+        when(productoRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(producto));
+        doAnswer(invocacion -> {
+            Producto destino = invocacion.getArgument(1);
+            destino.setStock(dtoActualizado.getStock());
+            return null;
+        }).when(productoMapper).updateProductoFromDto(dtoActualizado, producto);
+
+        // Act
+        productoService.actualizarProducto(1L, dtoActualizado);
+
+        // Assert
+        verify(inventarioService).registrarMovimiento(1L, TipoMovimiento.AJUSTE, -3, "edicion-producto");
+    }
+
+    @Test
+    @DisplayName("Debería lanzar excepción cuando el producto a decrementar no existe")
+    void testDecrementarStockProductoNoEncontrado() {
+        // Arrange
+        when(productoRepository.decrementarStockSiDisponible(99L, 1,
+                EstadoProducto.ACTIVO, EstadoProducto.AGOTADO, EstadoProducto.INACTIVO)).thenReturn(0);
+        when(productoRepository.findById(99L)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(ProductoNotFoundException.class, () -> {
+            productoService.decrementarStock(99L, 1);
+        });
+    }
+}
@@ -0,0 +1,142 @@
+package co.todotech.service.impl;
+
+import co.todotech.exception.detalleorden.StockInsufficientException;
+import co.todotech.model.dto.inventario.DisponibilidadStockDto;
+import co.todotech.model.entities.Producto;
+import co.todotech.model.entities.ReservaStock;
+import co.todotech.model.enums.EstadoProducto;
+import co.todotech.repository.ProductoRepository;
+import co.todotech.repository.ReservaStockRepository;
+import co.todotech.service.InventarioService;
+import co.todotech.service.ProductoService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReservaStockServiceImplTest {
+
+    @Mock
+    private ReservaStockRepository reservaStockRepository;
+
+    @Mock
+    private ProductoRepository productoRepository;
+
+    @Mock
+    private ProductoService productoService;
+
+    @Spy
+    private ReservasStockLedger ledger = new ReservasStockLedger();
+
+    @Mock
+    private InventarioService inventarioService;
+
+    @InjectMocks
+    private ReservaStockServiceImpl reservaStockService;
+
+    private Producto producto;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(ledger, "snapshotTtlMs", 60000L);
+        ReflectionTestUtils.setField(reservaStockService, "ttlMinutos", 30L);
+
+        producto = Producto.builder()
+                .id(1L)
+                .nombre("Laptop Gaming")
+                .stock(10)
+                .estado(EstadoProducto.ACTIVO)
+                .build();
+    }
+
+    @Test
+    @DisplayName("Debería descontar las reservas del disponible sin volver a leer el producto")
+    void testReservarYConsultarDisponibilidad() {
+        // Arrange
+        when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
+        when(reservaStockRepository.findByOrdenIdAndProductoId(any(), any())).thenReturn(Optional.empty());
+
+        // Act
+        reservaStockService.reservar(100L, 1L, 4);
+        reservaStockService.reservar(200L, 1L, 3);
+        DisponibilidadStockDto global = reservaStockService.consultarDisponibilidad(1L, null);
+        DisponibilidadStockDto paraOrden100 = reservaStockService.consultarDisponibilidad(1L, 100L);
+
+        // Assert
+        assertEquals(3, global.disponible());
+        assertEquals(7, global.reservado());
+        assertEquals(7, paraOrden100.disponible());
+        verify(productoRepository, times(1)).findById(1L);
+        verify(reservaStockRepository, times(2)).save(any(ReservaStock.class));
+        verify(productoService, never()).decrementarStock(any(), any());
+    }
+
+    @Test
+    @DisplayName("Debería rechazar una reserva que supera el stock no reservado")
+    void testReservarSinDisponible() {
+        // Arrange
+        when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
+        when(reservaStockRepository.findByOrdenIdAndProductoId(any(), any())).thenReturn(Optional.empty());
+        reservaStockService.reservar(100L, 1L, 8);
+
+        // Act & Assert
+        assertThrows(StockInsufficientException.class, () -> {
+            reservaStockService.reservar(200L, 1L, 3);
+        });
+
+        assertEquals(2, reservaStockService.consultarDisponibilidad(1L, null).disponible());
+    }
+
+    @Test
+    @DisplayName("Debería convertir las reservas en descuento de stock al confirmar la orden")
+    void testConfirmarOrden() {
+        // Arrange
+        ReservaStock reserva = ReservaStock.builder()
+                .ordenId(100L)
+                .productoId(1L)
+                .cantidad(4)
+                .expiraEn(LocalDateTime.now().plusMinutes(30))
+                .activa(true)
+                .build();
+        when(reservaStockRepository.findByOrdenId(100L)).thenReturn(Arrays.asList(reserva));
+
+        // Act
+        reservaStockService.confirmarOrden(100L);
+
+        // Assert
+        verify(productoService).decrementarStock(1L, 4);
+        verify(reservaStockRepository).eliminarReservasDeOrden(100L);
+        verify(ledger).liberar(1L, 100L);
+    }
+
+    @Test
+    @DisplayName("Debería liberar en el barrido las reservas vencidas")
+    void testLiberarReservasExpiradas() {
+        // Arrange
+        when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
+        ledger.cargar(1L, 100L, 5, LocalDateTime.now().minusMinutes(1));
+        ledger.cargar(1L, 200L, 2, LocalDateTime.now().plusMinutes(10));
+        when(reservaStockRepository.desactivarExpiradas(any(LocalDateTime.class))).thenReturn(1);
+
+        // Act
+        int liberadas = reservaStockService.liberarReservasExpiradas();
+
+        // Assert
+        assertEquals(1, liberadas);
+        assertEquals(8, reservaStockService.consultarDisponibilidad(1L, null).disponible());
+    }
+}
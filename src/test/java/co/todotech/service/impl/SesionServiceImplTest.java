@@ -0,0 +1,134 @@
+package co.todotech.service.impl;
+
+import co.todotech.model.enums.MotivoCierreSesion;
+import co.todotech.repository.SesionRepository;
+import co.todotech.security.JwtPrincipal;
+import co.todotech.security.TokenBlacklistService;
+import co.todotech.security.VerifiedTokenCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.env.Environment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SesionServiceImplTest {
+
+    @Spy
+    private RegistroSesiones registro = new RegistroSesiones();
+
+    @Mock
+    private SesionWriter sesionWriter;
+
+    @Mock
+    private SesionRepository sesionRepository;
+
+    @Mock
+    private TokenBlacklistService tokenBlacklistService;
+
+    @Mock
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @Mock
+    private Environment env;
+
+    @InjectMocks
+    private SesionServiceImpl sesionService;
+
+    private Instant expira;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(sesionService, "maxSesionesPorDefecto", 3);
+        when(env.getProperty(anyString(), eq(Integer.class), anyInt())).thenReturn(3);
+        when(env.getProperty(eq("sesiones.max-por-rol.CAJERO"), eq(Integer.class), anyInt())).thenReturn(1);
+        sesionService.cargarLimites();
+
+        expira = Instant.now().plusSeconds(3600);
+    }
+
+    @Test
+    @DisplayName("Debería cerrar la sesión más antigua al superar el límite del rol")
+    void testAbrirSesionDesalojaLaMasAntigua() {
+        // Arrange
+        when(verifiedTokenCache.verify("token-1")).thenReturn(Optional.of(
+                new JwtPrincipal("cajero1", 5L, "CAJERO", "jti-1", expira, 0L)));
+        when(verifiedTokenCache.verify("token-2")).thenReturn(Optional.of(
+                new JwtPrincipal("cajero1", 5L, "CAJERO", "jti-2", expira, 0L)));
+
+        // Act
+        sesionService.abrirSesion("token-1");
+        sesionService.abrirSesion("token-2");
+
+        // Assert
+        assertNull(registro.buscar("jti-1"));
+        assertNotNull(registro.buscar("jti-2"));
+        assertEquals(1, registro.sesionesDe(5L).size());
+        verify(tokenBlacklistService).revoke("jti-1", 5L, expira);
+        verify(sesionWriter).encolarCierre(eq("jti-1"), eq(MotivoCierreSesion.LIMITE_EXCEDIDO), any(LocalDateTime.class));
+        verify(sesionWriter, times(2)).encolarAlta(any());
+    }
+
+    @Test
+    @DisplayName("Debería permitir varias sesiones mientras no se supere el límite del rol")
+    void testAbrirSesionDentroDelLimite() {
+        // Arrange
+        when(verifiedTokenCache.verify("token-1")).thenReturn(Optional.of(
+                new JwtPrincipal("vendedor1", 7L, "VENDEDOR", "jti-1", expira, 0L)));
+        when(verifiedTokenCache.verify("token-2")).thenReturn(Optional.of(
+                new JwtPrincipal("vendedor1", 7L, "VENDEDOR", "jti-2", expira, 0L)));
+
+        // Act
+        sesionService.abrirSesion("token-1");
+        sesionService.abrirSesion("token-2");
+
+        // Assert
+        assertEquals(2, registro.sesionesDe(7L).size());
+        verify(tokenBlacklistService, never()).revoke(anyString(), anyLong(), any(Instant.class));
+    }
+
+    @Test
+    @DisplayName("Debería revocar el token al expulsar una sesión")
+    void testExpulsarSesion() {
+        // Arrange
+        when(verifiedTokenCache.verify("token-1")).thenReturn(Optional.of(
+                new JwtPrincipal("vendedor1", 7L, "VENDEDOR", "jti-1", expira, 0L)));
+        sesionService.abrirSesion("token-1");
+
+        // Act
+        sesionService.expulsarSesion("jti-1");
+
+        // Assert
+        assertNull(registro.buscar("jti-1"));
+        verify(tokenBlacklistService).revoke("jti-1", 7L, expira);
+        verify(sesionWriter).encolarCierre(eq("jti-1"), eq(MotivoCierreSesion.EXPULSADA), any(LocalDateTime.class));
+    }
+
+    @Test
+    @DisplayName("Debería lanzar excepción al expulsar una sesión inexistente")
+    void testExpulsarSesionInexistente() {
+        // Arrange
+        when(sesionRepository.findByJti("jti-x")).thenReturn(Optional.empty());
+
+        // Act & Assert
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
+            sesionService.expulsarSesion("jti-x");
+        });
+
+        assertEquals("Sesión no encontrada o ya cerrada: jti-x", exception.getMessage());
+        verify(tokenBlacklistService, never()).revoke(anyString(), anyLong(), any(Instant.class));
+    }
+}
@@ -0,0 +1,190 @@
+package co.todotech.service.impl;
+
+import co.todotech.model.dto.ordenventa.EstadoOrdenActualDto;
+import co.todotech.model.entities.EventoStripe;
+import co.todotech.model.enums.EstadoEventoStripe;
+import co.todotech.model.enums.EstadoOrden;
+import co.todotech.model.enums.EstadoPago;
+import co.todotech.model.enums.TipoEventoDominio;
+import co.todotech.repository.EventoStripeRepository;
+import co.todotech.repository.OrdenRepository;
+import co.todotech.repository.PagoRepository;
+import co.todotech.service.OrdenService;
+import co.todotech.service.OutboxEventosService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StripeWebhookProcessorTest {
+
+    @Mock
+    private EventoStripeRepository eventoStripeRepository;
+
+    @Mock
+    private PagoRepository pagoRepository;
+
+    @Mock
+    private OrdenRepository ordenRepository;
+
+    @Mock
+    private OrdenService ordenService;
+
+    @Mock
+    private OutboxEventosService outboxEventos;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private PaymentStatusCache paymentStatusCache;
+    private StripeWebhookProcessor procesador;
+
+    @BeforeEach
+    void setUp() {
+        paymentStatusCache = new PaymentStatusCache();
+        ReflectionTestUtils.setField(paymentStatusCache, "maxEntries", 100);
+        procesador = new StripeWebhookProcessor(eventoStripeRepository, pagoRepository, ordenRepository,
+                ordenService, outboxEventos, paymentStatusCache, transactionManager);
+        ReflectionTestUtils.setField(procesador, "tamanoLote", 100);
+        ReflectionTestUtils.setField(procesador, "maxIntentos", 2);
+        ReflectionTestUtils.setField(procesador, "moneda", "cop");
+    }
+
+    private EventoStripe evento(String id, String tipo, String intent, Long ordenId, int intentos) {
+        LocalDateTime ahora = LocalDateTime.now();
+        return EventoStripe.builder()
+                .id(id)
+                .tipo(tipo)
+                .paymentIntentId(intent)
+                .ordenId(ordenId)
+                .montoRecibido(10000L)
+                .moneda("cop")
+                .payload("{}")
+                .estado(EstadoEventoStripe.PENDIENTE)
+                .intentos(intentos)
+                .creadoEnStripe(ahora)
+                .fechaRecepcion(ahora)
+                .build();
+    }
+
+    @Test
+    @DisplayName("Debería aplicar el lote con un UPDATE de pagos por estado y pagar solo las órdenes disponibles")
+    void testProcesarLote() {
+        // Arrange
+        List<EventoStripe> lote = List.of(
+                evento("evt_1", StripeWebhookProcessor.PAGO_EXITOSO, "pi_1", 10L, 0),
+                evento("evt_2", StripeWebhookProcessor.PAGO_EXITOSO, "pi_2", 11L, 0),
+                evento("evt_3", StripeWebhookProcessor.PAGO_FALLIDO, "pi_3", 12L, 0),
+                evento("evt_4", "charge.refunded", null, null, 0));
+        when(eventoStripeRepository.bloquearPendientes(eq(EstadoEventoStripe.PENDIENTE), any(Pageable.class)))
+                .thenReturn(lote);
+        when(pagoRepository.actualizarEstadoPorTransacciones(any(), any(), any())).thenReturn(1);
+        when(ordenRepository.findEstadosByIdIn(Set.of(10L, 11L))).thenReturn(List.of(
+                new EstadoOrdenActualDto(10L, EstadoOrden.DISPONIBLEPARAPAGO, 100.0),
+                new EstadoOrdenActualDto(11L, EstadoOrden.PAGADA, 100.0)));
+
+        // Act
+        int procesados = procesador.procesarLote();
+
+        // Assert
+        assertEquals(4, procesados);
+        verify(pagoRepository).actualizarEstadoPorTransacciones(
+                eq(Set.of("pi_1", "pi_2")), eq(Set.of(EstadoPago.PENDIENTE, EstadoPago.RECHAZADO)), eq(EstadoPago.APROBADO));
+        verify(pagoRepository).actualizarEstadoPorTransacciones(
+                eq(Set.of("pi_3")), eq(Set.of(EstadoPago.PENDIENTE)), eq(EstadoPago.RECHAZADO));
+        verify(ordenService).marcarComoPagada(10L);
+        verify(ordenService, never()).marcarComoPagada(11L);
+        verify(eventoStripeRepository).marcar(eq(List.of("evt_1", "evt_2", "evt_3")),
+                eq(EstadoEventoStripe.PROCESADO), any(LocalDateTime.class));
+        verify(eventoStripeRepository).marcar(eq(List.of("evt_4")),
+                eq(EstadoEventoStripe.IGNORADO), any(LocalDateTime.class));
+        verify(outboxEventos, times(2)).registrar(eq(TipoEventoDominio.PAGO_ESTADO_CAMBIADO_MASIVO), isNull(), anyMap());
+    }
+
+    @Test
+    @DisplayName("Debería aplicar uno a uno si el lote falla y dejar FALLIDO el evento que agota sus intentos")
+    void testProcesarLoteConEventoFallido() {
+        // Arrange
+        EventoStripe bueno = evento("evt_1", StripeWebhookProcessor.PAGO_EXITOSO, "pi_1", 10L, 0);
+        EventoStripe malo = evento("evt_2", StripeWebhookProcessor.PAGO_EXITOSO, "pi_2", 20L, 1);
+        when(eventoStripeRepository.bloquearPendientes(eq(EstadoEventoStripe.PENDIENTE), any(Pageable.class)))
+                .thenReturn(List.of(bueno, malo));
+        when(eventoStripeRepository.bloquearPorId("evt_1", EstadoEventoStripe.PENDIENTE)).thenReturn(List.of(bueno));
+        when(eventoStripeRepository.bloquearPorId("evt_2", EstadoEventoStripe.PENDIENTE)).thenReturn(List.of(malo));
+        when(eventoStripeRepository.findById("evt_2")).thenReturn(Optional.of(malo));
+        when(ordenRepository.findEstadosByIdIn(anySet())).thenAnswer(inv -> {
+            Set<Long> ids = inv.getArgument(0);
+            return ids.stream().map(id -> new EstadoOrdenActualDto(id, EstadoOrden.DISPONIBLEPARAPAGO, 100.0)).toList();
+        });
+        when(ordenService.marcarComoPagada(20L)).thenThrow(new RuntimeException("Stock insuficiente"));
+
+        // Act
+        int procesados = procesador.procesarLote();
+
+        // Assert
+        assertEquals(2, procesados);
+        verify(ordenService, times(2)).marcarComoPagada(10L);
+        verify(eventoStripeRepository).marcar(eq(List.of("evt_1")), eq(EstadoEventoStripe.PROCESADO), any(LocalDateTime.class));
+        assertEquals(EstadoEventoStripe.FALLIDO, malo.getEstado());
+        assertEquals(2, malo.getIntentos());
+        assertEquals("Stock insuficiente", malo.getUltimoError());
+    }
+
+    @Test
+    @DisplayName("Debería dejar FALLIDO sin aplicar nada un cobro cuyo importe o moneda no coincide con la orden")
+    void testProcesarLoteConImporteDistinto() {
+        // Arrange
+        EventoStripe centavo = evento("evt_1", StripeWebhookProcessor.PAGO_EXITOSO, "pi_1", 10L, 0);
+        centavo.setMontoRecibido(1L);
+        EventoStripe otraMoneda = evento("evt_2", StripeWebhookProcessor.PAGO_EXITOSO, "pi_2", 11L, 0);
+        otraMoneda.setMoneda("usd");
+        when(eventoStripeRepository.bloquearPendientes(eq(EstadoEventoStripe.PENDIENTE), any(Pageable.class)))
+                .thenReturn(List.of(centavo, otraMoneda));
+        when(ordenRepository.findEstadosByIdIn(Set.of(10L, 11L))).thenReturn(List.of(
+                new EstadoOrdenActualDto(10L, EstadoOrden.DISPONIBLEPARAPAGO, 100.0),
+                new EstadoOrdenActualDto(11L, EstadoOrden.DISPONIBLEPARAPAGO, 100.0)));
+
+        // Act
+        int procesados = procesador.procesarLote();
+
+        // Assert
+        assertEquals(2, procesados);
+        assertEquals(EstadoEventoStripe.FALLIDO, centavo.getEstado());
+        assertEquals(EstadoEventoStripe.FALLIDO, otraMoneda.getEstado());
+        assertNotNull(centavo.getUltimoError());
+        verify(ordenService, never()).marcarComoPagada(anyLong());
+        verify(pagoRepository, never()).actualizarEstadoPorTransacciones(any(), any(), any());
+        verify(eventoStripeRepository, never()).marcar(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Debería dejar FALLIDO un cobro de una orden que todavía no admite pago")
+    void testValidarCobroOrdenNoDisponible() {
+        // Arrange
+        EventoStripe evento = evento("evt_1", StripeWebhookProcessor.PAGO_EXITOSO, "pi_1", 10L, 0);
+
+        // Act & Assert
+        assertNotNull(procesador.validarCobro(evento,
+                new EstadoOrdenActualDto(10L, EstadoOrden.AGREGANDOPRODUCTOS, 100.0)));
+        assertNotNull(procesador.validarCobro(evento, null));
+        assertNull(procesador.validarCobro(evento,
+                new EstadoOrdenActualDto(10L, EstadoOrden.DISPONIBLEPARAPAGO, 100.0)));
+        assertNull(procesador.validarCobro(evento,
+                new EstadoOrdenActualDto(10L, EstadoOrden.PAGADA, 100.0)));
+    }
+}
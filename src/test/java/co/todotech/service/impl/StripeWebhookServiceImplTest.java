@@ -0,0 +1,118 @@
+package co.todotech.service.impl;
+
+import co.todotech.exception.pasarela.FirmaWebhookInvalidaException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StripeWebhookServiceImplTest {
+
+    private static final String SECRETO = "whsec_test_secreto";
+    private static final String PAYLOAD = "{\"id\":\"evt_1\",\"type\":\"payment_intent.succeeded\",\"created\":1760000000," +
+            "\"data\":{\"object\":{\"id\":\"pi_1\",\"object\":\"payment_intent\",\"amount_received\":15000," +
+            "\"currency\":\"cop\",\"metadata\":{\"order_id\":\"42\"}}}}";
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private StripeWebhookProcessor procesador;
+
+    private StripeWebhookServiceImpl stripeWebhookService;
+
+    @BeforeEach
+    void setUp() {
+        stripeWebhookService = new StripeWebhookServiceImpl(jdbcTemplate, new ObjectMapper(), procesador);
+        ReflectionTestUtils.setField(stripeWebhookService, "secreto", SECRETO);
+        ReflectionTestUtils.setField(stripeWebhookService, "toleranciaSegundos", 300L);
+    }
+
+    // Mismo formato que la cabecera Stripe-Signature: t=<epoch>,v1=<HMAC-SHA256 de "t.payload">
+    private static String firmar(String payload, String secreto, long timestamp) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(secreto.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        byte[] firma = mac.doFinal((timestamp + "." + payload).getBytes(StandardCharsets.UTF_8));
+        return "t=" + timestamp + ",v1=" + HexFormat.of().formatHex(firma);
+    }
+
+    private static long ahora() {
+        return System.currentTimeMillis() / 1000;
+    }
+
+    @Test
+    @DisplayName("Debería guardar un evento con firma válida y despertar al procesador")
+    void testRegistrarEventoFirmado() throws Exception {
+        // Arrange
+        when(jdbcTemplate.update(anyString(), any(Object[].class))).thenReturn(1);
+
+        // Act
+        boolean nuevo = stripeWebhookService.registrarEvento(PAYLOAD, firmar(PAYLOAD, SECRETO, ahora()));
+
+        // Assert
+        assertTrue(nuevo);
+        verify(jdbcTemplate).update(contains("ON CONFLICT (id) DO NOTHING"),
+                eq("evt_1"), eq("payment_intent.succeeded"), eq("pi_1"), eq(42L), eq(15000L), eq("cop"), eq(PAYLOAD),
+                eq("PENDIENTE"), any(), any());
+        verify(procesador).despertar();
+    }
+
+    @Test
+    @DisplayName("Debería aceptar un reenvío del mismo evento sin volver a procesarlo")
+    void testRegistrarEventoDuplicado() throws Exception {
+        // Arrange
+        when(jdbcTemplate.update(anyString(), any(Object[].class))).thenReturn(0);
+
+        // Act
+        boolean nuevo = stripeWebhookService.registrarEvento(PAYLOAD, firmar(PAYLOAD, SECRETO, ahora()));
+
+        // Assert
+        assertFalse(nuevo);
+        verify(procesador, never()).despertar();
+    }
+
+    @Test
+    @DisplayName("Debería rechazar un evento firmado con otro secreto o con el cuerpo alterado")
+    void testRegistrarEventoFirmaInvalida() throws Exception {
+        // Arrange
+        String firmaOtroSecreto = firmar(PAYLOAD, "whsec_otro", ahora());
+        String firmaOriginal = firmar(PAYLOAD, SECRETO, ahora());
+        String alterado = PAYLOAD.replace("pi_1", "pi_2");
+
+        // Act & Assert
+        assertThrows(FirmaWebhookInvalidaException.class,
+                () -> stripeWebhookService.registrarEvento(PAYLOAD, firmaOtroSecreto));
+        assertThrows(FirmaWebhookInvalidaException.class,
+                () -> stripeWebhookService.registrarEvento(alterado, firmaOriginal));
+        assertThrows(FirmaWebhookInvalidaException.class,
+                () -> stripeWebhookService.registrarEvento(PAYLOAD, null));
+        verifyNoInteractions(jdbcTemplate, procesador);
+    }
+
+    @Test
+    @DisplayName("Debería rechazar una firma fuera de la tolerancia aunque sea correcta")
+    void testRegistrarEventoFirmaCaducada() throws Exception {
+        // Arrange
+        String firmaAntigua = firmar(PAYLOAD, SECRETO, ahora() - 3600);
+
+        // Act & Assert
+        assertThrows(FirmaWebhookInvalidaException.class,
+                () -> stripeWebhookService.registrarEvento(PAYLOAD, firmaAntigua));
+        verifyNoInteractions(jdbcTemplate);
+    }
+}
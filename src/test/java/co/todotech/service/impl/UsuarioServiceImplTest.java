@@ -9,6 +9,9 @@ import co.todotech.model.enums.TipoUsuario;
 import co.todotech.repository.UsuarioRepository;
 import co.todotech.security.JwtUtil;
 import co.todotech.security.TokenBlacklistService;
+import co.todotech.security.UserTokenEpochCache;
+import co.todotech.service.AuditoriaService;
+import co.todotech.service.SesionService;
 import co.todotech.utils.EmailService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -49,6 +52,15 @@ class UsuarioServiceImplTest {
     @Mock
     private TokenBlacklistService tokenBlacklistService;
 
+    @Mock
+    private AuditoriaService auditoriaService;
+
+    @Mock
+    private UserTokenEpochCache userTokenEpochCache;
+
+    @Mock
+    private SesionService sesionService;
+
     @InjectMocks
     private UsuarioServiceImpl usuarioService;
 
@@ -118,7 +130,7 @@ class UsuarioServiceImplTest {
                 .thenReturn(true);
 
         // Se simula la generación de un token JWT válido
-        when(jwtUtil.generateToken(anyString(), anyLong(), anyString()))
+        when(jwtUtil.generateToken(anyString(), anyLong(), anyString(), anyLong()))
                 .thenReturn("jwt-token");
 
         // Act (ejecución)
@@ -139,7 +151,27 @@ class UsuarioServiceImplTest {
         // Se verifica que se llamaron los métodos necesarios
         verify(usuarioRepository).findByNombreUsuario(nombreUsuario);
         verify(passwordEncoder).matches(contrasena, usuario.getContrasena());
-        verify(jwtUtil).generateToken("juanperez", 1L, "VENDEDOR");
+        verify(jwtUtil).generateToken("juanperez", 1L, "VENDEDOR", 0L);
+    }
+
+    @Test
+    @DisplayName("Debería rehacer el hash de la contraseña al hacer login si cambió el coste configurado")
+    void testLoginRehashContrasena() {
+        // Arrange
+        when(usuarioRepository.findByNombreUsuario("juanperez")).thenReturn(Optional.of(usuario));
+        when(passwordEncoder.matches("password123", "encodedPassword")).thenReturn(true);
+        when(passwordEncoder.upgradeEncoding("encodedPassword")).thenReturn(true);
+        when(passwordEncoder.encode("password123")).thenReturn("rehashedPassword");
+        when(usuarioRepository.actualizarHashContrasena(1L, "encodedPassword", "rehashedPassword")).thenReturn(1);
+        when(jwtUtil.generateToken(anyString(), anyLong(), anyString(), anyLong())).thenReturn("jwt-token");
+
+        // Act
+        LoginResponse response = usuarioService.login("juanperez", "password123");
+
+        // Assert
+        assertEquals("jwt-token", response.getToken());
+        assertEquals("rehashedPassword", usuario.getContrasena());
+        verify(usuarioRepository).actualizarHashContrasena(1L, "encodedPassword", "rehashedPassword");
     }
 
     @Test
@@ -158,7 +190,7 @@ class UsuarioServiceImplTest {
                 .thenReturn(true);
 
         // Se genera un token ficticio para el admin
-        when(jwtUtil.generateToken(anyString(), anyLong(), anyString()))
+        when(jwtUtil.generateToken(anyString(), anyLong(), anyString(), anyLong()))
                 .thenReturn("jwt-token-admin");
 
         // Se simula el envío exitoso de la notificación de ingreso al admin
@@ -196,7 +228,7 @@ class UsuarioServiceImplTest {
                 .thenReturn(true);
 
         // Se genera token con éxito
-        when(jwtUtil.generateToken(anyString(), anyLong(), anyString()))
+        when(jwtUtil.generateToken(anyString(), anyLong(), anyString(), anyLong()))
                 .thenReturn("jwt-token-admin");
 
         // Se fuerza un error al intentar enviar el correo (para probar manejo de excepciones)
@@ -459,6 +491,38 @@ class UsuarioServiceImplTest {
         assertFalse(usuario.isEstado());
     }
 
+    @Test
+    @DisplayName("Debería invalidar los tokens emitidos al desactivar el usuario")
+    void testCambiarEstadoUsuarioInvalidaTokens() {
+        // Arrange
+        usuario.setEstado(true);
+        when(usuarioRepository.findById(1L)).thenReturn(Optional.of(usuario));
+        when(usuarioRepository.save(any(Usuario.class))).thenReturn(usuario);
+
+        // Act
+        usuarioService.cambiarEstadoUsuario(1L, false);
+
+        // Assert
+        assertEquals(1L, usuario.getTokenEpoch());
+        verify(userTokenEpochCache).invalidateAfterCommit(1L);
+    }
+
+    @Test
+    @DisplayName("No debería invalidar los tokens al activar un usuario")
+    void testCambiarEstadoUsuarioActivarNoInvalidaTokens() {
+        // Arrange
+        usuario.setEstado(false);
+        when(usuarioRepository.findById(1L)).thenReturn(Optional.of(usuario));
+        when(usuarioRepository.save(any(Usuario.class))).thenReturn(usuario);
+
+        // Act
+        usuarioService.cambiarEstadoUsuario(1L, true);
+
+        // Assert
+        assertEquals(0L, usuario.getTokenEpoch());
+        verify(userTokenEpochCache, never()).invalidateAfterCommit(anyLong());
+    }
+
     @Test
     @DisplayName("Debería obtener usuario por ID exitosamente")
     void testObtenerUsuarioPorId() {
@@ -0,0 +1,163 @@
+package co.todotech.utils.impl;
+
+import co.todotech.model.entities.CorreoFallido;
+import co.todotech.model.entities.CorreoSaliente;
+import co.todotech.model.enums.EstadoCorreo;
+import co.todotech.model.enums.TipoCorreo;
+import co.todotech.repository.CorreoFallidoRepository;
+import co.todotech.repository.CorreoSalienteRepository;
+import jakarta.mail.MessagingException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CorreoWorkerPoolTest {
+
+    @Mock
+    private CorreoSalienteRepository correoSalienteRepository;
+
+    @Mock
+    private CorreoFallidoRepository correoFallidoRepository;
+
+    @Mock
+    private ColaCorreos colaCorreos;
+
+    @Mock
+    private JavaMailSender mailSender;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private CorreoWorkerPool workerPool;
+
+    @BeforeEach
+    void setUp() {
+        workerPool = new CorreoWorkerPool(correoSalienteRepository, correoFallidoRepository, colaCorreos,
+                mailSender, transactionManager);
+        ReflectionTestUtils.setField(workerPool, "tamanoLote", 20);
+        ReflectionTestUtils.setField(workerPool, "maxIntentos", 3);
+        ReflectionTestUtils.setField(workerPool, "reintentosInmediatos", 2);
+        ReflectionTestUtils.setField(workerPool, "reintentoEsperaMs", 1L);
+        ReflectionTestUtils.setField(workerPool, "leaseSegundos", 300L);
+        workerPool.configurar();
+    }
+
+    private CorreoSaliente correo(Long id, int intentos) {
+        LocalDateTime ahora = LocalDateTime.now();
+        return CorreoSaliente.builder()
+                .id(id)
+                .tipo(TipoCorreo.NOTIFICACION_INGRESO_ADMIN)
+                .destinatario("admin@todotech.com")
+                .asunto("Ingreso al sistema")
+                .cuerpoHtml("<p>Hola</p>")
+                .estado(EstadoCorreo.PENDIENTE)
+                .intentos(intentos)
+                .siguienteIntento(ahora)
+                .fechaCreacion(ahora)
+                .build();
+    }
+
+    @Test
+    @DisplayName("Debería enviar el correo reclamado y marcarlo como enviado")
+    void testProcesarLoteExitoso() {
+        // Arrange
+        CorreoSaliente correo = correo(1L, 0);
+        when(correoSalienteRepository.bloquearPendientes(eq(EstadoCorreo.PENDIENTE), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(Arrays.asList(correo));
+        List<Long> enviados = new ArrayList<>();
+
+        // Act
+        int procesados = workerPool.procesarLote(c -> enviados.add(c.getId()));
+
+        // Assert
+        assertEquals(1, procesados);
+        assertEquals(List.of(1L), enviados);
+        assertEquals(1, correo.getIntentos());
+        assertTrue(correo.getSiguienteIntento().isAfter(LocalDateTime.now()));
+        verify(correoSalienteRepository).marcarEnviado(eq(1L), eq(EstadoCorreo.ENVIADO), any(LocalDateTime.class));
+        verify(correoSalienteRepository, never()).reprogramar(anyLong(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Debería reintentar en el momento y enviar si el servidor se recupera")
+    void testProcesarLoteReintentoInmediato() {
+        // Arrange
+        CorreoSaliente correo = correo(1L, 0);
+        when(correoSalienteRepository.bloquearPendientes(eq(EstadoCorreo.PENDIENTE), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(Arrays.asList(correo));
+        int[] llamadas = {0};
+
+        // Act
+        workerPool.procesarLote(c -> {
+            if (llamadas[0]++ == 0) {
+                throw new MessagingException("Connection reset");
+            }
+        });
+
+        // Assert
+        assertEquals(2, llamadas[0]);
+        verify(correoSalienteRepository).marcarEnviado(eq(1L), eq(EstadoCorreo.ENVIADO), any(LocalDateTime.class));
+    }
+
+    @Test
+    @DisplayName("Debería reprogramar con espera el correo que sigue fallando")
+    void testProcesarLoteReprogramaFallo() {
+        // Arrange
+        CorreoSaliente correo = correo(1L, 0);
+        when(correoSalienteRepository.bloquearPendientes(eq(EstadoCorreo.PENDIENTE), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(Arrays.asList(correo));
+
+        // Act
+        workerPool.procesarLote(c -> {
+            throw new MessagingException("Servidor no disponible");
+        });
+
+        // Assert
+        ArgumentCaptor<LocalDateTime> siguiente = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(correoSalienteRepository).reprogramar(eq(1L), siguiente.capture(), eq("Servidor no disponible"));
+        assertTrue(siguiente.getValue().isAfter(LocalDateTime.now()));
+        verify(correoSalienteRepository, never()).marcarEnviado(anyLong(), any(), any());
+        verify(correoFallidoRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Debería mover a correo_fallido el correo que agota sus intentos")
+    void testProcesarLoteAgotaIntentos() {
+        // Arrange
+        CorreoSaliente correo = correo(1L, 2);
+        when(correoSalienteRepository.bloquearPendientes(eq(EstadoCorreo.PENDIENTE), any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(Arrays.asList(correo));
+
+        // Act
+        workerPool.procesarLote(c -> {
+            throw new MessagingException("Servidor no disponible");
+        });
+
+        // Assert
+        ArgumentCaptor<CorreoFallido> captor = ArgumentCaptor.forClass(CorreoFallido.class);
+        verify(correoFallidoRepository).save(captor.capture());
+        assertEquals(1L, captor.getValue().getCorreoId());
+        assertEquals(3, captor.getValue().getIntentos());
+        assertEquals("admin@todotech.com", captor.getValue().getDestinatario());
+        verify(correoSalienteRepository).deleteById(1L);
+        verify(correoSalienteRepository, never()).reprogramar(anyLong(), any(), any());
+    }
+}
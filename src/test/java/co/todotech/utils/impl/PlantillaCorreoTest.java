@@ -0,0 +1,79 @@
+package co.todotech.utils.impl;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PlantillaCorreoTest {
+
+    @Test
+    @DisplayName("Debería sustituir las variables escapando el HTML de los valores")
+    void testRenderizarEscapaValores() {
+        // Arrange
+        PlantillaCorreo plantilla = PlantillaCorreo.compilar("saludo", "<h3>¡Hola {{nombre}}!</h3><p>{{ nota }}</p>");
+
+        // Act
+        String html = plantilla.renderizar(Map.of(
+                "nombre", "Ana <script>alert('x')</script>",
+                "nota", "Tom & \"Jerry\" ñ"));
+
+        // Assert
+        assertEquals("<h3>¡Hola Ana &lt;script&gt;alert(&#39;x&#39;)&lt;/script&gt;!</h3>"
+                + "<p>Tom &amp; &quot;Jerry&quot; ñ</p>", html);
+        assertEquals(Set.of("nombre", "nota"), plantilla.variables());
+    }
+
+    @Test
+    @DisplayName("Debería renderizar vacías las variables sin valor y reutilizar el búfer entre llamadas")
+    void testRenderizarVariablesAusentes() {
+        // Arrange
+        PlantillaCorreo plantilla = PlantillaCorreo.compilar("recibo", "Orden {{numero}} - {{total}}");
+        Map<String, Object> valores = new HashMap<>();
+        valores.put("numero", "ORD-1");
+        valores.put("total", null);
+
+        // Act
+        String primero = plantilla.renderizar(valores);
+        String segundo = plantilla.renderizar(Map.of("numero", "ORD-22", "total", 150.5));
+
+        // Assert
+        assertEquals("Orden ORD-1 - ", primero);
+        assertEquals("Orden ORD-22 - 150.5", segundo);
+    }
+
+    @Test
+    @DisplayName("Debería rechazar al compilar una variable sin cerrar")
+    void testCompilarVariableSinCerrar() {
+        // Act & Assert
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> {
+            PlantillaCorreo.compilar("rota", "<p>{{nombre</p>");
+        });
+
+        assertTrue(ex.getMessage().contains("rota"));
+    }
+
+    @Test
+    @DisplayName("Debería cargar las plantillas de correo del classpath")
+    void testCargarPlantillasDelClasspath() throws Exception {
+        // Arrange
+        PlantillasCorreo plantillas = new PlantillasCorreo();
+
+        // Act
+        plantillas.cargar();
+        String html = plantillas.renderizar(PlantillasCorreo.INGRESO_ADMIN, Map.of(
+                "nombre", "Admin", "fechaHora", "2024-01-01 10:00:00"));
+
+        // Assert
+        assertTrue(plantillas.nombres().containsAll(Set.of(
+                PlantillasCorreo.INGRESO_ADMIN, PlantillasCorreo.RECORDATORIO_CONTRASENA)));
+        assertEquals(Set.of("nombre", "nombreUsuario", "contrasena"),
+                plantillas.obtener(PlantillasCorreo.RECORDATORIO_CONTRASENA).variables());
+        assertTrue(html.contains("¡Hola Admin!"));
+        assertTrue(html.contains("2024-01-01 10:00:00"));
+    }
+}